@@ -21,6 +21,7 @@ package org.apache.heron.api;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,8 @@ import java.util.Set;
 
 import javax.xml.bind.DatatypeConverter;
 
+import org.apache.heron.api.serializer.IKryoDecorator;
+import org.apache.heron.api.serializer.KryoSerializer;
 import org.apache.heron.common.basics.ByteAmount;
 
 /**
@@ -105,6 +108,83 @@ public class Config extends HashMap<String, Object> {
    * The serialization class that is used to serialize/deserialize tuples
    */
   public static final String TOPOLOGY_SERIALIZER_CLASSNAME = "topology.serializer.classname";
+  /**
+   * A list of classes to register to the Kryo instances of KryoSerializer. Each item is either the
+   * name of a class, or a map from the name of a class to the name of its Kryo Serializer.
+   */
+  public static final String TOPOLOGY_KRYO_REGISTER = "topology.kryo.register";
+  /**
+   * A list of IKryoDecorator classes to customize the Kryo instances of KryoSerializer.
+   */
+  public static final String TOPOLOGY_KRYO_DECORATORS = "topology.kryo.decorators";
+  /**
+   * Whether KryoSerializer fails to serialize the classes not registered, instead of writing
+   * their class names.
+   */
+  public static final String TOPOLOGY_KRYO_REGISTRATION_REQUIRED =
+      "topology.kryo.registration.required";
+  /**
+   * Whether KryoSerializer skips the registrations and decorators whose classes are not found,
+   * instead of failing.
+   */
+  public static final String TOPOLOGY_SKIP_MISSING_KRYO_REGISTRATIONS =
+      "topology.skip.missing.kryo.registrations";
+  /**
+   * Whether the values of tuples are encoded with PrimitiveTupleCodec, which writes the primitive
+   * types, String and byte[] compactly by itself, and uses the serializer only for other objects.
+   */
+  public static final String TOPOLOGY_PRIMITIVE_TUPLE_CODEC = "topology.primitive.tuple.codec";
+  /**
+   * Whether the spouts could emit from their own threads besides nextTuple(). The tuples emitted
+   * from other threads are staged, and emitted by the instance as max spout pending and
+   * back-pressure allow. A thread emitting too fast for the instance waits for it.
+   */
+  public static final String TOPOLOGY_SPOUT_CONCURRENT_EMIT = "topology.spout.concurrent.emit";
+  /**
+   * The maximum # of tuples per second a spout instance emits, 0 for no limit, the default.
+   * The emits are paced by the instance, which stops calling nextTuple() while over the rate.
+   * Usually set for a spout through its component configuration.
+   */
+  public static final String TOPOLOGY_SPOUT_MAX_TUPLES_PER_SECOND =
+      "topology.spout.max.tuples.per.second";
+  /**
+   * The maximum # of bytes of tuples per second a spout instance emits, 0 for no limit, the
+   * default. Paced the same way as topology.spout.max.tuples.per.second.
+   */
+  public static final String TOPOLOGY_SPOUT_MAX_BYTES_PER_SECOND =
+      "topology.spout.max.bytes.per.second";
+  /**
+   * The maximum number of tuples given at once to IBatchedBolt.executeBatch(). A batch never
+   * spans more than one set of tuples received, so with 0, the default, every set received is
+   * a batch.
+   */
+  public static final String TOPOLOGY_BOLT_BATCH_SIZE = "topology.bolt.batch.size";
+  /**
+   * The maximum number of tuples an IAsyncBolt has in flight, executing or waiting for the
+   * tuples received before with the same key. Once reached, the bolt stops reading tuples.
+   */
+  public static final String TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT =
+      "topology.bolt.async.max.inflight";
+  /**
+   * The number of threads of the executor given to an IAsyncBolt. With 0, the default, every
+   * task runs on a new virtual thread if the JVM supports them, else on a cached thread pool.
+   */
+  public static final String TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS =
+      "topology.bolt.async.executor.threads";
+  /**
+   * The number of threads executing the tuples of each instance of a bolt, 1 by default. With
+   * more, execute() is called from several threads at once, so the bolt has to be thread safe.
+   * Not used by IBatchedBolt and IAsyncBolt.
+   */
+  public static final String TOPOLOGY_BOLT_EXECUTOR_THREADS = "topology.bolt.executor.threads";
+  /**
+   * The comma separated fields by whose hash the tuples are spread among the threads of
+   * TOPOLOGY_BOLT_EXECUTOR_THREADS, so the tuples with the same values are executed in order by
+   * the same thread. All the input streams must have these fields. If not set, the tuples are
+   * spread round robin.
+   */
+  public static final String TOPOLOGY_BOLT_EXECUTOR_KEY_FIELDS =
+      "topology.bolt.executor.key.fields";
   /**
    * Is the topology running in atleast-once mode?
    * <p>
@@ -327,6 +407,17 @@ public class Config extends HashMap<String, Object> {
     apiVars.add(TOPOLOGY_WORKER_CHILDOPTS);
     apiVars.add(TOPOLOGY_COMPONENT_JVMOPTS);
     apiVars.add(TOPOLOGY_SERIALIZER_CLASSNAME);
+    apiVars.add(TOPOLOGY_KRYO_REGISTRATION_REQUIRED);
+    apiVars.add(TOPOLOGY_SKIP_MISSING_KRYO_REGISTRATIONS);
+    apiVars.add(TOPOLOGY_PRIMITIVE_TUPLE_CODEC);
+    apiVars.add(TOPOLOGY_SPOUT_CONCURRENT_EMIT);
+    apiVars.add(TOPOLOGY_SPOUT_MAX_TUPLES_PER_SECOND);
+    apiVars.add(TOPOLOGY_SPOUT_MAX_BYTES_PER_SECOND);
+    apiVars.add(TOPOLOGY_BOLT_BATCH_SIZE);
+    apiVars.add(TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT);
+    apiVars.add(TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS);
+    apiVars.add(TOPOLOGY_BOLT_EXECUTOR_THREADS);
+    apiVars.add(TOPOLOGY_BOLT_EXECUTOR_KEY_FIELDS);
     apiVars.add(TOPOLOGY_TICK_TUPLE_FREQ_MS);
     apiVars.add(TOPOLOGY_ENABLE_MESSAGE_TIMEOUTS);
     apiVars.add(TOPOLOGY_CONTAINER_CPU_REQUESTED);
@@ -397,6 +488,90 @@ public class Config extends HashMap<String, Object> {
     conf.put(Config.TOPOLOGY_SERIALIZER_CLASSNAME, className);
   }
 
+  public static void setKryoSerializer(Map<String, Object> conf) {
+    setSerializationClassName(conf, KryoSerializer.class.getName());
+  }
+
+  public static void registerKryoSerialization(Map<String, Object> conf, Class<?> klass) {
+    getKryoRegistrations(conf).add(klass.getName());
+  }
+
+  public static void registerKryoSerialization(Map<String, Object> conf, Class<?> klass,
+                                               Class<?> serializerClass) {
+    Map<String, String> registration = new HashMap<>();
+    registration.put(klass.getName(), serializerClass.getName());
+    getKryoRegistrations(conf).add(registration);
+  }
+
+  public static void registerKryoDecorator(Map<String, Object> conf,
+                                           Class<? extends IKryoDecorator> klass) {
+    getKryoDecorators(conf).add(klass.getName());
+  }
+
+  public static void setKryoRegistrationRequired(Map<String, Object> conf, boolean required) {
+    conf.put(Config.TOPOLOGY_KRYO_REGISTRATION_REQUIRED, String.valueOf(required));
+  }
+
+  public static void setSkipMissingKryoRegistrations(Map<String, Object> conf, boolean skip) {
+    conf.put(Config.TOPOLOGY_SKIP_MISSING_KRYO_REGISTRATIONS, String.valueOf(skip));
+  }
+
+  public static void setPrimitiveTupleCodec(Map<String, Object> conf, boolean enabled) {
+    conf.put(Config.TOPOLOGY_PRIMITIVE_TUPLE_CODEC, String.valueOf(enabled));
+  }
+
+  public static void setSpoutConcurrentEmit(Map<String, Object> conf, boolean enabled) {
+    conf.put(Config.TOPOLOGY_SPOUT_CONCURRENT_EMIT, String.valueOf(enabled));
+  }
+
+  public static void setSpoutMaxTuplesPerSecond(Map<String, Object> conf, double rate) {
+    conf.put(Config.TOPOLOGY_SPOUT_MAX_TUPLES_PER_SECOND, Double.toString(rate));
+  }
+
+  public static void setSpoutMaxBytesPerSecond(Map<String, Object> conf, double rate) {
+    conf.put(Config.TOPOLOGY_SPOUT_MAX_BYTES_PER_SECOND, Double.toString(rate));
+  }
+
+  public static void setBoltBatchSize(Map<String, Object> conf, int size) {
+    conf.put(Config.TOPOLOGY_BOLT_BATCH_SIZE, Integer.toString(size));
+  }
+
+  public static void setBoltAsyncMaxInFlight(Map<String, Object> conf, int maxInFlight) {
+    conf.put(Config.TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT, Integer.toString(maxInFlight));
+  }
+
+  public static void setBoltAsyncExecutorThreads(Map<String, Object> conf, int threads) {
+    conf.put(Config.TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS, Integer.toString(threads));
+  }
+
+  public static void setBoltExecutorThreads(Map<String, Object> conf, int threads) {
+    conf.put(Config.TOPOLOGY_BOLT_EXECUTOR_THREADS, Integer.toString(threads));
+  }
+
+  public static void setBoltExecutorKeyFields(Map<String, Object> conf, String... fields) {
+    conf.put(Config.TOPOLOGY_BOLT_EXECUTOR_KEY_FIELDS, String.join(",", fields));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> getKryoRegistrations(Map<String, Object> conf) {
+    List<Object> ret = new ArrayList<>();
+    if (conf.containsKey(Config.TOPOLOGY_KRYO_REGISTER)) {
+      ret.addAll((List<Object>) conf.get(Config.TOPOLOGY_KRYO_REGISTER));
+    }
+    conf.put(Config.TOPOLOGY_KRYO_REGISTER, ret);
+    return ret;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> getKryoDecorators(Map<String, Object> conf) {
+    List<String> ret = new ArrayList<>();
+    if (conf.containsKey(Config.TOPOLOGY_KRYO_DECORATORS)) {
+      ret.addAll((List<String>) conf.get(Config.TOPOLOGY_KRYO_DECORATORS));
+    }
+    conf.put(Config.TOPOLOGY_KRYO_DECORATORS, ret);
+    return ret;
+  }
+
   /**
    * Is topology running with acking enabled?
    * @deprecated use {@link #setTopologyReliabilityMode(Map, TopologyReliabilityMode)} instead.
@@ -658,6 +833,42 @@ public class Config extends HashMap<String, Object> {
     setSerializationClassName(this, className);
   }
 
+  public void setPrimitiveTupleCodec(boolean enabled) {
+    setPrimitiveTupleCodec(this, enabled);
+  }
+
+  public void setSpoutConcurrentEmit(boolean enabled) {
+    setSpoutConcurrentEmit(this, enabled);
+  }
+
+  public void setSpoutMaxTuplesPerSecond(double rate) {
+    setSpoutMaxTuplesPerSecond(this, rate);
+  }
+
+  public void setSpoutMaxBytesPerSecond(double rate) {
+    setSpoutMaxBytesPerSecond(this, rate);
+  }
+
+  public void setBoltBatchSize(int size) {
+    setBoltBatchSize(this, size);
+  }
+
+  public void setBoltAsyncMaxInFlight(int maxInFlight) {
+    setBoltAsyncMaxInFlight(this, maxInFlight);
+  }
+
+  public void setBoltAsyncExecutorThreads(int threads) {
+    setBoltAsyncExecutorThreads(this, threads);
+  }
+
+  public void setBoltExecutorThreads(int threads) {
+    setBoltExecutorThreads(this, threads);
+  }
+
+  public void setBoltExecutorKeyFields(String... fields) {
+    setBoltExecutorKeyFields(this, fields);
+  }
+
   /**
    * Is topology running with acking enabled?
    * The SupressWarning will be removed once TOPOLOGY_ENABLE_ACKING is removed
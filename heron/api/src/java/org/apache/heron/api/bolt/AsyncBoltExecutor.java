@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.api.bolt;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import org.apache.heron.api.Config;
+import org.apache.heron.api.exception.FailedException;
+import org.apache.heron.api.exception.ReportedFailedException;
+import org.apache.heron.api.topology.OutputFieldsDeclarer;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Tuple;
+import org.apache.heron.api.tuple.Values;
+import org.apache.heron.common.basics.TypeUtils;
+
+/**
+ * An {@link IAsyncBolt} wrapper that keeps track of the tuples executing.
+ * <p>
+ * The futures complete on the threads of the bolt, which only queue the executions completed
+ * and wake up the instance with the Runnable given to setWakeUp(). The instance then calls
+ * processCompletions() on its own thread to emit the results and ack the tuples, and does not
+ * read tuples while isSaturated(). The executions completed are also processed every time a
+ * tuple is executed, so the bolt makes progress with no wake up set too.
+ */
+public class AsyncBoltExecutor implements IRichBolt {
+  private static final long serialVersionUID = 5139417207613583465L;
+  private static final Logger LOG = Logger.getLogger(AsyncBoltExecutor.class.getName());
+
+  private static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+  private final IAsyncBolt bolt;
+
+  private transient OutputCollector collector;
+  private transient ExecutorService executorService;
+  private transient Runnable wakeUp;
+  private transient int maxInFlight;
+  // The # of tuples executing, or completed and waiting for the tuples before with the same key
+  private transient int inFlight;
+  // The tuples received while saturated, executed as the tuples in flight complete
+  private transient Queue<Tuple> backlog;
+  // The executions in flight of every key, in the order their tuples were received
+  private transient Map<Object, Deque<Execution>> executionsByKey;
+  private transient Queue<Execution> completions;
+
+  public AsyncBoltExecutor(IAsyncBolt bolt) {
+    this.bolt = bolt;
+  }
+
+  /**
+   * Set what to run once a tuple completes, to have processCompletions() called. It is run
+   * on the threads completing the futures.
+   */
+  public void setWakeUp(Runnable wakeUp) {
+    this.wakeUp = wakeUp;
+  }
+
+  @Override
+  public void prepare(Map<String, Object> heronConf, TopologyContext context,
+                      OutputCollector outputCollector) {
+    this.collector = outputCollector;
+    this.maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    if (heronConf.get(Config.TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT) != null) {
+      maxInFlight = TypeUtils.getInteger(heronConf.get(Config.TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT));
+    }
+    int threads = 0;
+    if (heronConf.get(Config.TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS) != null) {
+      threads = TypeUtils.getInteger(heronConf.get(Config.TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS));
+    }
+    if (wakeUp == null) {
+      wakeUp = () -> { };
+    }
+    this.backlog = new ArrayDeque<>();
+    this.executionsByKey = new HashMap<>();
+    this.completions = new ConcurrentLinkedQueue<>();
+    this.executorService = newExecutorService(threads);
+
+    bolt.prepare(heronConf, context, executorService);
+  }
+
+  /**
+   * A fixed thread pool if the # of threads is given, else a virtual thread per task if the
+   * JVM supports them, else a cached thread pool
+   */
+  private static ExecutorService newExecutorService(int threads) {
+    if (threads > 0) {
+      return Executors.newFixedThreadPool(threads);
+    }
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      LOG.info("Virtual threads are not supported, using a cached thread pool");
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  @Override
+  public void execute(Tuple input) {
+    processCompletions();
+    if (inFlight >= maxInFlight) {
+      backlog.add(input);
+    } else {
+      start(input);
+    }
+  }
+
+  /**
+   * Whether as many tuples as allowed are in flight, so no more should be read
+   */
+  public boolean isSaturated() {
+    return inFlight >= maxInFlight;
+  }
+
+  public int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Emit the results of, and ack or fail, the tuples completed, as far as the order of their
+   * keys allows, and start the tuples received while saturated
+   */
+  public void processCompletions() {
+    Execution execution;
+    while ((execution = completions.poll()) != null) {
+      execution.done = true;
+      if (execution.key == null) {
+        finish(execution);
+        continue;
+      }
+      Deque<Execution> executions = executionsByKey.get(execution.key);
+      while (!executions.isEmpty() && executions.peekFirst().done) {
+        finish(executions.pollFirst());
+      }
+      if (executions.isEmpty()) {
+        executionsByKey.remove(execution.key);
+      }
+    }
+
+    while (inFlight < maxInFlight && !backlog.isEmpty()) {
+      start(backlog.poll());
+    }
+  }
+
+  private void start(Tuple input) {
+    Execution execution = new Execution(input, bolt.getKey(input));
+    inFlight++;
+    if (execution.key != null) {
+      executionsByKey.computeIfAbsent(execution.key, k -> new ArrayDeque<>()).addLast(execution);
+    }
+
+    CompletableFuture<List<Values>> future;
+    try {
+      future = bolt.execute(input);
+    } catch (RuntimeException e) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+    }
+    if (future == null) {
+      future = CompletableFuture.completedFuture(null);
+    }
+    future.whenComplete((results, error) -> {
+      execution.results = results;
+      execution.error = error;
+      completions.offer(execution);
+      wakeUp.run();
+    });
+  }
+
+  private void finish(Execution execution) {
+    inFlight--;
+    if (execution.error != null) {
+      Throwable error = execution.error;
+      if (error instanceof CompletionException && error.getCause() != null) {
+        error = error.getCause();
+      }
+      if (!(error instanceof FailedException) || error instanceof ReportedFailedException) {
+        collector.reportError(error);
+      }
+      collector.fail(execution.input);
+      return;
+    }
+    if (execution.results != null) {
+      for (Values values : execution.results) {
+        collector.emit(execution.input, values);
+      }
+    }
+    collector.ack(execution.input);
+  }
+
+  @Override
+  public void cleanup() {
+    executorService.shutdownNow();
+    bolt.cleanup();
+  }
+
+  @Override
+  public void declareOutputFields(OutputFieldsDeclarer declarer) {
+    bolt.declareOutputFields(declarer);
+  }
+
+  @Override
+  public Map<String, Object> getComponentConfiguration() {
+    return bolt.getComponentConfiguration();
+  }
+
+  /**
+   * A tuple in flight. Its outcome is set by the thread completing its future, and read by the
+   * instance after taking it from the completions queue.
+   */
+  private static final class Execution {
+    private final Tuple input;
+    private final Object key;
+    private List<Values> results;
+    private Throwable error;
+    // Whether the instance has taken the execution from the completions queue
+    private boolean done;
+
+    Execution(Tuple input, Object key) {
+      this.input = input;
+      this.key = key;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.api.bolt;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.heron.api.Config;
+import org.apache.heron.api.topology.BaseComponent;
+
+public abstract class BaseAsyncBolt extends BaseComponent implements IAsyncBolt {
+  private static final long serialVersionUID = -2318650277612349082L;
+
+  private final Map<String, Object> asyncConfiguration = new HashMap<>();
+
+  /**
+   * Set the maximum # of tuples of this bolt executing at once
+   */
+  public BaseAsyncBolt withMaxInFlight(int maxInFlight) {
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("Max in flight must be positive: " + maxInFlight);
+    }
+    asyncConfiguration.put(Config.TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT, maxInFlight);
+    return this;
+  }
+
+  /**
+   * Set the # of threads of the executor of this bolt, 0 for a virtual thread per task if
+   * the JVM supports them
+   */
+  public BaseAsyncBolt withExecutorThreads(int threads) {
+    if (threads < 0) {
+      throw new IllegalArgumentException("Executor threads must not be negative: " + threads);
+    }
+    asyncConfiguration.put(Config.TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS, threads);
+    return this;
+  }
+
+  @Override
+  public Map<String, Object> getComponentConfiguration() {
+    return asyncConfiguration;
+  }
+
+  @Override
+  public void cleanup() {
+  }
+}
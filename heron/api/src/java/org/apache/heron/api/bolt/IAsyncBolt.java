@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.api.bolt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.apache.heron.api.topology.IComponent;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Tuple;
+import org.apache.heron.api.tuple.Values;
+
+/**
+ * A bolt executing its tuples asynchronously, e.g. calling remote services, so the instance goes
+ * on reading tuples while the results of the ones before are pending.
+ * <p>
+ * Once the future returned by execute() completes, its results are emitted, anchored to the
+ * input tuple, and the input tuple is acked, or failed if the future completed exceptionally.
+ * This is done on the thread of the instance, so the bolt never has to synchronize with it.
+ * <p>
+ * At most Config.TOPOLOGY_BOLT_ASYNC_MAX_IN_FLIGHT tuples are executing at once, after which
+ * the instance stops reading tuples until some of them complete. The results of the tuples
+ * with the same key are emitted in the order the tuples were received, see getKey().
+ */
+public interface IAsyncBolt extends IComponent {
+  long serialVersionUID = -3624153938616419837L;
+
+  /**
+   * Called when a task for this component is initialized within a worker on the cluster.
+   *
+   * @param heronConf The Heron configuration for this bolt
+   * @param context Information about the component's place within the topology
+   * @param executor The executor to run the blocking work of the bolt on, e.g. with
+   * CompletableFuture.supplyAsync(), configured with Config.TOPOLOGY_BOLT_ASYNC_EXECUTOR_THREADS
+   */
+  void prepare(Map<String, Object> heronConf, TopologyContext context, Executor executor);
+
+  /**
+   * Start executing a tuple, on the thread of the instance. The tuples the future completes
+   * with, if any, are emitted to the default stream.
+   *
+   * @param input The input tuple to be processed.
+   * @return the future of the tuples to emit for the input tuple, or null if the tuple is done
+   * with nothing to emit, as with a future completed with null
+   */
+  CompletableFuture<List<Values>> execute(Tuple input);
+
+  /**
+   * The key of a tuple: the results of the tuples with the same key are emitted, and the tuples
+   * acked, in the order the tuples were received. The tuples with no key, the default, are done
+   * as soon as they complete. A constant key keeps all the tuples in order.
+   */
+  default Object getKey(Tuple input) {
+    return null;
+  }
+
+  /**
+   * Called when the bolt is going to be shutdown, after the executor is shut down.
+   */
+  void cleanup();
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.api.bolt;
+
+import java.util.List;
+
+import org.apache.heron.api.tuple.Tuple;
+
+/**
+ * A bolt executing its input tuples a batch at a time, e.g. to write them to a database in one
+ * request, instead of one by one.
+ * <p>
+ * A batch is made of the tuples of one set received from the stream manager, so all its tuples
+ * come from the same stream, split in batches of at most Config.TOPOLOGY_BOLT_BATCH_SIZE tuples
+ * if it is set. A batch is timed once, and its latency is shared evenly among its tuples. The
+ * execute metrics count every tuple, and the execute hooks are still called once per tuple with
+ * that share of the latency, since ITaskHook has no callback for a batch.
+ * <p>
+ * The tuples of a batch could be acked or failed at once with OutputCollector.ackBatch() and
+ * failBatch(). execute(Tuple) is still called for tick tuples.
+ */
+public interface IBatchedBolt extends IRichBolt {
+  /**
+   * Process a batch of input tuples. Like with execute(Tuple), every tuple has to be acked or
+   * failed at some point, and the bolt could keep the list.
+   *
+   * @param inputs The input tuples to be processed, in the order they were received.
+   */
+  void executeBatch(List<Tuple> inputs);
+}
@@ -35,4 +35,22 @@ public interface IOutputCollector extends IErrorReporter {
   void ack(Tuple input);
 
   void fail(Tuple input);
+
+  /**
+   * Ack all the input tuples at once, e.g. the batch given to IBatchedBolt.executeBatch().
+   */
+  default void ackBatch(Collection<Tuple> inputs) {
+    for (Tuple input : inputs) {
+      ack(input);
+    }
+  }
+
+  /**
+   * Fail all the input tuples at once, e.g. the batch given to IBatchedBolt.executeBatch().
+   */
+  default void failBatch(Collection<Tuple> inputs) {
+    for (Tuple input : inputs) {
+      fail(input);
+    }
+  }
 }
@@ -225,6 +225,16 @@ public class OutputCollector implements IOutputCollector {
     delegate.fail(input);
   }
 
+  @Override
+  public void ackBatch(Collection<Tuple> inputs) {
+    delegate.ackBatch(inputs);
+  }
+
+  @Override
+  public void failBatch(Collection<Tuple> inputs) {
+    delegate.failBatch(inputs);
+  }
+
   @Override
   public void reportError(Throwable error) {
     delegate.reportError(error);
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.metric;
+
+import java.util.Arrays;
+
+/**
+ * A metric recording a distribution of values, e.g. latencies in nanoseconds, and reporting its
+ * mean, percentiles and max at every interval.
+ * <p>
+ * The values are counted in a fixed number of log-linear buckets, in the way of HdrHistogram:
+ * every power of 2 is split into 16 buckets, so a reported percentile is within about 6% of the
+ * recorded value, while the memory used is fixed and recording a value never allocates.
+ * Negative values are recorded as 0.
+ */
+public class HistogramMetric implements IMetric<HistogramMetric.Snapshot> {
+  // Values below 2^SUB_BUCKET_BITS get a bucket each, and every larger power of 2 is split into
+  // 2^(SUB_BUCKET_BITS - 1) buckets
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+  private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+  private final long[] counts;
+  private long count;
+  private long sum;
+  private long max;
+
+  public HistogramMetric() {
+    counts = new long[BUCKET_COUNT];
+  }
+
+  public void update(long value) {
+    long v = Math.max(value, 0);
+    counts[bucketIndex(v)]++;
+    count++;
+    sum += v;
+    max = Math.max(max, v);
+  }
+
+  /**
+   * Returns the snapshot of the values recorded since the last call, or null if there is none
+   */
+  @Override
+  public Snapshot getValueAndReset() {
+    if (count == 0) {
+      return null;
+    }
+    Snapshot ret = new Snapshot(count, (double) sum / count,
+        valueAtPercentile(50), valueAtPercentile(90), valueAtPercentile(99),
+        valueAtPercentile(99.9), max);
+    Arrays.fill(counts, 0);
+    count = 0;
+    sum = 0;
+    max = 0;
+    return ret;
+  }
+
+  private long valueAtPercentile(double percentile) {
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueInBucket(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    // Keep the SUB_BUCKET_BITS highest bits of the value
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) - SUB_BUCKET_HALF_COUNT;
+    return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + subBucket;
+  }
+
+  static long highestValueInBucket(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+    long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * The values recorded by a HistogramMetric in an interval
+   */
+  public static final class Snapshot {
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+      this.count = count;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.p999 = p999;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getMean() {
+      return mean;
+    }
+
+    public long getP50() {
+      return p50;
+    }
+
+    public long getP90() {
+      return p90;
+    }
+
+    public long getP99() {
+      return p99;
+    }
+
+    public long getP999() {
+      return p999;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("{count=%d, mean=%s, p50=%d, p90=%d, p99=%d, p999=%d, max=%d}",
+          count, mean, p50, p90, p99, p999, max);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.metric;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A HistogramMetric that can hold multiple scoped values.
+ */
+public class MultiHistogramMetric implements IMetric<Map<String, HistogramMetric.Snapshot>> {
+  private Map<String, HistogramMetric> value = new HashMap<>();
+
+  public MultiHistogramMetric() {
+  }
+
+  public HistogramMetric scope(String key) {
+    HistogramMetric val = value.get(key);
+    if (val == null) {
+      value.put(key, val = new HistogramMetric());
+    }
+    return val;
+  }
+
+  @Override
+  public Map<String, HistogramMetric.Snapshot> getValueAndReset() {
+    Map<String, HistogramMetric.Snapshot> ret = new HashMap<>();
+    for (Map.Entry<String, HistogramMetric> entry : value.entrySet()) {
+      HistogramMetric.Snapshot snapshot = entry.getValue().getValueAndReset();
+      if (snapshot != null) {
+        ret.put(entry.getKey(), snapshot);
+      }
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,30 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+/**
+ * A marker for an IPluggableSerializer whose serialize() always returns a new array, which it
+ * never touches again. The instance then hands the array over to the tuple without copying it.
+ * <p>
+ * Only implement it if the serializer never reuses, nor keeps a reference to, the arrays it
+ * returns: a tuple sharing its bytes with an array changed later would be sent out corrupted.
+ */
+public interface IFreshArraySerializer extends IPluggableSerializer {
+}
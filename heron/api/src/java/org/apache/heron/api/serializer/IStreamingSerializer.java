@@ -0,0 +1,43 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An IPluggableSerializer which could also serialize into, and deserialize from, buffers provided
+ * by the caller. When the topology's serializer implements it, the instance serializes the values
+ * of a tuple straight into its own buffer, and deserializes them from the received bytes, saving
+ * an intermediate byte[] and a copy per value.
+ */
+public interface IStreamingSerializer extends IPluggableSerializer {
+  /**
+   * Serialize the object, appending its bytes to the output stream.
+   * The bytes written must be readable by deserialize(byte[]) and deserialize(ByteBuffer).
+   */
+  void serializeTo(Object object, OutputStream output);
+
+  /**
+   * Deserialize an object from the remaining bytes of the buffer. The buffer could be read-only,
+   * and its content must not be held on to once this returns.
+   */
+  Object deserialize(ByteBuffer input);
+}
@@ -22,11 +22,14 @@ package org.apache.heron.api.serializer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
-public class JavaSerializer implements IPluggableSerializer {
+public class JavaSerializer implements IStreamingSerializer {
 
   @Override
   public void initialize(Map<String, Object> config) {
@@ -44,6 +47,18 @@ public class JavaSerializer implements IPluggableSerializer {
     }
   }
 
+  @Override
+  public void serializeTo(Object object, OutputStream output) {
+    try {
+      // Do not close it, which would close the output too
+      ObjectOutputStream oos = new ObjectOutputStream(output);
+      oos.writeObject(object);
+      oos.flush();
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to serialize object: " + object.toString(), e);
+    }
+  }
+
   @Override
   public Object deserialize(byte[] input) {
     try (ByteArrayInputStream bis = new ByteArrayInputStream(input);
@@ -53,4 +68,47 @@ public class JavaSerializer implements IPluggableSerializer {
       throw new RuntimeException("Failed to deserialize object", e);
     }
   }
+
+  @Override
+  public Object deserialize(ByteBuffer input) {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteBufferInputStream(input))) {
+      return ois.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new RuntimeException("Failed to deserialize object", e);
+    }
+  }
+
+  /**
+   * An InputStream reading the remaining bytes of a ByteBuffer, without copying them first
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
 }
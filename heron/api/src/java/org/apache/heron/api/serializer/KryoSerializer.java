@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.DefaultSerializers;
+import com.esotericsoftware.kryo.serializers.MapSerializer;
+
+import org.apache.heron.api.Config;
+
+/**
+ * A Kryo based serializer, which could be used from any number of threads, e.g. by a spout
+ * emitting from background threads.
+ * <p>
+ * Every thread gets its own Kryo instance and buffers on first use. The Kryo instances are set up
+ * from the topology config:
+ * 1. byte[], ArrayList, HashMap, HashSet and BigInteger are always registered.
+ * 2. The classes in Config.TOPOLOGY_KRYO_REGISTER are registered in the order of their names,
+ * with their Serializer if given, so they get the same ids in every instance of the topology
+ * and are written as a small id instead of their class name.
+ * 3. The IKryoDecorators in Config.TOPOLOGY_KRYO_DECORATORS are applied.
+ * With Config.TOPOLOGY_KRYO_REGISTRATION_REQUIRED set, serializing an unregistered class fails
+ * instead of writing its name.
+ * <p>
+ * The output buffer of a thread grows as needed, and is shrunk back once it is much larger than
+ * the sizes recently serialized, so a single large tuple does not pin a large buffer.
+ */
+public class KryoSerializer implements IStreamingSerializer {
+  private static final Logger LOG = Logger.getLogger(KryoSerializer.class.getName());
+
+  private static final int MIN_BUFFER_SIZE = 4096;
+  private static final int MAX_BUFFER_SIZE = 2000000000;
+  // The output buffer is shrunk once it is this many times larger than the average size
+  private static final int SHRINK_FACTOR = 8;
+
+  private boolean registrationRequired;
+  private boolean skipMissingRegistrations;
+  private Map<String, String> registrations;
+  private List<String> decorators;
+
+  private ThreadLocal<KryoState> states;
+
+  @Override
+  public void initialize(Map<String, Object> config) {
+    Map<String, Object> conf = config == null ? Collections.<String, Object>emptyMap() : config;
+    registrationRequired = getBoolean(conf.get(Config.TOPOLOGY_KRYO_REGISTRATION_REQUIRED));
+    skipMissingRegistrations =
+        getBoolean(conf.get(Config.TOPOLOGY_SKIP_MISSING_KRYO_REGISTRATIONS));
+    registrations = getRegistrations(conf.get(Config.TOPOLOGY_KRYO_REGISTER));
+    decorators = getDecorators(conf.get(Config.TOPOLOGY_KRYO_DECORATORS));
+
+    states = new ThreadLocal<KryoState>() {
+      @Override
+      protected KryoState initialValue() {
+        return new KryoState(newKryo());
+      }
+    };
+    // Set up the Kryo instance of this thread now, so any error in the config is thrown here
+    states.get();
+  }
+
+  @Override
+  public byte[] serialize(Object object) {
+    KryoState state = states.get();
+    Output output = state.write(object);
+    return output.toBytes();
+  }
+
+  @Override
+  public void serializeTo(Object object, OutputStream outputStream) {
+    KryoState state = states.get();
+    Output output = state.write(object);
+    try {
+      outputStream.write(output.getBuffer(), 0, output.position());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to serialize object: " + object.toString(), e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] input) {
+    KryoState state = states.get();
+    state.input.setBuffer(input);
+    return state.kryo.readClassAndObject(state.input);
+  }
+
+  @Override
+  public Object deserialize(ByteBuffer input) {
+    KryoState state = states.get();
+    return state.kryo.readClassAndObject(state.read(input));
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private Kryo newKryo() {
+    Kryo k = new Kryo();
+    k.setRegistrationRequired(registrationRequired);
+    k.setReferences(false);
+    k.register(byte[].class);
+    k.register(ArrayList.class, new ArrayListSerializer());
+    k.register(HashMap.class, new HashMapSerializer());
+    k.register(HashSet.class, new HashSetSerializer());
+    k.register(BigInteger.class, new DefaultSerializers.BigIntegerSerializer());
+
+    for (Map.Entry<String, String> registration : registrations.entrySet()) {
+      try {
+        Class klass = Class.forName(registration.getKey());
+        if (registration.getValue() == null) {
+          k.register(klass);
+        } else {
+          Class serializerClass = Class.forName(registration.getValue());
+          k.register(klass, newSerializer(k, klass, serializerClass));
+        }
+      } catch (ClassNotFoundException e) {
+        if (!skipMissingRegistrations) {
+          throw new RuntimeException("Kryo registration class must be in class path", e);
+        }
+        LOG.info("Could not find class or serializer for kryo registration of "
+            + registration.getKey() + ". Skipping registration...");
+      }
+    }
+
+    for (String decoratorClassName : decorators) {
+      try {
+        IKryoDecorator decorator =
+            (IKryoDecorator) Class.forName(decoratorClassName).newInstance();
+        decorator.decorate(k);
+      } catch (ClassNotFoundException e) {
+        if (!skipMissingRegistrations) {
+          throw new RuntimeException("Kryo decorator class must be in class path", e);
+        }
+        LOG.info("Could not find kryo decorator " + decoratorClassName
+            + ". Skipping decoration...");
+      } catch (InstantiationException | IllegalAccessException e) {
+        throw new RuntimeException(
+            "Kryo decorator class must be concrete and have a public nullary constructor", e);
+      }
+    }
+    return k;
+  }
+
+  /**
+   * Create the serializer for the class, trying the constructors Kryo itself supports
+   */
+  @SuppressWarnings("rawtypes")
+  private static Serializer newSerializer(Kryo k, Class<?> klass, Class<?> serializerClass) {
+    Object[][] argsToTry = {{k, klass}, {k}, {klass}, {}};
+    Class<?>[][] typesToTry = {{Kryo.class, Class.class}, {Kryo.class}, {Class.class}, {}};
+    for (int i = 0; i < argsToTry.length; i++) {
+      try {
+        Constructor<?> ctor = serializerClass.getConstructor(typesToTry[i]);
+        return (Serializer) ctor.newInstance(argsToTry[i]);
+      } catch (NoSuchMethodException | InvocationTargetException
+          | InstantiationException | IllegalAccessException e) {
+        // Try the next constructor
+      }
+    }
+    throw new IllegalArgumentException(String.format(
+        "Unable to create serializer \"%s\" for class: %s",
+        serializerClass.getName(), klass.getName()));
+  }
+
+  /**
+   * The registrations are given either as a list of class names, or maps from class name to
+   * serializer class name, or as such a map directly. They are sorted by class name, so every
+   * instance registers them in the same order.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<String, String> getRegistrations(Object value) {
+    Map<String, String> ret = new TreeMap<>();
+    if (value instanceof Map) {
+      ret.putAll((Map<String, String>) value);
+    } else if (value instanceof Collection) {
+      for (Object o : (Collection<Object>) value) {
+        if (o instanceof Map) {
+          ret.putAll((Map<String, String>) o);
+        } else {
+          ret.put((String) o, null);
+        }
+      }
+    } else if (value != null) {
+      throw new IllegalArgumentException(
+          "Unsupported value for " + Config.TOPOLOGY_KRYO_REGISTER + ": " + value);
+    }
+    return ret;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> getDecorators(Object value) {
+    if (value == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>((Collection<String>) value);
+  }
+
+  private static boolean getBoolean(Object value) {
+    return value != null && Boolean.parseBoolean(value.toString());
+  }
+
+  /**
+   * The Kryo instance and buffers of a thread
+   */
+  private static final class KryoState {
+    private final Kryo kryo;
+    private final Input input;
+    // Holds the bytes of the buffers without an accessible array, up to MIN_BUFFER_SIZE
+    private final byte[] copy;
+    private Output output;
+    // Exponential moving average of the sizes serialized, weighing the last one by 1/8
+    private int averageSize;
+
+    KryoState(Kryo kryo) {
+      this.kryo = kryo;
+      this.input = new Input(1);
+      this.copy = new byte[MIN_BUFFER_SIZE];
+      this.output = new Output(MIN_BUFFER_SIZE, MAX_BUFFER_SIZE);
+      this.averageSize = MIN_BUFFER_SIZE / SHRINK_FACTOR;
+    }
+
+    /**
+     * Point the input at the remaining bytes of the buffer. Kryo's ByteBufferInput writes into
+     * the buffer it reads from when reading strings, which fails on read-only buffers, so the
+     * bytes of a buffer without an accessible array are copied to a heap array instead.
+     */
+    Input read(ByteBuffer buffer) {
+      if (buffer.hasArray()) {
+        input.setBuffer(
+            buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      } else {
+        int size = buffer.remaining();
+        byte[] bytes = size <= copy.length ? copy : new byte[size];
+        buffer.duplicate().get(bytes, 0, size);
+        input.setBuffer(bytes, 0, size);
+      }
+      return input;
+    }
+
+    Output write(Object object) {
+      output.clear();
+      kryo.writeClassAndObject(output, object);
+
+      int size = output.position();
+      averageSize += (size - averageSize) >> 3;
+      if (output.getBuffer().length > MIN_BUFFER_SIZE
+          && output.getBuffer().length / SHRINK_FACTOR > Math.max(size, averageSize)) {
+        // The content is still read by the caller, so the new buffer is used from the next write
+        Output shrunk = new Output(Math.max(MIN_BUFFER_SIZE, averageSize * 2), MAX_BUFFER_SIZE);
+        Output current = output;
+        output = shrunk;
+        return current;
+      }
+      return output;
+    }
+  }
+
+  private static class ArrayListSerializer extends CollectionSerializer {
+    @Override
+    @SuppressWarnings("rawtypes") // extending Kryo class that uses raw types
+    public Collection create(Kryo k, Input input, Class<Collection> type) {
+      return new ArrayList();
+    }
+  }
+
+  private static class HashMapSerializer extends MapSerializer {
+    @Override
+    @SuppressWarnings("rawtypes") // extending kryo class signature that takes Map
+    public Map<String, Object> create(Kryo k, Input input, Class<Map> type) {
+      return new HashMap<>();
+    }
+  }
+
+  private static class HashSetSerializer extends CollectionSerializer {
+    @Override
+    @SuppressWarnings("rawtypes") // extending Kryo class that uses raw types
+    public Collection create(Kryo k, Input input, Class<Collection> type) {
+      return new HashSet();
+    }
+  }
+}
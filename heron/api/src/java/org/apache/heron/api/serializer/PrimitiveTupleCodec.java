@@ -0,0 +1,234 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * A codec for the values of tuples, which writes the common primitive types compactly by itself,
+ * and hands any other object to the serializer of the topology.
+ * <p>
+ * Every value starts with a 1-byte type tag, followed by:
+ * 1. Nothing for null and booleans.
+ * 2. A zigzag varint for Long, Integer, Short, Byte and Character, so small values take 1 byte.
+ * 3. The IEEE 754 bits, little endian, for Double and Float.
+ * 4. A varint length and the bytes for String (in UTF-8) and byte[].
+ * 5. The bytes written by the topology's serializer for anything else.
+ * <p>
+ * It is enabled per topology with Config.setPrimitiveTupleCodec(), and has to be used by every
+ * instance of the topology, since the bytes are not readable by the serializer alone.
+ */
+public class PrimitiveTupleCodec implements IStreamingSerializer {
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_TRUE = 1;
+  private static final byte TAG_FALSE = 2;
+  private static final byte TAG_LONG = 3;
+  private static final byte TAG_INTEGER = 4;
+  private static final byte TAG_SHORT = 5;
+  private static final byte TAG_BYTE = 6;
+  private static final byte TAG_CHARACTER = 7;
+  private static final byte TAG_DOUBLE = 8;
+  private static final byte TAG_FLOAT = 9;
+  private static final byte TAG_STRING = 10;
+  private static final byte TAG_BYTES = 11;
+  private static final byte TAG_OTHER = 127;
+
+  private final IPluggableSerializer serializer;
+
+  public PrimitiveTupleCodec(IPluggableSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  @Override
+  public void initialize(Map<String, Object> config) {
+    serializer.initialize(config);
+  }
+
+  @Override
+  public byte[] serialize(Object object) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(16);
+    serializeTo(object, output);
+    return output.toByteArray();
+  }
+
+  @Override
+  public void serializeTo(Object object, OutputStream output) {
+    try {
+      write(object, output);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to serialize object: " + object, e);
+    }
+  }
+
+  private void write(Object object, OutputStream output) throws IOException {
+    if (object == null) {
+      output.write(TAG_NULL);
+    } else if (object instanceof String) {
+      byte[] bytes = ((String) object).getBytes(StandardCharsets.UTF_8);
+      output.write(TAG_STRING);
+      writeVarint(bytes.length, output);
+      output.write(bytes);
+    } else if (object instanceof Long) {
+      output.write(TAG_LONG);
+      writeZigzag((Long) object, output);
+    } else if (object instanceof Integer) {
+      output.write(TAG_INTEGER);
+      writeZigzag((Integer) object, output);
+    } else if (object instanceof Double) {
+      output.write(TAG_DOUBLE);
+      writeFixed(Double.doubleToRawLongBits((Double) object), Long.BYTES, output);
+    } else if (object instanceof byte[]) {
+      byte[] bytes = (byte[]) object;
+      output.write(TAG_BYTES);
+      writeVarint(bytes.length, output);
+      output.write(bytes);
+    } else if (object instanceof Boolean) {
+      output.write((Boolean) object ? TAG_TRUE : TAG_FALSE);
+    } else if (object instanceof Float) {
+      output.write(TAG_FLOAT);
+      writeFixed(Float.floatToRawIntBits((Float) object), Integer.BYTES, output);
+    } else if (object instanceof Short) {
+      output.write(TAG_SHORT);
+      writeZigzag((Short) object, output);
+    } else if (object instanceof Byte) {
+      output.write(TAG_BYTE);
+      writeZigzag((Byte) object, output);
+    } else if (object instanceof Character) {
+      output.write(TAG_CHARACTER);
+      writeVarint((Character) object, output);
+    } else {
+      output.write(TAG_OTHER);
+      if (serializer instanceof IStreamingSerializer) {
+        ((IStreamingSerializer) serializer).serializeTo(object, output);
+      } else {
+        output.write(serializer.serialize(object));
+      }
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] input) {
+    return deserialize(ByteBuffer.wrap(input));
+  }
+
+  @Override
+  public Object deserialize(ByteBuffer input) {
+    byte tag = input.get();
+    switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_TRUE:
+        return Boolean.TRUE;
+      case TAG_FALSE:
+        return Boolean.FALSE;
+      case TAG_LONG:
+        return readZigzag(input);
+      case TAG_INTEGER:
+        return (int) readZigzag(input);
+      case TAG_SHORT:
+        return (short) readZigzag(input);
+      case TAG_BYTE:
+        return (byte) readZigzag(input);
+      case TAG_CHARACTER:
+        return (char) readVarint(input);
+      case TAG_DOUBLE:
+        return Double.longBitsToDouble(readFixed(input, Long.BYTES));
+      case TAG_FLOAT:
+        return Float.intBitsToFloat((int) readFixed(input, Integer.BYTES));
+      case TAG_STRING:
+        return readString(input);
+      case TAG_BYTES:
+        return readBytes(input, (int) readVarint(input));
+      case TAG_OTHER:
+        if (serializer instanceof IStreamingSerializer) {
+          return ((IStreamingSerializer) serializer).deserialize(input);
+        }
+        return serializer.deserialize(readBytes(input, input.remaining()));
+      default:
+        throw new RuntimeException("Failed to deserialize object with unknown type tag " + tag);
+    }
+  }
+
+  private static String readString(ByteBuffer input) {
+    int length = (int) readVarint(input);
+    if (input.hasArray()) {
+      String ret = new String(input.array(), input.arrayOffset() + input.position(), length,
+          StandardCharsets.UTF_8);
+      input.position(input.position() + length);
+      return ret;
+    }
+    return new String(readBytes(input, length), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] readBytes(ByteBuffer input, int length) {
+    byte[] ret = new byte[length];
+    input.get(ret);
+    return ret;
+  }
+
+  private static void writeZigzag(long value, OutputStream output) throws IOException {
+    writeVarint((value << 1) ^ (value >> 63), output);
+  }
+
+  private static long readZigzag(ByteBuffer input) {
+    long value = readVarint(input);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private static void writeVarint(long value, OutputStream output) throws IOException {
+    long v = value;
+    while ((v & ~0x7FL) != 0) {
+      output.write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    output.write((int) v);
+  }
+
+  private static long readVarint(ByteBuffer input) {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      byte b = input.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new RuntimeException("Failed to deserialize object with malformed varint");
+  }
+
+  private static void writeFixed(long value, int bytes, OutputStream output) throws IOException {
+    for (int i = 0; i < bytes; i++) {
+      output.write((int) (value >>> (i * 8)));
+    }
+  }
+
+  private static long readFixed(ByteBuffer input, int bytes) {
+    long value = 0;
+    for (int i = 0; i < bytes; i++) {
+      value |= (long) (input.get() & 0xFF) << (i * 8);
+    }
+    return value;
+  }
+}
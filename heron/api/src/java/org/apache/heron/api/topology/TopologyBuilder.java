@@ -24,7 +24,9 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.heron.api.HeronTopology;
+import org.apache.heron.api.bolt.AsyncBoltExecutor;
 import org.apache.heron.api.bolt.BasicBoltExecutor;
+import org.apache.heron.api.bolt.IAsyncBolt;
 import org.apache.heron.api.bolt.IBasicBolt;
 import org.apache.heron.api.bolt.IRichBolt;
 import org.apache.heron.api.bolt.IStatefulWindowedBolt;
@@ -193,6 +195,39 @@ public class TopologyBuilder {
     return setBolt(id, new WindowedBoltExecutor(bolt), parallelismHint);
   }
 
+  /**
+   * Define a new bolt in this topology. This defines an asynchronous bolt, intended for
+   * I/O-bound work. The {@link IAsyncBolt#execute} method starts executing a tuple,
+   * and the tuples the future it returns completes with are emitted once it completes.
+   *
+   * @param id the id of this component. This id is referenced by other components that want to
+   * consume this bolt's outputs.
+   * @param bolt the asynchronous bolt
+   * @return use the returned object to declare the inputs to this component
+   * @throws IllegalArgumentException if {@code parallelism_hint} is not positive
+   */
+  public BoltDeclarer setBolt(String id, IAsyncBolt bolt) throws IllegalArgumentException {
+    return setBolt(id, bolt, null);
+  }
+
+  /**
+   * Define a new bolt in this topology. This defines an asynchronous bolt, intended for
+   * I/O-bound work. The {@link IAsyncBolt#execute} method starts executing a tuple,
+   * and the tuples the future it returns completes with are emitted once it completes.
+   *
+   * @param id the id of this component. This id is referenced by other components that want to
+   * consume this bolt's outputs.
+   * @param bolt the asynchronous bolt
+   * @param parallelismHint the number of tasks that should be assigned to execute this bolt.
+   * Each task will run on a thread in a process somwehere around the cluster.
+   * @return use the returned object to declare the inputs to this component
+   * @throws IllegalArgumentException if {@code parallelismHint} is not positive
+   */
+  public BoltDeclarer setBolt(String id, IAsyncBolt bolt, Number parallelismHint) throws
+      IllegalArgumentException {
+    return setBolt(id, new AsyncBoltExecutor(bolt), parallelismHint);
+  }
+
   /**
    * Define a new bolt in this topology. This defines a stateful windowed bolt, intended for stateful
    * windowing operations. The {@link IStatefulWindowedBolt#execute(TupleWindow)} method is triggered
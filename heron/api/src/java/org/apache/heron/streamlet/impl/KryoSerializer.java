@@ -20,7 +20,10 @@
 
 package org.apache.heron.streamlet.impl;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -34,16 +37,20 @@ import com.esotericsoftware.kryo.serializers.CollectionSerializer;
 import com.esotericsoftware.kryo.serializers.DefaultSerializers;
 import com.esotericsoftware.kryo.serializers.MapSerializer;
 
-import org.apache.heron.api.serializer.IPluggableSerializer;
+import org.apache.heron.api.serializer.IStreamingSerializer;
 
 /**
  * KryoSerializer is a wrapper around Heron's IPluggableSerializer.
  * Streamlet based topologies turning on kryo serialization are based off of it.
  */
-public class KryoSerializer implements IPluggableSerializer {
+public class KryoSerializer implements IStreamingSerializer {
+  private static final int COPY_BUFFER_SIZE = 4096;
+
   private Kryo kryo;
   private Output kryoOut;
   private Input kryoIn;
+  // Holds the bytes of the buffers without an accessible array, up to COPY_BUFFER_SIZE
+  private byte[] kryoCopy;
 
   /**
    * A quick utility function that determines whether kryo has been linked
@@ -58,6 +65,7 @@ public class KryoSerializer implements IPluggableSerializer {
     kryo = getKryo();
     kryoOut = new Output(2000, 2000000000);
     kryoIn = new Input(1);
+    kryoCopy = new byte[COPY_BUFFER_SIZE];
   }
 
   @Override
@@ -67,12 +75,38 @@ public class KryoSerializer implements IPluggableSerializer {
     return kryoOut.toBytes();
   }
 
+  @Override
+  public void serializeTo(Object object, OutputStream output) {
+    kryoOut.clear();
+    kryo.writeClassAndObject(kryoOut, object);
+    try {
+      output.write(kryoOut.getBuffer(), 0, kryoOut.position());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to serialize object: " + object.toString(), e);
+    }
+  }
+
   @Override
   public Object deserialize(byte[] input) {
     kryoIn.setBuffer(input);
     return kryo.readClassAndObject(kryoIn);
   }
 
+  @Override
+  public Object deserialize(ByteBuffer input) {
+    if (input.hasArray()) {
+      kryoIn.setBuffer(input.array(), input.arrayOffset() + input.position(), input.remaining());
+    } else {
+      // Kryo's ByteBufferInput writes into the buffer it reads strings from, which fails on
+      // read-only buffers, so the bytes are copied to a heap array instead
+      int size = input.remaining();
+      byte[] bytes = size <= kryoCopy.length ? kryoCopy : new byte[size];
+      input.duplicate().get(bytes, 0, size);
+      kryoIn.setBuffer(bytes, 0, size);
+    }
+    return kryo.readClassAndObject(kryoIn);
+  }
+
   private Kryo getKryo() {
     Kryo k = new Kryo();
     k.setRegistrationRequired(false);
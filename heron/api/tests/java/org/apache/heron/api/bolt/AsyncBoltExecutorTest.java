@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.api.bolt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.heron.api.Config;
+import org.apache.heron.api.topology.OutputFieldsDeclarer;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Tuple;
+import org.apache.heron.api.tuple.Values;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link AsyncBoltExecutor}
+ */
+public class AsyncBoltExecutorTest {
+
+  /**
+   * Returns futures completed by the test, keyed by the tuple given to getKey()
+   */
+  public static class TestBolt extends BaseAsyncBolt {
+    private static final long serialVersionUID = -4391266734521946019L;
+
+    private final transient Map<Tuple, CompletableFuture<List<Values>>> futures = new HashMap<>();
+    private final transient Map<Tuple, Object> keys = new HashMap<>();
+    private transient boolean returnNull;
+
+    @Override
+    public void prepare(Map<String, Object> heronConf, TopologyContext context,
+                        Executor executor) {
+    }
+
+    @Override
+    public CompletableFuture<List<Values>> execute(Tuple input) {
+      if (returnNull) {
+        return null;
+      }
+      CompletableFuture<List<Values>> future = new CompletableFuture<>();
+      futures.put(input, future);
+      return future;
+    }
+
+    @Override
+    public Object getKey(Tuple input) {
+      return keys.get(input);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+    }
+
+    void complete(Tuple input, Object value) {
+      futures.get(input).complete(Collections.singletonList(new Values(value)));
+    }
+  }
+
+  /**
+   * Records what is done with the tuples, in order
+   */
+  private static class RecordingCollector implements IOutputCollector {
+    private final List<String> events = new ArrayList<>();
+
+    @Override
+    public List<Integer> emit(String streamId, Collection<Tuple> anchors, List<Object> tuple) {
+      events.add("emit " + tuple.get(0));
+      return null;
+    }
+
+    @Override
+    public void emitDirect(int taskId, String streamId, Collection<Tuple> anchors,
+                           List<Object> tuple) {
+    }
+
+    @Override
+    public void ack(Tuple input) {
+      events.add("ack");
+    }
+
+    @Override
+    public void fail(Tuple input) {
+      events.add("fail");
+    }
+
+    @Override
+    public void reportError(Throwable error) {
+    }
+  }
+
+  private TestBolt bolt;
+  private RecordingCollector collector;
+  private AsyncBoltExecutor executor;
+  private int wakeUps;
+
+  @Before
+  public void before() {
+    bolt = new TestBolt();
+    collector = new RecordingCollector();
+    executor = new AsyncBoltExecutor(bolt);
+    executor.setWakeUp(() -> wakeUps++);
+
+    Map<String, Object> conf = new HashMap<>();
+    Config.setBoltAsyncMaxInFlight(conf, 2);
+    Config.setBoltAsyncExecutorThreads(conf, 1);
+    executor.prepare(conf, null, new OutputCollector(collector));
+  }
+
+  @Test
+  public void testEmitAndAckOnCompletion() {
+    Tuple tuple1 = mock(Tuple.class);
+    Tuple tuple2 = mock(Tuple.class);
+    executor.execute(tuple1);
+    executor.execute(tuple2);
+
+    // The tuples without key are done in the order they complete
+    bolt.complete(tuple2, "b");
+    Assert.assertEquals(1, wakeUps);
+    Assert.assertTrue(collector.events.isEmpty());
+    executor.processCompletions();
+    Assert.assertEquals(Arrays.asList("emit b", "ack"), collector.events);
+    Assert.assertEquals(1, executor.getInFlight());
+
+    bolt.futures.get(tuple1).completeExceptionally(new RuntimeException("failed"));
+    executor.processCompletions();
+    Assert.assertEquals(Arrays.asList("emit b", "ack", "fail"), collector.events);
+    Assert.assertEquals(0, executor.getInFlight());
+    executor.cleanup();
+  }
+
+  @Test
+  public void testNullFuture() {
+    bolt.returnNull = true;
+    executor.execute(mock(Tuple.class));
+
+    // The tuple is done as if its future completed with nothing to emit
+    executor.processCompletions();
+    Assert.assertEquals(Collections.singletonList("ack"), collector.events);
+    Assert.assertEquals(0, executor.getInFlight());
+    executor.cleanup();
+  }
+
+  @Test
+  public void testKeyOrdering() {
+    Tuple tuple1 = mock(Tuple.class);
+    Tuple tuple2 = mock(Tuple.class);
+    bolt.keys.put(tuple1, "key");
+    bolt.keys.put(tuple2, "key");
+    executor.execute(tuple1);
+    executor.execute(tuple2);
+
+    // The second tuple waits for the first one with the same key
+    bolt.complete(tuple2, "b");
+    executor.processCompletions();
+    Assert.assertTrue(collector.events.isEmpty());
+
+    bolt.complete(tuple1, "a");
+    executor.processCompletions();
+    Assert.assertEquals(Arrays.asList("emit a", "ack", "emit b", "ack"), collector.events);
+    executor.cleanup();
+  }
+
+  @Test
+  public void testMaxInFlight() {
+    Tuple tuple1 = mock(Tuple.class);
+    Tuple tuple2 = mock(Tuple.class);
+    Tuple tuple3 = mock(Tuple.class);
+    executor.execute(tuple1);
+    Assert.assertFalse(executor.isSaturated());
+    executor.execute(tuple2);
+    Assert.assertTrue(executor.isSaturated());
+
+    // The tuple received while saturated starts once another one completes
+    executor.execute(tuple3);
+    Assert.assertFalse(bolt.futures.containsKey(tuple3));
+    bolt.complete(tuple1, "a");
+    executor.processCompletions();
+    Assert.assertTrue(bolt.futures.containsKey(tuple3));
+    Assert.assertTrue(executor.isSaturated());
+    executor.cleanup();
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.api.bolt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.api.topology.OutputFieldsDeclarer;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Tuple;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link BaseBatchedBolt}
+ */
+public class BaseBatchedBoltTest {
+
+  public static class TestBolt extends BaseBatchedBolt {
+    private static final long serialVersionUID = 6193582733093497816L;
+
+    private final List<List<Tuple>> batches = new ArrayList<>();
+    private OutputCollector collector;
+
+    @Override
+    public void prepare(Map<String, Object> conf, TopologyContext context,
+                        OutputCollector outputCollector) {
+      this.collector = outputCollector;
+    }
+
+    @Override
+    public void executeBatch(List<Tuple> inputs) {
+      batches.add(inputs);
+      collector.ackBatch(inputs);
+    }
+
+    @Override
+    public void declareOutputFields(OutputFieldsDeclarer declarer) {
+    }
+  }
+
+  /**
+   * Records the tuples acked and failed one by one
+   */
+  private static class RecordingCollector implements IOutputCollector {
+    private final List<Tuple> acked = new ArrayList<>();
+    private final List<Tuple> failed = new ArrayList<>();
+
+    @Override
+    public List<Integer> emit(String streamId, Collection<Tuple> anchors, List<Object> tuple) {
+      return null;
+    }
+
+    @Override
+    public void emitDirect(int taskId, String streamId, Collection<Tuple> anchors,
+                           List<Object> tuple) {
+    }
+
+    @Override
+    public void ack(Tuple input) {
+      acked.add(input);
+    }
+
+    @Override
+    public void fail(Tuple input) {
+      failed.add(input);
+    }
+
+    @Override
+    public void reportError(Throwable error) {
+    }
+  }
+
+  @Test
+  public void testExecuteSingleTupleAsBatch() {
+    RecordingCollector delegate = new RecordingCollector();
+    TestBolt bolt = new TestBolt();
+    bolt.prepare(null, null, new OutputCollector(delegate));
+
+    Tuple tuple = mock(Tuple.class);
+    bolt.execute(tuple);
+
+    Assert.assertEquals(1, bolt.batches.size());
+    Assert.assertEquals(Arrays.asList(tuple), bolt.batches.get(0));
+    Assert.assertEquals(Arrays.asList(tuple), delegate.acked);
+  }
+
+  @Test
+  public void testAckAndFailBatch() {
+    RecordingCollector delegate = new RecordingCollector();
+    OutputCollector collector = new OutputCollector(delegate);
+
+    List<Tuple> tuples = Arrays.asList(mock(Tuple.class), mock(Tuple.class), mock(Tuple.class));
+    collector.ackBatch(tuples.subList(0, 2));
+    collector.failBatch(tuples.subList(2, 3));
+
+    Assert.assertEquals(tuples.subList(0, 2), delegate.acked);
+    Assert.assertEquals(tuples.subList(2, 3), delegate.failed);
+  }
+}
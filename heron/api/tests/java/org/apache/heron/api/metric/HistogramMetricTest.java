@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.metric;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramMetricTest {
+
+  /**
+   * Method: bucketIndex(long value), highestValueInBucket(int index)
+   */
+  @Test
+  public void testBuckets() {
+    long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE};
+    for (long value : values) {
+      long highest = HistogramMetric.highestValueInBucket(HistogramMetric.bucketIndex(value));
+      Assert.assertTrue(highest >= value);
+      // A bucket spans at most 1/16 of its values
+      Assert.assertTrue(highest - value <= value / 16);
+    }
+    // The buckets follow each other without any gap
+    for (int i = 0; i < HistogramMetric.bucketIndex(Long.MAX_VALUE); i++) {
+      Assert.assertEquals(i + 1,
+          HistogramMetric.bucketIndex(HistogramMetric.highestValueInBucket(i) + 1));
+    }
+  }
+
+  /**
+   * Method: update(long value), getValueAndReset()
+   */
+  @Test
+  public void testPercentiles() {
+    HistogramMetric metric = new HistogramMetric();
+    Assert.assertNull(metric.getValueAndReset());
+
+    for (int i = 1; i <= 10000; i++) {
+      metric.update(i * 1000L);
+    }
+    HistogramMetric.Snapshot snapshot = metric.getValueAndReset();
+    Assert.assertEquals(10000, snapshot.getCount());
+    Assert.assertEquals(5000500.0, snapshot.getMean(), 0.001);
+    assertWithin(5000000, snapshot.getP50());
+    assertWithin(9000000, snapshot.getP90());
+    assertWithin(9900000, snapshot.getP99());
+    assertWithin(9990000, snapshot.getP999());
+    Assert.assertEquals(10000000, snapshot.getMax());
+
+    // The values are reset after every interval
+    Assert.assertNull(metric.getValueAndReset());
+    metric.update(-5);
+    snapshot = metric.getValueAndReset();
+    Assert.assertEquals(0, snapshot.getP50());
+    Assert.assertEquals(0, snapshot.getMax());
+  }
+
+  /**
+   * Method: MultiHistogramMetric.scope(String key), getValueAndReset()
+   */
+  @Test
+  public void testMultiHistogramMetric() {
+    MultiHistogramMetric metric = new MultiHistogramMetric();
+    metric.scope("a").update(10);
+    metric.scope("b");
+    Map<String, HistogramMetric.Snapshot> values = metric.getValueAndReset();
+    Assert.assertEquals(1, values.size());
+    Assert.assertEquals(10, values.get("a").getMax());
+    Assert.assertTrue(metric.getValueAndReset().isEmpty());
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    Assert.assertTrue(actual + " is not close to " + expected,
+        actual >= expected && actual - expected <= expected / 16);
+  }
+}
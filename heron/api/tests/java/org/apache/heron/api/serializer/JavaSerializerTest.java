@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JavaSerializerTest {
+  private JavaSerializer serializer;
+
+  @Before
+  public void before() {
+    serializer = new JavaSerializer();
+    serializer.initialize(null);
+  }
+
+  /**
+   * Method: serializeTo(Object object, OutputStream output)
+   */
+  @Test
+  public void testSerializeTo() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.serializeTo("value", output);
+    Assert.assertArrayEquals(serializer.serialize("value"), output.toByteArray());
+
+    // Values are appended one after another
+    serializer.serializeTo(42, output);
+    Assert.assertTrue(output.size() > serializer.serialize("value").length);
+  }
+
+  /**
+   * Method: deserialize(ByteBuffer input)
+   */
+  @Test
+  public void testDeserializeByteBuffer() {
+    byte[] value = serializer.serialize(Arrays.asList("a", "b"));
+    byte[] padded = new byte[value.length + 8];
+    System.arraycopy(value, 0, padded, 4, value.length);
+
+    ByteBuffer input = ByteBuffer.wrap(padded, 4, value.length).slice().asReadOnlyBuffer();
+    Assert.assertEquals(Arrays.asList("a", "b"), serializer.deserialize(input));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(value.length);
+    direct.put(value).flip();
+    Assert.assertEquals(Arrays.asList("a", "b"), serializer.deserialize(direct));
+  }
+}
@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.api.Config;
+
+public class KryoSerializerTest {
+  private static KryoSerializer newSerializer(Map<String, Object> config) {
+    KryoSerializer serializer = new KryoSerializer();
+    serializer.initialize(config);
+    return serializer;
+  }
+
+  /**
+   * Method: serialize(Object object), deserialize(byte[] input)
+   */
+  @Test
+  public void testSerialize() {
+    KryoSerializer serializer = newSerializer(null);
+    List<Object> values = new ArrayList<>(Arrays.asList("a", 1, 2L, new byte[]{3}));
+    List<?> result = (List<?>) serializer.deserialize(serializer.serialize(values));
+    Assert.assertEquals("a", result.get(0));
+    Assert.assertEquals(1, result.get(1));
+    Assert.assertEquals(2L, result.get(2));
+    Assert.assertArrayEquals(new byte[]{3}, (byte[]) result.get(3));
+  }
+
+  /**
+   * Method: serializeTo(Object object, OutputStream output), deserialize(ByteBuffer input)
+   */
+  @Test
+  public void testSerializeTo() {
+    KryoSerializer serializer = newSerializer(null);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.serializeTo("value", output);
+    Assert.assertArrayEquals(serializer.serialize("value"), output.toByteArray());
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(output.size());
+    direct.put(output.toByteArray()).flip();
+    Assert.assertEquals("value", serializer.deserialize(direct));
+  }
+
+  /**
+   * Registered classes are written as ids, and unregistered ones fail if registration is required
+   */
+  @Test
+  public void testRegistration() {
+    Config config = new Config();
+    Config.registerKryoSerialization(config, Point.class);
+    Config.setKryoRegistrationRequired(config, true);
+    KryoSerializer serializer = newSerializer(config);
+
+    Point result = (Point) serializer.deserialize(serializer.serialize(new Point(1, 2)));
+    Assert.assertEquals(1, result.x);
+    Assert.assertEquals(2, result.y);
+
+    try {
+      serializer.serialize(new UnregisteredPoint());
+      Assert.fail("Expected KryoException for an unregistered class");
+    } catch (IllegalArgumentException | KryoException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Method: initialize(Map config) with a decorator
+   */
+  @Test
+  public void testDecorator() {
+    Config config = new Config();
+    Config.registerKryoDecorator(config, PointDecorator.class);
+    Config.setKryoRegistrationRequired(config, true);
+    KryoSerializer serializer = newSerializer(config);
+
+    Point result = (Point) serializer.deserialize(serializer.serialize(new Point(3, 4)));
+    Assert.assertEquals(3, result.x);
+    Assert.assertEquals(4, result.y);
+  }
+
+  /**
+   * Every thread uses its own Kryo instance
+   */
+  @Test
+  public void testMultipleThreads() throws InterruptedException {
+    final KryoSerializer serializer = newSerializer(null);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int id = t;
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 10000; i++) {
+              Map<String, Integer> value = new HashMap<>();
+              value.put("thread-" + id, i);
+              Assert.assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+            }
+          } catch (Throwable e) {
+            failure.set(e);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertNull(failure.get());
+  }
+
+  /**
+   * The output buffer is grown for a large value and shrunk back afterwards
+   */
+  @Test
+  public void testLargeValue() {
+    KryoSerializer serializer = newSerializer(null);
+    byte[] large = new byte[1 << 20];
+    large[large.length - 1] = 1;
+    Assert.assertArrayEquals(large, (byte[]) serializer.deserialize(serializer.serialize(large)));
+    for (int i = 0; i < 100; i++) {
+      Assert.assertEquals("small", serializer.deserialize(serializer.serialize("small")));
+    }
+  }
+
+  public static class Point {
+    private int x;
+    private int y;
+
+    public Point() {
+    }
+
+    Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  public static class UnregisteredPoint {
+    private int x;
+  }
+
+  public static class PointDecorator implements IKryoDecorator {
+    @Override
+    public void decorate(Kryo kryo) {
+      kryo.register(Point.class);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.api.serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrimitiveTupleCodecTest {
+  private PrimitiveTupleCodec codec;
+
+  @Before
+  public void before() {
+    codec = new PrimitiveTupleCodec(new JavaSerializer());
+    codec.initialize(null);
+  }
+
+  /**
+   * Method: serialize(Object object), deserialize(byte[] input)
+   */
+  @Test
+  public void testSerialize() {
+    List<Object> values = Arrays.<Object>asList(null, true, false,
+        0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 7, Integer.MIN_VALUE, Integer.MAX_VALUE,
+        (short) -3, (byte) 4, 'x', 1.5d, Double.NaN, -2.5f, "", "value \u00e9\u4e2d",
+        Arrays.asList("a", "b"));
+    for (Object value : values) {
+      Assert.assertEquals(value, codec.deserialize(codec.serialize(value)));
+    }
+
+    byte[] bytes = {1, 2, 3};
+    Assert.assertArrayEquals(bytes, (byte[]) codec.deserialize(codec.serialize(bytes)));
+  }
+
+  /**
+   * The primitive types take a few bytes, instead of a serialized object each
+   */
+  @Test
+  public void testCompact() {
+    Assert.assertEquals(2, codec.serialize(1L).length);
+    Assert.assertEquals(2, codec.serialize(-1).length);
+    Assert.assertEquals(11, codec.serialize(Long.MIN_VALUE).length);
+    Assert.assertEquals(9, codec.serialize(1.5d).length);
+    Assert.assertEquals(7, codec.serialize("hello").length);
+  }
+
+  /**
+   * Method: serializeTo(Object object, OutputStream output), deserialize(ByteBuffer input)
+   */
+  @Test
+  public void testSerializeTo() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    codec.serializeTo("value", output);
+    codec.serializeTo(42L, output);
+    codec.serializeTo(Arrays.asList(1, 2), output);
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(output.size());
+    buffer.put(output.toByteArray()).flip();
+    Assert.assertEquals("value", codec.deserialize(buffer));
+    Assert.assertEquals(42L, codec.deserialize(buffer));
+    Assert.assertEquals(Arrays.asList(1, 2), codec.deserialize(buffer.asReadOnlyBuffer()));
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.streamlet.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KryoSerializerTest {
+  private KryoSerializer serializer;
+
+  @Before
+  public void before() {
+    serializer = new KryoSerializer();
+    serializer.initialize(null);
+  }
+
+  /**
+   * Method: serializeTo(Object object, OutputStream output)
+   */
+  @Test
+  public void testSerializeTo() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    serializer.serializeTo("value", output);
+    Assert.assertArrayEquals(serializer.serialize("value"), output.toByteArray());
+    Assert.assertEquals("value", serializer.deserialize(output.toByteArray()));
+  }
+
+  /**
+   * Method: deserialize(ByteBuffer input)
+   */
+  @Test
+  public void testDeserializeByteBuffer() {
+    List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+    byte[] value = serializer.serialize(list);
+
+    ByteBuffer heap = ByteBuffer.wrap(value);
+    Assert.assertEquals(list, serializer.deserialize(heap));
+
+    ByteBuffer readOnly = ByteBuffer.wrap(value).asReadOnlyBuffer();
+    Assert.assertEquals(list, serializer.deserialize(readOnly));
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(value.length);
+    direct.put(value).flip();
+    Assert.assertEquals(list, serializer.deserialize(direct));
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.heron.common.basics.ByteAmount;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.config.SystemConfig;
@@ -156,7 +157,9 @@ public class CheckpointManager {
             checkpointManagerConfig.getReadBatchTime(),
             checkpointManagerConfig.getSocketSendSize(),
             checkpointManagerConfig.getSocketReceiveSize(),
-            checkpointManagerConfig.getMaximumPacketSize());
+            checkpointManagerConfig.getMaximumPacketSize(),
+            ByteAmount.ZERO,
+            checkpointManagerConfig.getReadArenaSize());
 
     // Setup the IStatefulStorage
     IStatefulStorage statefulStorage = setupStatefulStorage(topologyName, checkpointManagerConfig);
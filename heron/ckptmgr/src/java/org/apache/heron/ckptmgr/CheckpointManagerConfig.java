@@ -85,6 +85,10 @@ public final class CheckpointManagerConfig {
     return getByteAmount(CheckpointManagerConfigKey.MAXIMUM_PACKET_SIZE);
   }
 
+  public ByteAmount getReadArenaSize() {
+    return getByteAmount(CheckpointManagerConfigKey.READ_ARENA_SIZE);
+  }
+
   private String getString(CheckpointManagerConfigKey key) {
     assertType(key, CheckpointManagerConfigKey.Type.STRING);
     return (String) get(key);
@@ -24,6 +24,8 @@ import java.time.temporal.TemporalUnit;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.heron.common.basics.ByteAmount;
+
 /**
  * Keys to be used in the CheckpointManagerConfigs
  */
@@ -74,7 +76,14 @@ public enum CheckpointManagerConfigKey {
    * The maximum size of a packet that can be read by the checkpoint manager
    */
   MAXIMUM_PACKET_SIZE(
-      "heron.ckptmgr.network.options.maximum.packetsize.bytes", Type.BYTE_AMOUNT);
+      "heron.ckptmgr.network.options.maximum.packetsize.bytes", Type.BYTE_AMOUNT),
+
+  /**
+   * The initial size of the reusable buffer incoming packets are read into and decoded from.
+   * 0 disables the arena and every packet is read into its own buffer
+   */
+  READ_ARENA_SIZE(
+      "heron.ckptmgr.network.options.read.arena.size.bytes", ByteAmount.ZERO);
 
   private final String value;
   private final Object defaultValue;
@@ -131,6 +140,13 @@ public enum CheckpointManagerConfigKey {
     this.temporalUnit = null;
   }
 
+  CheckpointManagerConfigKey(String value, ByteAmount defaultValue) {
+    this.value = value;
+    this.type = Type.BYTE_AMOUNT;
+    this.defaultValue = defaultValue;
+    this.temporalUnit = null;
+  }
+
   CheckpointManagerConfigKey(String value, TemporalUnit temporalUnit) {
     this.value = value;
     this.type = Type.DURATION;
@@ -20,7 +20,11 @@
 package org.apache.heron.common.basics;
 
 import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
 
 /**
  * An soft bounded unblocking queue based on LinkedTransferQueue.
@@ -34,13 +38,25 @@ import java.util.concurrent.LinkedTransferQueue;
  * <p>
  * However, in order to avoid GC issues and keep high performance, we would have a dynamical tuning
  * Queue's expected capacity, see updateExpectedAvailableCapacity() below.
+ * <p>
+ * The buffer underneath could also be provided by the caller, e.g. a SpscArrayQueue when the
+ * Communicator has exactly one producer thread and one consumer thread. The provided buffer
+ * should never reject an offer.
+ * <p>
+ * The other side is waken up by WakeableLooper.wakeUpIfNeeded(), so redundant wake-ups are
+ * suppressed while it has not yet picked up the previous one. Use offerAll() and drainTo() to
+ * move a batch of items with a single wake-up.
+ * <p>
+ * Since an item could be a handful of bytes or many megabytes, the queue could also count the
+ * bytes of the items in it, see countBytes(), and have a soft bound on them besides the one on
+ * the number of items, see setByteCapacity() and hasRemainingBytes().
  */
 
 public class Communicator<E> {
   /**
    * The buffer queue underneath, an unbound queue.
    */
-  private final LinkedTransferQueue<E> buffer;
+  private final Queue<E> buffer;
 
   /*
    * The producer offers item into the queue, and it will be wake up when consumer polls a item.
@@ -94,6 +110,21 @@ public class Communicator<E> {
    */
   private volatile boolean isExpectNoMoreItems;
 
+  /**
+   * The size in bytes of an item, or null if the bytes of the items are not counted
+   */
+  private volatile ToIntFunction<? super E> sizer;
+
+  /**
+   * The bytes of the items in the queue, if counted
+   */
+  private final AtomicLong bytes = new AtomicLong();
+
+  /**
+   * The soft bound on the bytes of the items in the queue, 0 if they are not bounded
+   */
+  private volatile long byteCapacity;
+
   /**
    * Constructor for Communicator
    *
@@ -103,9 +134,22 @@ public class Communicator<E> {
    * or set it to null if we don't want consumer to be waken up
    */
   public Communicator(WakeableLooper producer, WakeableLooper consumer) {
+    this(producer, consumer, new LinkedTransferQueue<E>());
+  }
+
+  /**
+   * Constructor for Communicator with the given buffer queue underneath
+   *
+   * @param producer would be waken up when items are consumed from queue,
+   * or set it to null if we don't want producer to be waken up
+   * @param consumer would be waken up when items are produced into queue,
+   * or set it to null if we don't want consumer to be waken up
+   * @param buffer the unbounded queue to buffer items in
+   */
+  public Communicator(WakeableLooper producer, WakeableLooper consumer, Queue<E> buffer) {
     this.producer = producer;
     this.consumer = consumer;
-    this.buffer = new LinkedTransferQueue<E>();
+    this.buffer = buffer;
   }
 
   public Communicator() {
@@ -136,6 +180,56 @@ public class Communicator<E> {
     informProducer();
   }
 
+  /**
+   * Count the bytes of the items in the queue, as given by the sizer.
+   * It must be called before any item is offered.
+   *
+   * @param itemSizer gives the size in bytes of an item
+   */
+  public void countBytes(ToIntFunction<? super E> itemSizer) {
+    this.sizer = itemSizer;
+  }
+
+  /**
+   * Set the soft bound on the bytes of the items in the queue, which is only checked if the
+   * bytes are counted, see countBytes()
+   *
+   * @param ipbyteCapacity the bound in bytes, 0 for no bound
+   */
+  public void setByteCapacity(long ipbyteCapacity) {
+    this.byteCapacity = ipbyteCapacity;
+
+    // Notify the producer to pick up the new value
+    informProducer();
+  }
+
+  public long getByteCapacity() {
+    return byteCapacity;
+  }
+
+  /**
+   * Get the bytes of the items in queue
+   *
+   * @return the bytes of the items in queue, 0 if they are not counted
+   */
+  public long getBytes() {
+    return bytes.get();
+  }
+
+  public boolean isCountingBytes() {
+    return sizer != null;
+  }
+
+  /**
+   * Check whether the items in the queue are fewer bytes than the byte capacity, which is always
+   * the case if the bytes are not counted or not bounded.
+   * Like the capacity, it is a soft bound: items could still be offered.
+   */
+  public boolean hasRemainingBytes() {
+    long bound = byteCapacity;
+    return bound <= 0 || sizer == null || bytes.get() < bound;
+  }
+
   /**
    * Get the number of items in queue
    *
@@ -156,8 +250,12 @@ public class Communicator<E> {
    */
   public E poll() {
     E result = buffer.poll();
-    if (producer != null) {
-      producer.wakeUp();
+    if (result != null) {
+      ToIntFunction<? super E> itemSizer = sizer;
+      if (itemSizer != null) {
+        bytes.addAndGet(-itemSizer.applyAsInt(result));
+      }
+      informProducer();
     }
 
     return result;
@@ -170,10 +268,40 @@ public class Communicator<E> {
    * @return true : inserted successfully
    */
   public boolean offer(E e) {
+    // Count the bytes before the item could be polled, so the count never goes negative
+    ToIntFunction<? super E> itemSizer = sizer;
+    if (itemSizer != null) {
+      bytes.addAndGet(itemSizer.applyAsInt(e));
+    }
     buffer.offer(e);
-    if (consumer != null) {
-      consumer.wakeUp();
+    informConsumer();
+
+    return true;
+  }
+
+  /**
+   * Offer all the items, waking up the consumer only once.
+   * Since it is an unbounded queue, the offer will always return true.
+   *
+   * @param items Items to be inserted
+   * @return true : inserted successfully
+   */
+  public boolean offerAll(Collection<? extends E> items) {
+    if (items.isEmpty()) {
+      return true;
+    }
+    ToIntFunction<? super E> itemSizer = sizer;
+    if (itemSizer != null) {
+      long itemsBytes = 0;
+      for (E e : items) {
+        itemsBytes += itemSizer.applyAsInt(e);
+      }
+      bytes.addAndGet(itemsBytes);
     }
+    for (E e : items) {
+      buffer.offer(e);
+    }
+    informConsumer();
 
     return true;
   }
@@ -191,7 +319,14 @@ public class Communicator<E> {
   }
 
   public void clear() {
-    buffer.clear();
+    if (sizer != null) {
+      // Poll the items, so only the bytes of the items removed are taken off the count
+      while (poll() != null) {
+        // Nothing else to do
+      }
+    } else {
+      buffer.clear();
+    }
   }
 
   /**
@@ -204,20 +339,47 @@ public class Communicator<E> {
    * @return the number of elements transferred
    */
   public int drainTo(Collection<? super E> c) {
-    int result = buffer.drainTo(c);
-    if (producer != null) {
-      producer.wakeUp();
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    int result = drainBuffer(c, maxElements);
+    if (result > 0) {
+      informProducer();
     }
 
     return result;
   }
 
-  public int drainTo(Collection<? super E> c, int maxElements) {
-    int result = buffer.drainTo(c, maxElements);
-    if (producer != null) {
-      producer.wakeUp();
+  @SuppressWarnings("unchecked")
+  private int drainBuffer(Collection<? super E> c, int maxElements) {
+    ToIntFunction<? super E> itemSizer = sizer;
+    if (itemSizer != null) {
+      // The items drained have to be sized one by one
+      int result = 0;
+      long drainedBytes = 0;
+      E e;
+      while (result < maxElements && (e = buffer.poll()) != null) {
+        c.add(e);
+        drainedBytes += itemSizer.applyAsInt(e);
+        result++;
+      }
+      bytes.addAndGet(-drainedBytes);
+      return result;
+    }
+
+    if (buffer instanceof SpscArrayQueue) {
+      return ((SpscArrayQueue<E>) buffer).drainTo(c, maxElements);
+    } else if (buffer instanceof BlockingQueue) {
+      return ((BlockingQueue<E>) buffer).drainTo(c, maxElements);
     }
 
+    int result = 0;
+    E e;
+    while (result < maxElements && (e = buffer.poll()) != null) {
+      c.add(e);
+      result++;
+    }
     return result;
   }
 
@@ -263,14 +425,16 @@ public class Communicator<E> {
   }
 
   public void informProducer() {
-    if (producer != null) {
-      producer.wakeUp();
+    WakeableLooper looper = producer;
+    if (looper != null) {
+      looper.wakeUpIfNeeded();
     }
   }
 
   public void informConsumer() {
-    if (consumer != null) {
-      consumer.wakeUp();
+    WakeableLooper looper = consumer;
+    if (looper != null) {
+      looper.wakeUpIfNeeded();
     }
   }
 }
@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.basics;
+
+import java.time.Duration;
+
+/**
+ * A TimerQueue as a hashed timing wheel: time is cut into ticks, and a task goes into the bucket
+ * of the tick it expires in, modulo the number of buckets. Adding and removing a task take O(1),
+ * whatever the number of tasks, and tasks expire at the end of their tick, in no particular order
+ * within it.
+ * <p>
+ * The tasks of a bucket are linked through the tasks themselves, so no memory is allocated.
+ * The ticks passed are processed when the looper next polls, so the wheel does not need to
+ * wake the looper up at every tick.
+ */
+final class HashedTimingWheel implements TimerQueue {
+  // The index of the tasks expired, being polled one by one, instead of a bucket
+  static final int DUE = -1;
+
+  private final long origin;
+  private final long tickNanos;
+  private final WakeableLooper.TimerTask[] buckets;
+  private final int mask;
+
+  // Every tick up to and including this one has been processed
+  private long processedTick;
+  // The expired tasks not yet polled
+  private WakeableLooper.TimerTask due;
+  private int size;
+
+  HashedTimingWheel(Duration tick, int ticksPerWheel) {
+    assert tick.toNanos() > 0;
+    assert ticksPerWheel > 0;
+    this.origin = System.nanoTime();
+    this.tickNanos = tick.toNanos();
+    // Round up to a power of 2
+    int n = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+    this.buckets = new WakeableLooper.TimerTask[Math.max(n, 1)];
+    this.mask = buckets.length - 1;
+    this.processedTick = 0;
+  }
+
+  @Override
+  public void add(WakeableLooper.TimerTask task) {
+    // The tick at the end of which the task expires
+    long tick = ceilDiv(task.getExpirationTime() - origin, tickNanos);
+    task.wheelTick = tick;
+    if (tick <= processedTick) {
+      link(task, DUE);
+    } else {
+      link(task, (int) (tick & mask));
+    }
+    size++;
+  }
+
+  @Override
+  public void remove(WakeableLooper.TimerTask task) {
+    unlink(task);
+    size--;
+  }
+
+  @Override
+  public WakeableLooper.TimerTask pollExpired(long currentTime) {
+    if (due == null) {
+      processTicks((currentTime - origin) / tickNanos);
+    }
+    WakeableLooper.TimerTask task = due;
+    if (task != null) {
+      unlink(task);
+      size--;
+    }
+    return task;
+  }
+
+  @Override
+  public long getNextExpirationTime(long currentTime) {
+    if (due != null) {
+      return currentTime;
+    }
+    if (size == 0) {
+      return Long.MAX_VALUE;
+    }
+    // The first tick with a bucket not empty. Its tasks could expire in a later round of the
+    // wheel, in which case the looper just wakes up early.
+    for (long tick = processedTick + 1; tick <= processedTick + buckets.length; tick++) {
+      if (buckets[(int) (tick & mask)] != null) {
+        return origin + tick * tickNanos;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < buckets.length; i++) {
+      buckets[i] = null;
+    }
+    due = null;
+    size = 0;
+  }
+
+  // Move the tasks expired by the end of the tick to the due list
+  private void processTicks(long currentTick) {
+    if (currentTick <= processedTick) {
+      return;
+    }
+    // After a full round, every bucket is to be looked at once
+    long first = Math.max(processedTick + 1, currentTick - buckets.length + 1);
+    for (long tick = first; tick <= currentTick; tick++) {
+      WakeableLooper.TimerTask task = buckets[(int) (tick & mask)];
+      while (task != null) {
+        WakeableLooper.TimerTask next = task.wheelNext;
+        if (task.wheelTick <= currentTick) {
+          unlink(task);
+          link(task, DUE);
+        }
+        task = next;
+      }
+    }
+    processedTick = currentTick;
+  }
+
+  private void link(WakeableLooper.TimerTask task, int index) {
+    WakeableLooper.TimerTask head = index == DUE ? due : buckets[index];
+    task.wheelIndex = index;
+    task.wheelPrev = null;
+    task.wheelNext = head;
+    if (head != null) {
+      head.wheelPrev = task;
+    }
+    if (index == DUE) {
+      due = task;
+    } else {
+      buckets[index] = task;
+    }
+  }
+
+  private void unlink(WakeableLooper.TimerTask task) {
+    if (task.wheelPrev != null) {
+      task.wheelPrev.wheelNext = task.wheelNext;
+    } else if (task.wheelIndex == DUE) {
+      due = task.wheelNext;
+    } else {
+      buckets[task.wheelIndex] = task.wheelNext;
+    }
+    if (task.wheelNext != null) {
+      task.wheelNext.wheelPrev = task.wheelPrev;
+    }
+    task.wheelPrev = null;
+    task.wheelNext = null;
+  }
+
+  private static long ceilDiv(long x, long y) {
+    return -Math.floorDiv(-x, y);
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.common.basics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Consumer;
+
+/**
+ * A single-producer/single-consumer ring buffer of variable sized records in a memory-mapped
+ * file, so two processes on the same host could exchange records without a socket: the producer
+ * creates the file with create(), the consumer maps it with open().
+ * <p>
+ * The records are written in place through claim() and commit(), and read in place through
+ * drain(), so nothing is copied but into and out of the file. A record never wraps around the
+ * end of the ring; if it does not fit in the rest of the ring, the rest is skipped.
+ * <p>
+ * The file starts with a header holding the capacity, the position up to which the producer
+ * has committed records, and the position up to which the consumer has read them. Positions only
+ * grow, and each is written by one side only, after a full fence, so the other side never sees a
+ * position before the records it covers.
+ */
+public final class MappedRingBuffer {
+  private static final int MAGIC = 0x48524E47;
+
+  // The header, with the two positions on cache lines of their own
+  private static final int MAGIC_OFFSET = 0;
+  private static final int CAPACITY_OFFSET = 4;
+  private static final int WRITE_POSITION_OFFSET = 64;
+  private static final int READ_POSITION_OFFSET = 128;
+  private static final int HEADER_SIZE = 192;
+
+  // Records are a length followed by the bytes, aligned to the size of the length
+  private static final int LENGTH_SIZE = 4;
+  // The length which tells the rest of the ring is skipped
+  private static final int PADDING = -1;
+
+  private final MappedByteBuffer header;
+  private final ByteBuffer data;
+  private final int capacity;
+  private final int mask;
+
+  // The position up to which records are written, or read, by this side
+  private long position;
+  // The size of the record claimed by the producer, including the skipped rest of the ring
+  private int claimedSize;
+
+  // Java 8 has no explicit fences, so a volatile write followed by a volatile read serves as one
+  private volatile int fence;
+
+  private MappedRingBuffer(MappedByteBuffer buffer, int capacity) {
+    this.header = buffer;
+    buffer.position(HEADER_SIZE);
+    this.data = buffer.slice();
+    buffer.position(0);
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Create the ring buffer file as the producer, replacing any file left behind
+   *
+   * @param capacity the size in bytes of the ring, rounded up to a power of two
+   */
+  public static MappedRingBuffer create(File file, int capacity) throws IOException {
+    if (capacity <= 0 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    int ringSize = Integer.highestOneBit(capacity);
+    if (ringSize < capacity) {
+      ringSize <<= 1;
+    }
+
+    // The consumer may still map the previous file, which must not change under it
+    if (file.exists() && !file.delete()) {
+      throw new IOException("Failed to delete " + file);
+    }
+    MappedRingBuffer ring = new MappedRingBuffer(map(file, HEADER_SIZE + ringSize), ringSize);
+    ring.header.putInt(CAPACITY_OFFSET, ringSize);
+    ring.header.putLong(WRITE_POSITION_OFFSET, 0);
+    ring.header.putLong(READ_POSITION_OFFSET, 0);
+    ring.fullFence();
+    ring.header.putInt(MAGIC_OFFSET, MAGIC);
+    return ring;
+  }
+
+  /**
+   * Map the ring buffer file created by the producer, as the consumer
+   */
+  public static MappedRingBuffer open(File file) throws IOException {
+    long length = file.length();
+    if (length <= HEADER_SIZE) {
+      throw new IOException("Not a ring buffer file: " + file);
+    }
+    MappedByteBuffer buffer = map(file, length);
+    int capacity = buffer.getInt(CAPACITY_OFFSET);
+    if (buffer.getInt(MAGIC_OFFSET) != MAGIC || HEADER_SIZE + (long) capacity != length) {
+      throw new IOException("Not a ring buffer file: " + file);
+    }
+    MappedRingBuffer ring = new MappedRingBuffer(buffer, capacity);
+    ring.position = buffer.getLong(READ_POSITION_OFFSET);
+    return ring;
+  }
+
+  private static MappedByteBuffer map(File file, long length) throws IOException {
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      randomAccessFile.setLength(length);
+      // The mapping stays valid once the file is closed
+      return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Called by the producer only. Claim the room for a record of the given length, to be written
+   * into the buffer returned and made visible to the consumer by commit().
+   *
+   * @return a buffer of the given length, or null if the ring has not enough room left
+   */
+  public ByteBuffer claim(int length) {
+    int recordSize = align(LENGTH_SIZE + length);
+    if (length < 0 || recordSize > capacity) {
+      return null;
+    }
+    int index = (int) (position & mask);
+    int rest = capacity - index;
+    int size = rest < recordSize ? rest + recordSize : recordSize;
+    if (position + size - header.getLong(READ_POSITION_OFFSET) > capacity) {
+      return null;
+    }
+
+    if (rest < recordSize) {
+      // The record does not fit in the rest of the ring, so it goes at its beginning
+      data.putInt(index, PADDING);
+      index = 0;
+    }
+    data.putInt(index, length);
+    claimedSize = size;
+    return slice(index + LENGTH_SIZE, length);
+  }
+
+  /**
+   * Called by the producer only. Make the record claimed last visible to the consumer.
+   */
+  public void commit() {
+    if (claimedSize == 0) {
+      throw new IllegalStateException("No record claimed");
+    }
+    position += claimedSize;
+    claimedSize = 0;
+    fullFence();
+    header.putLong(WRITE_POSITION_OFFSET, position);
+  }
+
+  /**
+   * Called by the consumer only. Hand every record committed to the handler, as a buffer over
+   * the file, which is only valid until the handler returns.
+   *
+   * @return the number of records read
+   */
+  public int drain(Consumer<ByteBuffer> handler) {
+    long writePosition = header.getLong(WRITE_POSITION_OFFSET);
+    fullFence();
+
+    int records = 0;
+    while (position < writePosition) {
+      int index = (int) (position & mask);
+      int length = data.getInt(index);
+      if (length == PADDING) {
+        position += capacity - index;
+        continue;
+      }
+      handler.accept(slice(index + LENGTH_SIZE, length));
+      position += align(LENGTH_SIZE + length);
+      records++;
+    }
+
+    if (records > 0) {
+      // The producer could reuse the room of the records read from now on
+      fullFence();
+      header.putLong(READ_POSITION_OFFSET, position);
+    }
+    return records;
+  }
+
+  /**
+   * Called by the consumer only. Whether there is no record left to read.
+   */
+  public boolean isEmpty() {
+    return position == header.getLong(WRITE_POSITION_OFFSET);
+  }
+
+  private ByteBuffer slice(int index, int length) {
+    ByteBuffer buffer = data.duplicate();
+    buffer.limit(index + length);
+    buffer.position(index);
+    return buffer.slice();
+  }
+
+  private static int align(int size) {
+    return (size + LENGTH_SIZE - 1) & -LENGTH_SIZE;
+  }
+
+  private int fullFence() {
+    fence = 0;
+    return fence;
+  }
+}
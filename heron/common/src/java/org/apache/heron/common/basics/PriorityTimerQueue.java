@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.basics;
+
+import java.util.PriorityQueue;
+
+/**
+ * A TimerQueue on a PriorityQueue, so tasks expire exactly in order of their expiration time.
+ * Cancelled tasks are left in the queue and skipped, until they make up half of it.
+ */
+final class PriorityTimerQueue implements TimerQueue {
+  private final PriorityQueue<WakeableLooper.TimerTask> timers;
+  private int cancelled;
+
+  PriorityTimerQueue() {
+    timers = new PriorityQueue<>();
+  }
+
+  @Override
+  public void add(WakeableLooper.TimerTask task) {
+    timers.add(task);
+  }
+
+  @Override
+  public void remove(WakeableLooper.TimerTask task) {
+    cancelled++;
+    if (cancelled > timers.size() / 2) {
+      timers.removeIf(WakeableLooper.TimerTask::isCancelled);
+      cancelled = 0;
+    }
+  }
+
+  @Override
+  public WakeableLooper.TimerTask pollExpired(long currentTime) {
+    skipCancelled();
+    if (!timers.isEmpty() && timers.peek().getExpirationTime() - currentTime <= 0) {
+      return timers.poll();
+    }
+    return null;
+  }
+
+  @Override
+  public long getNextExpirationTime(long currentTime) {
+    skipCancelled();
+    return timers.isEmpty() ? Long.MAX_VALUE : timers.peek().getExpirationTime();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    skipCancelled();
+    return timers.isEmpty();
+  }
+
+  @Override
+  public void clear() {
+    timers.clear();
+    cancelled = 0;
+  }
+
+  private void skipCancelled() {
+    while (!timers.isEmpty() && timers.peek().isCancelled()) {
+      timers.poll();
+      cancelled--;
+    }
+  }
+}
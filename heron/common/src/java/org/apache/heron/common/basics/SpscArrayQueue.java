@@ -0,0 +1,333 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.basics;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free single-producer/single-consumer queue backed by an array ring buffer.
+ * <p>
+ * Exactly one thread may offer items and exactly one thread may poll/peek/drain items.
+ * Offering an item does not allocate, and size() is O(1).
+ * <p>
+ * The ring has a fixed capacity, rounded up to a power of two. To keep the soft bound semantics of
+ * Communicator, where offer() always succeeds, items offered while the ring is full spill into an
+ * unbounded overflow queue. The producer keeps on spilling until the consumer has taken every
+ * spilled item, so the FIFO order is preserved.
+ * <p>
+ * The iterator is weakly consistent: it could be used from any thread, never throws
+ * ConcurrentModificationException, and may or may not see the items offered or polled meanwhile.
+ * Removing items through it, e.g. by remove(Object), is only allowed to the consumer.
+ */
+public class SpscArrayQueue<E> extends AbstractQueue<E> {
+  // What the consumer sees once the ring looks empty, see refreshTail(long)
+  private static final int RING_NOT_EMPTY = 0;
+  private static final int RING_EMPTY = 1;
+  private static final int RING_EMPTY_WITH_SPILL = 2;
+
+  private final AtomicReferenceArray<E> ring;
+  private final int mask;
+
+  // Index of the next item to poll, only written by the consumer
+  private final AtomicLong head = new AtomicLong();
+  // Index of the next slot to offer into, only written by the producer
+  private final AtomicLong tail = new AtomicLong();
+  // The producer's view of head, refreshed only when the ring looks full
+  private long headCache;
+  // The consumer's view of tail, refreshed only when the ring looks empty
+  private long tailCache;
+
+  private final Queue<E> overflow = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger overflowSize = new AtomicInteger();
+
+  public SpscArrayQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    int ringSize = Integer.highestOneBit(capacity);
+    if (ringSize < capacity) {
+      ringSize <<= 1;
+    }
+    this.ring = new AtomicReferenceArray<>(ringSize);
+    this.mask = ringSize - 1;
+  }
+
+  public int ringCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Called by the producer only. Always succeeds.
+   */
+  @Override
+  public boolean offer(E e) {
+    if (e == null) {
+      throw new NullPointerException();
+    }
+    if (overflowSize.get() == 0 && offerToRing(e)) {
+      return true;
+    }
+    // Count before publishing, so that size() never under counts
+    overflowSize.incrementAndGet();
+    overflow.offer(e);
+    return true;
+  }
+
+  private boolean offerToRing(E e) {
+    long t = tail.get();
+    if (t - headCache > mask) {
+      headCache = head.get();
+      if (t - headCache > mask) {
+        return false;
+      }
+    }
+    ring.lazySet((int) t & mask, e);
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Called by the consumer only.
+   */
+  @Override
+  public E poll() {
+    long h = head.get();
+    if (h >= tailCache) {
+      int state = refreshTail(h);
+      if (state == RING_EMPTY) {
+        return null;
+      }
+      if (state == RING_EMPTY_WITH_SPILL) {
+        return pollOverflow();
+      }
+    }
+    int index = (int) h & mask;
+    E e = ring.get(index);
+    ring.lazySet(index, null);
+    head.lazySet(h + 1);
+    return e;
+  }
+
+  /**
+   * Refresh the consumer's view of tail, once the ring looks empty at head h.
+   * <p>
+   * The producer fills the ring before it spills, so spilled items must only be taken once the
+   * ring is seen empty after they were counted: tail is read once more after overflowSize. The
+   * producer does not touch the ring again until that count drops to 0, which only the consumer
+   * could make happen.
+   */
+  private int refreshTail(long h) {
+    tailCache = tail.get();
+    if (h < tailCache) {
+      return RING_NOT_EMPTY;
+    }
+    if (overflowSize.get() == 0) {
+      return RING_EMPTY;
+    }
+    tailCache = tail.get();
+    return h < tailCache ? RING_NOT_EMPTY : RING_EMPTY_WITH_SPILL;
+  }
+
+  private E pollOverflow() {
+    E e = overflow.poll();
+    if (e != null) {
+      overflowSize.decrementAndGet();
+    }
+    return e;
+  }
+
+  /**
+   * Called by the consumer only.
+   */
+  @Override
+  public E peek() {
+    long h = head.get();
+    if (h >= tailCache) {
+      int state = refreshTail(h);
+      if (state == RING_EMPTY) {
+        return null;
+      }
+      if (state == RING_EMPTY_WITH_SPILL) {
+        return overflow.peek();
+      }
+    }
+    return ring.get((int) h & mask);
+  }
+
+  /**
+   * Called by the consumer only. Moves up to maxElements items into the collection, publishing
+   * the new head of the ring once for each run of items taken from the ring.
+   *
+   * @return the number of items transferred
+   */
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    int n = 0;
+    while (n < maxElements) {
+      long h = head.get();
+      if (h >= tailCache) {
+        int state = refreshTail(h);
+        if (state == RING_EMPTY) {
+          break;
+        }
+        if (state == RING_EMPTY_WITH_SPILL) {
+          E e = pollOverflow();
+          if (e == null) {
+            break;
+          }
+          c.add(e);
+          n++;
+          continue;
+        }
+      }
+      int batch = (int) Math.min(tailCache - h, maxElements - n);
+      for (int i = 0; i < batch; i++) {
+        int index = (int) (h + i) & mask;
+        c.add(ring.get(index));
+        ring.lazySet(index, null);
+      }
+      head.lazySet(h + batch);
+      n += batch;
+    }
+    return n;
+  }
+
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Could be called by any thread; the result is a snapshot and could be stale.
+   */
+  @Override
+  public int size() {
+    // Read head first: the size could only be over counted if items are polled meanwhile
+    long h = head.get();
+    long t = tail.get();
+    return (int) Math.max(0, t - h) + overflowSize.get();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * A weakly consistent iterator over the items in the ring from head to tail when it is created,
+   * and then over the spilled items. Its remove() must be called by the consumer only.
+   */
+  @Override
+  public Iterator<E> iterator() {
+    return new Itr();
+  }
+
+  private final class Itr implements Iterator<E> {
+    // The next position of the ring to look at, and the tail when the iterator was created
+    private long position;
+    private final long end;
+    private final Iterator<E> spilled;
+
+    // The next item of the ring and its position, null once the ring is done with
+    private E nextItem;
+    private long nextPosition;
+
+    // The position of the item of the ring last returned, -1 if none could be removed
+    private long lastPosition = -1;
+    // Whether the item last returned was a spilled item which could be removed
+    private boolean lastSpilled;
+
+    Itr() {
+      this.position = head.get();
+      this.end = tail.get();
+      this.spilled = overflow.iterator();
+      advance();
+    }
+
+    // Find the next item of the ring not polled yet
+    private void advance() {
+      nextItem = null;
+      while (position < end) {
+        long p = position++;
+        E e = ring.get((int) p & mask);
+        if (e != null && p >= head.get()) {
+          nextItem = e;
+          nextPosition = p;
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextItem != null || spilled.hasNext();
+    }
+
+    @Override
+    public E next() {
+      if (nextItem != null) {
+        E e = nextItem;
+        lastPosition = nextPosition;
+        lastSpilled = false;
+        advance();
+        return e;
+      }
+      if (!spilled.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      E e = spilled.next();
+      lastPosition = -1;
+      lastSpilled = true;
+      return e;
+    }
+
+    /**
+     * Called by the consumer only. An item of the ring is removed by moving the items before it
+     * one slot forward, which are only the consumer's to touch, and then moving head forward.
+     */
+    @Override
+    public void remove() {
+      if (lastSpilled) {
+        spilled.remove();
+        overflowSize.decrementAndGet();
+        lastSpilled = false;
+        return;
+      }
+      if (lastPosition < 0) {
+        throw new IllegalStateException();
+      }
+      long h = head.get();
+      if (lastPosition >= h) {
+        for (long p = lastPosition; p > h; p--) {
+          ring.lazySet((int) p & mask, ring.get((int) (p - 1) & mask));
+        }
+        ring.lazySet((int) h & mask, null);
+        head.lazySet(h + 1);
+      }
+      lastPosition = -1;
+    }
+  }
+}
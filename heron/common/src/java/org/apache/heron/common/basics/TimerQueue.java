@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.basics;
+
+/**
+ * The timers of a WakeableLooper, ordered by their expiration time in nano-seconds.
+ * Not thread-safe, as the WakeableLooper.
+ */
+interface TimerQueue {
+  void add(WakeableLooper.TimerTask task);
+
+  /**
+   * Remove a cancelled task, which is in this queue
+   */
+  void remove(WakeableLooper.TimerTask task);
+
+  /**
+   * Remove and return a task expired at currentTime, or null if there is none
+   */
+  WakeableLooper.TimerTask pollExpired(long currentTime);
+
+  /**
+   * Get the time by when the looper should next call pollExpired(), or Long.MAX_VALUE
+   * if there is no timer
+   */
+  long getNextExpirationTime(long currentTime);
+
+  boolean isEmpty();
+
+  void clear();
+}
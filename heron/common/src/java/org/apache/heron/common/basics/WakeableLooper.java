@@ -22,7 +22,8 @@ package org.apache.heron.common.basics;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A WakeableLooper is a class that could:
@@ -38,17 +39,25 @@ import java.util.PriorityQueue;
  * even during executionTasksOnWakeup, but the task added will be executed next time we run executeTasksOnwakeup().
  * Notice: you could just add tasks into it but not remove tasks from it.
  * 3. trigger the timers, which is a priority queue of {@code TimerTask}, the {@code TimerTask}
- * will be removed after execution.
+ * will be removed after execution, unless it is periodic. It is rescheduled then, without any
+ * allocation. A {@code TimerTask} could be cancelled at any time before its execution.
+ * With useTimingWheel(), the timers are kept in a hashed timing wheel instead, which takes O(1)
+ * to add or cancel a timer whatever the number of timers, at the cost of firing them only at
+ * the end of their tick.
  * <p>
  * So to use this class, user could add the persistent tasks, one time tasks and timer tasks as many
  * as they want.
+ * <p>
+ * Other threads handing work to the looper, e.g. via a Communicator, should prefer wakeUpIfNeeded()
+ * to wakeUp(): a wake-up already issued but not yet picked up by the looper is not issued again,
+ * since the looper will run its tasks anyway.
  * Most methods except the onExit() are not thread-safe.
  * People should handle the concurrent scenarios in their business logic rather than in this class.
  */
 public abstract class WakeableLooper {
   // The tasks could only be added but not removed
   private final List<Runnable> tasksOnWakeup;
-  private final PriorityQueue<TimerTask> timers;
+  private TimerQueue timers;
 
   // The tasks would be invoked before exit
   private final List<Runnable> exitTasks;
@@ -66,13 +75,21 @@ public abstract class WakeableLooper {
   // this boolean is need if it is one of the tasks in exitTask that clears the list
   private boolean terminateAllExitTasks;
 
+  // Set once a wake-up is issued by wakeUpIfNeeded(), and reset when the looper wakes up
+  private final AtomicBoolean wakeUpPending;
+  private final LongAdder wakeUpsIssued;
+  private final LongAdder wakeUpsSuppressed;
+
   public WakeableLooper() {
     exitLoop = false;
     tasksOnWakeup = new ArrayList<>();
-    timers = new PriorityQueue<TimerTask>();
+    timers = new PriorityTimerQueue();
     exitTasks = new ArrayList<>();
     terminateAllTasksOnWakeup = false;
     terminateAllExitTasks = false;
+    wakeUpPending = new AtomicBoolean(false);
+    wakeUpsIssued = new LongAdder();
+    wakeUpsSuppressed = new LongAdder();
   }
 
   public void clear() {
@@ -107,6 +124,10 @@ public abstract class WakeableLooper {
   private void runOnce() {
     doWait();
 
+    // Reset before running the tasks: any work handed over from now on would issue a new wake-up,
+    // while any work handed over before is picked up by the tasks below
+    wakeUpPending.set(false);
+
     executeTasksOnWakeup();
 
     triggerExpiredTimers(System.nanoTime());
@@ -128,6 +149,33 @@ public abstract class WakeableLooper {
 
   public abstract void wakeUp();
 
+  /**
+   * Wake up the looper, unless a wake-up has already been issued and the looper has not yet
+   * woken up from it. This is safe to call from any thread.
+   */
+  public void wakeUpIfNeeded() {
+    if (wakeUpPending.compareAndSet(false, true)) {
+      wakeUpsIssued.increment();
+      wakeUp();
+    } else {
+      wakeUpsSuppressed.increment();
+    }
+  }
+
+  /**
+   * Get the number of wake-ups issued by wakeUpIfNeeded() so far
+   */
+  public long getWakeUpsIssued() {
+    return wakeUpsIssued.sum();
+  }
+
+  /**
+   * Get the number of redundant wake-ups suppressed by wakeUpIfNeeded() so far
+   */
+  public long getWakeUpsSuppressed() {
+    return wakeUpsSuppressed.sum();
+  }
+
   public void addTasksOnWakeup(Runnable task) {
     tasksOnWakeup.add(task);
     // We need to wake up the looper itself when we add a new task, otherwise, it is possible
@@ -139,21 +187,44 @@ public abstract class WakeableLooper {
     exitTasks.add(task);
   }
 
-  public void registerTimerEvent(Duration timerDuration, Runnable task) {
+  /**
+   * Keep the timers in a hashed timing wheel of the given tick and number of ticks per round,
+   * instead of a priority queue. The timers already registered are moved into it.
+   */
+  public void useTimingWheel(Duration tick, int ticksPerWheel) {
+    TimerQueue wheel = new HashedTimingWheel(tick, ticksPerWheel);
+    long currentTime = System.nanoTime();
+    while (!timers.isEmpty()) {
+      wheel.add(timers.pollExpired(timers.getNextExpirationTime(currentTime)));
+    }
+    timers = wheel;
+  }
+
+  /**
+   * Run the task once after the duration. Returns the handle to cancel it.
+   */
+  public TimerTask registerTimerEvent(Duration timerDuration, Runnable task) {
     assert timerDuration.getSeconds() >= 0;
     assert task != null;
-    Duration expiration = timerDuration.plusNanos(System.nanoTime());
-    timers.add(new TimerTask(expiration, task));
+    return schedule(new TimerTask(task, 0), System.nanoTime() + timerDuration.toNanos());
   }
 
-  public void registerPeriodicEvent(Duration frequency, Runnable task) {
-    registerTimerEvent(frequency, new Runnable() {
-      @Override
-      public void run() {
-        task.run();
-        registerPeriodicEvent(frequency, task);
-      }
-    });
+  /**
+   * Run the task at the given frequency, each run being scheduled once the previous run
+   * finishes. Returns the handle to cancel it.
+   */
+  public TimerTask registerPeriodicEvent(Duration frequency, Runnable task) {
+    assert frequency.getSeconds() >= 0;
+    assert task != null;
+    long period = frequency.toNanos();
+    return schedule(new TimerTask(task, period), System.nanoTime() + period);
+  }
+
+  private TimerTask schedule(TimerTask task, long expirationTime) {
+    task.expirationTime = expirationTime;
+    task.owner = this;
+    timers.add(task);
+    return task;
   }
 
   public void exitLoop() {
@@ -169,10 +240,12 @@ public abstract class WakeableLooper {
    */
   protected Duration getNextTimeoutInterval() {
     Duration nextTimeoutInterval = INFINITE_FUTURE;
-    if (!timers.isEmpty()) {
+    long currentTime = System.nanoTime();
+    long nextExpirationTime = timers.getNextExpirationTime(currentTime);
+    if (nextExpirationTime != Long.MAX_VALUE) {
       // The time recorded in timer is in nano-seconds. We have to convert it to milli-seconds
       // We need to ceil the result to avoid early wake up
-      nextTimeoutInterval = timers.peek().expirationTime.minusNanos(System.nanoTime());
+      nextTimeoutInterval = Duration.ofNanos(nextExpirationTime - currentTime);
     }
     return nextTimeoutInterval;
   }
@@ -195,42 +268,68 @@ public abstract class WakeableLooper {
 
   private void triggerExpiredTimers(long currentTime) {
     // Executes the task should be executed no later than current time
-    while (!timers.isEmpty()) {
-      long nextExpiredTime = timers.peek().expirationTime.toNanos();
-      if (nextExpiredTime - currentTime <= 0) {
-        timers.poll().handler.run();
-      } else {
-        return;
+    TimerTask task;
+    while ((task = timers.pollExpired(currentTime)) != null) {
+      task.owner = null;
+      task.handler.run();
+      // A periodic task is scheduled again in place, unless it was cancelled while running
+      if (task.period > 0 && !task.cancelled) {
+        schedule(task, System.nanoTime() + task.period);
       }
     }
   }
 
   /**
    * A TimerTask will has the runnable, and expirationTime to indicate when it will be executed.
-   * The expirationTime is the Duration until expiry should occur.
+   * The expirationTime is in nano-seconds, as System.nanoTime().
+   * It is also the handle to cancel the timer.
    */
-  private static class TimerTask implements Comparable<TimerTask> {
-    private final Duration expirationTime;
+  public static final class TimerTask implements Comparable<TimerTask> {
     private final Runnable handler;
+    // In nano-seconds, 0 if the task is run only once
+    private final long period;
+    private long expirationTime;
+    private boolean cancelled;
+    // The looper the task is scheduled in, null while it is not
+    private WakeableLooper owner;
 
-    TimerTask(Duration expirationTime, Runnable handler) {
-      this.expirationTime = expirationTime;
+    // Used by HashedTimingWheel to link the tasks of a bucket
+    long wheelTick;
+    int wheelIndex;
+    TimerTask wheelPrev;
+    TimerTask wheelNext;
+
+    TimerTask(Runnable handler, long period) {
       this.handler = handler;
+      this.period = period;
     }
 
-    @Override
-    public int compareTo(TimerTask other) {
-      return this.expirationTime.compareTo(other.expirationTime);
+    long getExpirationTime() {
+      return expirationTime;
     }
 
-    @Override
-    public boolean equals(Object other) {
-      throw new RuntimeException("TODO: implement");
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    /**
+     * Cancel the timer, so the task is not run again. Like the looper, it is not thread-safe,
+     * and should be called from the thread of the looper.
+     */
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      if (owner != null) {
+        owner.timers.remove(this);
+        owner = null;
+      }
     }
 
     @Override
-    public int hashCode() {
-      throw new RuntimeException("TODO: implement");
+    public int compareTo(TimerTask other) {
+      return Long.signum(this.expirationTime - other.expirationTime);
     }
   }
 }
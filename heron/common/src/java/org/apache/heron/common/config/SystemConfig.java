@@ -62,6 +62,10 @@ public final class SystemConfig {
     return getInteger(SystemConfigKey.INSTANCE_INTERNAL_METRICS_WRITE_QUEUE_CAPACITY);
   }
 
+  public String getInstanceInternalQueueType() {
+    return getString(SystemConfigKey.INSTANCE_INTERNAL_QUEUE_TYPE);
+  }
+
   public int getInstanceTuningExpectedMetricsWriteQueueSize() {
     return getInteger(SystemConfigKey.INSTANCE_TUNING_EXPECTED_METRICS_WRITE_QUEUE_SIZE);
   }
@@ -74,6 +78,46 @@ public final class SystemConfig {
     return getByteAmount(SystemConfigKey.INSTANCE_SET_DATA_TUPLE_SIZE);
   }
 
+  public boolean isInstanceTupleLazyDecode() {
+    return getBoolean(SystemConfigKey.INSTANCE_TUPLE_LAZY_DECODE);
+  }
+
+  public int getInstanceTupleLatencySampleInterval() {
+    return getInteger(SystemConfigKey.INSTANCE_TUPLE_LATENCY_SAMPLE_INTERVAL);
+  }
+
+  public boolean isInstanceMetricsLatencyPercentiles() {
+    return getBoolean(SystemConfigKey.INSTANCE_METRICS_LATENCY_PERCENTILES);
+  }
+
+  public Duration getInstanceTimerWheelTick() {
+    return getDuration(SystemConfigKey.INSTANCE_TIMER_WHEEL_TICK);
+  }
+
+  public String getInstanceFlushPolicy() {
+    return getString(SystemConfigKey.INSTANCE_FLUSH_POLICY);
+  }
+
+  public Duration getInstanceFlushLinger() {
+    return getDuration(SystemConfigKey.INSTANCE_FLUSH_LINGER);
+  }
+
+  public ByteAmount getInstanceFlushTargetSize() {
+    return getByteAmount(SystemConfigKey.INSTANCE_FLUSH_TARGET_SIZE);
+  }
+
+  public int getInstanceSpoutEmitStagingCapacity() {
+    return getInteger(SystemConfigKey.INSTANCE_SPOUT_EMIT_STAGING_CAPACITY);
+  }
+
+  public ByteAmount getInstanceSpoutFlowControlCredit() {
+    return getByteAmount(SystemConfigKey.INSTANCE_SPOUT_FLOW_CONTROL_CREDIT);
+  }
+
+  public boolean isInstanceAckCombine() {
+    return getBoolean(SystemConfigKey.INSTANCE_ACK_COMBINE);
+  }
+
   public int getInstanceSetControlTupleCapacity() {
     return getInteger(SystemConfigKey.INSTANCE_SET_CONTROL_TUPLE_CAPACITY);
   }
@@ -98,6 +142,22 @@ public final class SystemConfig {
     return getInteger(SystemConfigKey.INSTANCE_INTERNAL_SPOUT_WRITE_QUEUE_CAPACITY);
   }
 
+  public ByteAmount getInstanceInternalBoltReadQueueCapacityBytes() {
+    return getByteAmount(SystemConfigKey.INSTANCE_INTERNAL_BOLT_READ_QUEUE_CAPACITY_BYTES);
+  }
+
+  public ByteAmount getInstanceInternalBoltWriteQueueCapacityBytes() {
+    return getByteAmount(SystemConfigKey.INSTANCE_INTERNAL_BOLT_WRITE_QUEUE_CAPACITY_BYTES);
+  }
+
+  public ByteAmount getInstanceInternalSpoutReadQueueCapacityBytes() {
+    return getByteAmount(SystemConfigKey.INSTANCE_INTERNAL_SPOUT_READ_QUEUE_CAPACITY_BYTES);
+  }
+
+  public ByteAmount getInstanceInternalSpoutWriteQueueCapacityBytes() {
+    return getByteAmount(SystemConfigKey.INSTANCE_INTERNAL_SPOUT_WRITE_QUEUE_CAPACITY_BYTES);
+  }
+
   public Duration getInstanceAckBatchTime() {
     return getDuration(SystemConfigKey.INSTANCE_ACK_BATCH_TIME);
   }
@@ -158,6 +218,14 @@ public final class SystemConfig {
     return getByteAmount(SystemConfigKey.INSTANCE_NETWORK_OPTIONS_SOCKET_SEND_BUFFER_SIZE);
   }
 
+  public ByteAmount getInstanceNetworkOptionsOutgoingPacketPoolSize() {
+    return getByteAmount(SystemConfigKey.INSTANCE_NETWORK_OPTIONS_OUTGOING_PACKET_POOL_SIZE);
+  }
+
+  public ByteAmount getInstanceNetworkOptionsReadArenaSize() {
+    return getByteAmount(SystemConfigKey.INSTANCE_NETWORK_OPTIONS_READ_ARENA_SIZE);
+  }
+
   public Duration getInstanceEmitBatchTime() {
     return getDuration(SystemConfigKey.INSTANCE_EMIT_BATCH_TIME);
   }
@@ -182,6 +250,10 @@ public final class SystemConfig {
     return getDuration(SystemConfigKey.INSTANCE_RECONNECT_METRICSMGR_INTERVAL);
   }
 
+  public ByteAmount getInstanceMetricsRingSize() {
+    return getByteAmount(SystemConfigKey.INSTANCE_METRICS_RING_SIZE);
+  }
+
   public Duration getInstanceMetricsSystemSampleInterval() {
     return getDuration(SystemConfigKey.INSTANCE_METRICS_SYSTEM_SAMPLE_INTERVAL);
   }
@@ -226,6 +298,18 @@ public final class SystemConfig {
     return getByteAmount(SystemConfigKey.METRICSMGR_NETWORK_OPTIONS_MAXIMUM_PACKETSIZE_BYTES);
   }
 
+  public ByteAmount getMetricsMgrNetworkOptionsReadArenaSize() {
+    return getByteAmount(SystemConfigKey.METRICSMGR_NETWORK_OPTIONS_READ_ARENA_SIZE);
+  }
+
+  public String getMetricsMgrNetworkUnixSocketDirectory() {
+    return getString(SystemConfigKey.METRICSMGR_NETWORK_UNIX_SOCKET_DIRECTORY);
+  }
+
+  public Duration getMetricsMgrMetricsRingPollInterval() {
+    return getDuration(SystemConfigKey.METRICSMGR_METRICS_RING_POLL_INTERVAL);
+  }
+
   public int getHeronMetricsMaxExceptionsPerMessageCount() {
     return getInteger(SystemConfigKey.HERON_METRICS_MAX_EXCEPTIONS_PER_MESSAGE_COUNT);
   }
@@ -251,6 +335,11 @@ public final class SystemConfig {
     return (String) get(key);
   }
 
+  private Boolean getBoolean(SystemConfigKey key) {
+    assertType(key, SystemConfigKey.Type.BOOLEAN);
+    return TypeUtils.getBoolean(get(key));
+  }
+
   private Integer getInteger(SystemConfigKey key) {
     assertType(key, SystemConfigKey.Type.INTEGER);
     return TypeUtils.getInteger(get(key));
@@ -355,6 +444,7 @@ public final class SystemConfig {
             config.put(key.value(), TypeUtils.getLong(value));
             break;
           case STRING:
+            config.put(key.value(), value);
             break;
           default:
             throw new IllegalArgumentException(String.format(
@@ -95,12 +95,47 @@ public enum SystemConfigKey {
   INSTANCE_INTERNAL_SPOUT_WRITE_QUEUE_CAPACITY(
       "heron.instance.internal.spout.write.queue.capacity", Type.INTEGER),
 
+  /**
+   * The queue capacity in bytes in bolt for buffer packets to read from stream manager,
+   * 0 for no bound on the bytes. Any bound set costs sizing every packet read
+   */
+  INSTANCE_INTERNAL_BOLT_READ_QUEUE_CAPACITY_BYTES(
+      "heron.instance.internal.bolt.read.queue.capacity.bytes", ByteAmount.ZERO),
+
+  /**
+   * The queue capacity in bytes in bolt for buffer packets to write to stream manager,
+   * 0 for no bound on the bytes
+   */
+  INSTANCE_INTERNAL_BOLT_WRITE_QUEUE_CAPACITY_BYTES(
+      "heron.instance.internal.bolt.write.queue.capacity.bytes", ByteAmount.ZERO),
+
+  /**
+   * The queue capacity in bytes in spout for buffer packets to read from stream manager,
+   * 0 for no bound on the bytes. Any bound set costs sizing every packet read
+   */
+  INSTANCE_INTERNAL_SPOUT_READ_QUEUE_CAPACITY_BYTES(
+      "heron.instance.internal.spout.read.queue.capacity.bytes", ByteAmount.ZERO),
+
+  /**
+   * The queue capacity in bytes in spout for buffer packets to write to stream manager,
+   * 0 for no bound on the bytes
+   */
+  INSTANCE_INTERNAL_SPOUT_WRITE_QUEUE_CAPACITY_BYTES(
+      "heron.instance.internal.spout.write.queue.capacity.bytes", ByteAmount.ZERO),
+
   /**
    * The queue capacity (num of items) for metrics packets to write to metrics manager
    */
   INSTANCE_INTERNAL_METRICS_WRITE_QUEUE_CAPACITY(
       "heron.instance.internal.metrics.write.queue.capacity", Type.INTEGER),
 
+  /**
+   * The buffer queue underneath the instance's internal queues, either linked_transfer_queue,
+   * an unbounded linked queue, or spsc_ring_buffer, a lock-free single-producer/single-consumer
+   * ring buffer sized by the queue capacities above
+   */
+  INSTANCE_INTERNAL_QUEUE_TYPE("heron.instance.internal.queue.type", "linked_transfer_queue"),
+
   /**
    * Time based, the maximum batch time in ms for instance to read from stream manager per attempt
    */
@@ -136,6 +171,20 @@ public enum SystemConfigKey {
   INSTANCE_NETWORK_OPTIONS_SOCKET_SEND_BUFFER_SIZE(
       "heron.instance.network.options.socket.send.buffer.size.bytes", Type.BYTE_AMOUNT),
 
+  /**
+   * The maximum size in bytes of pooled direct buffers used to frame outgoing packets.
+   * 0 disables the pool and packets are framed in plain heap buffers
+   */
+  INSTANCE_NETWORK_OPTIONS_OUTGOING_PACKET_POOL_SIZE(
+      "heron.instance.network.options.outgoing.packet.pool.size.bytes", ByteAmount.ZERO),
+
+  /**
+   * The initial size in bytes of the reusable buffer incoming packets are read into and decoded
+   * from. 0 disables the arena and every packet is read into its own buffer
+   */
+  INSTANCE_NETWORK_OPTIONS_READ_ARENA_SIZE(
+      "heron.instance.network.options.read.arena.size.bytes", ByteAmount.ZERO),
+
   /**
    * The maximum # of data tuple to batch in a HeronDataTupleSet protobuf
    */
@@ -147,6 +196,73 @@ public enum SystemConfigKey {
   INSTANCE_SET_DATA_TUPLE_SIZE(
       "heron.instance.set.data.tuple.size.bytes", ByteAmount.fromBytes(Long.MAX_VALUE)),
 
+  /**
+   * When to send out the tuples emitted: eager, every time the instance is done with a batch of
+   * work; linger, once they add up to the target size, or the first of them has waited for the
+   * linger time; adaptive, like linger with the target size and linger time tuned to the rate
+   * tuples are emitted at and to the back-pressure from the stream manager
+   */
+  INSTANCE_FLUSH_POLICY("heron.instance.flush.policy", "eager"),
+
+  /**
+   * The linger time in micro-seconds of the linger flush policy, and the maximum linger time of
+   * the adaptive one
+   */
+  INSTANCE_FLUSH_LINGER(
+      "heron.instance.flush.linger.us", ChronoUnit.MICROS, Duration.ofMillis(1)),
+
+  /**
+   * The target size in bytes of the data tuples sent out at once by the linger and adaptive flush
+   * policies
+   */
+  INSTANCE_FLUSH_TARGET_SIZE(
+      "heron.instance.flush.target.size.bytes", ByteAmount.fromBytes(64 * 1024)),
+
+  /**
+   * Whether data tuples received from stream manager are handed over to the bolt as raw bytes,
+   * and only decoded once the bolt reads them, instead of being decoded by the gateway thread
+   */
+  INSTANCE_TUPLE_LAZY_DECODE("heron.instance.tuple.lazy.decode", false),
+
+  /**
+   * Time only 1 in every N tuples executed by a bolt, or produced by a spout, for the latency
+   * metrics. The tuples are still all counted. Every tuple is timed if the value is 1, or if the
+   * component has task hooks.
+   */
+  INSTANCE_TUPLE_LATENCY_SAMPLE_INTERVAL("heron.instance.tuple.latency.sample.interval", 1),
+
+  /**
+   * Whether the execute, process and fail latencies of bolts, and the complete and fail latencies
+   * of spouts, are reported with their p50, p90, p99, p999 and max besides their means
+   */
+  INSTANCE_METRICS_LATENCY_PERCENTILES("heron.instance.metrics.latency.percentiles", false),
+
+  /**
+   * The tick of the hashed timing wheel keeping the timers of the instance threads, or 0 to keep
+   * them in a priority queue. The timers fire at the end of their tick.
+   */
+  INSTANCE_TIMER_WHEEL_TICK(
+      "heron.instance.timer.wheel.tick.ms", ChronoUnit.MILLIS, Duration.ZERO),
+
+  /**
+   * The maximum # of tuples each thread of a spout could stage before it waits, when the spout
+   * emits from its own threads
+   */
+  INSTANCE_SPOUT_EMIT_STAGING_CAPACITY("heron.instance.spout.emit.staging.capacity", 1024),
+
+  /**
+   * The bytes of tuples a spout could have sent out but still in its out queue, before it stops
+   * emitting. 0, the default, stops the spout on the expected capacity of the queue instead
+   */
+  INSTANCE_SPOUT_FLOW_CONTROL_CREDIT(
+      "heron.instance.spout.flow.control.credit.bytes", ByteAmount.ZERO),
+
+  /**
+   * Whether a bolt combines the acks of the tuples sharing a root, until they are sent out to
+   * stream manager, into one ack XORing their keys
+   */
+  INSTANCE_ACK_COMBINE("heron.instance.ack.combine", false),
+
   /**
    * The size of packets read from stream manager will be determined by the minimal of
    * (a) time based (b) size based
@@ -204,6 +320,13 @@ public enum SystemConfigKey {
   INSTANCE_RECONNECT_METRICSMGR_INTERVAL(
       "heron.instance.reconnect.metricsmgr.interval.sec", ChronoUnit.SECONDS),
 
+  /**
+   * The size in bytes of the memory-mapped ring buffer file the instance writes its metrics into,
+   * for the metrics manager to read, instead of sending them over the socket. The socket is
+   * still used to register, and whenever the ring is full. 0 disables the ring buffer
+   */
+  INSTANCE_METRICS_RING_SIZE("heron.instance.metrics.ring.size.bytes", ByteAmount.ZERO),
+
   /**
    * The interval in seconds to sample a system metric, for instance, JVM used memory.
    */
@@ -308,6 +431,27 @@ public enum SystemConfigKey {
   METRICSMGR_NETWORK_OPTIONS_MAXIMUM_PACKETSIZE_BYTES(
       "heron.metricsmgr.network.options.maximum.packetsize.bytes", Type.BYTE_AMOUNT),
 
+  /**
+   * The initial size in bytes of the reusable buffer incoming packets are read into and decoded
+   * from. 0 disables the arena and every packet is read into its own buffer
+   */
+  METRICSMGR_NETWORK_OPTIONS_READ_ARENA_SIZE(
+      "heron.metricsmgr.network.options.read.arena.size.bytes", ByteAmount.ZERO),
+
+  /**
+   * The directory of the Unix domain socket the metrics manager listens on besides its port,
+   * and the instances connect to instead of the port. Empty to use TCP only. Unix domain
+   * sockets need Java 16 or later, and TCP is used on older JVMs
+   */
+  METRICSMGR_NETWORK_UNIX_SOCKET_DIRECTORY(
+      "heron.metricsmgr.network.unix.socket.directory", ""),
+
+  /**
+   * Interval in ms for the metrics manager to read the metrics ring buffers of the instances
+   */
+  METRICSMGR_METRICS_RING_POLL_INTERVAL(
+      "heron.metricsmgr.metrics.ring.poll.interval.ms", ChronoUnit.MILLIS, Duration.ofSeconds(1)),
+
   /**
    *The maximum exception count be kept in tmaster
    */
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.heron.common.basics.ByteAmount;
+
+/**
+ * A pool of reusable direct ByteBuffers, used to frame OutgoingPackets without allocating
+ * a new buffer for every packet.
+ * <p>
+ * Buffers are bucketed by power-of-two capacity, from 1KB up to 16MB. The total capacity of direct
+ * buffers ever allocated by the pool, whether idle in the pool or in use, never exceeds
+ * maxDirectBytes. Once that bound is hit, or when the requested size is larger than the largest
+ * bucket, acquire() falls back to a plain heap buffer which is never pooled.
+ * <p>
+ * This keeps the concerns described in OutgoingPacket in check: the native memory used is
+ * bounded and known upfront, and it is reused instead of waiting for gc to release it.
+ */
+public class ByteBufferPool {
+  private static final int MIN_BUCKET_SHIFT = 10;
+  private static final int MAX_BUCKET_SHIFT = 24;
+
+  private final long maxDirectBytes;
+  private final List<ArrayDeque<ByteBuffer>> buckets;
+
+  // The total capacity of direct buffers allocated by this pool
+  private long directBytes;
+
+  // Stats
+  private long totalAcquired;
+  private long totalReused;
+  private long totalHeapFallbacks;
+
+  public ByteBufferPool(long maxDirectBytes) {
+    this.maxDirectBytes = maxDirectBytes;
+    this.buckets = new ArrayList<>(MAX_BUCKET_SHIFT - MIN_BUCKET_SHIFT + 1);
+    for (int i = MIN_BUCKET_SHIFT; i <= MAX_BUCKET_SHIFT; i++) {
+      buckets.add(new ArrayDeque<>());
+    }
+  }
+
+  /**
+   * Create the pool to frame OutgoingPackets in according to the socket options.
+   * On JVMs where protos can not be serialized into direct buffers in place (see
+   * ProtoBufferCodec), there is no pool: the packets are framed in heap buffers instead.
+   *
+   * @return the pool, or null if pooling is disabled
+   */
+  public static ByteBufferPool forOutgoingPackets(HeronSocketOptions options) {
+    ByteAmount poolSize = options.getOutgoingPacketPoolSize();
+    if (poolSize == null || poolSize.asBytes() <= 0 || !ProtoBufferCodec.isDirectInPlace()) {
+      return null;
+    }
+    return new ByteBufferPool(poolSize.asBytes());
+  }
+
+  /**
+   * Get a cleared buffer with at least the given capacity.
+   * The buffer should be given back by release(ByteBuffer) once it is no longer used.
+   */
+  public synchronized ByteBuffer acquire(int size) {
+    totalAcquired++;
+    int index = bucketIndex(size);
+    if (index < 0) {
+      totalHeapFallbacks++;
+      return ByteBuffer.allocate(size);
+    }
+
+    ByteBuffer buffer = buckets.get(index).poll();
+    if (buffer != null) {
+      totalReused++;
+      buffer.clear();
+      return buffer;
+    }
+
+    int capacity = 1 << (index + MIN_BUCKET_SHIFT);
+    if (directBytes + capacity > maxDirectBytes) {
+      totalHeapFallbacks++;
+      return ByteBuffer.allocate(size);
+    }
+    directBytes += capacity;
+    return ByteBuffer.allocateDirect(capacity);
+  }
+
+  /**
+   * Give back a buffer got from acquire(int). Heap buffers are simply dropped.
+   * The buffer must not be touched after it is released.
+   */
+  public synchronized void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return;
+    }
+    int index = bucketIndex(buffer.capacity());
+    if (index >= 0 && buffer.capacity() == 1 << (index + MIN_BUCKET_SHIFT)) {
+      buckets.get(index).push(buffer);
+    }
+  }
+
+  private static int bucketIndex(int size) {
+    if (size > 1 << MAX_BUCKET_SHIFT) {
+      return -1;
+    }
+    if (size <= 1 << MIN_BUCKET_SHIFT) {
+      return 0;
+    }
+    // ceil(log2(size)) - MIN_BUCKET_SHIFT
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_BUCKET_SHIFT;
+  }
+
+  public synchronized long getDirectBytes() {
+    return directBytes;
+  }
+
+  public synchronized long getTotalAcquired() {
+    return totalAcquired;
+  }
+
+  public synchronized long getTotalReused() {
+    return totalReused;
+  }
+
+  public synchronized long getTotalHeapFallbacks() {
+    return totalHeapFallbacks;
+  }
+}
@@ -21,6 +21,8 @@ package org.apache.heron.common.network;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 import java.time.Duration;
@@ -68,11 +70,16 @@ public abstract class HeronClient implements ISelectHandler {
   protected Map<String, Message.Builder> messageMap;
   private SocketChannel socketChannel;
 
-  // Define the endpoint this socket client will communicate with
-  private InetSocketAddress endpoint;
+  // Define the endpoint this socket client will communicate with, a TCP or Unix domain socket
+  private SocketAddress endpoint;
   private NIOLooper nioLooper;
   private SocketChannelHelper socketChannelHelper;
+  // The write syscalls, and the bytes they wrote, of the connections before the current one
+  private long closedWriteSyscalls;
+  private long closedBytesWrittenBySyscalls;
   private HeronSocketOptions socketOptions;
+  // The pool to frame OutgoingPackets in, or null to use plain heap buffers
+  private final ByteBufferPool outgoingPacketPool;
 
   // A flag to determine whether the socket is connected or not
   // We could not simply use socketChanel.isConnected() to tell whether the socketChannel
@@ -94,9 +101,21 @@ public abstract class HeronClient implements ISelectHandler {
    * @param port the port of remote endpoint to communicate with
    */
   public HeronClient(NIOLooper s, String host, int port, HeronSocketOptions options) {
+    this(s, new InetSocketAddress(host, port), options);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param s the NIOLooper bind with this socket client
+   * @param endpoint the remote endpoint to communicate with, either an InetSocketAddress or the
+   * address of a Unix domain socket, see UnixDomainSockets
+   */
+  public HeronClient(NIOLooper s, SocketAddress endpoint, HeronSocketOptions options) {
     nioLooper = s;
-    endpoint = new InetSocketAddress(host, port);
+    this.endpoint = endpoint;
     socketOptions = options;
+    outgoingPacketPool = ByteBufferPool.forOutgoingPackets(options);
 
     isConnected = false;
     contextMap = new HashMap<REQID, Object>();
@@ -111,15 +130,19 @@ public abstract class HeronClient implements ISelectHandler {
 
   public void start() {
     try {
-      socketChannel = SocketChannel.open();
+      boolean isUnixDomain = UnixDomainSockets.isUnixDomainAddress(endpoint);
+      socketChannel =
+          isUnixDomain ? UnixDomainSockets.openSocketChannel() : SocketChannel.open();
       socketChannel.configureBlocking(false);
 
       // Set the maximum possible send and receive buffers
-      socketChannel.socket().setSendBufferSize(
+      socketChannel.setOption(StandardSocketOptions.SO_SNDBUF,
           (int) socketOptions.getSocketSendBufferSize().asBytes());
-      socketChannel.socket().setReceiveBufferSize(
+      socketChannel.setOption(StandardSocketOptions.SO_RCVBUF,
           (int) socketOptions.getSocketReceivedBufferSize().asBytes());
-      socketChannel.socket().setTcpNoDelay(true);
+      if (!isUnixDomain) {
+        socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      }
 
       // If the socketChannel has already connect to endpoint, call handleConnect()
       // Otherwise, registerConnect(), which will call handleConnect() when it is connectible
@@ -206,7 +229,7 @@ public abstract class HeronClient implements ISelectHandler {
       });
     }
 
-    OutgoingPacket opk = new OutgoingPacket(rid, request);
+    OutgoingPacket opk = new OutgoingPacket(rid, request, outgoingPacketPool);
     socketChannelHelper.sendPacket(opk);
   }
 
@@ -218,7 +241,7 @@ public abstract class HeronClient implements ISelectHandler {
   // This method is used if you want to communicate with the other end
   // on a non-request-response based communication.
   public void sendMessage(Message message) {
-    OutgoingPacket opk = new OutgoingPacket(REQID.zeroREQID, message);
+    OutgoingPacket opk = new OutgoingPacket(REQID.zeroREQID, message, outgoingPacketPool);
     socketChannelHelper.sendPacket(opk);
   }
 
@@ -243,7 +266,8 @@ public abstract class HeronClient implements ISelectHandler {
   @Override
   public void handleConnect(SelectableChannel channel) {
     try {
-      if (socketChannel.finishConnect()) {
+      // A unix domain socket could connect at once, without registerConnect() ever called
+      if (socketChannel.finishConnect() && nioLooper.isConnectRegistered(channel)) {
         // If we finishConnect(), we have to unregisterConnect, otherwise there will be a bug
         // http://bugs.java.com/bugdatabase/view_bug.do?bug_id=4960791
         nioLooper.unregisterConnect(channel);
@@ -262,6 +286,10 @@ public abstract class HeronClient implements ISelectHandler {
     // Construct the ChannelHelper and by default it would:
     // 1. always read
     // 2. write if # of packets to send > 0
+    if (socketChannelHelper != null) {
+      closedWriteSyscalls += socketChannelHelper.getTotalWriteSyscalls();
+      closedBytesWrittenBySyscalls += socketChannelHelper.getTotalBytesWrittenBySyscalls();
+    }
     socketChannelHelper = new SocketChannelHelper(nioLooper, this, socketChannel, socketOptions);
 
     // Only when we fully connected, we set isConnected true
@@ -371,6 +399,18 @@ public abstract class HeronClient implements ISelectHandler {
     return socketChannelHelper.getOutstandingPackets();
   }
 
+  // The # of write syscalls over all the connections of the client
+  public long getTotalWriteSyscalls() {
+    return closedWriteSyscalls
+        + (socketChannelHelper == null ? 0 : socketChannelHelper.getTotalWriteSyscalls());
+  }
+
+  // The # of bytes written by the write syscalls over all the connections of the client
+  public long getTotalBytesWrittenBySyscalls() {
+    return closedBytesWrittenBySyscalls
+        + (socketChannelHelper == null ? 0 : socketChannelHelper.getTotalBytesWrittenBySyscalls());
+  }
+
   // Force to flush all data to be sent by HeronClient
   public void forceFlushWithBestEffort() {
     socketChannelHelper.forceFlushWithBestEffort();
@@ -22,10 +22,12 @@ package org.apache.heron.common.network;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,7 +53,12 @@ public abstract class HeronServer implements ISelectHandler {
   private ServerSocketChannel acceptChannel;
   // Define the address where we need to listen on
   private InetSocketAddress endpoint;
+  // The other addresses to listen on, e.g. Unix domain sockets, and the sockets accepting on them
+  private final List<SocketAddress> otherEndpoints;
+  private final List<ServerSocketChannel> otherAcceptChannels;
   private HeronSocketOptions socketOptions;
+  // The pool to frame OutgoingPackets in, or null to use plain heap buffers
+  private final ByteBufferPool outgoingPacketPool;
   // Our own looper
   private NIOLooper nioLooper;
   // All the clients that we have connected
@@ -71,9 +78,21 @@ public abstract class HeronServer implements ISelectHandler {
     nioLooper = s;
     endpoint = new InetSocketAddress(host, port);
     socketOptions = options;
+    outgoingPacketPool = ByteBufferPool.forOutgoingPackets(options);
     requestMap = new HashMap<String, Message.Builder>();
     messageMap = new HashMap<String, Message.Builder>();
     activeConnections = new HashMap<SocketChannel, SocketChannelHelper>();
+    otherEndpoints = new ArrayList<SocketAddress>();
+    otherAcceptChannels = new ArrayList<ServerSocketChannel>();
+  }
+
+  /**
+   * Listen on another address besides the endpoint, e.g. a Unix domain socket, see
+   * UnixDomainSockets. The connections accepted on it are handled as the ones of the endpoint.
+   * It has to be called before start().
+   */
+  public void addEndpoint(SocketAddress otherEndpoint) {
+    otherEndpoints.add(otherEndpoint);
   }
 
   public InetSocketAddress getEndpoint() {
@@ -96,6 +115,22 @@ public abstract class HeronServer implements ISelectHandler {
       acceptChannel.configureBlocking(false);
       acceptChannel.socket().bind(endpoint);
       nioLooper.registerAccept(acceptChannel, this);
+
+      for (SocketAddress otherEndpoint : otherEndpoints) {
+        ServerSocketChannel otherAcceptChannel;
+        if (UnixDomainSockets.isUnixDomainAddress(otherEndpoint)) {
+          // A socket file left behind by a previous process would fail the bind
+          UnixDomainSockets.deleteSocketFile(otherEndpoint);
+          otherAcceptChannel = UnixDomainSockets.openServerSocketChannel();
+        } else {
+          otherAcceptChannel = ServerSocketChannel.open();
+        }
+        otherAcceptChannels.add(otherAcceptChannel);
+        otherAcceptChannel.configureBlocking(false);
+        otherAcceptChannel.bind(otherEndpoint);
+        nioLooper.registerAccept(otherAcceptChannel, this);
+        LOG.info("Listening on: " + otherEndpoint);
+      }
       return true;
     } catch (IOException e) {
       LOG.log(Level.SEVERE, "Failed to start server", e);
@@ -112,7 +147,7 @@ public abstract class HeronServer implements ISelectHandler {
     // Clear all connected socket and related stuff
     for (Map.Entry<SocketChannel, SocketChannelHelper> connections : activeConnections.entrySet()) {
       SocketChannel channel = connections.getKey();
-      SocketAddress channelAddress = channel.socket().getRemoteSocketAddress();
+      SocketAddress channelAddress = SocketChannelHelper.getRemoteAddress(channel);
       LOG.info("Closing connected channel from client: " + channelAddress);
       LOG.info("Removing all interest on channel: " + channelAddress);
       nioLooper.removeAllInterest(channel);
@@ -129,23 +164,33 @@ public abstract class HeronServer implements ISelectHandler {
     messageMap.clear();
     try {
       acceptChannel.close();
+      for (ServerSocketChannel otherAcceptChannel : otherAcceptChannels) {
+        otherAcceptChannel.close();
+      }
     } catch (IOException e) {
       LOG.log(Level.SEVERE, "Failed to close server", e);
     }
+    otherAcceptChannels.clear();
+    for (SocketAddress otherEndpoint : otherEndpoints) {
+      UnixDomainSockets.deleteSocketFile(otherEndpoint);
+    }
   }
 
   @Override
   public void handleAccept(SelectableChannel channel) {
     try {
-      SocketChannel socketChannel = acceptChannel.accept();
+      // The channel is either the acceptChannel or one of the otherAcceptChannels
+      SocketChannel socketChannel = ((ServerSocketChannel) channel).accept();
       if (socketChannel != null) {
         socketChannel.configureBlocking(false);
         // Set the maximum possible send and receive buffers
-        socketChannel.socket().setSendBufferSize(
+        socketChannel.setOption(StandardSocketOptions.SO_SNDBUF,
             (int) socketOptions.getSocketSendBufferSize().asBytes());
-        socketChannel.socket().setReceiveBufferSize(
+        socketChannel.setOption(StandardSocketOptions.SO_RCVBUF,
             (int) socketOptions.getSocketReceivedBufferSize().asBytes());
-        socketChannel.socket().setTcpNoDelay(true);
+        if (!UnixDomainSockets.isUnixDomainAddress(socketChannel.getLocalAddress())) {
+          socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
         SocketChannelHelper helper = new SocketChannelHelper(nioLooper, this, socketChannel,
             socketOptions);
         activeConnections.put(socketChannel, helper);
@@ -227,7 +272,8 @@ public abstract class HeronServer implements ISelectHandler {
 
   // Clean the stuff when meeting some errors
   public void handleError(SelectableChannel channel) {
-    SocketAddress channelAddress = ((SocketChannel) channel).socket().getRemoteSocketAddress();
+    SocketAddress channelAddress =
+        SocketChannelHelper.getRemoteAddress((SocketChannel) channel);
     LOG.info("Handling error from channel: " + channelAddress);
     SocketChannelHelper helper = activeConnections.get(channel);
     if (helper == null) {
@@ -258,7 +304,7 @@ public abstract class HeronServer implements ISelectHandler {
       LOG.severe("Trying to send a response on an unknown connection");
       return false;
     }
-    OutgoingPacket opk = new OutgoingPacket(rid, response);
+    OutgoingPacket opk = new OutgoingPacket(rid, response, outgoingPacketPool);
     helper.sendPacket(opk);
     return true;
   }
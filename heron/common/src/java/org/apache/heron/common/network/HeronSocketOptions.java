@@ -36,6 +36,8 @@ public class HeronSocketOptions {
   private ByteAmount socketSendBufferSize;
   private ByteAmount socketReceivedBufferSize;
   private ByteAmount maximumPacketSize;
+  private ByteAmount outgoingPacketPoolSize;
+  private ByteAmount readArenaSize;
 
   public HeronSocketOptions(ByteAmount networkWriteBatchSize,
                             Duration networkWriteBatchTime,
@@ -44,6 +46,26 @@ public class HeronSocketOptions {
                             ByteAmount socketSendBufferSize,
                             ByteAmount socketReceivedBufferSize,
                             ByteAmount maximumPacketSize) {
+    this(networkWriteBatchSize, networkWriteBatchTime, networkReadBatchSize, networkReadBatchTime,
+        socketSendBufferSize, socketReceivedBufferSize, maximumPacketSize, ByteAmount.ZERO,
+        ByteAmount.ZERO);
+  }
+
+  /**
+   * @param outgoingPacketPoolSize the maximum amount of direct memory used to frame
+   * OutgoingPackets, or ByteAmount.ZERO to frame them in plain heap buffers
+   * @param readArenaSize the initial size of the reusable buffer incoming packets are read into
+   * and decoded from, or ByteAmount.ZERO to read every packet into its own buffer
+   */
+  public HeronSocketOptions(ByteAmount networkWriteBatchSize,
+                            Duration networkWriteBatchTime,
+                            ByteAmount networkReadBatchSize,
+                            Duration networkReadBatchTime,
+                            ByteAmount socketSendBufferSize,
+                            ByteAmount socketReceivedBufferSize,
+                            ByteAmount maximumPacketSize,
+                            ByteAmount outgoingPacketPoolSize,
+                            ByteAmount readArenaSize) {
     this.networkWriteBatchSize = networkWriteBatchSize;
     this.networkWriteBatchTime = networkWriteBatchTime;
     this.networkReadBatchSize = networkReadBatchSize;
@@ -51,6 +73,8 @@ public class HeronSocketOptions {
     this.socketSendBufferSize = socketSendBufferSize;
     this.socketReceivedBufferSize = socketReceivedBufferSize;
     this.maximumPacketSize = maximumPacketSize;
+    this.outgoingPacketPoolSize = outgoingPacketPoolSize;
+    this.readArenaSize = readArenaSize;
   }
 
   public ByteAmount getNetworkWriteBatchSize() {
@@ -80,4 +104,12 @@ public class HeronSocketOptions {
   public ByteAmount getMaximumPacketSize() {
     return maximumPacketSize;
   }
+
+  public ByteAmount getOutgoingPacketPoolSize() {
+    return outgoingPacketPoolSize;
+  }
+
+  public ByteAmount getReadArenaSize() {
+    return readArenaSize;
+  }
 }
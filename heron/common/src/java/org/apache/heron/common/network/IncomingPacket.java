@@ -25,7 +25,7 @@ import java.nio.channels.SocketChannel;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.Message;
 
 /**
@@ -50,6 +50,11 @@ import com.google.protobuf.Message;
  * However, the CPU used by Gateway thread is negligible,
  * less than 2% out of the whole usage in worst case.
  * -- The extra copy is within JVM boundary; it is pretty fast.
+ * <p>
+ * An IncomingPacket could also be a view of a frame inside a larger buffer, e.g. the read arena of
+ * SocketChannelHelper. In that case it is only valid until the buffer is reused, so it should be
+ * unpacked before the next read. Strings and protos are decoded directly from the buffer,
+ * and the decoded protos do not share bytes with the buffer.
  */
 
 public class IncomingPacket {
@@ -57,12 +62,23 @@ public class IncomingPacket {
   private ByteBuffer header;
   private ByteBuffer data;
   private boolean headerRead;
+  private int size;
 
   public IncomingPacket() {
     header = ByteBuffer.allocate(4);
     headerRead = false;
   }
 
+  /**
+   * Construct a fully read IncomingPacket as a view of a frame's data, without the size header.
+   * The data between the buffer's position and limit is used without copying.
+   */
+  IncomingPacket(ByteBuffer frameData) {
+    data = frameData;
+    size = frameData.remaining();
+    headerRead = true;
+  }
+
   public int readFromChannel(SocketChannel channel) {
     return readFromChannel(channel, Integer.MAX_VALUE);
   }
@@ -83,6 +99,7 @@ public class IncomingPacket {
         return -1;
       }
       data = ByteBuffer.allocate(size);
+      this.size = size;
     }
     int retval = readFromChannel(channel, data);
     if (retval == 0) {
@@ -110,10 +127,15 @@ public class IncomingPacket {
     }
   }
 
-  // TODO:- Multiple copies going on here.
   public String unpackString() {
-    int size = data.getInt();
-    byte[] bytes = new byte[size];
+    int length = data.getInt();
+    if (data.hasArray()) {
+      // Decode the string directly from the backing array
+      String str = new String(data.array(), data.arrayOffset() + data.position(), length);
+      data.position(data.position() + length);
+      return str;
+    }
+    byte[] bytes = new byte[length];
     data.get(bytes);
     return new String(bytes);
   }
@@ -122,20 +144,27 @@ public class IncomingPacket {
     return new REQID(data);
   }
 
-  // TODO:- Multiple copies going on here.
   public void unpackMessage(Message.Builder builder) {
-    int size = data.getInt();
-    byte[] bytes = new byte[size];
-    data.get(bytes);
+    int length = data.getInt();
+    CodedInputStream input;
+    if (data.hasArray()) {
+      input = CodedInputStream.newInstance(
+          data.array(), data.arrayOffset() + data.position(), length);
+    } else {
+      ByteBuffer view = data.duplicate();
+      view.limit(data.position() + length);
+      input = CodedInputStream.newInstance(view);
+    }
+    data.position(data.position() + length);
     try {
-      builder.mergeFrom(bytes);
-    } catch (InvalidProtocolBufferException e) {
+      builder.mergeFrom(input);
+    } catch (IOException e) {
       LOG.log(Level.SEVERE, "InvalidProtocolBufferException: ", e);
     }
   }
 
   // TODO -- the calculation is not accurate but work
   public int size() {
-    return data == null ? 0 : data.capacity();
+    return data == null ? 0 : size;
   }
 }
@@ -35,9 +35,8 @@ import com.google.protobuf.Message;
  * When allocating the ByteBuffer, we have two options:
  * 1. Normal java heap buffer by invoking ByteBuffer.allocate(...),
  * 2. Native heap buffer by invoking ByteBuffer.allocateDirect(...),
- * Though it would require extra memory copies in java heap buffer, after experiments trying to use
- * both of them, we choose to use normal java heap buffer, since:
- * 1. It is unsafe to use direct buffer:
+ * By default we use normal java heap buffer, since:
+ * 1. It is unsafe to use direct buffer without bound:
  * -- Direct buffer would not trigger gc;
  * -- We could not control when to release the resources of direct buffer explicitly;
  * -- It is hard to guarantee direct buffer would not break limitation of native heap,
@@ -48,23 +47,44 @@ import com.google.protobuf.Message;
  * -- Direct buffer could save 30%~50% CPU of Gateway thread.
  * However, the CPU used by Gateway thread is negligible,
  * less than 2% out of the whole usage in worst case.
- * -- The extra copy is within JVM boundary; it is pretty fast.
+ * <p>
+ * For high throughput connections, a ByteBufferPool could be passed in. The buffer is then taken
+ * from the pool, which bounds and reuses the direct memory, and it should be given back by
+ * release() once the packet is fully written out.
+ * <p>
+ * In both cases the proto is serialized straight into the buffer with CodedOutputStream,
+ * without an intermediate byte[], except for direct buffers on JVMs later than Java 8
+ * (see ProtoBufferCodec).
  */
 
 public class OutgoingPacket {
   private static final Logger LOG = Logger.getLogger(OutgoingPacket.class.getName());
   private ByteBuffer buffer;
+  private ByteBufferPool pool;
+  private final int packetSize;
 
   public OutgoingPacket(REQID reqid, Message message) {
+    this(reqid, message, null);
+  }
+
+  public OutgoingPacket(REQID reqid, Message message, ByteBufferPool pool) {
     assert message.isInitialized();
     // First calculate the total size of the packet
     // including the header
     int headerSize = 4;
     String typename = message.getDescriptorForType().getFullName();
+    int messageSize = message.getSerializedSize();
     int dataSize = sizeRequiredToPackString(typename)
         + REQID.REQID_SIZE
-        + sizeRequiredToPackMessage(message);
-    buffer = ByteBuffer.allocate(headerSize + dataSize);
+        + 4 + messageSize;
+    packetSize = headerSize + dataSize;
+    if (pool == null) {
+      buffer = ByteBuffer.allocate(packetSize);
+    } else {
+      this.pool = pool;
+      buffer = pool.acquire(packetSize);
+      buffer.limit(packetSize);
+    }
 
     // First write out how much data is there as the header
     buffer.putInt(dataSize);
@@ -76,10 +96,14 @@ public class OutgoingPacket {
     // now the reqid
     reqid.pack(buffer);
 
-    // finally the proto
-    // Double copy but it is designed, see the comments on top
-    buffer.putInt(message.getSerializedSize());
-    buffer.put(message.toByteArray());
+    // finally the proto, serialized in place
+    buffer.putInt(messageSize);
+    try {
+      ProtoBufferCodec.writeTo(message, buffer);
+    } catch (IOException e) {
+      release();
+      throw new IllegalStateException("Failed to serialize " + typename, e);
+    }
 
     // Make the buffer ready for writing out
     buffer.flip();
@@ -107,6 +131,23 @@ public class OutgoingPacket {
   }
 
   public int size() {
-    return buffer.capacity();
+    return packetSize;
+  }
+
+  // The buffer to write out, positioned at the next byte to write
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Give the underneath buffer back to the pool it came from, if any.
+   * The packet should not be written after it is released.
+   */
+  public void release() {
+    if (pool != null) {
+      pool.release(buffer);
+      pool = null;
+      buffer = null;
+    }
   }
 }
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+/**
+ * Encodes protos into, and decodes them from, ByteBuffers which may be direct.
+ * <p>
+ * The protobuf runtime accesses direct buffers through sun.misc.Unsafe with field offsets which
+ * are only valid up to Java 8; on later JVMs doing so crashes the process. So a direct buffer is
+ * coded in place on Java 8 only, and through an intermediate byte[] otherwise.
+ * Heap buffers are always coded in place.
+ */
+public final class ProtoBufferCodec {
+  private static final boolean DIRECT_IN_PLACE =
+      System.getProperty("java.specification.version", "").startsWith("1.");
+
+  private ProtoBufferCodec() {
+  }
+
+  /**
+   * Whether direct buffers are coded in place, without an intermediate byte[]
+   */
+  public static boolean isDirectInPlace() {
+    return DIRECT_IN_PLACE;
+  }
+
+  /**
+   * Write the message at the position of the buffer, and advance the position past it
+   */
+  public static void writeTo(MessageLite message, ByteBuffer buffer) throws IOException {
+    if (buffer.isDirect() && !DIRECT_IN_PLACE) {
+      buffer.put(message.toByteArray());
+      return;
+    }
+    CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+    message.writeTo(output);
+    output.flush();
+  }
+
+  /**
+   * Parse a message from the bytes between the position and the limit of the buffer.
+   * The position of the buffer is left untouched.
+   */
+  public static <T> T parseFrom(Parser<T> parser, ByteBuffer buffer)
+      throws InvalidProtocolBufferException {
+    if (buffer.isDirect() && !DIRECT_IN_PLACE) {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.duplicate().get(bytes);
+      return parser.parseFrom(bytes);
+    }
+    return parser.parseFrom(buffer);
+  }
+}
@@ -19,13 +19,18 @@
 
 package org.apache.heron.common.network;
 
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SocketChannel;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.heron.common.basics.ByteAmount;
@@ -63,6 +68,8 @@ import org.apache.heron.common.basics.NIOLooper;
 
 public class SocketChannelHelper {
   private static final Logger LOG = Logger.getLogger(SocketChannelHelper.class.getName());
+  // The maximum # of packets to gather in a single write
+  private static final int MAX_GATHER_BUFFERS = 1024;
   private final NIOLooper looper;
   private final ISelectHandler selectHandler;
   private final SocketChannel socketChannel;
@@ -79,10 +86,22 @@ public class SocketChannelHelper {
 
   // Incompletely read next packet
   private IncomingPacket incomingPacket;
+
+  // The reusable buffer to read into when reading with an arena, otherwise null.
+  // The bytes between arenaReadIndex and the arena's position are not yet framed.
+  private ByteBuffer readArena;
+  private int arenaReadIndex;
+  // The capacity needed to hold the partial frame at arenaReadIndex, if larger than the arena
+  private int arenaRequiredCapacity;
   private long totalPacketsRead;
   private long totalPacketsWritten;
   private long totalBytesRead;
   private long totalBytesWritten;
+  private long totalWriteSyscalls;
+  private long totalBytesWrittenBySyscalls;
+
+  // The reusable array of buffers to gather in a write
+  private ByteBuffer[] gatherBuffers = new ByteBuffer[16];
   private ByteAmount maximumPacketSize;
 
   public SocketChannelHelper(NIOLooper looper,
@@ -103,6 +122,12 @@ public class SocketChannelHelper {
 
     this.maximumPacketSize = options.getMaximumPacketSize();
 
+    long readArenaSize = options.getReadArenaSize() == null
+        ? 0 : options.getReadArenaSize().asBytes();
+    if (readArenaSize > 0) {
+      this.readArena = ByteBuffer.allocate((int) Math.min(readArenaSize, Integer.MAX_VALUE));
+    }
+
     // We will register Read by default when the connection is established
     // However, we will register Write only when we have something to write since
     // in most cases the socket will be writable but we have nothing to write
@@ -110,6 +135,9 @@ public class SocketChannelHelper {
   }
 
   public void clear() {
+    for (OutgoingPacket outgoingPacket : outgoingPacketsToWrite) {
+      outgoingPacket.release();
+    }
     outgoingPacketsToWrite.clear();
   }
 
@@ -131,6 +159,10 @@ public class SocketChannelHelper {
   // Read bytes stream from socket and convert them into a list of IncomingPacket
   // It would return an empty list if something bad happens
   public List<IncomingPacket> read() {
+    if (readArena != null) {
+      return readWithArena();
+    }
+
     // We record the start time to avoid spending too much time on readings
     long startOfCycle = System.nanoTime();
     long bytesRead = 0;
@@ -151,7 +183,7 @@ public class SocketChannelHelper {
         break;
       } else if (readState < 0) {
         LOG.severe("Something bad happened while reading from channel: "
-            + socketChannel.socket().getRemoteSocketAddress());
+            + getRemoteAddress(socketChannel));
         selectHandler.handleError(socketChannel);
 
         // Clear the list of Incoming Packet to avoid bad state is used externally
@@ -172,7 +204,96 @@ public class SocketChannelHelper {
     return ret;
   }
 
+  // Read bytes stream from socket into the reusable read arena, and slice the fully read frames
+  // out of it as IncomingPackets. The IncomingPackets returned are views of the arena, so they
+  // have to be consumed before the next call to read(), which reuses the arena.
+  private List<IncomingPacket> readWithArena() {
+    long startOfCycle = System.nanoTime();
+    long bytesRead = 0;
+
+    long nPacketsRead = 0;
+
+    List<IncomingPacket> ret = new ArrayList<IncomingPacket>();
+
+    // Packets returned in last call have been consumed, so we could move the partial frame
+    // to the beginning of the arena, growing the arena if the partial frame would not fit in
+    compactReadArena();
+
+    while ((System.nanoTime() - startOfCycle - readReadBatchTime.toNanos()) < 0
+        && (bytesRead < readBatchSize.asBytes())
+        && readArena.hasRemaining()) {
+      int read;
+      try {
+        read = socketChannel.read(readArena);
+      } catch (IOException e) {
+        LOG.log(Level.SEVERE, "Error in channel.read ", e);
+        read = -1;
+      }
+
+      if (read < 0) {
+        LOG.severe("Something bad happened while reading from channel: "
+            + getRemoteAddress(socketChannel));
+        selectHandler.handleError(socketChannel);
+
+        // Clear the list of Incoming Packet to avoid bad state is used externally
+        ret.clear();
+        break;
+      } else if (read == 0) {
+        // Nothing more to read, read next time when the socket is readable
+        break;
+      }
+
+      // Slice out all fully read frames
+      while (readArena.position() - arenaReadIndex >= 4) {
+        int size = readArena.getInt(arenaReadIndex);
+        if (size < 0 || size > maximumPacketSize.asBytes()) {
+          LOG.severe("packet size " + size + " exceeds limit " + maximumPacketSize.asBytes());
+          selectHandler.handleError(socketChannel);
+          ret.clear();
+          return ret;
+        }
+        int frameEnd = arenaReadIndex + 4 + size;
+        if (frameEnd > readArena.position()) {
+          // Partial frame; remember whether the arena is large enough to hold it
+          arenaRequiredCapacity = 4 + size;
+          break;
+        }
+
+        ByteBuffer frameData = readArena.duplicate();
+        frameData.limit(frameEnd);
+        frameData.position(arenaReadIndex + 4);
+        ret.add(new IncomingPacket(frameData));
+        arenaReadIndex = frameEnd;
+
+        nPacketsRead++;
+        bytesRead += size;
+      }
+    }
+
+    totalPacketsRead += nPacketsRead;
+    totalBytesRead += bytesRead;
+
+    return ret;
+  }
+
+  private void compactReadArena() {
+    int pending = readArena.position() - arenaReadIndex;
+    if (arenaRequiredCapacity > readArena.capacity()) {
+      // Grow the arena to hold the large frame; it would not shrink back
+      ByteBuffer newArena = ByteBuffer.allocate(arenaRequiredCapacity);
+      newArena.put(readArena.array(), arenaReadIndex, pending);
+      readArena = newArena;
+    } else if (arenaReadIndex > 0) {
+      System.arraycopy(readArena.array(), arenaReadIndex, readArena.array(), 0, pending);
+      readArena.position(pending);
+    }
+    arenaReadIndex = 0;
+    arenaRequiredCapacity = 0;
+  }
+
   // Write the outgoingPackets in buffer to socket
+  // The queued packets are gathered, up to writeBatchSize bytes, and written out with a single
+  // gathering write, so a burst of small packets does not cost one syscall per packet
   public void write() {
     // We record the start time to avoid spending too much time on writings
     long startOfCycle = System.nanoTime();
@@ -182,27 +303,60 @@ public class SocketChannelHelper {
 
     while ((System.nanoTime() - startOfCycle - writeBatchTime.toNanos()) < 0
         && (bytesWritten < writeBatchSize.asBytes())) {
-      OutgoingPacket outgoingPacket = outgoingPacketsToWrite.peek();
-      if (outgoingPacket == null) {
+      int nBuffers = 0;
+      long bytesGathered = 0;
+      for (OutgoingPacket outgoingPacket : outgoingPacketsToWrite) {
+        if (nBuffers == gatherBuffers.length) {
+          if (nBuffers == MAX_GATHER_BUFFERS) {
+            break;
+          }
+          gatherBuffers = Arrays.copyOf(gatherBuffers, nBuffers * 2);
+        }
+        ByteBuffer buffer = outgoingPacket.getBuffer();
+        gatherBuffers[nBuffers++] = buffer;
+        bytesGathered += buffer.remaining();
+        if (bytesWritten + bytesGathered >= writeBatchSize.asBytes()) {
+          break;
+        }
+      }
+      if (nBuffers == 0) {
         break;
       }
 
-      int writeState = outgoingPacket.writeToChannel(socketChannel);
-      if (writeState > 0) {
-        // Partial writing, we would break since we could not write more data on socket.
-        // But we have set the next start point of OutgoingPacket
-        // Next time when the socket is writable, it will start from that point.
-        break;
-      } else if (writeState < 0) {
+      long wrote;
+      try {
+        wrote = socketChannel.write(gatherBuffers, 0, nBuffers);
+      } catch (IOException e) {
+        LOG.log(Level.SEVERE, "Error writing to channel ", e);
+        wrote = -1;
+      } finally {
+        // Do not hold the buffers, they would be given back to the pool
+        Arrays.fill(gatherBuffers, 0, nBuffers, null);
+      }
+      if (wrote < 0) {
         LOG.severe("Something bad happened while writing to channel");
         selectHandler.handleError(socketChannel);
         return;
-      } else {
-        // writeState == 0, we fully write a outgoingPacket
+      }
+      totalWriteSyscalls++;
+      totalBytesWrittenBySyscalls += wrote;
+
+      // Retire the fully written outgoingPackets.
+      // The partially written one, if any, has set the next start point of its buffer;
+      // next time when the socket is writable, it will start from that point.
+      OutgoingPacket outgoingPacket = outgoingPacketsToWrite.peek();
+      while (outgoingPacket != null && !outgoingPacket.getBuffer().hasRemaining()) {
         bytesWritten += outgoingPacket.size();
         nPacketsWritten++;
 
-        outgoingPacketsToWrite.remove();
+        // The packet is fully drained, give its buffer back for reuse
+        outgoingPacketsToWrite.remove().release();
+        outgoingPacket = outgoingPacketsToWrite.peek();
+      }
+
+      if (wrote < bytesGathered) {
+        // Partial writing, we would break since we could not write more data on socket.
+        break;
       }
     }
 
@@ -220,7 +374,9 @@ public class SocketChannelHelper {
   public void forceFlushWithBestEffort() {
     LOG.info("Forcing to flush data to socket with best effort.");
     while (!outgoingPacketsToWrite.isEmpty()) {
-      int writeState = outgoingPacketsToWrite.poll().writeToChannel(socketChannel);
+      OutgoingPacket outgoingPacket = outgoingPacketsToWrite.poll();
+      int writeState = outgoingPacket.writeToChannel(socketChannel);
+      outgoingPacket.release();
       if (writeState != 0) {
         LOG.info("Failed to write more to Socket. Clear and finish the flush.");
         clear();
@@ -284,4 +440,29 @@ public class SocketChannelHelper {
   public long getTotalBytesWritten() {
     return totalBytesWritten;
   }
+
+  public long getTotalWriteSyscalls() {
+    return totalWriteSyscalls;
+  }
+
+  public long getTotalBytesWrittenBySyscalls() {
+    return totalBytesWrittenBySyscalls;
+  }
+
+  /**
+   * Get the remote address of the channel, or null if it is not known. Unlike
+   * SocketChannel.socket().getRemoteSocketAddress(), it works for Unix domain sockets too.
+   */
+  public static SocketAddress getRemoteAddress(SocketChannel channel) {
+    try {
+      return channel.getRemoteAddress();
+    } catch (IOException e) {
+      // A closed channel has no remote address any more, while its TCP socket still knows it
+      try {
+        return channel.socket().getRemoteSocketAddress();
+      } catch (UnsupportedOperationException ue) {
+        return null;
+      }
+    }
+  }
 }
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.common.network;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.logging.Logger;
+
+/**
+ * Unix domain socket support for HeronClient and HeronServer, for the connections which never
+ * leave the container. They skip the TCP/IP stack of a loopback connection, and take a file
+ * rather than a port.
+ * <p>
+ * Unix domain SocketChannels are only available from Java 16 on, so they are reached through
+ * reflection, and isSupported() tells whether the running JVM has them.
+ */
+public final class UnixDomainSockets {
+  private static final Logger LOG = Logger.getLogger(UnixDomainSockets.class.getName());
+
+  // The process name in the socket file names of the metrics manager
+  public static final String METRICS_MANAGER_PROCESS_NAME = "metricsmgr";
+
+  private static final String ADDRESS_CLASS_NAME = "java.net.UnixDomainSocketAddress";
+  private static final String SOCKET_FILE_SUFFIX = ".sock";
+
+  // Null if the running JVM has no Unix domain SocketChannel
+  private static final ProtocolFamily UNIX_FAMILY;
+  private static final Method NEW_ADDRESS;
+  private static final Method GET_PATH;
+  private static final Method OPEN_SOCKET_CHANNEL;
+  private static final Method OPEN_SERVER_SOCKET_CHANNEL;
+
+  static {
+    ProtocolFamily family = null;
+    Method newAddress = null;
+    Method getPath = null;
+    Method openSocketChannel = null;
+    Method openServerSocketChannel = null;
+    try {
+      Class<?> addressClass = Class.forName(ADDRESS_CLASS_NAME);
+      newAddress = addressClass.getMethod("of", String.class);
+      getPath = addressClass.getMethod("getPath");
+      openSocketChannel = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+      openServerSocketChannel = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+      family = StandardProtocolFamily.valueOf("UNIX");
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalArgumentException e) {
+      LOG.fine("Unix domain sockets are not supported by this JVM");
+    }
+    UNIX_FAMILY = family;
+    NEW_ADDRESS = newAddress;
+    GET_PATH = getPath;
+    OPEN_SOCKET_CHANNEL = openSocketChannel;
+    OPEN_SERVER_SOCKET_CHANNEL = openServerSocketChannel;
+  }
+
+  private UnixDomainSockets() {
+  }
+
+  /**
+   * Whether the running JVM supports Unix domain SocketChannels
+   */
+  public static boolean isSupported() {
+    return UNIX_FAMILY != null;
+  }
+
+  /**
+   * The path of the socket file of a process listening on the port, in the directory, e.g.
+   * directory/metricsmgr-6001.sock, so it is known to both ends as the port is
+   */
+  public static String getSocketPath(String directory, String processName, int port) {
+    return new File(directory, processName + "-" + port + SOCKET_FILE_SUFFIX).getPath();
+  }
+
+  /**
+   * Create the address of the Unix domain socket at the path
+   *
+   * @throws UnsupportedOperationException if the running JVM does not support them
+   */
+  public static SocketAddress newAddress(String path) {
+    checkSupported();
+    return (SocketAddress) invoke(NEW_ADDRESS, null, path);
+  }
+
+  public static boolean isUnixDomainAddress(SocketAddress address) {
+    return address != null && address.getClass().getName().equals(ADDRESS_CLASS_NAME);
+  }
+
+  /**
+   * Open a SocketChannel for a Unix domain socket address
+   */
+  public static SocketChannel openSocketChannel() throws IOException {
+    checkSupported();
+    return (SocketChannel) invokeIO(OPEN_SOCKET_CHANNEL, UNIX_FAMILY);
+  }
+
+  /**
+   * Open a ServerSocketChannel for a Unix domain socket address
+   */
+  public static ServerSocketChannel openServerSocketChannel() throws IOException {
+    checkSupported();
+    return (ServerSocketChannel) invokeIO(OPEN_SERVER_SOCKET_CHANNEL, UNIX_FAMILY);
+  }
+
+  /**
+   * Delete the socket file of a Unix domain socket address, which is left behind by a server
+   * once it is closed and would prevent binding the address again
+   *
+   * @return true if the file was deleted
+   */
+  public static boolean deleteSocketFile(SocketAddress address) {
+    if (!isUnixDomainAddress(address)) {
+      return false;
+    }
+    File file = new File(invoke(GET_PATH, address).toString());
+    return file.delete();
+  }
+
+  private static void checkSupported() {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Unix domain sockets need Java 16 or later,"
+          + " but running " + System.getProperty("java.version"));
+    }
+  }
+
+  private static Object invoke(Method method, Object target, Object... args) {
+    try {
+      return method.invoke(target, args);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new RuntimeException("Failed to invoke " + method, e);
+    }
+  }
+
+  private static Object invokeIO(Method method, Object... args) throws IOException {
+    try {
+      return method.invoke(null, args);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new RuntimeException("Failed to invoke " + method, e.getCause());
+    } catch (IllegalAccessException e) {
+      throw new RuntimeException("Failed to invoke " + method, e);
+    }
+  }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.heron.common.testhelpers;
 
+import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
 
 import org.mockito.Matchers;
@@ -32,7 +33,8 @@ import static org.mockito.Mockito.spy;
 
 /**
  * Communicator test helper can spy on a communicator to  provide the ability to await a certain
- * number of expected offers to be received before proceeding.
+ * number of expected offers to be received before proceeding. The items offered at once with
+ * offerAll() count as one offer each.
  */
 public final class CommunicatorTestHelper {
 
@@ -50,6 +52,17 @@ public final class CommunicatorTestHelper {
         return returnBoolean;
       }
     }).when(returnVal).offer(Matchers.<T>any());
+    doAnswer(new Answer<Boolean>() {
+      @Override
+      public Boolean answer(InvocationOnMock invocationOnMock) throws Throwable {
+        Boolean returnBoolean = (Boolean) invocationOnMock.callRealMethod();
+        Collection<?> items = (Collection<?>) invocationOnMock.getArguments()[0];
+        for (int i = 0; i < items.size(); i++) {
+          offerLatch.countDown();
+        }
+        return returnBoolean;
+      }
+    }).when(returnVal).offerAll(Matchers.<Collection<? extends T>>any());
     return returnVal;
   }
 }
@@ -20,6 +20,7 @@
 package org.apache.heron.common.testhelpers;
 
 import java.io.IOException;
+import java.net.SocketAddress;
 import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -60,6 +61,15 @@ public class HeronServerTester {
       ByteAmount.fromMegabytes(5),
       ByteAmount.fromMegabytes(5),
       ByteAmount.fromMegabytes(10));
+  // Frames packets in pooled buffers and reads them through a tiny arena, which has to grow
+  public static final HeronSocketOptions ARENA_SOCKET_OPTIONS = new HeronSocketOptions(
+      ByteAmount.fromMegabytes(100), Duration.ofMillis(100),
+      ByteAmount.fromMegabytes(100), Duration.ofMillis(100),
+      ByteAmount.fromMegabytes(5),
+      ByteAmount.fromMegabytes(5),
+      ByteAmount.fromMegabytes(10),
+      ByteAmount.fromMegabytes(1),
+      ByteAmount.fromBytes(64));
   private static final Duration DEFAULT_LATCH_TIMEOUT = Duration.ofSeconds(2);
   private static final Duration SERVER_START_TIMEOUT = Duration.ofSeconds(2);
   public static final Duration RESPONSE_RECEIVED_TIMEOUT = Duration.ofSeconds(4);
@@ -205,6 +215,12 @@ public class HeronServerTester {
       super(looper, host, port, options);
     }
 
+    protected AbstractTestClient(NIOLooper looper,
+                                 SocketAddress endpoint,
+                                 HeronSocketOptions options) {
+      super(looper, endpoint, options);
+    }
+
     @Override
     public void onError() {
       fail("Error in client while talking to server");
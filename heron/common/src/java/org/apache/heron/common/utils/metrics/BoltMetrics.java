@@ -109,6 +109,21 @@ public class BoltMetrics implements ComponentMetrics {
     executeLatency.update(latency);
   }
 
+  /**
+   * Count the tuples of a batch executed together, whose latency is spread over the tuples
+   */
+  public void executeBatch(String streamId, String sourceComponent, int size, long latency) {
+    executeCount.incrBy(size);
+    executeLatency.update(latency / size);
+  }
+
+  /**
+   * Count a tuple executed without timing it
+   */
+  public void countExecuteTuple(String streamId, String sourceComponent) {
+    executeCount.incr();
+  }
+
   public void emittedTuple(String streamId) {
     emitCount.incr();
   }
@@ -126,4 +141,7 @@ public class BoltMetrics implements ComponentMetrics {
 
   public void serializeDataTuple(String streamId, long latency) {
   }
+
+  public void flushedTupleSet(int size, long lingerNanos) {
+  }
 }
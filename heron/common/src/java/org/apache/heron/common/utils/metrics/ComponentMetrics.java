@@ -31,4 +31,10 @@ public interface ComponentMetrics {
   void serializeDataTuple(String streamId, long latency);
   void emittedTuple(String streamId);
   void addTupleToQueue(int size);
+
+  /**
+   * A HeronDataTupleSet of the given # of tuples is sent out, the first of them having been
+   * added lingerNanos ago
+   */
+  void flushedTupleSet(int size, long lingerNanos);
 }
@@ -19,14 +19,19 @@
 
 package org.apache.heron.common.utils.metrics;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
 
 import org.apache.heron.api.generated.TopologyAPI;
 import org.apache.heron.api.metric.CountMetric;
+import org.apache.heron.api.metric.HistogramMetric;
 import org.apache.heron.api.metric.MeanReducer;
 import org.apache.heron.api.metric.MeanReducerState;
 import org.apache.heron.api.metric.MultiCountMetric;
 import org.apache.heron.api.metric.MultiReducedMetric;
+import org.apache.heron.api.metric.ReducedMetric;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.config.SystemConfig;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
@@ -43,16 +48,21 @@ import org.apache.heron.common.utils.topology.TopologyContextImpl;
 
 public class FullBoltMetrics extends BoltMetrics {
   private final MultiCountMetric ackCount;
-  private final MultiReducedMetric<MeanReducerState, Number, Double> processLatency;
-  private final MultiReducedMetric<MeanReducerState, Number, Double> failLatency;
+  private final MultiLatencyMetric processLatency;
+  private final MultiLatencyMetric failLatency;
   private final MultiCountMetric failCount;
   private final MultiCountMetric executeCount;
-  private final MultiReducedMetric<MeanReducerState, Number, Double> executeLatency;
+  private final MultiLatencyMetric executeLatency;
 
   // Time in nano-seconds spending in execute() at every interval
   private final MultiCountMetric executeTimeNs;
   private final MultiCountMetric emitCount;
   private final CountMetric tupleAddedToQueue;
+  // The # of tuples in, and the linger time of, the HeronDataTupleSets sent out
+  private final HistogramMetric tupleSetSize;
+  private final HistogramMetric tupleSetLingerNs;
+  // The # of tuples in the batches executed by an IBatchedBolt
+  private final HistogramMetric executeBatchSize;
   private final MultiCountMetric totalDeserializationTimeNs;
   private final MultiCountMetric totalSerializationTimeNs;
   private final MultiReducedMetric<MeanReducerState, Number, Double> averageSerializationTimeNs;
@@ -62,23 +72,35 @@ public class FullBoltMetrics extends BoltMetrics {
   // so instance could not produce more tuples
   private final CountMetric outQueueFullCount;
 
+  // The metrics of every input stream, by source component and then stream id, and of every
+  // output stream, by stream id. They are resolved once, so the per-tuple methods only look up
+  // the stream, and never build a global stream id or look up each metric's scope.
+  private final Map<String, Map<String, InputStreamMetrics>> inputStreamMetrics;
+  private final Map<String, OutputStreamMetrics> outputStreamMetrics;
+
   public FullBoltMetrics() {
     ackCount = new MultiCountMetric();
-    processLatency = new MultiReducedMetric<>(new MeanReducer());
-    failLatency = new MultiReducedMetric<>(new MeanReducer());
+    processLatency = new MultiLatencyMetric();
+    failLatency = new MultiLatencyMetric();
     failCount = new MultiCountMetric();
     executeCount = new MultiCountMetric();
-    executeLatency = new MultiReducedMetric<>(new MeanReducer());
+    executeLatency = new MultiLatencyMetric();
     executeTimeNs = new MultiCountMetric();
     emitCount = new MultiCountMetric();
     outQueueFullCount = new CountMetric();
     tupleAddedToQueue = new CountMetric();
+    tupleSetSize = new HistogramMetric();
+    tupleSetLingerNs = new HistogramMetric();
+    executeBatchSize = new HistogramMetric();
 
     totalDeserializationTimeNs = new MultiCountMetric();
     totalSerializationTimeNs = new MultiCountMetric();
 
     averageSerializationTimeNs = new MultiReducedMetric<>(new MeanReducer());
     averageDeserializationTimeNs = new MultiReducedMetric<>(new MeanReducer());
+
+    inputStreamMetrics = new HashMap<>();
+    outputStreamMetrics = new HashMap<>();
   }
 
   public void registerMetrics(TopologyContextImpl topologyContext) {
@@ -106,6 +128,9 @@ public class FullBoltMetrics extends BoltMetrics {
         "__av-tuple-serialization-time-ns", totalSerializationTimeNs, interval);
     topologyContext.registerMetric("__data-tuple-added-to-outgoing-queue/default",
         tupleAddedToQueue, interval);
+    topologyContext.registerMetric("__tuple-set-size", tupleSetSize, interval);
+    topologyContext.registerMetric("__tuple-set-linger-ns", tupleSetLingerNs, interval);
+    topologyContext.registerMetric("__execute-batch-size", executeBatchSize, interval);
   }
 
   // For MultiCountMetrics, we need to set the default value for all streams.
@@ -118,93 +143,178 @@ public class FullBoltMetrics extends BoltMetrics {
     // For bolt, we would consider both input stream and output stream
     List<TopologyAPI.InputStream> inputs = helper.getMyBolt().getInputsList();
     for (TopologyAPI.InputStream inputStream : inputs) {
-      String streamId = inputStream.getStream().getId();
-      String globalStreamId =
-          new StringBuilder(inputStream.getStream().getComponentName()).
-              append("/").append(streamId).toString();
-
-      ackCount.scope(streamId);
-      failCount.scope(streamId);
-      executeCount.scope(streamId);
-      executeTimeNs.scope(streamId);
-
-      ackCount.scope(globalStreamId);
-      failCount.scope(globalStreamId);
-      executeCount.scope(globalStreamId);
-      executeTimeNs.scope(globalStreamId);
+      getInputStreamMetrics(
+          inputStream.getStream().getId(), inputStream.getStream().getComponentName());
     }
     List<TopologyAPI.OutputStream> outputs = helper.getMyBolt().getOutputsList();
     for (TopologyAPI.OutputStream outputStream : outputs) {
-      String streamId = outputStream.getStream().getId();
-      emitCount.scope(streamId);
+      getOutputStreamMetrics(outputStream.getStream().getId());
     }
   }
 
   public void ackedTuple(String streamId, String sourceComponent, long latency) {
-    ackCount.scope(streamId).incr();
-    processLatency.scope(streamId).update(latency);
-
-    // Consider there are cases that different streams with the same streamId,
-    // but with different source component. We need to distinguish them too.
-    String globalStreamId =
-        new StringBuilder(sourceComponent).append("/").append(streamId).toString();
-    ackCount.scope(globalStreamId).incr();
-    processLatency.scope(globalStreamId).update(latency);
+    InputStreamMetrics metrics = getInputStreamMetrics(streamId, sourceComponent);
+    metrics.stream.ackedTuple(latency);
+    metrics.globalStream.ackedTuple(latency);
   }
 
   public void failedTuple(String streamId, String sourceComponent, long latency) {
-    failCount.scope(streamId).incr();
-    failLatency.scope(streamId).update(latency);
-
-    // Consider there are cases that different streams with the same streamId,
-    // but with different source component. We need to distinguish them too.
-    String globalStreamId =
-        new StringBuilder(sourceComponent).append("/").append(streamId).toString();
-    failCount.scope(globalStreamId).incr();
-    failLatency.scope(globalStreamId).update(latency);
+    InputStreamMetrics metrics = getInputStreamMetrics(streamId, sourceComponent);
+    metrics.stream.failedTuple(latency);
+    metrics.globalStream.failedTuple(latency);
   }
 
   public void executeTuple(String streamId, String sourceComponent, long latency) {
-    executeCount.scope(streamId).incr();
-    executeLatency.scope(streamId).update(latency);
-    executeTimeNs.scope(streamId).incrBy(latency);
+    InputStreamMetrics metrics = getInputStreamMetrics(streamId, sourceComponent);
+    metrics.stream.executeTuple(latency);
+    metrics.globalStream.executeTuple(latency);
+  }
 
-    // Consider there are cases that different streams with the same streamId,
-    // but with different source component. We need to distinguish them too.
-    String globalStreamId =
-        new StringBuilder(sourceComponent).append("/").append(streamId).toString();
-    executeCount.scope(globalStreamId).incr();
-    executeLatency.scope(globalStreamId).update(latency);
-    executeTimeNs.scope(globalStreamId).incrBy(latency);
+  public void executeBatch(String streamId, String sourceComponent, int size, long latency) {
+    InputStreamMetrics metrics = getInputStreamMetrics(streamId, sourceComponent);
+    metrics.stream.executeBatch(size, latency);
+    metrics.globalStream.executeBatch(size, latency);
+    executeBatchSize.update(size);
+  }
+
+  public void countExecuteTuple(String streamId, String sourceComponent) {
+    InputStreamMetrics metrics = getInputStreamMetrics(streamId, sourceComponent);
+    metrics.stream.executeCount.incr();
+    metrics.globalStream.executeCount.incr();
   }
 
   public void emittedTuple(String streamId) {
-    emitCount.scope(streamId).incr();
+    getOutputStreamMetrics(streamId).emitCount.incr();
   }
 
   public void addTupleToQueue(int size) {
     tupleAddedToQueue.incr();
   }
 
+  public void flushedTupleSet(int size, long lingerNanos) {
+    tupleSetSize.update(size);
+    tupleSetLingerNs.update(lingerNanos);
+  }
+
   public void updateOutQueueFullCount() {
     outQueueFullCount.incr();
   }
 
   public void deserializeDataTuple(String streamId, String sourceComponent, long latency) {
-    totalDeserializationTimeNs.scope(streamId).incrBy(latency);
-    averageDeserializationTimeNs.scope(streamId).update(latency);
+    InputStreamMetrics metrics = getInputStreamMetrics(streamId, sourceComponent);
+    metrics.stream.deserializeDataTuple(latency);
+    metrics.globalStream.deserializeDataTuple(latency);
+  }
+
+  public void serializeDataTuple(String streamId, long latency) {
+    OutputStreamMetrics metrics = getOutputStreamMetrics(streamId);
+    metrics.totalSerializationTimeNs.incrBy(latency);
+    metrics.averageSerializationTimeNs.update(latency);
+  }
+
+  private InputStreamMetrics getInputStreamMetrics(String streamId, String sourceComponent) {
+    Map<String, InputStreamMetrics> streams = inputStreamMetrics.get(sourceComponent);
+    if (streams == null) {
+      streams = new HashMap<>();
+      inputStreamMetrics.put(sourceComponent, streams);
+    }
+    InputStreamMetrics metrics = streams.get(streamId);
+    if (metrics == null) {
+      // Streams not declared as inputs, e.g. the tick stream, are resolved on their first tuple
+      metrics = new InputStreamMetrics(streamId, sourceComponent);
+      streams.put(streamId, metrics);
+    }
+    return metrics;
+  }
 
+  private OutputStreamMetrics getOutputStreamMetrics(String streamId) {
+    OutputStreamMetrics metrics = outputStreamMetrics.get(streamId);
+    if (metrics == null) {
+      metrics = new OutputStreamMetrics(streamId);
+      outputStreamMetrics.put(streamId, metrics);
+    }
+    return metrics;
+  }
+
+  private final class InputStreamMetrics {
+    private final ScopedMetrics stream;
     // Consider there are cases that different streams with the same streamId,
     // but with different source component. We need to distinguish them too.
-    String globalStreamId =
-        new StringBuilder(sourceComponent).append("/").append(streamId).toString();
-    totalDeserializationTimeNs.scope(globalStreamId).incrBy(latency);
-    averageDeserializationTimeNs.scope(globalStreamId).update(latency);
+    private final ScopedMetrics globalStream;
+
+    InputStreamMetrics(String streamId, String sourceComponent) {
+      this.stream = new ScopedMetrics(streamId);
+      this.globalStream = new ScopedMetrics(
+          new StringBuilder(sourceComponent).append("/").append(streamId).toString());
+    }
   }
 
-  public void serializeDataTuple(String streamId, long latency) {
-    totalSerializationTimeNs.scope(streamId).incrBy(latency);
-    averageSerializationTimeNs.scope(streamId).update(latency);
+  /**
+   * The metrics of an input stream, either by its stream id or by its global stream id
+   */
+  private final class ScopedMetrics {
+    private final CountMetric ackCount;
+    private final LongConsumer processLatency;
+    private final CountMetric failCount;
+    private final LongConsumer failLatency;
+    private final CountMetric executeCount;
+    private final LongConsumer executeLatency;
+    private final CountMetric executeTimeNs;
+    private final CountMetric totalDeserializationTimeNs;
+    private final ReducedMetric<MeanReducerState, Number, Double> averageDeserializationTimeNs;
+
+    ScopedMetrics(String scope) {
+      this.ackCount = FullBoltMetrics.this.ackCount.scope(scope);
+      this.processLatency = FullBoltMetrics.this.processLatency.scope(scope);
+      this.failCount = FullBoltMetrics.this.failCount.scope(scope);
+      this.failLatency = FullBoltMetrics.this.failLatency.scope(scope);
+      this.executeCount = FullBoltMetrics.this.executeCount.scope(scope);
+      this.executeLatency = FullBoltMetrics.this.executeLatency.scope(scope);
+      this.executeTimeNs = FullBoltMetrics.this.executeTimeNs.scope(scope);
+      this.totalDeserializationTimeNs =
+          FullBoltMetrics.this.totalDeserializationTimeNs.scope(scope);
+      this.averageDeserializationTimeNs =
+          FullBoltMetrics.this.averageDeserializationTimeNs.scope(scope);
+    }
+
+    void ackedTuple(long latency) {
+      ackCount.incr();
+      processLatency.accept(latency);
+    }
+
+    void failedTuple(long latency) {
+      failCount.incr();
+      failLatency.accept(latency);
+    }
+
+    void executeTuple(long latency) {
+      executeCount.incr();
+      executeLatency.accept(latency);
+      executeTimeNs.incrBy(latency);
+    }
+
+    void executeBatch(int size, long latency) {
+      executeCount.incrBy(size);
+      executeLatency.accept(latency / size);
+      executeTimeNs.incrBy(latency);
+    }
+
+    void deserializeDataTuple(long latency) {
+      totalDeserializationTimeNs.incrBy(latency);
+      averageDeserializationTimeNs.update(latency);
+    }
   }
-}
 
+  private final class OutputStreamMetrics {
+    private final CountMetric emitCount;
+    private final CountMetric totalSerializationTimeNs;
+    private final ReducedMetric<MeanReducerState, Number, Double> averageSerializationTimeNs;
+
+    OutputStreamMetrics(String streamId) {
+      this.emitCount = FullBoltMetrics.this.emitCount.scope(streamId);
+      this.totalSerializationTimeNs = FullBoltMetrics.this.totalSerializationTimeNs.scope(streamId);
+      this.averageSerializationTimeNs =
+          FullBoltMetrics.this.averageSerializationTimeNs.scope(streamId);
+    }
+  }
+}
@@ -23,10 +23,10 @@ import java.util.List;
 
 import org.apache.heron.api.generated.TopologyAPI;
 import org.apache.heron.api.metric.CountMetric;
+import org.apache.heron.api.metric.HistogramMetric;
 import org.apache.heron.api.metric.MeanReducer;
 import org.apache.heron.api.metric.MeanReducerState;
 import org.apache.heron.api.metric.MultiCountMetric;
-import org.apache.heron.api.metric.MultiReducedMetric;
 import org.apache.heron.api.metric.ReducedMetric;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.config.SystemConfig;
@@ -46,8 +46,8 @@ import org.apache.heron.common.utils.topology.TopologyContextImpl;
 public class FullSpoutMetrics extends SpoutMetrics {
   private final MultiCountMetric ackCount;
   private final ReducedMetric<MeanReducerState, Number, Double> tupleSize;
-  private final MultiReducedMetric<MeanReducerState, Number, Double> completeLatency;
-  private final MultiReducedMetric<MeanReducerState, Number, Double> failLatency;
+  private final MultiLatencyMetric completeLatency;
+  private final MultiLatencyMetric failLatency;
   private final MultiCountMetric failCount;
   private final MultiCountMetric timeoutCount;
   private final MultiCountMetric emitCount;
@@ -55,6 +55,9 @@ public class FullSpoutMetrics extends SpoutMetrics {
   private final CountMetric nextTupleCount;
   private final MultiCountMetric serializationTimeNs;
   private final CountMetric tupleAddedToQueue;
+  // The # of tuples in, and the linger time of, the HeronDataTupleSets sent out
+  private final HistogramMetric tupleSetSize;
+  private final HistogramMetric tupleSetLingerNs;
   // The # of times back-pressure happens on outStreamQueue so instance could not
   // produce more tuples
   private final CountMetric outQueueFullCount;
@@ -62,10 +65,20 @@ public class FullSpoutMetrics extends SpoutMetrics {
   // The mean # of pending-to-be-acked tuples in spout if acking is enabled
   private final ReducedMetric<MeanReducerState, Number, Double> pendingTuplesCount;
 
+  // The mean # of tuples staged by the threads of the spout, if they could emit
+  private final ReducedMetric<MeanReducerState, Number, Double> stagedTuplesCount;
+  // The # of times a thread of the spout had to wait for room to stage a tuple
+  private final CountMetric stagingFullCount;
+
+  // The mean # of bytes the spout could still emit, if its emits are admitted against credits
+  private final ReducedMetric<MeanReducerState, Number, Double> flowControlCredits;
+  // The time in nanoseconds the spout could not emit because of its rate limit
+  private final CountMetric throttleTimeNs;
+
   public FullSpoutMetrics() {
     ackCount = new MultiCountMetric();
-    completeLatency = new MultiReducedMetric<>(new MeanReducer());
-    failLatency = new MultiReducedMetric<>(new MeanReducer());
+    completeLatency = new MultiLatencyMetric();
+    failLatency = new MultiLatencyMetric();
     failCount = new MultiCountMetric();
     timeoutCount = new MultiCountMetric();
     emitCount = new MultiCountMetric();
@@ -73,8 +86,14 @@ public class FullSpoutMetrics extends SpoutMetrics {
     nextTupleCount = new CountMetric();
     outQueueFullCount = new CountMetric();
     pendingTuplesCount = new ReducedMetric<>(new MeanReducer());
+    stagedTuplesCount = new ReducedMetric<>(new MeanReducer());
+    stagingFullCount = new CountMetric();
+    flowControlCredits = new ReducedMetric<>(new MeanReducer());
+    throttleTimeNs = new CountMetric();
     serializationTimeNs = new MultiCountMetric();
     tupleAddedToQueue = new CountMetric();
+    tupleSetSize = new HistogramMetric();
+    tupleSetLingerNs = new HistogramMetric();
     tupleSize = new ReducedMetric<>(new MeanReducer());
   }
 
@@ -94,6 +113,10 @@ public class FullSpoutMetrics extends SpoutMetrics {
     topologyContext.registerMetric("__next-tuple-count", nextTupleCount, interval);
     topologyContext.registerMetric("__out-queue-full-count", outQueueFullCount, interval);
     topologyContext.registerMetric("__pending-acked-count", pendingTuplesCount, interval);
+    topologyContext.registerMetric("__emit-staged-count", stagedTuplesCount, interval);
+    topologyContext.registerMetric("__emit-staging-full-count", stagingFullCount, interval);
+    topologyContext.registerMetric("__flow-control-credits-bytes", flowControlCredits, interval);
+    topologyContext.registerMetric("__rate-limit-throttle-time-ns", throttleTimeNs, interval);
     topologyContext.registerMetric("__tuple-serialization-time-ns", serializationTimeNs,
         interval);
 
@@ -105,6 +128,8 @@ public class FullSpoutMetrics extends SpoutMetrics {
         tupleAddedToQueue, interval);
     topologyContext.registerMetric("__average-tuple-size-added-queue/default",
         tupleSize, interval);
+    topologyContext.registerMetric("__tuple-set-size", tupleSetSize, interval);
+    topologyContext.registerMetric("__tuple-set-linger-ns", tupleSetLingerNs, interval);
   }
 
   // For MultiCountMetrics, we need to set the default value for all streams.
@@ -127,12 +152,12 @@ public class FullSpoutMetrics extends SpoutMetrics {
 
   public void ackedTuple(String streamId, long latency) {
     ackCount.scope(streamId).incr();
-    completeLatency.scope(streamId).update(latency);
+    completeLatency.update(streamId, latency);
   }
 
   public void failedTuple(String streamId, long latency) {
     failCount.scope(streamId).incr();
-    failLatency.scope(streamId).update(latency);
+    failLatency.update(streamId, latency);
   }
 
   public void timeoutTuple(String streamId) {
@@ -148,11 +173,20 @@ public class FullSpoutMetrics extends SpoutMetrics {
     nextTupleCount.incr();
   }
 
+  public void countNextTuple() {
+    nextTupleCount.incr();
+  }
+
   public void addTupleToQueue(int size) {
     tupleAddedToQueue.incr();
     tupleSize.update(size);
   }
 
+  public void flushedTupleSet(int size, long lingerNanos) {
+    tupleSetSize.update(size);
+    tupleSetLingerNs.update(lingerNanos);
+  }
+
   public void updateOutQueueFullCount() {
     outQueueFullCount.incr();
   }
@@ -161,6 +195,22 @@ public class FullSpoutMetrics extends SpoutMetrics {
     pendingTuplesCount.update(count);
   }
 
+  public void updateStagedTuplesCount(long count) {
+    stagedTuplesCount.update(count);
+  }
+
+  public void updateStagingFullCount(long count) {
+    stagingFullCount.incrBy(count);
+  }
+
+  public void updateFlowControlCredits(long bytes) {
+    flowControlCredits.update(bytes);
+  }
+
+  public void updateThrottleTime(long nanos) {
+    throttleTimeNs.incrBy(nanos);
+  }
+
   public void serializeDataTuple(String streamId, long latency) {
     serializationTimeNs.scope(streamId).incrBy(latency);
   }
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import org.apache.heron.api.metric.HistogramMetric;
 import org.apache.heron.api.metric.IMetric;
 import org.apache.heron.api.metric.IMetricsRegister;
 import org.apache.heron.common.basics.Communicator;
@@ -173,7 +174,13 @@ public class MetricsCollector implements IMetricsRegister {
     }
     if (metricValue instanceof Map) {
       for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) metricValue).entrySet()) {
-        if (entry.getKey() != null && entry.getValue() != null) {
+        if (entry.getKey() == null || entry.getValue() == null) {
+          continue;
+        }
+        if (entry.getValue() instanceof HistogramMetric.Snapshot) {
+          addHistogramToMetricPublisher(builder, metricName, "/" + entry.getKey().toString(),
+              (HistogramMetric.Snapshot) entry.getValue());
+        } else {
           addDataToMetricPublisher(
               builder, metricName + "/" + entry.getKey().toString(), entry.getValue());
         }
@@ -183,8 +190,26 @@ public class MetricsCollector implements IMetricsRegister {
       for (Object value : (Collection) metricValue) {
         addDataToMetricPublisher(builder, metricName + "/" + (index++), value);
       }
+    } else if (metricValue instanceof HistogramMetric.Snapshot) {
+      addHistogramToMetricPublisher(
+          builder, metricName, "", (HistogramMetric.Snapshot) metricValue);
     } else {
       addDataToMetricPublisher(builder, metricName, metricValue);
     }
   }
+
+  // A histogram is flattened into its mean, under the name of the metric as any other mean,
+  // and its percentiles and max, under the name of the metric suffixed by them,
+  // e.g. __execute-latency/default, __execute-latency-p99/default and __execute-latency-max/default
+  private void addHistogramToMetricPublisher(Metrics.MetricPublisherPublishMessage.Builder builder,
+                                             String metricName,
+                                             String scope,
+                                             HistogramMetric.Snapshot snapshot) {
+    addDataToMetricPublisher(builder, metricName + scope, snapshot.getMean());
+    addDataToMetricPublisher(builder, metricName + "-p50" + scope, snapshot.getP50());
+    addDataToMetricPublisher(builder, metricName + "-p90" + scope, snapshot.getP90());
+    addDataToMetricPublisher(builder, metricName + "-p99" + scope, snapshot.getP99());
+    addDataToMetricPublisher(builder, metricName + "-p999" + scope, snapshot.getP999());
+    addDataToMetricPublisher(builder, metricName + "-max" + scope, snapshot.getMax());
+  }
 }
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.utils.metrics;
+
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import org.apache.heron.api.metric.HistogramMetric;
+import org.apache.heron.api.metric.IMetric;
+import org.apache.heron.api.metric.MeanReducer;
+import org.apache.heron.api.metric.MeanReducerState;
+import org.apache.heron.api.metric.MultiHistogramMetric;
+import org.apache.heron.api.metric.MultiReducedMetric;
+import org.apache.heron.api.metric.ReducedMetric;
+import org.apache.heron.common.basics.SingletonRegistry;
+import org.apache.heron.common.config.SystemConfig;
+
+/**
+ * A latency metric scoped by stream, which is reported either as its mean, or, if
+ * heron.instance.metrics.latency.percentiles is enabled, as its mean, percentiles and max
+ * from a HistogramMetric.
+ */
+class MultiLatencyMetric implements IMetric<Map<String, ?>> {
+  private final MultiReducedMetric<MeanReducerState, Number, Double> mean;
+  private final MultiHistogramMetric histogram;
+
+  MultiLatencyMetric() {
+    SystemConfig systemConfig =
+        (SystemConfig) SingletonRegistry.INSTANCE.getSingleton(SystemConfig.HERON_SYSTEM_CONFIG);
+    if (systemConfig != null && systemConfig.isInstanceMetricsLatencyPercentiles()) {
+      this.mean = null;
+      this.histogram = new MultiHistogramMetric();
+    } else {
+      this.mean = new MultiReducedMetric<>(new MeanReducer());
+      this.histogram = null;
+    }
+  }
+
+  /**
+   * Get the recorder of the latencies of a scope, to be kept by the caller
+   */
+  LongConsumer scope(String key) {
+    if (histogram != null) {
+      HistogramMetric scoped = histogram.scope(key);
+      return scoped::update;
+    }
+    ReducedMetric<MeanReducerState, Number, Double> scoped = mean.scope(key);
+    return scoped::update;
+  }
+
+  void update(String key, long latency) {
+    if (histogram != null) {
+      histogram.scope(key).update(latency);
+    } else {
+      mean.scope(key).update(latency);
+    }
+  }
+
+  @Override
+  public Map<String, ?> getValueAndReset() {
+    return histogram != null ? histogram.getValueAndReset() : mean.getValueAndReset();
+  }
+}
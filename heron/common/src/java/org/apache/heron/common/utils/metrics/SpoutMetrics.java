@@ -56,6 +56,16 @@ public class SpoutMetrics implements ComponentMetrics {
   // The mean # of pending-to-be-acked tuples in spout if acking is enabled
   private final ReducedMetric<MeanReducerState, Number, Double> pendingTuplesCount;
 
+  // The mean # of tuples staged by the threads of the spout, if they could emit
+  private final ReducedMetric<MeanReducerState, Number, Double> stagedTuplesCount;
+  // The # of times a thread of the spout had to wait for room to stage a tuple
+  private final CountMetric stagingFullCount;
+
+  // The mean # of bytes the spout could still emit, if its emits are admitted against credits
+  private final ReducedMetric<MeanReducerState, Number, Double> flowControlCredits;
+  // The time in nanoseconds the spout could not emit because of its rate limit
+  private final CountMetric throttleTimeNs;
+
   public SpoutMetrics() {
     ackCount = new CountMetric();
     completeLatency = new ReducedMetric<>(new MeanReducer());
@@ -67,6 +77,10 @@ public class SpoutMetrics implements ComponentMetrics {
     nextTupleCount = new CountMetric();
     outQueueFullCount = new CountMetric();
     pendingTuplesCount = new ReducedMetric<>(new MeanReducer());
+    stagedTuplesCount = new ReducedMetric<>(new MeanReducer());
+    stagingFullCount = new CountMetric();
+    flowControlCredits = new ReducedMetric<>(new MeanReducer());
+    throttleTimeNs = new CountMetric();
     tupleAddedToQueue = new CountMetric();
   }
 
@@ -86,6 +100,10 @@ public class SpoutMetrics implements ComponentMetrics {
     topologyContext.registerMetric("__next-tuple-count", nextTupleCount, interval);
     topologyContext.registerMetric("__out-queue-full-count", outQueueFullCount, interval);
     topologyContext.registerMetric("__pending-acked-count", pendingTuplesCount, interval);
+    topologyContext.registerMetric("__emit-staged-count", stagedTuplesCount, interval);
+    topologyContext.registerMetric("__emit-staging-full-count", stagingFullCount, interval);
+    topologyContext.registerMetric("__flow-control-credits-bytes", flowControlCredits, interval);
+    topologyContext.registerMetric("__rate-limit-throttle-time-ns", throttleTimeNs, interval);
     topologyContext.registerMetric("__data-tuple-added-to-outgoing-queue/default",
         tupleAddedToQueue, interval);
   }
@@ -127,6 +145,10 @@ public class SpoutMetrics implements ComponentMetrics {
     nextTupleCount.incr();
   }
 
+  public void countNextTuple() {
+    nextTupleCount.incr();
+  }
+
   public void updateOutQueueFullCount() {
     outQueueFullCount.incr();
   }
@@ -135,6 +157,25 @@ public class SpoutMetrics implements ComponentMetrics {
     pendingTuplesCount.update(count);
   }
 
+  public void updateStagedTuplesCount(long count) {
+    stagedTuplesCount.update(count);
+  }
+
+  public void updateStagingFullCount(long count) {
+    stagingFullCount.incrBy(count);
+  }
+
+  public void updateFlowControlCredits(long bytes) {
+    flowControlCredits.update(bytes);
+  }
+
+  public void updateThrottleTime(long nanos) {
+    throttleTimeNs.incrBy(nanos);
+  }
+
   public void serializeDataTuple(String streamId, long latency) {
   }
+
+  public void flushedTupleSet(int size, long lingerNanos) {
+  }
 }
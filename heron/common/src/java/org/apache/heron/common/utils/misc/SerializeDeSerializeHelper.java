@@ -23,9 +23,13 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.google.protobuf.ByteString;
+
 import org.apache.heron.api.Config;
 import org.apache.heron.api.serializer.IPluggableSerializer;
+import org.apache.heron.api.serializer.IStreamingSerializer;
 import org.apache.heron.api.serializer.JavaSerializer;
+import org.apache.heron.api.serializer.PrimitiveTupleCodec;
 
 /**
  * Get the serializer according to the serializerClassName
@@ -37,6 +41,25 @@ public final class SerializeDeSerializeHelper {
   }
 
   public static IPluggableSerializer getSerializer(Map<String, Object> config) {
+    IPluggableSerializer serializer = newSerializer(config);
+    serializer.initialize(config);
+    return serializer;
+  }
+
+  /**
+   * Get the serializer for the values of tuples, which is wrapped in a PrimitiveTupleCodec
+   * if the topology enables it
+   */
+  public static IPluggableSerializer getTupleSerializer(Map<String, Object> config) {
+    IPluggableSerializer serializer = newSerializer(config);
+    if (Boolean.parseBoolean(String.valueOf(config.get(Config.TOPOLOGY_PRIMITIVE_TUPLE_CODEC)))) {
+      serializer = new PrimitiveTupleCodec(serializer);
+    }
+    serializer.initialize(config);
+    return serializer;
+  }
+
+  private static IPluggableSerializer newSerializer(Map<String, Object> config) {
     IPluggableSerializer serializer;
     try {
       String serializerClassName = (String) config.get(Config.TOPOLOGY_SERIALIZER_CLASSNAME);
@@ -44,14 +67,14 @@ public final class SerializeDeSerializeHelper {
         LOG.log(Level.WARNING, "Serializer class name not provided. "
             + "Fall back to Java serializer. "
             + "This could cause serious performance degradation. "
-            + "You can specify to use Kryo as serializer. "
+            + "You can specify to use Kryo as serializer, "
+            + "see Config.setKryoSerializer(). "
             + "See https://apache.github.io/incubator-heron/docs/developers/serialization/ "
             + "for details");
         serializer = new JavaSerializer();
       } else {
         serializer = (IPluggableSerializer) Class.forName(serializerClassName).newInstance();
       }
-      serializer.initialize(config);
       return serializer;
     } catch (ClassNotFoundException ex) {
       throw new RuntimeException("Serializer class must be in class path " + ex);
@@ -62,4 +85,15 @@ public final class SerializeDeSerializeHelper {
       throw new RuntimeException("Serializer class constructor must be public " + ex);
     }
   }
+
+  /**
+   * Deserialize a value of a tuple, straight from the received bytes if the serializer
+   * supports it
+   */
+  public static Object deserialize(IPluggableSerializer serializer, ByteString value) {
+    if (serializer instanceof IStreamingSerializer) {
+      return ((IStreamingSerializer) serializer).deserialize(value.asReadOnlyByteBuffer());
+    }
+    return serializer.deserialize(value.toByteArray());
+  }
 }
@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.utils.tuple;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import org.apache.heron.api.generated.TopologyAPI;
+import org.apache.heron.api.serializer.IPluggableSerializer;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Fields;
+import org.apache.heron.common.utils.misc.SerializeDeSerializeHelper;
+import org.apache.heron.proto.system.HeronTuples;
+
+/**
+ * A TupleImpl built on the raw bytes of a HeronDataTuple, as received in a HeronDataTupleSet2.
+ * <p>
+ * Nothing is decoded upfront: the HeronDataTuple is parsed the first time its key, roots or
+ * values are needed, and every value is deserialized the first time it is read. So the cost of
+ * decoding is paid on the thread executing the tuple, and never for the values not read at all.
+ * <p>
+ * Java serialization decodes the whole tuple first, so the serialized form holds no placeholders
+ * and no reference to the serializer.
+ */
+public class LazyTupleImpl extends TupleImpl {
+  private static final long serialVersionUID = 2853092358237461521L;
+
+  // Placeholder for the values not yet deserialized, since null is a valid value
+  private static final Object UNDECODED = new Object();
+
+  private transient IPluggableSerializer serializer;
+
+  // The raw bytes of the HeronDataTuple, released once it is parsed
+  private ByteString rawTuple;
+  private HeronTuples.HeronDataTuple dataTuple;
+
+  private List<Object> values;
+
+  public LazyTupleImpl(TopologyContext context, TopologyAPI.StreamId stream,
+                       ByteString rawTuple, IPluggableSerializer serializer,
+                       long creationTime, int sourceTaskId) {
+    super(context, stream, creationTime, sourceTaskId);
+    this.rawTuple = rawTuple;
+    this.serializer = serializer;
+    this.values = new ArrayList<>(Collections.nCopies(getFields().size(), UNDECODED));
+  }
+
+  private HeronTuples.HeronDataTuple getDataTuple() {
+    if (dataTuple == null) {
+      try {
+        dataTuple = HeronTuples.HeronDataTuple.parseFrom(rawTuple);
+      } catch (InvalidProtocolBufferException e) {
+        throw new RuntimeException("Failed to parse protobuf", e);
+      }
+      rawTuple = null;
+    }
+    return dataTuple;
+  }
+
+  @Override
+  public List<HeronTuples.RootId> getRoots() {
+    return getDataTuple().getRootsList();
+  }
+
+  @Override
+  public long getTupleKey() {
+    return getDataTuple().getKey();
+  }
+
+  @Override
+  public int size() {
+    return values.size();
+  }
+
+  @Override
+  public Object getValue(int i) {
+    Object value = values.get(i);
+    if (value == UNDECODED) {
+      value = SerializeDeSerializeHelper.deserialize(serializer, getDataTuple().getValues(i));
+      values.set(i, value);
+    }
+    return value;
+  }
+
+  @Override
+  public List<Object> getValues() {
+    for (int i = 0; i < values.size(); i++) {
+      getValue(i);
+    }
+    return values;
+  }
+
+  @Override
+  public List<Object> select(Fields selector) {
+    List<Object> selected = new ArrayList<>(selector.size());
+    for (String field : selector) {
+      selected.add(getValueByField(field));
+    }
+    return selected;
+  }
+
+  @Override
+  public void resetValues() {
+    values = null;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    if (values != null) {
+      getValues();
+    }
+    getDataTuple();
+    out.defaultWriteObject();
+  }
+}
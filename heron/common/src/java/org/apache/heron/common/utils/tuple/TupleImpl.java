@@ -80,6 +80,15 @@ public class TupleImpl implements Tuple {
     }
   }
 
+  /**
+   * Constructor for subclasses which decode the key, roots and values on their own,
+   * see LazyTupleImpl
+   */
+  protected TupleImpl(TopologyContext context, TopologyAPI.StreamId stream,
+                      long creationTime, int sourceTaskId) {
+    this(context, stream, 0, null, null, creationTime, false, sourceTaskId);
+  }
+
   public List<HeronTuples.RootId> getRoots() {
     return roots;
   }
@@ -110,97 +119,97 @@ public class TupleImpl implements Tuple {
 
   @Override
   public String getString(int i) {
-    return (String) values.get(i);
+    return (String) getValue(i);
   }
 
   @Override
   public Integer getInteger(int i) {
-    return (Integer) values.get(i);
+    return (Integer) getValue(i);
   }
 
   @Override
   public Long getLong(int i) {
-    return (Long) values.get(i);
+    return (Long) getValue(i);
   }
 
   @Override
   public Boolean getBoolean(int i) {
-    return (Boolean) values.get(i);
+    return (Boolean) getValue(i);
   }
 
   @Override
   public Short getShort(int i) {
-    return (Short) values.get(i);
+    return (Short) getValue(i);
   }
 
   @Override
   public Byte getByte(int i) {
-    return (Byte) values.get(i);
+    return (Byte) getValue(i);
   }
 
   @Override
   public Double getDouble(int i) {
-    return (Double) values.get(i);
+    return (Double) getValue(i);
   }
 
   @Override
   public Float getFloat(int i) {
-    return (Float) values.get(i);
+    return (Float) getValue(i);
   }
 
   @Override
   public byte[] getBinary(int i) {
-    return (byte[]) values.get(i);
+    return (byte[]) getValue(i);
   }
 
   @Override
   public Object getValueByField(String field) {
-    return values.get(fieldIndex(field));
+    return getValue(fieldIndex(field));
   }
 
   @Override
   public String getStringByField(String field) {
-    return (String) values.get(fieldIndex(field));
+    return (String) getValue(fieldIndex(field));
   }
 
   @Override
   public Integer getIntegerByField(String field) {
-    return (Integer) values.get(fieldIndex(field));
+    return (Integer) getValue(fieldIndex(field));
   }
 
   @Override
   public Long getLongByField(String field) {
-    return (Long) values.get(fieldIndex(field));
+    return (Long) getValue(fieldIndex(field));
   }
 
   @Override
   public Boolean getBooleanByField(String field) {
-    return (Boolean) values.get(fieldIndex(field));
+    return (Boolean) getValue(fieldIndex(field));
   }
 
   @Override
   public Short getShortByField(String field) {
-    return (Short) values.get(fieldIndex(field));
+    return (Short) getValue(fieldIndex(field));
   }
 
   @Override
   public Byte getByteByField(String field) {
-    return (Byte) values.get(fieldIndex(field));
+    return (Byte) getValue(fieldIndex(field));
   }
 
   @Override
   public Double getDoubleByField(String field) {
-    return (Double) values.get(fieldIndex(field));
+    return (Double) getValue(fieldIndex(field));
   }
 
   @Override
   public Float getFloatByField(String field) {
-    return (Float) values.get(fieldIndex(field));
+    return (Float) getValue(fieldIndex(field));
   }
 
   @Override
   public byte[] getBinaryByField(String field) {
-    return (byte[]) values.get(fieldIndex(field));
+    return (byte[]) getValue(fieldIndex(field));
   }
 
   @Override
@@ -215,7 +224,7 @@ public class TupleImpl implements Tuple {
 
   @Override
   public List<Object> select(Fields selector) {
-    return getFields().select(selector, values);
+    return getFields().select(selector, getValues());
   }
 
   @Override
@@ -241,7 +250,7 @@ public class TupleImpl implements Tuple {
   @Override
   public String toString() {
     return "source: " + getSourceComponent() + ", stream: " + getSourceStreamId()
-        + ", " + values.toString();
+        + ", " + getValues();
   }
 
   @Override
@@ -19,6 +19,9 @@
 
 package org.apache.heron.common.basics;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -122,6 +125,29 @@ public class CommunicatorTest {
     }
   }
 
+  /**
+   * Method: offerAll(Collection&lt;? extends E&gt; items)
+   */
+  @Test
+  public void testOfferAll() {
+    List<Integer> items = new ArrayList<>();
+    for (int i = 0; i < QUEUE_BUFFER_SIZE; i++) {
+      items.add(i);
+    }
+    // init() has already waken up the consumer, which has not looped since
+    long issued = consumer.getWakeUpsIssued();
+    long suppressed = consumer.getWakeUpsSuppressed();
+
+    Assert.assertTrue(communicator.offerAll(items));
+    Assert.assertEquals(QUEUE_BUFFER_SIZE, communicator.size());
+    Assert.assertEquals(issued, consumer.getWakeUpsIssued());
+    Assert.assertEquals(suppressed + 1, consumer.getWakeUpsSuppressed());
+
+    for (int i = 0; i < QUEUE_BUFFER_SIZE; i++) {
+      Assert.assertEquals(i, communicator.poll().intValue());
+    }
+  }
+
   /**
    * Method: peek()
    */
@@ -157,5 +183,59 @@ public class CommunicatorTest {
     communicator.offer(1);
     Assert.assertEquals(QUEUE_BUFFER_SIZE, communicator.getCapacity());
   }
+
+  /**
+   * Method: countBytes(ToIntFunction), setByteCapacity(long), getBytes(), hasRemainingBytes()
+   */
+  @Test
+  public void testCountBytes() {
+    // Every item is as many bytes as its value
+    communicator.countBytes((Integer i) -> i);
+    Assert.assertTrue(communicator.isCountingBytes());
+    Assert.assertTrue(communicator.hasRemainingBytes());
+
+    communicator.setByteCapacity(100);
+    communicator.offer(60);
+    Assert.assertEquals(60, communicator.getBytes());
+    Assert.assertTrue(communicator.hasRemainingBytes());
+
+    List<Integer> items = new ArrayList<>();
+    items.add(30);
+    items.add(20);
+    communicator.offerAll(items);
+    Assert.assertEquals(110, communicator.getBytes());
+    // The bound is soft: items could still be offered
+    Assert.assertFalse(communicator.hasRemainingBytes());
+
+    Assert.assertEquals(60, communicator.poll().intValue());
+    Assert.assertEquals(50, communicator.getBytes());
+    Assert.assertTrue(communicator.hasRemainingBytes());
+
+    List<Integer> drained = new ArrayList<>();
+    Assert.assertEquals(1, communicator.drainTo(drained, 1));
+    Assert.assertEquals(20, communicator.getBytes());
+
+    communicator.offer(5);
+    communicator.clear();
+    Assert.assertEquals(0, communicator.getBytes());
+    Assert.assertTrue(communicator.isEmpty());
+
+    // Without a byte capacity, the bytes are only counted
+    communicator.setByteCapacity(0);
+    communicator.offer(1000);
+    Assert.assertTrue(communicator.hasRemainingBytes());
+  }
+
+  /**
+   * Method: hasRemainingBytes()
+   */
+  @Test
+  public void testBytesNotCounted() {
+    communicator.setByteCapacity(1);
+    communicator.offer(1000);
+    Assert.assertFalse(communicator.isCountingBytes());
+    Assert.assertEquals(0, communicator.getBytes());
+    Assert.assertTrue(communicator.hasRemainingBytes());
+  }
 }
 
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.common.basics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * MappedRingBuffer Tester.
+ */
+public class MappedRingBufferTest {
+  private File file;
+
+  @Before
+  public void before() throws IOException {
+    file = File.createTempFile("ring", ".ring");
+  }
+
+  @After
+  public void after() {
+    file.delete();
+  }
+
+  /**
+   * Method: claim(int), commit(), drain(Consumer&lt;ByteBuffer&gt;)
+   */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    MappedRingBuffer producer = MappedRingBuffer.create(file, 100);
+    Assert.assertEquals(128, producer.getCapacity());
+    MappedRingBuffer consumer = MappedRingBuffer.open(file);
+    Assert.assertEquals(128, consumer.getCapacity());
+    Assert.assertEquals(0, consumer.drain(buffer -> Assert.fail()));
+
+    write(producer, "first");
+    write(producer, "");
+    // Not visible until committed
+    Assert.assertNotNull(producer.claim(3));
+    Assert.assertEquals(2, consumer.drain(buffer -> { }));
+
+    producer.commit();
+    List<String> read = drain(consumer);
+    Assert.assertEquals(1, read.size());
+    Assert.assertTrue(consumer.isEmpty());
+  }
+
+  /**
+   * Method: claim(int) once the ring is full and after it wraps around
+   */
+  @Test
+  public void testWrapAround() throws IOException {
+    MappedRingBuffer producer = MappedRingBuffer.create(file, 64);
+    MappedRingBuffer consumer = MappedRingBuffer.open(file);
+
+    // Records of 4 + 20 bytes, so the third does not fit and the ring is full
+    String record = "01234567890123456789";
+    write(producer, record);
+    write(producer, record);
+    Assert.assertNull(producer.claim(record.length()));
+    Assert.assertNull(producer.claim(64));
+
+    Assert.assertEquals(2, drain(consumer).size());
+
+    // Records of every size, so some do not fit in the rest of the ring and go at its beginning
+    for (int i = 0; i < 100; i++) {
+      String first = record.substring(i % 20);
+      String second = "record-" + i;
+      write(producer, first);
+      write(producer, second);
+      List<String> expected = new ArrayList<>();
+      expected.add(first);
+      expected.add(second);
+      Assert.assertEquals(expected, drain(consumer));
+    }
+  }
+
+  /**
+   * Method: open(File) of a file which is no ring buffer
+   */
+  @Test(expected = IOException.class)
+  public void testOpenInvalidFile() throws IOException {
+    MappedRingBuffer.open(file);
+  }
+
+  private static void write(MappedRingBuffer ring, String record) {
+    ByteBuffer buffer = ring.claim(record.length());
+    Assert.assertNotNull(buffer);
+    Assert.assertEquals(record.length(), buffer.remaining());
+    buffer.put(record.getBytes());
+    ring.commit();
+  }
+
+  private static List<String> drain(MappedRingBuffer ring) {
+    final List<String> read = new ArrayList<>();
+    ring.drain(buffer -> {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      read.add(new String(bytes));
+    });
+    return read;
+  }
+}
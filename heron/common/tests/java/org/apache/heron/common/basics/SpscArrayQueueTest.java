@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.basics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * SpscArrayQueue Tester.
+ */
+public class SpscArrayQueueTest {
+
+  /**
+   * Method: offer(E), poll(), size()
+   */
+  @Test
+  public void testOfferAndPoll() {
+    SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(6);
+    Assert.assertEquals(8, queue.ringCapacity());
+    Assert.assertNull(queue.poll());
+
+    for (int i = 0; i < 8; i++) {
+      Assert.assertTrue(queue.offer(i));
+      Assert.assertEquals(i + 1, queue.size());
+    }
+    Assert.assertEquals(Integer.valueOf(0), queue.peek());
+    for (int i = 0; i < 8; i++) {
+      Assert.assertEquals(Integer.valueOf(i), queue.poll());
+    }
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /**
+   * Method: offer(E) beyond the ring capacity
+   */
+  @Test
+  public void testOverflowKeepsOrder() {
+    SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(i);
+    }
+    Assert.assertEquals(10, queue.size());
+
+    // Taking from the ring should not let new items jump ahead of the spilled ones
+    Assert.assertEquals(Integer.valueOf(0), queue.poll());
+    queue.offer(10);
+    for (int i = 1; i <= 10; i++) {
+      Assert.assertEquals(Integer.valueOf(i), queue.poll());
+    }
+    Assert.assertNull(queue.poll());
+
+    // Once the spilled items are consumed, the ring is used again
+    queue.offer(11);
+    Assert.assertEquals(Integer.valueOf(11), queue.peek());
+    Assert.assertEquals(1, queue.size());
+  }
+
+  /**
+   * Method: drainTo(Collection, int)
+   */
+  @Test
+  public void testDrainTo() {
+    SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+    for (int i = 0; i < 7; i++) {
+      queue.offer(i);
+    }
+    List<Integer> drained = new ArrayList<>();
+    Assert.assertEquals(5, queue.drainTo(drained, 5));
+    Assert.assertEquals(2, queue.size());
+    Assert.assertEquals(2, queue.drainTo(drained));
+    for (int i = 0; i < 7; i++) {
+      Assert.assertEquals(Integer.valueOf(i), drained.get(i));
+    }
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /**
+   * Method: iterator(), and the collection methods built on it
+   */
+  @Test
+  public void testIterator() {
+    SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(4);
+    for (int i = 0; i < 7; i++) {
+      queue.offer(i);
+    }
+    Assert.assertEquals(Integer.valueOf(0), queue.poll());
+
+    // The items of the ring come first, then the spilled ones
+    Assert.assertEquals("[1, 2, 3, 4, 5, 6]", queue.toString());
+    Assert.assertTrue(queue.contains(3));
+    Assert.assertFalse(queue.contains(0));
+    Assert.assertTrue(queue.containsAll(Arrays.asList(1, 6)));
+
+    // Remove an item from the middle of the ring and a spilled one
+    Assert.assertTrue(queue.remove(Integer.valueOf(2)));
+    Assert.assertTrue(queue.remove(Integer.valueOf(5)));
+    Assert.assertFalse(queue.remove(Integer.valueOf(0)));
+    Assert.assertEquals(4, queue.size());
+
+    // The ring has room again once the spilled items are consumed
+    List<Integer> polled = new ArrayList<>();
+    queue.drainTo(polled);
+    Assert.assertEquals(Arrays.asList(1, 3, 4, 6), polled);
+    for (int i = 7; i < 11; i++) {
+      queue.offer(i);
+    }
+    Assert.assertEquals("[7, 8, 9, 10]", queue.toString());
+    Iterator<Integer> iterator = queue.iterator();
+    Assert.assertEquals(Integer.valueOf(7), iterator.next());
+    iterator.remove();
+    Assert.assertEquals(Integer.valueOf(8), queue.poll());
+    Assert.assertEquals(2, queue.size());
+  }
+
+  /**
+   * Method: offer(E), poll() from two threads
+   */
+  @Test
+  public void testProducerConsumer() throws InterruptedException {
+    final int items = 1000000;
+    final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(128);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < items; i++) {
+          queue.offer(i);
+        }
+      }
+    });
+    producer.start();
+
+    int expected = 0;
+    List<Integer> batch = new ArrayList<>();
+    while (expected < items) {
+      if (expected % 2 == 0) {
+        Integer item = queue.poll();
+        if (item != null) {
+          Assert.assertEquals(expected++, item.intValue());
+        }
+      } else {
+        batch.clear();
+        queue.drainTo(batch, 64);
+        for (Integer item : batch) {
+          Assert.assertEquals(expected++, item.intValue());
+        }
+      }
+    }
+    producer.join();
+    Assert.assertTrue(queue.isEmpty());
+  }
+}
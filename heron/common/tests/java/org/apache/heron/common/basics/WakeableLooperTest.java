@@ -22,6 +22,8 @@ package org.apache.heron.common.basics;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -174,6 +176,27 @@ public class WakeableLooperTest {
     Assert.assertTrue(res.compareTo(interval) <= 0 && res.compareTo(interval.dividedBy(2)) > 0);
   }
 
+  /**
+   * Method: wakeUpIfNeeded()
+   */
+  @Test
+  public void testWakeUpIfNeeded()
+      throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    slaveLooper.wakeUpIfNeeded();
+    slaveLooper.wakeUpIfNeeded();
+    Assert.assertEquals(1, slaveLooper.getWakeUpsIssued());
+    Assert.assertEquals(1, slaveLooper.getWakeUpsSuppressed());
+
+    // Once the looper has waken up, the next wake-up is issued again
+    Method method = slaveLooper.getClass().getSuperclass().getDeclaredMethod("runOnce");
+    method.setAccessible(true);
+    method.invoke(slaveLooper);
+
+    slaveLooper.wakeUpIfNeeded();
+    Assert.assertEquals(2, slaveLooper.getWakeUpsIssued());
+    Assert.assertEquals(1, slaveLooper.getWakeUpsSuppressed());
+  }
+
   /**
    * Method: runOnce()
    */
@@ -242,5 +265,101 @@ public class WakeableLooperTest {
 
     Assert.assertEquals(10, globalValue);
   }
-}
 
+  /**
+   * Method: registerPeriodicEvent(Duration frequency, Runnable task)
+   */
+  @Test
+  public void testRegisterPeriodicEvent() {
+    Runnable r = new Runnable() {
+      @Override
+      public void run() {
+        globalValue += 10;
+        if (globalValue == 36) {
+          slaveLooper.exitLoop();
+        }
+      }
+    };
+
+    long startTime = System.nanoTime();
+    Duration interval = Duration.ofMillis(2);
+    slaveLooper.registerPeriodicEvent(interval, r);
+    slaveLooper.loop();
+    long endTime = System.nanoTime();
+    Assert.assertTrue(endTime - startTime - 3 * interval.toNanos() >= 0);
+    Assert.assertEquals(36, globalValue);
+  }
+
+  /**
+   * Method: TimerTask.cancel()
+   */
+  @Test
+  public void testCancelTimerEvent()
+      throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    Runnable r = new Runnable() {
+      @Override
+      public void run() {
+        globalValue = 10;
+      }
+    };
+
+    WakeableLooper.TimerTask once = slaveLooper.registerTimerEvent(Duration.ofNanos(1), r);
+    WakeableLooper.TimerTask periodic = slaveLooper.registerPeriodicEvent(Duration.ofNanos(1), r);
+    once.cancel();
+    periodic.cancel();
+    Assert.assertTrue(once.isCancelled());
+    // The handles are compared by identity, so they could be kept in hash based collections
+    Assert.assertEquals(once, once);
+    Assert.assertNotEquals(once, periodic);
+    Assert.assertEquals(2, new HashSet<>(Arrays.asList(once, periodic)).size());
+
+    Method method =
+        slaveLooper.getClass().getSuperclass().getDeclaredMethod(
+            "triggerExpiredTimers", long.class);
+    method.setAccessible(true);
+    method.invoke(slaveLooper, System.nanoTime());
+
+    Assert.assertEquals(6, globalValue);
+    Method timeout =
+        slaveLooper.getClass().getSuperclass().getDeclaredMethod("getNextTimeoutInterval");
+    timeout.setAccessible(true);
+    Assert.assertEquals(Duration.ofMillis(Integer.MAX_VALUE), timeout.invoke(slaveLooper));
+  }
+
+  /**
+   * Method: useTimingWheel(Duration tick, int ticksPerWheel)
+   */
+  @Test
+  public void testTimingWheel() {
+    final int[] fired = new int[1];
+    Runnable count = new Runnable() {
+      @Override
+      public void run() {
+        fired[0]++;
+      }
+    };
+    Runnable r = new Runnable() {
+      @Override
+      public void run() {
+        slaveLooper.exitLoop();
+        globalValue = 10;
+      }
+    };
+
+    // Registered before switching, so it is moved into the wheel
+    slaveLooper.registerTimerEvent(Duration.ofMillis(3), count);
+    slaveLooper.useTimingWheel(Duration.ofMillis(1), 4);
+    // Beyond one round of the wheel
+    slaveLooper.registerTimerEvent(Duration.ofMillis(10), count);
+    slaveLooper.registerTimerEvent(Duration.ofMillis(5), count).cancel();
+
+    long startTime = System.nanoTime();
+    Duration interval = Duration.ofMillis(20);
+    slaveLooper.registerTimerEvent(interval, r);
+    slaveLooper.loop();
+    long endTime = System.nanoTime();
+    Assert.assertTrue(endTime - startTime - interval.toNanos() >= 0);
+    Assert.assertEquals(10, globalValue);
+    Assert.assertEquals(2, fired[0]);
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.network;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * ByteBufferPool Tester.
+ */
+public class ByteBufferPoolTest {
+
+  /**
+   * Method: acquire(int), release(ByteBuffer)
+   */
+  @Test
+  public void testReuse() {
+    ByteBufferPool pool = new ByteBufferPool(1024 * 1024);
+    ByteBuffer buffer = pool.acquire(1500);
+    Assert.assertTrue(buffer.isDirect());
+    Assert.assertEquals(2048, buffer.capacity());
+    buffer.putInt(1);
+    pool.release(buffer);
+
+    ByteBuffer reused = pool.acquire(2000);
+    Assert.assertSame(buffer, reused);
+    Assert.assertEquals(0, reused.position());
+    Assert.assertEquals(2048, reused.limit());
+    Assert.assertEquals(1, pool.getTotalReused());
+    Assert.assertEquals(2048, pool.getDirectBytes());
+  }
+
+  /**
+   * Method: acquire(int)
+   */
+  @Test
+  public void testHeapFallback() {
+    ByteBufferPool pool = new ByteBufferPool(4096);
+    ByteBuffer first = pool.acquire(4096);
+    Assert.assertTrue(first.isDirect());
+
+    // The direct memory bound is hit
+    ByteBuffer second = pool.acquire(100);
+    Assert.assertFalse(second.isDirect());
+    Assert.assertEquals(100, second.capacity());
+    Assert.assertEquals(1, pool.getTotalHeapFallbacks());
+
+    // Heap buffers are dropped on release
+    pool.release(second);
+    pool.release(first);
+    Assert.assertSame(first, pool.acquire(3000));
+    Assert.assertEquals(4096, pool.getDirectBytes());
+  }
+}
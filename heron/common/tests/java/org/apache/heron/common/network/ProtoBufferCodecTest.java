@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.proto.testing.Tests;
+
+/**
+ * ProtoBufferCodec Tester.
+ */
+public class ProtoBufferCodecTest {
+  private static final Tests.EchoServerRequest MESSAGE =
+      Tests.EchoServerRequest.newBuilder().setEchoRequest("Dial 911").build();
+
+  /**
+   * Method: writeTo(MessageLite, ByteBuffer), parseFrom(Parser, ByteBuffer)
+   */
+  @Test
+  public void testHeapBuffer() throws IOException {
+    roundTrip(ByteBuffer.allocate(64));
+  }
+
+  /**
+   * Method: writeTo(MessageLite, ByteBuffer), parseFrom(Parser, ByteBuffer)
+   */
+  @Test
+  public void testDirectBuffer() throws IOException {
+    roundTrip(ByteBuffer.allocateDirect(64));
+  }
+
+  private static void roundTrip(ByteBuffer buffer) throws IOException {
+    buffer.putInt(7);
+    ProtoBufferCodec.writeTo(MESSAGE, buffer);
+    Assert.assertEquals(4 + MESSAGE.getSerializedSize(), buffer.position());
+
+    buffer.flip();
+    Assert.assertEquals(7, buffer.getInt());
+    Assert.assertEquals(MESSAGE,
+        ProtoBufferCodec.parseFrom(Tests.EchoServerRequest.parser(), buffer));
+    Assert.assertEquals(4, buffer.position());
+  }
+}
@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketOption;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.google.protobuf.Message;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.common.basics.ISelectHandler;
+import org.apache.heron.common.basics.NIOLooper;
+import org.apache.heron.common.testhelpers.HeronServerTester;
+import org.apache.heron.proto.testing.Tests;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * SocketChannelHelper Tester.
+ */
+public class SocketChannelHelperTest {
+
+  /**
+   * Method: write()
+   */
+  @Test
+  public void testPartialWrite() {
+    LimitedSocketChannel channel = new LimitedSocketChannel();
+    SocketChannelHelper helper = new SocketChannelHelper(mock(NIOLooper.class),
+        mock(ISelectHandler.class), channel, HeronServerTester.TEST_SOCKET_OPTIONS);
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    List<Integer> packetSizes = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      Message message = Tests.EchoServerRequest.newBuilder().setEchoRequest("echo-" + i).build();
+      OutgoingPacket packet = new OutgoingPacket(REQID.zeroREQID, message);
+      ByteBuffer bytes = packet.getBuffer().duplicate();
+      expected.write(bytes.array(), bytes.position(), bytes.remaining());
+      packetSizes.add(packet.size());
+      helper.sendPacket(packet);
+    }
+
+    // Nothing is accepted: the packets stay queued as they are
+    channel.setLimit(0);
+    helper.write();
+    Assert.assertEquals(1, channel.getWrites());
+    Assert.assertEquals(3, channel.getLastGathered());
+    Assert.assertEquals(3, helper.getOutstandingPackets());
+    Assert.assertEquals(0, helper.getTotalPacketsWritten());
+
+    // The first packet and a part of the second one are accepted
+    int partial = packetSizes.get(0) + 5;
+    channel.setLimit(partial);
+    helper.write();
+    Assert.assertEquals(2, channel.getWrites());
+    Assert.assertEquals(3, channel.getLastGathered());
+    Assert.assertEquals(2, helper.getOutstandingPackets());
+    Assert.assertEquals(1, helper.getTotalPacketsWritten());
+    Assert.assertEquals((long) packetSizes.get(0), helper.getTotalBytesWritten());
+
+    // The rest is written from where the second packet stopped
+    channel.setLimit(Integer.MAX_VALUE);
+    helper.write();
+    Assert.assertEquals(3, channel.getWrites());
+    Assert.assertEquals(2, channel.getLastGathered());
+    Assert.assertEquals(0, helper.getOutstandingPackets());
+    Assert.assertEquals(3, helper.getTotalPacketsWritten());
+    Assert.assertEquals(expected.size(), helper.getTotalBytesWritten());
+    Assert.assertArrayEquals(expected.toByteArray(), channel.getWritten());
+
+    Assert.assertEquals(3, helper.getTotalWriteSyscalls());
+    Assert.assertEquals(expected.size(), helper.getTotalBytesWrittenBySyscalls());
+  }
+
+  /**
+   * A SocketChannel accepting at most a given number of bytes per write, as a socket whose send
+   * buffer is full would
+   */
+  private static final class LimitedSocketChannel extends SocketChannel {
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private int limit;
+    private int writes;
+    private int lastGathered;
+
+    LimitedSocketChannel() {
+      super(SelectorProvider.provider());
+    }
+
+    void setLimit(int limit) {
+      this.limit = limit;
+    }
+
+    int getWrites() {
+      return writes;
+    }
+
+    int getLastGathered() {
+      return lastGathered;
+    }
+
+    byte[] getWritten() {
+      return written.toByteArray();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      writes++;
+      lastGathered = length;
+      int accepted = 0;
+      for (int i = offset; i < offset + length && accepted < limit; i++) {
+        int n = Math.min(srcs[i].remaining(), limit - accepted);
+        for (int j = 0; j < n; j++) {
+          written.write(srcs[i].get());
+        }
+        accepted += n;
+      }
+      return accepted;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      return (int) write(new ByteBuffer[] {src}, 0, 1);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      return 0;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) {
+      return 0;
+    }
+
+    @Override
+    public SocketChannel bind(SocketAddress local) {
+      return this;
+    }
+
+    @Override
+    public <T> SocketChannel setOption(SocketOption<T> name, T value) {
+      return this;
+    }
+
+    @Override
+    public <T> T getOption(SocketOption<T> name) {
+      return null;
+    }
+
+    @Override
+    public Set<SocketOption<?>> supportedOptions() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public SocketChannel shutdownInput() {
+      return this;
+    }
+
+    @Override
+    public SocketChannel shutdownOutput() {
+      return this;
+    }
+
+    @Override
+    public Socket socket() {
+      return null;
+    }
+
+    @Override
+    public boolean isConnected() {
+      return true;
+    }
+
+    @Override
+    public boolean isConnectionPending() {
+      return false;
+    }
+
+    @Override
+    public boolean connect(SocketAddress remote) {
+      return true;
+    }
+
+    @Override
+    public boolean finishConnect() {
+      return true;
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+      return null;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+      return null;
+    }
+
+    @Override
+    protected void implCloseSelectableChannel() throws IOException {
+    }
+
+    @Override
+    protected void implConfigureBlocking(boolean block) throws IOException {
+    }
+  }
+}
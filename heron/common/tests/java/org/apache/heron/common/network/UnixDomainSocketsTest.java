@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.common.network;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * UnixDomainSockets Tester.
+ */
+public class UnixDomainSocketsTest {
+
+  /**
+   * Method: getSocketPath(String directory, String processName, int port)
+   */
+  @Test
+  public void testGetSocketPath() {
+    Assert.assertEquals("dir" + File.separator + "metricsmgr-6001.sock",
+        UnixDomainSockets.getSocketPath("dir", "metricsmgr", 6001));
+  }
+
+  /**
+   * Method: isUnixDomainAddress(SocketAddress address)
+   */
+  @Test
+  public void testIsUnixDomainAddress() {
+    Assert.assertFalse(UnixDomainSockets.isUnixDomainAddress(null));
+    Assert.assertFalse(
+        UnixDomainSockets.isUnixDomainAddress(new InetSocketAddress("127.0.0.1", 6001)));
+  }
+
+  /**
+   * Method: openServerSocketChannel(), openSocketChannel()
+   */
+  @Test
+  public void testConnect() throws IOException {
+    Assume.assumeTrue(UnixDomainSockets.isSupported());
+
+    File directory = Files.createTempDirectory("uds").toFile();
+    SocketAddress address = UnixDomainSockets.newAddress(
+        UnixDomainSockets.getSocketPath(directory.getPath(), "test", 1));
+    Assert.assertTrue(UnixDomainSockets.isUnixDomainAddress(address));
+
+    try (ServerSocketChannel server = UnixDomainSockets.openServerSocketChannel();
+         SocketChannel client = UnixDomainSockets.openSocketChannel()) {
+      server.bind(address);
+      Assert.assertTrue(client.connect(address));
+
+      try (SocketChannel accepted = server.accept()) {
+        client.write(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+        ByteBuffer read = ByteBuffer.allocate(3);
+        while (read.hasRemaining()) {
+          accepted.read(read);
+        }
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, read.array());
+      }
+    }
+
+    // The socket file is left behind once closed
+    Assert.assertTrue(UnixDomainSockets.deleteSocketFile(address));
+    Assert.assertFalse(UnixDomainSockets.deleteSocketFile(address));
+    Assert.assertTrue(directory.delete());
+  }
+}
@@ -19,8 +19,12 @@
 
 package org.apache.heron.common.test;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Logger;
@@ -29,14 +33,17 @@ import com.google.protobuf.Message;
 
 import org.junit.After;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SysUtils;
 import org.apache.heron.common.network.HeronServer;
+import org.apache.heron.common.network.HeronSocketOptions;
 import org.apache.heron.common.network.REQID;
 import org.apache.heron.common.network.StatusCode;
+import org.apache.heron.common.network.UnixDomainSockets;
 import org.apache.heron.common.testhelpers.HeronServerTester;
 import org.apache.heron.proto.testing.Tests;
 
@@ -51,25 +58,70 @@ public class EchoTest {
   private CountDownLatch serverRequestsReceivedLatch;
 
   @Before
-  public void before() throws IOException {
-    int serverPort = SysUtils.getFreePort();
+  public void before() {
     serverRequestsReceivedLatch = new CountDownLatch(MAX_REQUESTS);
-    server = new EchoServer(new NIOLooper(), serverPort, MAX_REQUESTS, serverRequestsReceivedLatch);
-    client = new EchoClient(new NIOLooper(), serverPort, MAX_REQUESTS);
-    heronServerTester = new HeronServerTester(server, client);
-    heronServerTester.start();
   }
 
   @After
   public void after() {
-    heronServerTester.stop();
+    if (heronServerTester != null) {
+      heronServerTester.stop();
+    }
+  }
+
+  private void start(HeronSocketOptions options) throws IOException {
+    start(options, null);
+  }
+
+  // Start the client connecting to the server through the given endpoint, or its TCP port if null
+  private void start(HeronSocketOptions options, SocketAddress endpoint) throws IOException {
+    int serverPort = SysUtils.getFreePort();
+    server = new EchoServer(new NIOLooper(), serverPort, MAX_REQUESTS, serverRequestsReceivedLatch,
+        options);
+    SocketAddress clientEndpoint = endpoint;
+    if (clientEndpoint == null) {
+      clientEndpoint = new InetSocketAddress(HeronServerTester.SERVER_HOST, serverPort);
+    } else {
+      server.addEndpoint(endpoint);
+    }
+    client = new EchoClient(new NIOLooper(), clientEndpoint, MAX_REQUESTS, options);
+    heronServerTester = new HeronServerTester(server, client);
+    heronServerTester.start();
+  }
+
+  @Test
+  public void testStart() throws IOException {
+    start(HeronServerTester.TEST_SOCKET_OPTIONS);
+    HeronServerTester.await(serverRequestsReceivedLatch);
+    assertEquals(MAX_REQUESTS, server.getRequestsCount());
+    assertEquals(MAX_REQUESTS, client.getRequestsCount());
+  }
+
+  @Test
+  public void testStartWithReadArena() throws IOException {
+    start(HeronServerTester.ARENA_SOCKET_OPTIONS);
+    HeronServerTester.await(serverRequestsReceivedLatch);
+    assertEquals(MAX_REQUESTS, server.getRequestsCount());
+    assertEquals(MAX_REQUESTS, client.getRequestsCount());
   }
 
   @Test
-  public void testStart() {
+  public void testStartOverUnixDomainSocket() throws IOException {
+    Assume.assumeTrue(UnixDomainSockets.isSupported());
+    File directory = Files.createTempDirectory("uds").toFile();
+    SocketAddress endpoint = UnixDomainSockets.newAddress(
+        UnixDomainSockets.getSocketPath(directory.getPath(), "echo", 1));
+
+    start(HeronServerTester.TEST_SOCKET_OPTIONS, endpoint);
     HeronServerTester.await(serverRequestsReceivedLatch);
     assertEquals(MAX_REQUESTS, server.getRequestsCount());
     assertEquals(MAX_REQUESTS, client.getRequestsCount());
+
+    heronServerTester.stop();
+    heronServerTester = null;
+    // The server deletes its socket file once stopped
+    Assert.assertFalse(UnixDomainSockets.deleteSocketFile(endpoint));
+    Assert.assertTrue(directory.delete());
   }
 
   private static class EchoServer extends HeronServer {
@@ -78,8 +130,9 @@ public class EchoTest {
     private final int maxRequests;
     private final CountDownLatch requestsReceivedLatch;
 
-    EchoServer(NIOLooper looper, int port, int maxRequests, CountDownLatch requestsReceivedLatch) {
-      super(looper, HeronServerTester.SERVER_HOST, port, HeronServerTester.TEST_SOCKET_OPTIONS);
+    EchoServer(NIOLooper looper, int port, int maxRequests, CountDownLatch requestsReceivedLatch,
+               HeronSocketOptions options) {
+      super(looper, HeronServerTester.SERVER_HOST, port, options);
       this.nRequests = 0;
       this.maxRequests = maxRequests;
       this.requestsReceivedLatch = requestsReceivedLatch;
@@ -140,8 +193,9 @@ public class EchoTest {
     private int nRequests;
     private int maxRequests;
 
-    EchoClient(NIOLooper looper, int port, int maxRequests) {
-      super(looper, HeronServerTester.SERVER_HOST, port, HeronServerTester.TEST_SOCKET_OPTIONS);
+    EchoClient(NIOLooper looper, SocketAddress endpoint, int maxRequests,
+               HeronSocketOptions options) {
+      super(looper, endpoint, options);
       this.nRequests = 0;
       this.maxRequests = maxRequests;
     }
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.utils.misc;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.api.serializer.IPluggableSerializer;
+import org.apache.heron.api.serializer.JavaSerializer;
+import org.apache.heron.api.serializer.KryoSerializer;
+
+/**
+ * SerializeDeSerializeHelper Tester.
+ */
+public class SerializeDeSerializeHelperTest {
+  private static final List<Object> VALUES =
+      Arrays.<Object>asList("hello", "héllo wörld", 42, 3.5d, new byte[] {1, 2, 3});
+
+  /**
+   * Method: deserialize(IPluggableSerializer serializer, ByteString value)
+   */
+  @Test
+  public void testDeserializeKryo() {
+    checkRoundTrip(new KryoSerializer());
+  }
+
+  /**
+   * Method: deserialize(IPluggableSerializer serializer, ByteString value)
+   */
+  @Test
+  public void testDeserializeStreamletKryo() {
+    checkRoundTrip(new org.apache.heron.streamlet.impl.KryoSerializer());
+  }
+
+  /**
+   * Method: deserialize(IPluggableSerializer serializer, ByteString value)
+   */
+  @Test
+  public void testDeserializeJava() {
+    checkRoundTrip(new JavaSerializer());
+  }
+
+  private static void checkRoundTrip(IPluggableSerializer serializer) {
+    serializer.initialize(null);
+    for (Object value : VALUES) {
+      // The values are received in ByteStrings, whose buffers are read-only
+      ByteString bytes = ByteString.copyFrom(serializer.serialize(value));
+      Object deserialized = SerializeDeSerializeHelper.deserialize(serializer, bytes);
+      if (value instanceof byte[]) {
+        Assert.assertArrayEquals((byte[]) value, (byte[]) deserialized);
+      } else {
+        Assert.assertEquals(value, deserialized);
+      }
+    }
+
+    // A value larger than the buffer the bytes are copied to
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      large.append((char) ('a' + i % 26));
+    }
+    ByteString bytes = ByteString.copyFrom(serializer.serialize(large.toString()));
+    Assert.assertEquals(large.toString(),
+        SerializeDeSerializeHelper.deserialize(serializer, bytes));
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.common.utils.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import com.google.protobuf.ByteString;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.api.generated.TopologyAPI;
+import org.apache.heron.api.serializer.IPluggableSerializer;
+import org.apache.heron.api.serializer.JavaSerializer;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Fields;
+import org.apache.heron.proto.system.HeronTuples;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * LazyTupleImpl Tester.
+ */
+public class LazyTupleImplTest {
+
+  /**
+   * Method: writeObject(ObjectOutputStream out)
+   */
+  @Test
+  public void testJavaSerialization() throws IOException, ClassNotFoundException {
+    TopologyAPI.StreamId stream = TopologyAPI.StreamId.newBuilder()
+        .setComponentName("spout").setId("default").build();
+    TopologyContext context = mock(TopologyContext.class);
+    when(context.getComponentOutputFields("spout", "default")).thenReturn(new Fields("a", "b"));
+
+    IPluggableSerializer serializer = new JavaSerializer();
+    serializer.initialize(null);
+    ByteString rawTuple = HeronTuples.HeronDataTuple.newBuilder()
+        .setKey(7)
+        .addValues(ByteString.copyFrom(serializer.serialize("x")))
+        .addValues(ByteString.copyFrom(serializer.serialize(3)))
+        .build().toByteString();
+
+    // Nothing is decoded before serializing the tuple
+    LazyTupleImpl tuple = new LazyTupleImpl(context, stream, rawTuple, serializer, 0, 1);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(tuple);
+    }
+    Object copy;
+    try (ObjectInputStream in =
+             new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = in.readObject();
+    }
+
+    LazyTupleImpl read = (LazyTupleImpl) copy;
+    Assert.assertEquals(7, read.getTupleKey());
+    Assert.assertEquals(Arrays.asList("x", 3), read.getValues());
+    Assert.assertEquals("x", read.getStringByField("a"));
+  }
+}
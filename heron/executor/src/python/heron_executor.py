@@ -272,6 +272,10 @@ class HeronExecutor(object):
     # Read the heron_internals.yaml for logging dir
     self.log_dir = self._load_logging_dir(self.heron_internals_config_file)
 
+    # Read the heron_internals.yaml for whether to run the Java instances in one JVM
+    self.instance_group_enabled = \
+        self._load_instance_group_enabled(self.heron_internals_config_file)
+
     # these get set when we call update_packing_plan
     self.packing_plan = None
     self.stmgr_ids = {}
@@ -393,6 +397,12 @@ class HeronExecutor(object):
       heron_internals_config = yaml.load(stream)
     return heron_internals_config['heron.logging.directory']
 
+  # pylint: disable=no-self-use
+  def _load_instance_group_enabled(self, heron_internals_config_file):
+    with open(heron_internals_config_file, 'r') as stream:
+      heron_internals_config = yaml.load(stream)
+    return bool(heron_internals_config.get('heron.instance.group.enabled', False))
+
   def _get_metricsmgr_cmd(self, metricsManagerId, sink_config_file, port):
     ''' get the command to start the metrics manager processes '''
     metricsmgr_main_class = 'org.apache.heron.metricsmgr.MetricsManager'
@@ -579,18 +589,56 @@ class HeronExecutor(object):
 
     return retval
 
+  # Returns the process running all the Java Heron Instances of the container in one JVM
+  def _get_java_instance_group_cmd(self, instance_info):
+    if not instance_info:
+      return {}
+
+    instance_group_class_name = 'org.apache.heron.instance.HeronInstanceGroup'
+    group_id = 'instance-group-%s' % str(self.shard)
+
+    # One debugger port is enough for the whole JVM
+    remote_debugger_port = None
+    if self.jvm_remote_debugger_ports:
+      remote_debugger_port = self.jvm_remote_debugger_ports.pop()
+
+    group_cmd = []
+    group_cmd.append(self._get_jvm_instance_cmd())                 # JVM command
+    group_cmd.extend(                                              # JVM options
+        self._get_jvm_options(
+            group_id, map(lambda x: x[1], instance_info), remote_debugger_port))
+    group_cmd.append(instance_group_class_name)                    # Class name
+    group_cmd.extend([                                             # JVM arguments
+        '-group_id', group_id,
+        '-instances', ','.join(map(lambda x: '%s:%s:%d:%d' % x, instance_info)),
+        '-topology_name', self.topology_name,
+        '-topology_id', self.topology_id,
+        '-stmgr_id', self.stmgr_ids[self.shard],
+        '-stmgr_port', self.tmaster_controller_port,
+        '-metricsmgr_port', self.metrics_manager_port,
+        '-system_config_file', self.heron_internals_config_file,
+        '-override_config_file', self.override_config_file])
+
+    return {group_id: group_cmd}
+
   def _get_jvm_instance_cmd(self):
     return os.path.join(self.heron_java_home, 'bin/java')
 
   def _get_jvm_instance_options(self, instance_id, component_name, remote_debugger_port):
+    return self._get_jvm_options(instance_id, [component_name], remote_debugger_port)
+
+  # Returns the options of a JVM running an instance of every component in component_names
+  def _get_jvm_options(self, process_id, component_names, remote_debugger_port):
     code_cache_size_mb = 64
     java_metasize_mb = 128
 
-    total_jvm_size = int(self.component_ram_map[component_name] / (1024 * 1024))
+    # The instances share the code cache and the metaspace of the JVM
+    ram_request = sum(map(lambda x: self.component_ram_map[x], component_names))
+    total_jvm_size = int(ram_request / (1024 * 1024))
     heap_size_mb = total_jvm_size - code_cache_size_mb - java_metasize_mb
     Log.info("component name: %s, RAM request: %d, total JVM size: %dM, "
              "cache size: %dM, metaspace size: %dM"
-             % (component_name, self.component_ram_map[component_name],
+             % (','.join(component_names), ram_request,
                 total_jvm_size, code_cache_size_mb, java_metasize_mb))
     xmn_size = int(heap_size_mb / 2)
 
@@ -625,7 +673,7 @@ class HeronExecutor(object):
         '-XX:+HeapDumpOnOutOfMemoryError',
         '-XX:+UseConcMarkSweepGC',
         '-XX:ParallelGCThreads=4',
-        '-Xloggc:log-files/gc.%s.log' % instance_id,
+        '-Xloggc:log-files/gc.%s.log' % process_id,
         '-Djava.net.preferIPv4Stack=true',
         '-cp',
         '%s:%s'% (self.instance_classpath, self.classpath)]
@@ -637,8 +685,9 @@ class HeronExecutor(object):
 
     # Append user specified jvm options
     instance_options.extend(self.instance_jvm_opts.split())
-    if component_name in self.component_jvm_opts:
-      instance_options.extend(self.component_jvm_opts[component_name].split())
+    for component_name in sorted(set(component_names)):
+      if component_name in self.component_jvm_opts:
+        instance_options.extend(self.component_jvm_opts[component_name].split())
 
     return instance_options
 
@@ -780,7 +829,9 @@ class HeronExecutor(object):
     if self.is_stateful_topology:
       retval.update(self._get_ckptmgr_process())
 
-    if self.pkg_type == 'jar' or self.pkg_type == 'tar':
+    if (self.pkg_type == 'jar' or self.pkg_type == 'tar') and self.instance_group_enabled:
+      retval.update(self._get_java_instance_group_cmd(instance_info))
+    elif self.pkg_type == 'jar' or self.pkg_type == 'tar':
       retval.update(self._get_java_instance_cmd(instance_info))
     elif self.pkg_type == 'pex':
       retval.update(self._get_python_instance_cmd(instance_info))
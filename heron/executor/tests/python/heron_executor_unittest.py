@@ -61,14 +61,18 @@ class MockPOpen(object):
 
 class MockExecutor(HeronExecutor):
   """mock executor that overrides methods that don't apply to unit tests, like running processes"""
-  def __init__(self, args):
+  def __init__(self, args, instance_group_enabled=False):
     self.processes = []
+    self.fake_instance_group_enabled = instance_group_enabled
     super(MockExecutor, self).__init__(args, None)
 
   # pylint: disable=no-self-use
   def _load_logging_dir(self, heron_internals_config_file):
     return "fake_dir"
 
+  def _load_instance_group_enabled(self, heron_internals_config_file):
+    return self.fake_instance_group_enabled
+
   def _run_process(self, name, cmd, env=None):
     popen = MockPOpen()
     self.processes.append(ProcessInfo(popen, name, cmd))
@@ -361,6 +365,30 @@ class HeronExecutorTest(unittest.TestCase):
         sorted(commands_to_keep.keys()))
     self.assertEquals(['container_1_word_2', 'stmgr-1'], sorted(commands_to_start.keys()))
 
+  def test_instance_group_container_1(self):
+    executor = MockExecutor(self.get_args(1), instance_group_enabled=True)
+    executor.update_packing_plan(self.packing_plan_expected)
+    commands = executor.get_commands_to_run()
+
+    self.assertEquals(['heron-shell-1', 'instance-group-1', 'metricsmgr-1', 'stmgr-1'],
+                      sorted(commands.keys()))
+    self.assertEquals(
+        "heron_java_home/bin/java -Xmx1344M -Xms1344M -Xmn672M -XX:MaxMetaspaceSize=128M "
+        "-XX:MetaspaceSize=128M -XX:ReservedCodeCacheSize=64M -XX:+CMSScavengeBeforeRemark "
+        "-XX:TargetSurvivorRatio=90 -XX:+PrintCommandLineFlags -verbosegc -XX:+PrintGCDetails "
+        "-XX:+PrintGCTimeStamps -XX:+PrintGCDateStamps -XX:+PrintGCCause "
+        "-XX:+UseGCLogFileRotation -XX:NumberOfGCLogFiles=5 -XX:GCLogFileSize=100M "
+        "-XX:+PrintPromotionFailure -XX:+PrintTenuringDistribution -XX:+PrintHeapAtGC "
+        "-XX:+HeapDumpOnOutOfMemoryError -XX:+UseConcMarkSweepGC -XX:ParallelGCThreads=4 "
+        "-Xloggc:log-files/gc.instance-group-1.log -Djava.net.preferIPv4Stack=true "
+        "-cp instance_classpath:classpath -XX:+HeapDumpOnOutOfMemoryError "
+        "org.apache.heron.instance.HeronInstanceGroup -group_id instance-group-1 "
+        "-instances container_1_word_3:word:3:0,container_1_exclaim1_2:exclaim1:2:0,"
+        "container_1_exclaim1_1:exclaim1:1:0 -topology_name topname -topology_id topid "
+        "-stmgr_id stmgr-1 -stmgr_port tmaster_controller_port -metricsmgr_port metricsmgr_port "
+        "-system_config_file %s -override_config_file %s" % (INTERNAL_CONF_PATH, OVERRIDE_PATH),
+        ' '.join(commands['instance-group-1']))
+
   def assert_processes(self, expected_processes, found_processes):
     self.assertEquals(len(expected_processes), len(found_processes))
     for expected_process in expected_processes:
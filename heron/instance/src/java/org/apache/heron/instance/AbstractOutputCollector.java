@@ -27,11 +27,15 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
+import com.google.protobuf.UnsafeByteOperations;
 
 import org.apache.heron.api.Config;
+import org.apache.heron.api.serializer.IFreshArraySerializer;
 import org.apache.heron.api.serializer.IPluggableSerializer;
+import org.apache.heron.api.serializer.IStreamingSerializer;
 import org.apache.heron.api.state.State;
 import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.WakeableLooper;
 import org.apache.heron.common.utils.metrics.ComponentMetrics;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
 import org.apache.heron.proto.system.HeronTuples;
@@ -49,6 +53,14 @@ public class AbstractOutputCollector {
   private PhysicalPlanHelper helper;
   public final ReentrantLock lock = new ReentrantLock();
 
+  // Set if the serializer could serialize into serializedValues
+  private final IStreamingSerializer streamingSerializer;
+  // The values of a tuple are serialized into it one after another, see serializeValues()
+  private final ByteString.Output serializedValues;
+  private int[] valueOffsets;
+  // Set if the arrays serialized are new ones, which could be wrapped without copy
+  private final boolean wrapSerializedArrays;
+
   /**
    * The SuppressWarnings is only until TOPOLOGY_ENABLE_ACKING exists.
    * This warning will be removed once it is removed.
@@ -59,6 +71,15 @@ public class AbstractOutputCollector {
                                  Communicator<Message> streamOutQueue,
                                  ComponentMetrics metrics) {
     this.serializer = serializer;
+    if (serializer instanceof IStreamingSerializer) {
+      this.streamingSerializer = (IStreamingSerializer) serializer;
+      this.serializedValues = ByteString.newOutput();
+      this.valueOffsets = new int[0];
+    } else {
+      this.streamingSerializer = null;
+      this.serializedValues = null;
+    }
+    this.wrapSerializedArrays = serializer instanceof IFreshArraySerializer;
     this.metrics = metrics;
     this.totalTuplesEmitted = 0;
     this.totalBytesEmitted = 0;
@@ -102,11 +123,21 @@ public class AbstractOutputCollector {
     return outputter.isOutQueuesAvailable();
   }
 
+  // Return the bytes of the tuples sent out but still in the out queue
+  public long getQueuedBytes() {
+    return outputter.getQueuedBytes();
+  }
+
   // Return the total data emitted in bytes
   public long getTotalDataEmittedInBytes() {
     return outputter.getTotalDataEmittedInBytes();
   }
 
+  // Let the tuples linger as the flush policy configured decides, the looper sending them out
+  public void setFlushLooper(WakeableLooper looper) {
+    outputter.setFlushLooper(looper);
+  }
+
   // Flush the tuples to next stage
   public void sendOutTuples() {
     outputter.sendOutTuples();
@@ -172,11 +203,16 @@ public class AbstractOutputCollector {
     long startTime = System.nanoTime();
 
     // Serialize it
-    for (Object obj : tuple) {
-      byte[] b = serializer.serialize(obj);
-      ByteString bstr = ByteString.copyFrom(b);
-      bldr.addValues(bstr);
-      tupleSizeInBytes += b.length;
+    if (streamingSerializer != null) {
+      tupleSizeInBytes = serializeValues(bldr, tuple);
+    } else {
+      for (Object obj : tuple) {
+        byte[] b = serializer.serialize(obj);
+        ByteString bstr = wrapSerializedArrays
+            ? UnsafeByteOperations.unsafeWrap(b) : ByteString.copyFrom(b);
+        bldr.addValues(bstr);
+        tupleSizeInBytes += b.length;
+      }
     }
 
     long latency = System.nanoTime() - startTime;
@@ -189,4 +225,32 @@ public class AbstractOutputCollector {
     // Update metrics
     metrics.emittedTuple(streamId);
   }
+
+  /**
+   * Serialize all the values of the tuple one after another into serializedValues, and copy them
+   * out at once. Each value added to the builder is then a slice of this copy, so there are no
+   * intermediate arrays nor copies per value.
+   *
+   * @return the total size in bytes of the values
+   */
+  private long serializeValues(HeronTuples.HeronDataTuple.Builder bldr, List<Object> tuple) {
+    int nValues = tuple.size();
+    if (valueOffsets.length < nValues + 1) {
+      valueOffsets = new int[nValues + 1];
+    }
+
+    // Drop anything left by a serialization failure of the previous tuple
+    serializedValues.reset();
+    for (int i = 0; i < nValues; i++) {
+      valueOffsets[i] = serializedValues.size();
+      streamingSerializer.serializeTo(tuple.get(i), serializedValues);
+    }
+    valueOffsets[nValues] = serializedValues.size();
+
+    ByteString values = serializedValues.toByteString();
+    for (int i = 0; i < nValues; i++) {
+      bldr.addValues(values.substring(valueOffsets[i], valueOffsets[i + 1]));
+    }
+    return values.size();
+  }
 }
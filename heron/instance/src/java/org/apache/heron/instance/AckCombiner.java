@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.util.Arrays;
+
+/**
+ * Combines the acks of the tuples sharing a root into one ack per root.
+ * <p>
+ * Stream manager keeps, for every root, the XOR of the keys of the tuples anchored to it and
+ * acked, and the tuple tree is done once it gets back to 0. Since XOR is associative and
+ * commutative, acking the tuples k1, k2 .. kn of a root is the same to it as acking a single
+ * tuple with the key k1 ^ k2 ^ .. ^ kn. So the acks added are folded in, per root, until they
+ * are read and cleared, when they are sent out.
+ * <p>
+ * The roots are kept in an open addressing hash table, so adding an ack does not allocate.
+ * The combiner is not thread safe.
+ */
+public class AckCombiner {
+  private static final int INITIAL_CAPACITY = 64;
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  private int[] taskIds;
+  private long[] rootKeys;
+  private long[] ackedKeys;
+  private boolean[] occupied;
+  // The slots occupied, in the order their roots were first added
+  private int[] order;
+  private int size;
+  private int mask;
+
+  public AckCombiner() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Fold the ack of a tuple into the ack of one of its roots
+   *
+   * @param taskId the task id of the root
+   * @param rootKey the key of the root
+   * @param ackedKey the key of the tuple acked
+   */
+  public void add(int taskId, long rootKey, long ackedKey) {
+    int slot = findSlot(taskId, rootKey);
+    if (occupied[slot]) {
+      ackedKeys[slot] ^= ackedKey;
+      return;
+    }
+    occupied[slot] = true;
+    taskIds[slot] = taskId;
+    rootKeys[slot] = rootKey;
+    ackedKeys[slot] = ackedKey;
+    order[size++] = slot;
+
+    // Keep the table at most half full
+    if (size * 2 > occupied.length) {
+      grow();
+    }
+  }
+
+  /**
+   * The # of roots with an ack combined
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * The task id of the i-th root, in the order they were first added
+   */
+  public int getTaskId(int i) {
+    return taskIds[order[i]];
+  }
+
+  public long getRootKey(int i) {
+    return rootKeys[order[i]];
+  }
+
+  /**
+   * The XOR of the keys of the tuples acked for the i-th root
+   */
+  public long getAckedKey(int i) {
+    return ackedKeys[order[i]];
+  }
+
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      occupied[order[i]] = false;
+    }
+    size = 0;
+  }
+
+  private int findSlot(int taskId, long rootKey) {
+    long hash = (rootKey ^ taskId) * HASH_MULTIPLIER;
+    int slot = (int) (hash >>> 32) & mask;
+    while (occupied[slot] && (rootKeys[slot] != rootKey || taskIds[slot] != taskId)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void allocate(int capacity) {
+    taskIds = new int[capacity];
+    rootKeys = new long[capacity];
+    ackedKeys = new long[capacity];
+    occupied = new boolean[capacity];
+    order = new int[capacity / 2 + 1];
+    mask = capacity - 1;
+  }
+
+  private void grow() {
+    int[] oldTaskIds = taskIds;
+    long[] oldRootKeys = rootKeys;
+    long[] oldAckedKeys = ackedKeys;
+    int[] oldOrder = Arrays.copyOf(order, size);
+
+    allocate(occupied.length * 2);
+    for (int i = 0; i < oldOrder.length; i++) {
+      int oldSlot = oldOrder[i];
+      int slot = findSlot(oldTaskIds[oldSlot], oldRootKeys[oldSlot]);
+      occupied[slot] = true;
+      taskIds[slot] = oldTaskIds[oldSlot];
+      rootKeys[slot] = oldRootKeys[oldSlot];
+      ackedKeys[slot] = oldAckedKeys[oldSlot];
+      order[i] = slot;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.time.Duration;
+
+/**
+ * A linger policy tuning its linger time and target size as the traffic changes:
+ * 1. The target size starts at the one configured. It doubles every time the tuples are sent
+ * out while the queue to the stream manager is full, up to maxTargetBytes, since fewer and larger
+ * sets cost less to the stream manager. It shrinks back by 1/8 every time they are sent out
+ * otherwise.
+ * 2. The linger time is the time to gather the target size at the rate the tuples arrive.
+ * If that is longer than the maximum linger time configured, the sets would not fill anyway,
+ * so the tuples are sent out right away. Under back-pressure, they linger for the maximum time.
+ */
+public class AdaptiveFlushPolicy implements FlushPolicy {
+  // The weight of the last rate in the moving average of the rate the tuples arrive at
+  private static final double RATE_WEIGHT = 0.125;
+
+  private final long maxLingerNanos;
+  private final long minTargetBytes;
+  private final long maxTargetBytes;
+
+  private long lingerNanos;
+  private long targetBytes;
+  // Moving average of the bytes added per nano-second
+  private double bytesPerNano;
+  private long lastFlushTime;
+
+  public AdaptiveFlushPolicy(Duration maxLinger, long targetBytes, long maxTargetBytes) {
+    this.maxLingerNanos = maxLinger.toNanos();
+    this.minTargetBytes = targetBytes;
+    this.maxTargetBytes = Math.max(targetBytes, maxTargetBytes);
+    this.lingerNanos = maxLingerNanos;
+    this.targetBytes = targetBytes;
+    this.bytesPerNano = 0;
+    this.lastFlushTime = System.nanoTime();
+  }
+
+  @Override
+  public boolean shouldFlush(long pendingBytes, long lingeredNanos) {
+    return pendingBytes >= targetBytes || lingeredNanos >= lingerNanos;
+  }
+
+  @Override
+  public long getLingerNanos() {
+    return lingerNanos;
+  }
+
+  @Override
+  public void onFlush(long bytes, long currentTime, boolean backPressured) {
+    long elapsed = Math.max(1, currentTime - lastFlushTime);
+    lastFlushTime = currentTime;
+    bytesPerNano += RATE_WEIGHT * ((double) bytes / elapsed - bytesPerNano);
+
+    if (backPressured) {
+      targetBytes = Math.min(maxTargetBytes, targetBytes * 2);
+      lingerNanos = maxLingerNanos;
+      return;
+    }
+    targetBytes = Math.max(minTargetBytes, targetBytes - (targetBytes >> 3));
+
+    double fillNanos = bytesPerNano > 0 ? targetBytes / bytesPerNano : Double.MAX_VALUE;
+    lingerNanos = fillNanos <= maxLingerNanos ? (long) fillNanos : 0;
+  }
+
+  @Override
+  public long getTargetBytes() {
+    return targetBytes;
+  }
+}
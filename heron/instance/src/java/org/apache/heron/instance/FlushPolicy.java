@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+/**
+ * Decides when OutgoingTupleCollection sends out the tuples added since it last sent out any.
+ * <p>
+ * The instance asks to send out the tuples after every batch of work. The policy could let them
+ * linger instead, so more tuples are packed in the same HeronTupleSet. The tuples are then sent
+ * out at the latest getLingerNanos() after the first of them was added, by a timer.
+ * The tuples are still sent out regardless of the policy once the set is full, or the stream
+ * changes, or the state is checkpointed.
+ * <p>
+ * The policy is only called by the thread of the instance.
+ */
+public interface FlushPolicy {
+  /**
+   * Whether to send out the tuples now
+   *
+   * @param pendingBytes the size in bytes of the data tuples not sent out
+   * @param lingeredNanos the time since the first tuple not sent out was added
+   */
+  boolean shouldFlush(long pendingBytes, long lingeredNanos);
+
+  /**
+   * The longest time a tuple should wait to be sent out
+   */
+  long getLingerNanos();
+
+  /**
+   * The size in bytes of the data tuples, at which they are sent out without waiting for the
+   * instance to ask
+   */
+  long getTargetBytes();
+
+  /**
+   * Called every time the tuples are sent out, whatever the reason
+   *
+   * @param bytes the size in bytes of the data tuples sent out
+   * @param currentTime the current System.nanoTime()
+   * @param backPressured whether the queue to the stream manager is full
+   */
+  void onFlush(long bytes, long currentTime, boolean backPressured);
+}
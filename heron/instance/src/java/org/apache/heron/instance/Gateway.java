@@ -22,6 +22,7 @@ package org.apache.heron.instance;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import com.google.protobuf.Message;
@@ -45,6 +46,9 @@ import org.apache.heron.proto.system.PhysicalPlans;
  * Gateway is a Runnable and will be executed in a thread.
  * It will new the streamManagerClient and metricsManagerClient in constructor and
  * ask them to connect with corresponding socket endpoint in run().
+ * <p>
+ * In an instance run by a HeronInstanceGroup, the metrics go to the group through a
+ * MetricsForwarder instead, and the JVM metrics are left to the group.
  */
 public class Gateway implements Runnable, AutoCloseable {
   private static final Logger LOG = Logger.getLogger(Gateway.class.getName());
@@ -53,8 +57,10 @@ public class Gateway implements Runnable, AutoCloseable {
   private static final String STREAM_MGR_HOST = "127.0.0.1";
   private static final String METRICS_MGR_HOST = "127.0.0.1";
 
-  // MetricsManagerClient will communicate with Metrics Manager
+  // MetricsManagerClient will communicate with Metrics Manager, unless run by a group
   private final MetricsManagerClient metricsManagerClient;
+  // MetricsForwarder will hand the metrics to the group, if run by one
+  private final MetricsForwarder metricsForwarder;
   // StreamManagerClient will communicate with Stream Manager
   private final StreamManagerClient streamManagerClient;
 
@@ -77,6 +83,24 @@ public class Gateway implements Runnable, AutoCloseable {
                  final Communicator<InstanceControlMsg> inControlQueue,
                  final List<Communicator<Metrics.MetricPublisherPublishMessage>> outMetricsQueues)
       throws IOException {
+    this(topologyName, topologyId, instance, streamPort, metricsPort, gatewayLooper,
+        inStreamQueue, outStreamQueue, inControlQueue, outMetricsQueues, null);
+  }
+
+  /**
+   * Construct a Gateway basing on given arguments
+   *
+   * @param metricsSink where the serialized metrics go if the instance is run by a
+   * HeronInstanceGroup, or null to send them to the Metrics Manager directly
+   */
+  public Gateway(String topologyName, String topologyId, PhysicalPlans.Instance instance,
+                 int streamPort, int metricsPort, final NIOLooper gatewayLooper,
+                 final Communicator<Message> inStreamQueue,
+                 final Communicator<Message> outStreamQueue,
+                 final Communicator<InstanceControlMsg> inControlQueue,
+                 final List<Communicator<Metrics.MetricPublisherPublishMessage>> outMetricsQueues,
+                 Consumer<byte[]> metricsSink)
+      throws IOException {
     systemConfig =
         (SystemConfig) SingletonRegistry.INSTANCE.getSingleton(SystemConfig.HERON_SYSTEM_CONFIG);
 
@@ -86,8 +110,13 @@ public class Gateway implements Runnable, AutoCloseable {
 
     // JVM Metrics are auto-sample metrics so we do not have to insert it inside singleton
     // since it should not be used in other places
-    jvmMetrics = new JVMMetrics();
-    jvmMetrics.registerMetrics(gatewayMetricsCollector);
+    // The JVM is shared by the instances of a group, so the group reports them once for all
+    if (metricsSink == null) {
+      jvmMetrics = new JVMMetrics();
+      jvmMetrics.registerMetrics(gatewayMetricsCollector);
+    } else {
+      jvmMetrics = null;
+    }
 
     // since we need to call its methods in a lot of classes
     gatewayMetrics = new GatewayMetrics();
@@ -106,28 +135,67 @@ public class Gateway implements Runnable, AutoCloseable {
         systemConfig.getInstanceNetworkReadBatchTime(),
         systemConfig.getInstanceNetworkOptionsSocketSendBufferSize(),
         systemConfig.getInstanceNetworkOptionsSocketReceivedBufferSize(),
-        systemConfig.getInstanceNetworkOptionsMaximumPacketSize()
+        systemConfig.getInstanceNetworkOptionsMaximumPacketSize(),
+        systemConfig.getInstanceNetworkOptionsOutgoingPacketPoolSize(),
+        systemConfig.getInstanceNetworkOptionsReadArenaSize()
     );
     this.streamManagerClient =
         new StreamManagerClient(gatewayLooper, STREAM_MGR_HOST, streamPort,
             topologyName, topologyId, instance,
             inStreamQueue, outStreamQueue, inControlQueue,
             socketOptions, gatewayMetrics);
-    this.metricsManagerClient = new MetricsManagerClient(gatewayLooper, METRICS_MGR_HOST,
-        metricsPort, instance, outMetricsQueues, socketOptions, gatewayMetrics);
+    if (metricsSink == null) {
+      this.metricsManagerClient = new MetricsManagerClient(gatewayLooper,
+          MetricsManagerClient.getEndpoint(systemConfig, METRICS_MGR_HOST, metricsPort),
+          instance, outMetricsQueues, socketOptions, gatewayMetrics);
+      this.metricsForwarder = null;
+    } else {
+      this.metricsManagerClient = null;
+      this.metricsForwarder = new MetricsForwarder(gatewayLooper, instance, outMetricsQueues,
+          metricsSink, gatewayMetrics);
+    }
 
     // Attach sample Runnable to gatewayMetricsCollector
-    gatewayMetricsCollector.registerMetricSampleRunnable(jvmMetrics.getJVMSampleRunnable(),
-        systemConfig.getInstanceMetricsSystemSampleInterval());
+    if (jvmMetrics != null) {
+      gatewayMetricsCollector.registerMetricSampleRunnable(jvmMetrics.getJVMSampleRunnable(),
+          systemConfig.getInstanceMetricsSystemSampleInterval());
+    }
     Runnable sampleStreamQueuesSize = new Runnable() {
+      // The wake-up counts of gatewayLooper at the last sample
+      private long lastWakeUpsIssued;
+      private long lastWakeUpsSuppressed;
+      // The write syscalls of streamManagerClient, and their bytes, at the last sample
+      private long lastWriteSyscalls;
+      private long lastWriteSyscallsBytes;
+
       @Override
       public void run() {
         gatewayMetrics.setInStreamQueueSize(inStreamQueue.size());
         gatewayMetrics.setOutStreamQueueSize(outStreamQueue.size());
+        if (inStreamQueue.isCountingBytes()) {
+          gatewayMetrics.setInStreamQueueBytes(inStreamQueue.getBytes());
+        }
+        if (outStreamQueue.isCountingBytes()) {
+          gatewayMetrics.setOutStreamQueueBytes(outStreamQueue.getBytes());
+        }
         gatewayMetrics.setInStreamQueueExpectedCapacity(
             inStreamQueue.getExpectedAvailableCapacity());
         gatewayMetrics.setOutStreamQueueExpectedCapacity(
             outStreamQueue.getExpectedAvailableCapacity());
+
+        long wakeUpsIssued = gatewayLooper.getWakeUpsIssued();
+        long wakeUpsSuppressed = gatewayLooper.getWakeUpsSuppressed();
+        gatewayMetrics.updateWakeUps(wakeUpsIssued - lastWakeUpsIssued,
+            wakeUpsSuppressed - lastWakeUpsSuppressed);
+        lastWakeUpsIssued = wakeUpsIssued;
+        lastWakeUpsSuppressed = wakeUpsSuppressed;
+
+        long writeSyscalls = streamManagerClient.getTotalWriteSyscalls();
+        long writeSyscallsBytes = streamManagerClient.getTotalBytesWrittenBySyscalls();
+        gatewayMetrics.updateWriteSyscalls(writeSyscalls - lastWriteSyscalls,
+            writeSyscallsBytes - lastWriteSyscallsBytes);
+        lastWriteSyscalls = writeSyscalls;
+        lastWriteSyscallsBytes = writeSyscallsBytes;
       }
     };
     gatewayMetricsCollector.registerMetricSampleRunnable(sampleStreamQueuesSize,
@@ -156,7 +224,9 @@ public class Gateway implements Runnable, AutoCloseable {
     Thread.currentThread().setName(ThreadNames.THREAD_GATEWAY_NAME);
 
     streamManagerClient.start();
-    metricsManagerClient.start();
+    if (metricsManagerClient != null) {
+      metricsManagerClient.start();
+    }
 
     gatewayLooper.loop();
   }
@@ -165,10 +235,16 @@ public class Gateway implements Runnable, AutoCloseable {
     LOG.info("Closing the Gateway thread");
     this.gatewayMetricsCollector.forceGatherAllMetrics();
 
-    this.metricsManagerClient.sendAllMessage();
+    if (this.metricsManagerClient != null) {
+      this.metricsManagerClient.sendAllMessage();
+    } else {
+      this.metricsForwarder.forwardAllMessages();
+    }
     this.streamManagerClient.sendAllMessage();
 
-    this.metricsManagerClient.stop();
+    if (this.metricsManagerClient != null) {
+      this.metricsManagerClient.stop();
+    }
     this.streamManagerClient.stop();
   }
 }
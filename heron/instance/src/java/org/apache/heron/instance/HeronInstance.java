@@ -27,6 +27,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Filter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,7 +46,9 @@ import org.apache.heron.common.basics.Communicator;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.basics.SlaveLooper;
+import org.apache.heron.common.basics.SpscArrayQueue;
 import org.apache.heron.common.basics.SysUtils;
+import org.apache.heron.common.basics.WakeableLooper;
 import org.apache.heron.common.config.SystemConfig;
 import org.apache.heron.common.utils.logging.ErrorReportLoggingHandler;
 import org.apache.heron.common.utils.logging.LoggingHelper;
@@ -61,6 +65,12 @@ public class HeronInstance {
 
   private static final int NUM_THREADS = 2;
 
+  // The number of ticks in a round of the timing wheels, if they are used
+  private static final int TIMER_WHEEL_TICKS = 512;
+
+  private static final String LINKED_TRANSFER_QUEUE_TYPE = "linked_transfer_queue";
+  private static final String SPSC_RING_BUFFER_QUEUE_TYPE = "spsc_ring_buffer";
+
   private final NIOLooper gatewayLooper;
   private final SlaveLooper slaveLooper;
 
@@ -88,6 +98,11 @@ public class HeronInstance {
 
   private final SystemConfig systemConfig;
 
+  // Whether the instance is run by a HeronInstanceGroup, sharing the JVM with other instances
+  private final boolean inGroup;
+  // Set once the group running the instance shuts it down, which must not halt the process
+  private volatile boolean shutDownByGroup;
+
   private static class CommandLineOptions {
     private static final String TOPOLOGY_NAME_OPTION = "topology_name";
     private static final String TOPOLOGY_ID_OPTION = "topology_id";
@@ -109,34 +124,68 @@ public class HeronInstance {
   public HeronInstance(String topologyName, String topologyId,
                        PhysicalPlans.Instance instance, int streamPort, int metricsPort)
       throws IOException {
+    this(topologyName, topologyId, instance, streamPort, metricsPort, null);
+  }
+
+  /**
+   * Heron instance constructor
+   *
+   * @param metricsSink where the serialized metrics go if the instance is run by a
+   * HeronInstanceGroup, or null to send them to the Metrics Manager directly
+   */
+  public HeronInstance(String topologyName, String topologyId,
+                       PhysicalPlans.Instance instance, int streamPort, int metricsPort,
+                       Consumer<byte[]> metricsSink)
+      throws IOException {
+    inGroup = metricsSink != null;
     systemConfig =
         (SystemConfig) SingletonRegistry.INSTANCE.getSingleton(SystemConfig.HERON_SYSTEM_CONFIG);
 
     // Two WakeableLooper
     gatewayLooper = new NIOLooper();
     slaveLooper = new SlaveLooper();
+    Duration timerWheelTick = systemConfig.getInstanceTimerWheelTick();
+    if (!timerWheelTick.isZero()) {
+      gatewayLooper.useTimingWheel(timerWheelTick, TIMER_WHEEL_TICKS);
+      slaveLooper.useTimingWheel(timerWheelTick, TIMER_WHEEL_TICKS);
+    }
 
     // Add the task on exit
     gatewayLooper.addTasksOnExit(new GatewayExitTask());
     slaveLooper.addTasksOnExit(new SlaveExitTask());
 
     // For stream
-    inStreamQueue = new Communicator<Message>(gatewayLooper, slaveLooper);
-    outStreamQueue = new Communicator<Message>(slaveLooper, gatewayLooper);
+    // Whether it is a spout or a bolt is not known yet, so size the queues for both
+    inStreamQueue = newCommunicator(gatewayLooper, slaveLooper,
+        Math.max(systemConfig.getInstanceInternalSpoutReadQueueCapacity(),
+            systemConfig.getInstanceInternalBoltReadQueueCapacity()));
+    outStreamQueue = newCommunicator(slaveLooper, gatewayLooper,
+        Math.max(systemConfig.getInstanceInternalSpoutWriteQueueCapacity(),
+            systemConfig.getInstanceInternalBoltWriteQueueCapacity()));
     inControlQueue = new Communicator<InstanceControlMsg>(gatewayLooper, slaveLooper);
 
+    // The bytes of the messages to write are always counted, since their size is memoized and
+    // needed anyway to send them out. The bytes of the messages read only if they are bounded.
+    outStreamQueue.countBytes(Message::getSerializedSize);
+    if (systemConfig.getInstanceInternalSpoutReadQueueCapacityBytes().asBytes() > 0
+        || systemConfig.getInstanceInternalBoltReadQueueCapacityBytes().asBytes() > 0) {
+      inStreamQueue.countBytes(Message::getSerializedSize);
+    }
+
     // Now for metrics
     // No need in queues for metrics
     outMetricsQueues = new ArrayList<Communicator<Metrics.MetricPublisherPublishMessage>>(2);
 
     Communicator<Metrics.MetricPublisherPublishMessage> gatewayMetricsOut =
-        new Communicator<Metrics.MetricPublisherPublishMessage>(gatewayLooper, gatewayLooper);
+        newCommunicator(gatewayLooper, gatewayLooper,
+            systemConfig.getInstanceInternalMetricsWriteQueueCapacity());
     gatewayMetricsOut.init(systemConfig.getInstanceInternalMetricsWriteQueueCapacity(),
         systemConfig.getInstanceTuningExpectedMetricsWriteQueueSize(),
         systemConfig.getInstanceTuningCurrentSampleWeight());
 
     Communicator<Metrics.MetricPublisherPublishMessage> slaveMetricsOut =
-        new Communicator<Metrics.MetricPublisherPublishMessage>(slaveLooper, gatewayLooper);
+        newCommunicator(slaveLooper, gatewayLooper,
+            systemConfig.getInstanceInternalMetricsWriteQueueCapacity());
     slaveMetricsOut.init(systemConfig.getInstanceInternalMetricsWriteQueueCapacity(),
         systemConfig.getInstanceTuningExpectedMetricsWriteQueueSize(),
         systemConfig.getInstanceTuningCurrentSampleWeight());
@@ -147,7 +196,8 @@ public class HeronInstance {
     // We will new these two Runnable
     this.gateway =
         new Gateway(topologyName, topologyId, instance, streamPort, metricsPort,
-            gatewayLooper, inStreamQueue, outStreamQueue, inControlQueue, outMetricsQueues);
+            gatewayLooper, inStreamQueue, outStreamQueue, inControlQueue, outMetricsQueues,
+            metricsSink);
     this.slave = new Slave(slaveLooper, inStreamQueue, outStreamQueue,
         inControlQueue, slaveMetricsOut);
 
@@ -155,6 +205,23 @@ public class HeronInstance {
     threadsPool = Executors.newFixedThreadPool(NUM_THREADS);
   }
 
+  /**
+   * Create a Communicator between two threads, whose buffer queue underneath is chosen by
+   * heron.instance.internal.queue.type
+   *
+   * @param capacity the capacity of the ring buffer, if a ring buffer is used
+   */
+  private <E> Communicator<E> newCommunicator(WakeableLooper producer, WakeableLooper consumer,
+                                              int capacity) {
+    String queueType = systemConfig.getInstanceInternalQueueType();
+    if (SPSC_RING_BUFFER_QUEUE_TYPE.equalsIgnoreCase(queueType)) {
+      return new Communicator<E>(producer, consumer, new SpscArrayQueue<E>(capacity));
+    } else if (queueType == null || LINKED_TRANSFER_QUEUE_TYPE.equalsIgnoreCase(queueType)) {
+      return new Communicator<E>(producer, consumer);
+    }
+    throw new IllegalArgumentException("Unknown instance internal queue type: " + queueType);
+  }
+
   private static CommandLine parseCommandLineArgs(String[] args) {
     Options options = new Options();
 
@@ -243,6 +310,31 @@ public class HeronInstance {
   }
 
   public static void main(String[] args) throws IOException {
+    HeronInstance heronInstance = newHeronInstance(args, null);
+    heronInstance.start();
+  }
+
+  /**
+   * The entry of an instance run by a HeronInstanceGroup. The group loads every instance with a
+   * class loader of its own, so each one has its own copy of every static, e.g. the
+   * SingletonRegistry, and is called through reflection with JDK types only.
+   *
+   * @param args the same command line arguments as the ones of a standalone instance
+   * @param metricsSink where the serialized metrics go, to be sent to the Metrics Manager by the
+   * group
+   * @return the handler of the exceptions uncaught in the threads of this instance, which is also
+   * an AutoCloseable shutting the instance down without halting the process
+   */
+  public static Thread.UncaughtExceptionHandler startInGroup(String[] args,
+                                                             Consumer<byte[]> metricsSink)
+      throws IOException {
+    HeronInstance heronInstance = newHeronInstance(args, metricsSink);
+    heronInstance.start();
+    return heronInstance.new GroupMember();
+  }
+
+  private static HeronInstance newHeronInstance(String[] args, Consumer<byte[]> metricsSink)
+      throws IOException {
     CommandLine commandLine = parseCommandLineArgs(args);
 
     String topologyName = commandLine.getOptionValue(CommandLineOptions.TOPOLOGY_NAME_OPTION);
@@ -296,12 +388,23 @@ public class HeronInstance {
     String loggingDir = systemConfig.getHeronLoggingDirectory();
 
     // Log to file and TMaster
-    LoggingHelper.loggerInit(loggingLevel, true);
-    LoggingHelper.addLoggingHandler(
-        LoggingHelper.getFileHandler(instanceId, loggingDir, true,
-            systemConfig.getHeronLoggingMaximumSize(),
-            systemConfig.getHeronLoggingMaximumFiles()));
-    LoggingHelper.addLoggingHandler(new ErrorReportLoggingHandler());
+    if (metricsSink == null) {
+      LoggingHelper.loggerInit(loggingLevel, true);
+    }
+    Handler fileHandler = LoggingHelper.getFileHandler(instanceId, loggingDir, true,
+        systemConfig.getHeronLoggingMaximumSize(),
+        systemConfig.getHeronLoggingMaximumFiles());
+    Handler errorReportHandler = new ErrorReportLoggingHandler();
+    if (metricsSink != null) {
+      // The group has set up the root logger, which is shared by all its instances. The threads
+      // of an instance inherit its class loader as context class loader, which tells its records.
+      final ClassLoader classLoader = HeronInstance.class.getClassLoader();
+      Filter ownRecords = record -> Thread.currentThread().getContextClassLoader() == classLoader;
+      fileHandler.setFilter(ownRecords);
+      errorReportHandler.setFilter(ownRecords);
+    }
+    LoggingHelper.addLoggingHandler(fileHandler);
+    LoggingHelper.addLoggingHandler(errorReportHandler);
 
     String logMsg = "\nStarting instance " + instanceId + " for topology " + topologyName
         + " and topologyId " + topologyId + " for component " + componentName
@@ -317,14 +420,16 @@ public class HeronInstance {
 
     LOG.info("System Config: " + systemConfig.toString());
 
-    HeronInstance heronInstance =
-        new HeronInstance(topologyName, topologyId, instance, streamPort, metricsPort);
-    heronInstance.start();
+    return new HeronInstance(topologyName, topologyId, instance, streamPort, metricsPort,
+        metricsSink);
   }
 
   public void start() {
     // Add exception handler for any uncaught exception here.
-    Thread.setDefaultUncaughtExceptionHandler(new DefaultExceptionHandler());
+    // In a group, the group's handler delegates to the one of the instance owning the thread
+    if (!inGroup) {
+      Thread.setDefaultUncaughtExceptionHandler(new DefaultExceptionHandler());
+    }
 
     // Get the Thread Pool and run it
     threadsPool.execute(gateway);
@@ -413,6 +518,20 @@ public class HeronInstance {
     }
   }
 
+  /**
+   * The handle a HeronInstanceGroup keeps of an instance it runs: it handles the exceptions
+   * uncaught in the threads of the instance, and shuts the instance down once closed
+   */
+  private class GroupMember extends DefaultExceptionHandler implements AutoCloseable {
+    @Override
+    public void close() {
+      shutDownByGroup = true;
+      slaveLooper.exitLoop();
+      gatewayLooper.exitLoop();
+      threadsPool.shutdownNow();
+    }
+  }
+
   // The Task to execute on Gateway thread's exit
   public class GatewayExitTask implements Runnable {
 
@@ -420,7 +539,9 @@ public class HeronInstance {
     public void run() {
       SysUtils.closeIgnoringExceptions(gateway);
 
-      stop();
+      if (!shutDownByGroup) {
+        stop();
+      }
     }
   }
 
@@ -0,0 +1,428 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Filter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.NIOLooper;
+import org.apache.heron.common.basics.SingletonRegistry;
+import org.apache.heron.common.config.SystemConfig;
+import org.apache.heron.common.network.HeronSocketOptions;
+import org.apache.heron.common.utils.logging.ErrorReportLoggingHandler;
+import org.apache.heron.common.utils.logging.LoggingHelper;
+import org.apache.heron.common.utils.metrics.JVMMetrics;
+import org.apache.heron.common.utils.metrics.MetricsCollector;
+import org.apache.heron.metrics.GatewayMetrics;
+import org.apache.heron.network.MetricsManagerClient;
+import org.apache.heron.proto.system.Metrics;
+import org.apache.heron.proto.system.PhysicalPlans;
+
+/**
+ * HeronInstanceGroup runs several Heron instances of a container inside one JVM, to save the
+ * memory and the start-up time of a JVM per instance.
+ * <p>
+ * Every instance is loaded by a class loader of its own, from the class path of the JVM, so it
+ * has its own copy of every class and static, and keeps its own loopers, threads and connection
+ * to the Stream Manager, as a standalone instance does. The group holds the only connection to
+ * the Metrics Manager: the instances hand it their metrics, each message naming the instance
+ * it comes from, and the group reports the JVM metrics once for all of them.
+ * <p>
+ * As with a standalone instance, any failure of an instance halts the process, so the whole
+ * group is restarted.
+ */
+public final class HeronInstanceGroup {
+  private static final Logger LOG = Logger.getLogger(HeronInstanceGroup.class.getName());
+
+  private static final String METRICS_MGR_HOST = "127.0.0.1";
+
+  // Loaded by name, since every instance loads it with a class loader of its own
+  private static final String HERON_INSTANCE_CLASS_NAME = "org.apache.heron.instance.HeronInstance";
+
+  // The component name the group registers itself with to the Metrics Manager
+  private static final String GROUP_COMPONENT_NAME = "__instance_group";
+
+  private final String groupId;
+  private final List<String[]> instanceArgs;
+
+  private final NIOLooper gatewayLooper;
+  private final MetricsManagerClient metricsManagerClient;
+
+  // The metrics of the instances, handed over from their gateway threads
+  private final Communicator<Metrics.MetricPublisherPublishMessage> instancesMetricsOut;
+
+  // The class loaders of the instances, which tell the threads of the instances apart
+  private final Set<ClassLoader> instanceClassLoaders;
+
+  // The handlers of the exceptions uncaught in the threads of every instance, by its class loader
+  private final Map<ClassLoader, Thread.UncaughtExceptionHandler> exceptionHandlers;
+
+  private static class CommandLineOptions {
+    private static final String GROUP_ID_OPTION = "group_id";
+    private static final String INSTANCES_OPTION = "instances";
+    private static final String TOPOLOGY_NAME_OPTION = "topology_name";
+    private static final String TOPOLOGY_ID_OPTION = "topology_id";
+    private static final String STMGR_ID_OPTION = "stmgr_id";
+    private static final String STMGR_PORT_OPTION = "stmgr_port";
+    private static final String METRICS_MGR_PORT_OPTION = "metricsmgr_port";
+    private static final String SYSTEM_CONFIG_FILE = "system_config_file";
+    private static final String OVERRIDE_CONFIG_FILE = "override_config_file";
+  }
+
+  /**
+   * Heron instance group constructor
+   *
+   * @param instanceArgs the command line arguments of every instance
+   */
+  public HeronInstanceGroup(String groupId, String stmgrId, int metricsPort,
+                            List<String[]> instanceArgs) throws IOException {
+    SystemConfig systemConfig =
+        (SystemConfig) SingletonRegistry.INSTANCE.getSingleton(SystemConfig.HERON_SYSTEM_CONFIG);
+
+    this.groupId = groupId;
+    this.instanceArgs = instanceArgs;
+    this.instanceClassLoaders = ConcurrentHashMap.newKeySet();
+    this.exceptionHandlers = new ConcurrentHashMap<>();
+
+    gatewayLooper = new NIOLooper();
+
+    Communicator<Metrics.MetricPublisherPublishMessage> groupMetricsOut =
+        new Communicator<Metrics.MetricPublisherPublishMessage>(gatewayLooper, gatewayLooper);
+    groupMetricsOut.init(systemConfig.getInstanceInternalMetricsWriteQueueCapacity(),
+        systemConfig.getInstanceTuningExpectedMetricsWriteQueueSize(),
+        systemConfig.getInstanceTuningCurrentSampleWeight());
+    instancesMetricsOut =
+        new Communicator<Metrics.MetricPublisherPublishMessage>(null, gatewayLooper);
+
+    List<Communicator<Metrics.MetricPublisherPublishMessage>> outMetricsQueues =
+        new ArrayList<>(2);
+    outMetricsQueues.add(groupMetricsOut);
+    outMetricsQueues.add(instancesMetricsOut);
+
+    // The metrics of the group itself: the ones of the JVM and of its Metrics Manager connection
+    MetricsCollector metricsCollector = new MetricsCollector(gatewayLooper, groupMetricsOut);
+    JVMMetrics jvmMetrics = new JVMMetrics();
+    jvmMetrics.registerMetrics(metricsCollector);
+    metricsCollector.registerMetricSampleRunnable(jvmMetrics.getJVMSampleRunnable(),
+        systemConfig.getInstanceMetricsSystemSampleInterval());
+    GatewayMetrics gatewayMetrics = new GatewayMetrics();
+    gatewayMetrics.registerMetrics(metricsCollector);
+    ErrorReportLoggingHandler.init(metricsCollector,
+        systemConfig.getHeronMetricsExportInterval(),
+        systemConfig.getHeronMetricsMaxExceptionsPerMessageCount());
+
+    HeronSocketOptions socketOptions = new HeronSocketOptions(
+        systemConfig.getInstanceNetworkWriteBatchSize(),
+        systemConfig.getInstanceNetworkWriteBatchTime(),
+        systemConfig.getInstanceNetworkReadBatchSize(),
+        systemConfig.getInstanceNetworkReadBatchTime(),
+        systemConfig.getInstanceNetworkOptionsSocketSendBufferSize(),
+        systemConfig.getInstanceNetworkOptionsSocketReceivedBufferSize(),
+        systemConfig.getInstanceNetworkOptionsMaximumPacketSize(),
+        systemConfig.getInstanceNetworkOptionsOutgoingPacketPoolSize(),
+        systemConfig.getInstanceNetworkOptionsReadArenaSize()
+    );
+
+    // The group registers as an instance of its own, which is only the default publisher of the
+    // messages on the connection, since the ones of the instances name their publisher
+    PhysicalPlans.InstanceInfo groupInfo = PhysicalPlans.InstanceInfo.newBuilder()
+        .setTaskId(-1).setComponentIndex(0).setComponentName(GROUP_COMPONENT_NAME).build();
+    PhysicalPlans.Instance groupInstance = PhysicalPlans.Instance.newBuilder()
+        .setInstanceId(groupId).setStmgrId(stmgrId).setInfo(groupInfo).build();
+    metricsManagerClient = new MetricsManagerClient(gatewayLooper,
+        MetricsManagerClient.getEndpoint(systemConfig, METRICS_MGR_HOST, metricsPort),
+        groupInstance, outMetricsQueues, socketOptions, gatewayMetrics);
+  }
+
+  private static CommandLine parseCommandLineArgs(String[] args) {
+    Options options = new Options();
+
+    Option groupIdOption = new Option(
+        CommandLineOptions.GROUP_ID_OPTION, true, "Instance Group ID");
+    groupIdOption.setRequired(true);
+    groupIdOption.setType(String.class);
+    options.addOption(groupIdOption);
+
+    Option instancesOption = new Option(CommandLineOptions.INSTANCES_OPTION, true,
+        "Instances, as instance_id:component_name:task_id:component_index,...");
+    instancesOption.setRequired(true);
+    instancesOption.setType(String.class);
+    options.addOption(instancesOption);
+
+    String[] sharedOptions = {
+        CommandLineOptions.TOPOLOGY_NAME_OPTION,
+        CommandLineOptions.TOPOLOGY_ID_OPTION,
+        CommandLineOptions.STMGR_ID_OPTION,
+        CommandLineOptions.STMGR_PORT_OPTION,
+        CommandLineOptions.METRICS_MGR_PORT_OPTION,
+        CommandLineOptions.SYSTEM_CONFIG_FILE,
+        CommandLineOptions.OVERRIDE_CONFIG_FILE
+    };
+    for (String sharedOption : sharedOptions) {
+      Option option = new Option(sharedOption, true, "Passed on to every instance");
+      option.setRequired(true);
+      option.setType(String.class);
+      options.addOption(option);
+    }
+
+    CommandLineParser parser = new DefaultParser();
+    HelpFormatter formatter = new HelpFormatter();
+    CommandLine cmd = null;
+    try {
+      cmd = parser.parse(options, args);
+    } catch (ParseException e) {
+      System.out.println(e.getMessage());
+      formatter.printHelp("Heron Instance Group", options);
+      throw new RuntimeException("Incorrect Usage");
+    }
+    return cmd;
+  }
+
+  /**
+   * Build the command line arguments of every instance, from the ones shared by all of them and
+   * the instance_id:component_name:task_id:component_index of each
+   */
+  static List<String[]> getInstanceArgs(String instances, List<String> sharedArgs) {
+    List<String[]> ret = new ArrayList<>();
+    for (String instance : instances.split(",")) {
+      String[] parts = instance.trim().split(":");
+      if (parts.length != 4) {
+        throw new IllegalArgumentException("Invalid instance: " + instance);
+      }
+      List<String> args = new ArrayList<>(sharedArgs);
+      args.addAll(Arrays.asList(
+          "-instance_id", parts[0],
+          "-component_name", parts[1],
+          "-task_id", parts[2],
+          "-component_index", parts[3]));
+      ret.add(args.toArray(new String[0]));
+    }
+    return ret;
+  }
+
+  public static void main(String[] args) throws IOException {
+    CommandLine commandLine = parseCommandLineArgs(args);
+
+    String groupId = commandLine.getOptionValue(CommandLineOptions.GROUP_ID_OPTION);
+    String stmgrId = commandLine.getOptionValue(CommandLineOptions.STMGR_ID_OPTION);
+    Integer metricsPort = Integer.parseInt(
+        commandLine.getOptionValue(CommandLineOptions.METRICS_MGR_PORT_OPTION));
+
+    List<String> sharedArgs = new ArrayList<>();
+    for (Option option : commandLine.getOptions()) {
+      String name = option.getOpt();
+      if (!name.equals(CommandLineOptions.GROUP_ID_OPTION)
+          && !name.equals(CommandLineOptions.INSTANCES_OPTION)) {
+        sharedArgs.add("-" + name);
+        sharedArgs.add(option.getValue());
+      }
+    }
+    List<String[]> instanceArgs = getInstanceArgs(
+        commandLine.getOptionValue(CommandLineOptions.INSTANCES_OPTION), sharedArgs);
+
+    SystemConfig systemConfig = SystemConfig.newBuilder(true)
+        .putAll(commandLine.getOptionValue(CommandLineOptions.SYSTEM_CONFIG_FILE), true)
+        .putAll(commandLine.getOptionValue(CommandLineOptions.OVERRIDE_CONFIG_FILE), true)
+        .build();
+
+    // Add the SystemConfig into SingletonRegistry
+    SingletonRegistry.INSTANCE.registerSingleton(SystemConfig.HERON_SYSTEM_CONFIG, systemConfig);
+
+    HeronInstanceGroup group = new HeronInstanceGroup(groupId, stmgrId, metricsPort, instanceArgs);
+
+    // The root logger is shared with the instances, which log to their own files. So the group
+    // logs the records of every thread but the ones of the instances.
+    LoggingHelper.loggerInit(Level.INFO, true);
+    Filter ownRecords = group::isGroupRecord;
+    Handler fileHandler = LoggingHelper.getFileHandler(groupId,
+        systemConfig.getHeronLoggingDirectory(), true,
+        systemConfig.getHeronLoggingMaximumSize(),
+        systemConfig.getHeronLoggingMaximumFiles());
+    fileHandler.setFilter(ownRecords);
+    LoggingHelper.addLoggingHandler(fileHandler);
+    Handler errorReportHandler = new ErrorReportLoggingHandler();
+    errorReportHandler.setFilter(ownRecords);
+    LoggingHelper.addLoggingHandler(errorReportHandler);
+
+    LOG.info("Starting instance group " + groupId + " with " + instanceArgs.size()
+        + " instances: " + commandLine.getOptionValue(CommandLineOptions.INSTANCES_OPTION));
+
+    // Add exception handler for any uncaught exception here, which halts the process
+    Thread.setDefaultUncaughtExceptionHandler(group.new GroupExceptionHandler());
+
+    group.start();
+  }
+
+  public void start() {
+    gatewayLooper.addTasksOnExit(new Runnable() {
+      @Override
+      public void run() {
+        metricsManagerClient.stop();
+      }
+    });
+    Thread gatewayThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        metricsManagerClient.start();
+        gatewayLooper.loop();
+      }
+    }, "InstanceGroupGatewayThread");
+    gatewayThread.start();
+
+    // Hand the metrics of the instances over to the gateway thread
+    Consumer<byte[]> metricsSink = new Consumer<byte[]>() {
+      @Override
+      public void accept(byte[] message) {
+        try {
+          instancesMetricsOut.offer(Metrics.MetricPublisherPublishMessage.parseFrom(message));
+        } catch (InvalidProtocolBufferException e) {
+          throw new RuntimeException("Failed to parse protobuf", e);
+        }
+      }
+    };
+
+    for (String[] args : instanceArgs) {
+      startInstance(args, metricsSink);
+    }
+    LOG.info("Started instance group " + groupId);
+  }
+
+  /**
+   * Shut the instances and the group down without halting the process, e.g. once a test is done
+   * with the group. The group must not be started again.
+   */
+  public void shutdown() {
+    for (Thread.UncaughtExceptionHandler instance : exceptionHandlers.values()) {
+      try {
+        ((AutoCloseable) instance).close();
+        // SUPPRESS CHECKSTYLE IllegalCatch
+      } catch (Exception e) {
+        LOG.log(Level.WARNING, "Failed to shut an instance down", e);
+      }
+    }
+    exceptionHandlers.clear();
+    gatewayLooper.exitLoop();
+    LOG.info("Shut instance group " + groupId + " down");
+  }
+
+  /**
+   * Whether a record is logged by the group rather than by an instance: the threads of an
+   * instance have its class loader as context class loader, while any other thread, e.g. the
+   * gateway thread of the group or a thread started by the JVM, has another one.
+   */
+  boolean isGroupRecord(LogRecord record) {
+    return !instanceClassLoaders.contains(Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Start an instance with a class loader of its own. It is set as the context class loader of
+   * the current thread meanwhile, so every thread started by the instance inherits it.
+   */
+  private void startInstance(String[] args, Consumer<byte[]> metricsSink) {
+    Thread current = Thread.currentThread();
+    ClassLoader previous = current.getContextClassLoader();
+    ClassLoader instanceClassLoader = newInstanceClassLoader();
+    instanceClassLoaders.add(instanceClassLoader);
+    current.setContextClassLoader(instanceClassLoader);
+    try {
+      Class<?> instanceClass =
+          Class.forName(HERON_INSTANCE_CLASS_NAME, true, instanceClassLoader);
+      Method startInGroup =
+          instanceClass.getMethod("startInGroup", String[].class, Consumer.class);
+      Thread.UncaughtExceptionHandler handler =
+          (Thread.UncaughtExceptionHandler) startInGroup.invoke(null, args, metricsSink);
+      exceptionHandlers.put(instanceClassLoader, handler);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+      throw new RuntimeException("Failed to load the instance: " + Arrays.toString(args), e);
+    } catch (InvocationTargetException e) {
+      throw new RuntimeException(
+          "Failed to start the instance: " + Arrays.toString(args), e.getCause());
+    } finally {
+      current.setContextClassLoader(previous);
+    }
+  }
+
+  /**
+   * A class loader loading the class path of the JVM by itself, rather than delegating to the
+   * application class loader, so the classes it loads share no static with other instances
+   */
+  private static ClassLoader newInstanceClassLoader() {
+    String[] paths = System.getProperty("java.class.path").split(File.pathSeparator);
+    URL[] urls = new URL[paths.length];
+    for (int i = 0; i < paths.length; i++) {
+      try {
+        urls[i] = new File(paths[i]).toURI().toURL();
+      } catch (MalformedURLException e) {
+        throw new RuntimeException("Invalid class path entry: " + paths[i], e);
+      }
+    }
+    return new URLClassLoader(urls, ClassLoader.getSystemClassLoader().getParent());
+  }
+
+  /**
+   * Handler for catching exceptions thrown by any threads. The exceptions in the threads of an
+   * instance are handled by the instance, which flushes what it can and halts the process;
+   * any other exception halts the process directly.
+   */
+  private class GroupExceptionHandler implements Thread.UncaughtExceptionHandler {
+    @Override
+    public void uncaughtException(Thread thread, Throwable exception) {
+      Thread.UncaughtExceptionHandler handler =
+          exceptionHandlers.get(thread.getContextClassLoader());
+      if (handler != null) {
+        handler.uncaughtException(thread, exception);
+        return;
+      }
+
+      try {
+        LOG.log(Level.SEVERE, "Exception caught in thread: " + thread.getName()
+            + " with thread id: " + thread.getId() + ". Process halting...", exception);
+      } finally {
+        Runtime.getRuntime().halt(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.time.Duration;
+
+/**
+ * Sends out the tuples once they add up to the target size, or once the first of them has
+ * lingered for the linger time. With no linger time, the tuples are sent out every time the
+ * instance asks to.
+ */
+public class LingerFlushPolicy implements FlushPolicy {
+  private final long lingerNanos;
+  private final long targetBytes;
+
+  public LingerFlushPolicy(Duration linger, long targetBytes) {
+    this.lingerNanos = linger.toNanos();
+    this.targetBytes = targetBytes;
+  }
+
+  @Override
+  public boolean shouldFlush(long pendingBytes, long lingeredNanos) {
+    return pendingBytes >= targetBytes || lingeredNanos >= lingerNanos;
+  }
+
+  @Override
+  public long getLingerNanos() {
+    return lingerNanos;
+  }
+
+  @Override
+  public long getTargetBytes() {
+    return targetBytes;
+  }
+
+  @Override
+  public void onFlush(long bytes, long currentTime, boolean backPressured) {
+  }
+}
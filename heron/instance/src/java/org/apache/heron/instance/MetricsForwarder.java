@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.NIOLooper;
+import org.apache.heron.metrics.GatewayMetrics;
+import org.apache.heron.network.MetricsManagerClient;
+import org.apache.heron.proto.system.Metrics;
+import org.apache.heron.proto.system.PhysicalPlans;
+
+/**
+ * MetricsForwarder takes the place of the MetricsManagerClient of an instance run by a
+ * HeronInstanceGroup. It hands the metrics of the instance to the group, which sends them to the
+ * Metrics Manager over the one connection it shares between all its instances.
+ * <p>
+ * Every message is stamped with the MetricPublisher of the instance, so the Metrics Manager still
+ * attributes it to the instance, and handed over serialized, since the group and the instance
+ * load the protobuf classes with different class loaders.
+ */
+public class MetricsForwarder {
+  private final Metrics.MetricPublisher publisher;
+
+  private final List<Communicator<Metrics.MetricPublisherPublishMessage>> outMetricsQueues;
+
+  private final Consumer<byte[]> metricsSink;
+
+  private final GatewayMetrics gatewayMetrics;
+
+  public MetricsForwarder(NIOLooper looper, PhysicalPlans.Instance instance,
+                          List<Communicator<Metrics.MetricPublisherPublishMessage>> outs,
+                          Consumer<byte[]> metricsSink, GatewayMetrics gatewayMetrics) {
+    String hostname;
+    try {
+      hostname = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      throw new RuntimeException("GetHostName failed");
+    }
+    this.publisher = MetricsManagerClient.newPublisher(hostname, instance);
+    this.outMetricsQueues = outs;
+    this.metricsSink = metricsSink;
+    this.gatewayMetrics = gatewayMetrics;
+
+    looper.addTasksOnWakeup(new Runnable() {
+      @Override
+      public void run() {
+        forwardAllMessages();
+      }
+    });
+  }
+
+  // Hand all the pending metrics to the group
+  public void forwardAllMessages() {
+    for (Communicator<Metrics.MetricPublisherPublishMessage> c : outMetricsQueues) {
+      while (!c.isEmpty()) {
+        Metrics.MetricPublisherPublishMessage m = c.poll();
+        gatewayMetrics.updateSentMetricsSize(m.getSerializedSize());
+        gatewayMetrics.updateSentMetrics(m.getMetricsCount(), m.getExceptionsCount());
+
+        metricsSink.accept(m.toBuilder().setPublisher(publisher).build().toByteArray());
+      }
+    }
+  }
+}
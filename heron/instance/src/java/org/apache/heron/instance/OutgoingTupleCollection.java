@@ -20,6 +20,8 @@
 package org.apache.heron.instance;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -34,6 +36,7 @@ import org.apache.heron.common.basics.ByteAmount;
 import org.apache.heron.common.basics.Communicator;
 import org.apache.heron.common.basics.FileUtils;
 import org.apache.heron.common.basics.SingletonRegistry;
+import org.apache.heron.common.basics.WakeableLooper;
 import org.apache.heron.common.config.SystemConfig;
 import org.apache.heron.common.utils.metrics.ComponentMetrics;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
@@ -47,9 +50,27 @@ import org.apache.heron.proto.system.HeronTuples;
  * 2. addDataTuple, addAckTuple and addFailTuple
  * 3. flushRemaining tuples and sent out the tuples
  * <p>
+ * Once setFlushLooper() is called, sendOutTuples() asks the FlushPolicy whether to send out the
+ * tuples now, or let them linger, in which case a timer on the looper sends them out later.
+ * Until then, the tuples are sent out every time sendOutTuples() is called.
+ * <p>
+ * With heron.instance.ack.combine set, the acks added with addCombinedAckTuple() are combined
+ * per root by an AckCombiner until the tuples are sent out, and then sent out after the data
+ * tuples, as they would have been.
+ * <p>
+ * The out queue is available while it holds fewer items than expected, and, if it counts
+ * bytes, fewer bytes than its byte capacity. The bytes in it, see getQueuedBytes(), also let the
+ * emits be admitted against byte credits.
+ * <p>
  * In fact, when talking about to send out tuples, we mean we push them to the out queues.
  */
 public class OutgoingTupleCollection {
+  private static final String EAGER_FLUSH_POLICY = "eager";
+  private static final String LINGER_FLUSH_POLICY = "linger";
+  private static final String ADAPTIVE_FLUSH_POLICY = "adaptive";
+  // The adaptive policy grows the target size up to this many times the one configured
+  private static final long MAX_ADAPTIVE_TARGET_FACTOR = 16;
+
   protected PhysicalPlanHelper helper;
   // We have just one outQueue responsible for both control tuples and data tuples
   private final Communicator<Message> outQueue;
@@ -63,6 +84,8 @@ public class OutgoingTupleCollection {
 
   private HeronTuples.HeronDataTupleSet.Builder currentDataTuple;
   private HeronTuples.HeronControlTupleSet.Builder currentControlTuple;
+  // Combines the acks until they are sent out, null if the acks are sent out one by one
+  private final AckCombiner ackCombiner;
 
   // Total data emitted in bytes for the entire life
   private AtomicLong totalDataEmittedInBytes = new AtomicLong();
@@ -72,6 +95,15 @@ public class OutgoingTupleCollection {
 
   private final ReentrantLock lock;
 
+  private FlushPolicy flushPolicy;
+  // Runs the timers sending out the lingering tuples, null if the tuples never linger
+  private WakeableLooper flushLooper;
+  private boolean lingerTimerRegistered;
+  private final Runnable flushLingeringTuples;
+  // Whether any tuple was added since the tuples were last sent out, and when the first was
+  private boolean hasPendingTuples;
+  private long pendingSince;
+
   protected final ComponentMetrics metrics;
 
   public OutgoingTupleCollection(
@@ -97,17 +129,98 @@ public class OutgoingTupleCollection {
     this.maxDataTupleSize = systemConfig.getInstanceSetDataTupleSize();
     this.controlTupleSetCapacity = systemConfig.getInstanceSetControlTupleCapacity();
     this.lock = lock;
+
+    this.ackCombiner = systemConfig.isInstanceAckCombine() ? new AckCombiner() : null;
+
+    this.flushPolicy = newFlushPolicy(systemConfig, maxDataTupleSize.asBytes());
+    this.flushLingeringTuples = new Runnable() {
+      @Override
+      public void run() {
+        lock.lock();
+        try {
+          lingerTimerRegistered = false;
+          flushOrLinger();
+        } finally {
+          lock.unlock();
+        }
+      }
+    };
+  }
+
+  /**
+   * Create the flush policy configured: eager, where tuples never linger, linger or adaptive
+   */
+  static FlushPolicy newFlushPolicy(SystemConfig systemConfig, long maxDataTupleSizeInBytes) {
+    String policy = systemConfig.getInstanceFlushPolicy();
+    Duration linger = systemConfig.getInstanceFlushLinger();
+    long targetBytes = systemConfig.getInstanceFlushTargetSize().asBytes();
+    if (policy == null || EAGER_FLUSH_POLICY.equalsIgnoreCase(policy)) {
+      return new LingerFlushPolicy(Duration.ZERO, Long.MAX_VALUE);
+    } else if (LINGER_FLUSH_POLICY.equalsIgnoreCase(policy)) {
+      return new LingerFlushPolicy(linger, targetBytes);
+    } else if (ADAPTIVE_FLUSH_POLICY.equalsIgnoreCase(policy)) {
+      return new AdaptiveFlushPolicy(linger, targetBytes,
+          Math.min(maxDataTupleSizeInBytes, targetBytes * MAX_ADAPTIVE_TARGET_FACTOR));
+    }
+    throw new IllegalArgumentException("Unknown instance flush policy: " + policy);
+  }
+
+  /**
+   * Let the tuples linger as the flush policy decides, with the looper running the timers
+   * sending them out. It is the looper of the thread calling sendOutTuples().
+   */
+  public void setFlushLooper(WakeableLooper looper) {
+    lock.lock();
+    try {
+      this.flushLooper = looper;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void setFlushPolicy(FlushPolicy flushPolicy) {
+    lock.lock();
+    try {
+      this.flushPolicy = flushPolicy;
+    } finally {
+      lock.unlock();
+    }
   }
 
   public void sendOutTuples() {
     lock.lock();
     try {
-      flushRemaining();
+      if (flushLooper == null) {
+        flushRemaining();
+      } else {
+        flushOrLinger();
+      }
     } finally {
       lock.unlock();
     }
   }
 
+  /**
+   * Send out the tuples if the policy says so, or make sure a timer asks it again once they have
+   * lingered long enough. The tuples could be sent out before the timer fires for other reasons,
+   * e.g. by a thread of the bolt emitting to another stream, so the timer is not cancelled then:
+   * it just asks again for the tuples pending by that time.
+   */
+  private void flushOrLinger() {
+    if (!hasPendingTuples) {
+      return;
+    }
+    long lingered = System.nanoTime() - pendingSince;
+    if (flushPolicy.shouldFlush(currentDataTupleSizeInBytes, lingered)) {
+      flushRemaining();
+    } else if (!lingerTimerRegistered) {
+      flushLooper.registerTimerEvent(
+          Duration.ofNanos(Math.max(0, flushPolicy.getLingerNanos() - lingered)),
+          flushLingeringTuples);
+      lingerTimerRegistered = true;
+    }
+  }
+
   /**
    * Send out the instance's state with corresponding checkpointId. If spillState is True,
    * the actual state is spill to disk and only the state location is sent out.
@@ -174,9 +287,15 @@ public class OutgoingTupleCollection {
         initNewDataTuple(streamId);
       }
       currentDataTuple.addTuples(newTuple);
+      markPendingTuples();
 
       currentDataTupleSizeInBytes += tupleSizeInBytes;
       totalDataEmittedInBytes.getAndAdd(tupleSizeInBytes);
+
+      // No need to wait for the end of the batch of work once the set is large enough
+      if (flushLooper != null && currentDataTupleSizeInBytes >= flushPolicy.getTargetBytes()) {
+        flushRemaining();
+      }
     } finally {
       lock.unlock();
     }
@@ -192,6 +311,7 @@ public class OutgoingTupleCollection {
         initNewControlTuple();
       }
       currentControlTuple.addAcks(newTuple);
+      markPendingTuples();
 
       // Add the size of data in bytes ready to send out
       totalDataEmittedInBytes.getAndAdd(tupleSizeInBytes);
@@ -200,16 +320,46 @@ public class OutgoingTupleCollection {
     }
   }
 
+  public boolean isCombiningAcks() {
+    return ackCombiner != null;
+  }
+
+  /**
+   * Ack a tuple, with its ack combined with the acks of the other tuples of the same roots
+   * until they are sent out. Only valid if isCombiningAcks().
+   */
+  public void addCombinedAckTuple(List<HeronTuples.RootId> roots, long ackedTuple) {
+    lock.lock();
+    try {
+      for (HeronTuples.RootId root : roots) {
+        ackCombiner.add(root.getTaskid(), root.getKey(), ackedTuple);
+      }
+      markPendingTuples();
+
+      // Send them out like a full HeronControlTupleSet would be
+      if (ackCombiner.size() >= controlTupleSetCapacity) {
+        flushRemaining();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
   public void addFailTuple(
       HeronTuples.AckTuple.Builder newTuple, long tupleSizeInBytes) {
     lock.lock();
     try {
+      // The tuples acked before are sent out before
+      if (ackCombiner != null && !ackCombiner.isEmpty()) {
+        flushRemaining();
+      }
       if (currentControlTuple == null
           || currentControlTuple.getAcksCount() > 0
           || currentControlTuple.getFailsCount() >= controlTupleSetCapacity) {
         initNewControlTuple();
       }
       currentControlTuple.addFails(newTuple);
+      markPendingTuples();
 
       // Add the size of data in bytes ready to send out
       totalDataEmittedInBytes.getAndAdd(tupleSizeInBytes);
@@ -236,7 +386,22 @@ public class OutgoingTupleCollection {
     currentControlTuple = HeronTuples.HeronControlTupleSet.newBuilder();
   }
 
+  private void markPendingTuples() {
+    if (!hasPendingTuples) {
+      hasPendingTuples = true;
+      pendingSince = System.nanoTime();
+    }
+  }
+
   private void flushRemaining() {
+    if (!hasPendingTuples) {
+      return;
+    }
+    long currentTime = System.nanoTime();
+    long lingered = currentTime - pendingSince;
+    long bytes = 0;
+    hasPendingTuples = false;
+
     if (currentDataTuple != null) {
       HeronTuples.HeronTupleSet.Builder bldr = HeronTuples.HeronTupleSet.newBuilder();
       bldr.setSrcTaskId(helper.getMyTaskId());
@@ -244,18 +409,56 @@ public class OutgoingTupleCollection {
 
       pushTupleToQueue(bldr, outQueue);
       metrics.addTupleToQueue(currentDataTuple.getTuplesCount());
+      metrics.flushedTupleSet(currentDataTuple.getTuplesCount(), lingered);
+      bytes = currentDataTupleSizeInBytes;
 
       currentDataTuple = null;
+      currentDataTupleSizeInBytes = 0;
+    }
+    if (ackCombiner != null) {
+      addCombinedAcks();
     }
     if (currentControlTuple != null) {
-      HeronTuples.HeronTupleSet.Builder bldr = HeronTuples.HeronTupleSet.newBuilder();
-      bldr.setSrcTaskId(helper.getMyTaskId());
-      bldr.setControl(currentControlTuple);
+      pushControlTuple();
+    }
 
-      pushTupleToQueue(bldr, outQueue);
+    flushPolicy.onFlush(bytes, currentTime, !isOutQueuesAvailable());
+  }
 
-      currentControlTuple = null;
+  /**
+   * Add one ack per root for the acks combined to the control tuples
+   */
+  private void addCombinedAcks() {
+    for (int i = 0; i < ackCombiner.size(); i++) {
+      if (currentControlTuple != null
+          && (currentControlTuple.getFailsCount() > 0
+              || currentControlTuple.getAcksCount() >= controlTupleSetCapacity)) {
+        pushControlTuple();
+      }
+      if (currentControlTuple == null) {
+        currentControlTuple = HeronTuples.HeronControlTupleSet.newBuilder();
+      }
+
+      HeronTuples.AckTuple.Builder bldr = currentControlTuple.addAcksBuilder();
+      bldr.addRootsBuilder()
+          .setTaskid(ackCombiner.getTaskId(i))
+          .setKey(ackCombiner.getRootKey(i));
+      bldr.setAckedtuple(ackCombiner.getAckedKey(i));
+
+      // Add the size of data in bytes ready to send out
+      totalDataEmittedInBytes.getAndAdd(bldr.getRoots(0).getSerializedSize());
     }
+    ackCombiner.clear();
+  }
+
+  private void pushControlTuple() {
+    HeronTuples.HeronTupleSet.Builder bldr = HeronTuples.HeronTupleSet.newBuilder();
+    bldr.setSrcTaskId(helper.getMyTaskId());
+    bldr.setControl(currentControlTuple);
+
+    pushTupleToQueue(bldr, outQueue);
+
+    currentControlTuple = null;
   }
 
   private void pushTupleToQueue(HeronTuples.HeronTupleSet.Builder bldr,
@@ -264,9 +467,19 @@ public class OutgoingTupleCollection {
     out.offer(bldr.build());
   }
 
+  /**
+   * Get the bytes of the messages pushed to the out queue, and not yet taken out of it
+   *
+   * @return the bytes in the out queue, 0 if it does not count bytes
+   */
+  public long getQueuedBytes() {
+    return outQueue.getBytes();
+  }
+
   // Return true we could offer item to outQueue
   public boolean isOutQueuesAvailable() {
-    return outQueue.size() < outQueue.getExpectedAvailableCapacity();
+    return outQueue.size() < outQueue.getExpectedAvailableCapacity()
+        && outQueue.hasRemainingBytes();
   }
 
   public long getTotalDataEmittedInBytes() {
@@ -279,6 +492,11 @@ public class OutgoingTupleCollection {
     try {
       currentControlTuple = null;
       currentDataTuple = null;
+      currentDataTupleSizeInBytes = 0;
+      hasPendingTuples = false;
+      if (ackCombiner != null) {
+        ackCombiner.clear();
+      }
 
       outQueue.clear();
     } finally {
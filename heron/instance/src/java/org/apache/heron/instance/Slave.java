@@ -160,6 +160,10 @@ public class Slave implements Runnable, AutoCloseable {
       streamOutCommunicator.init(systemConfig.getInstanceInternalSpoutWriteQueueCapacity(),
           systemConfig.getInstanceTuningExpectedSpoutWriteQueueSize(),
           systemConfig.getInstanceTuningCurrentSampleWeight());
+      streamInCommunicator.setByteCapacity(
+          systemConfig.getInstanceInternalSpoutReadQueueCapacityBytes().asBytes());
+      streamOutCommunicator.setByteCapacity(
+          systemConfig.getInstanceInternalSpoutWriteQueueCapacityBytes().asBytes());
     } else {
       instance =
           new BoltInstance(helper, streamInCommunicator, streamOutCommunicator, slaveLooper);
@@ -170,6 +174,10 @@ public class Slave implements Runnable, AutoCloseable {
       streamOutCommunicator.init(systemConfig.getInstanceInternalBoltWriteQueueCapacity(),
           systemConfig.getInstanceTuningExpectedBoltWriteQueueSize(),
           systemConfig.getInstanceTuningCurrentSampleWeight());
+      streamInCommunicator.setByteCapacity(
+          systemConfig.getInstanceInternalBoltReadQueueCapacityBytes().asBytes());
+      streamOutCommunicator.setByteCapacity(
+          systemConfig.getInstanceInternalBoltWriteQueueCapacityBytes().asBytes());
     }
 
     if (!helper.isTopologyRunning()) {
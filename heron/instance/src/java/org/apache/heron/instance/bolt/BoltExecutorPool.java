@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance.bolt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.heron.api.tuple.Fields;
+import org.apache.heron.api.tuple.Tuple;
+
+/**
+ * Executes the tuples of a bolt instance on several threads.
+ * <p>
+ * The instance thread dispatches the tuples it reads to the threads, by the hash of the key
+ * fields, so the tuples with the same key are executed in order by the same thread, or round
+ * robin if there are no key fields. It then calls run(), which returns once all the tuples
+ * dispatched are executed. So the instance thread never runs together with the threads of the
+ * pool: the timers, tick tuples, checkpoints and metrics of the instance all see the bolt between
+ * two runs, and only the threads of the pool have to synchronize with each other.
+ */
+final class BoltExecutorPool {
+  private final ExecutorService executorService;
+  private final Consumer<Tuple> executor;
+  // The fields the tuples are dispatched by, null to dispatch them round robin
+  private final Fields keyFields;
+  // The tuples dispatched to every thread since the last run
+  private final List<List<Tuple>> dispatched;
+  private int size;
+  private int nextThread;
+
+  BoltExecutorPool(int threads, Fields keyFields, Consumer<Tuple> executor, String name) {
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executorService = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, name + "-executor-" + threadCount.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor = executor;
+    this.keyFields = keyFields;
+    this.dispatched = new ArrayList<>(threads);
+    for (int i = 0; i < threads; i++) {
+      dispatched.add(new ArrayList<>());
+    }
+  }
+
+  void dispatch(Tuple tuple) {
+    int thread;
+    if (keyFields == null) {
+      thread = nextThread;
+      nextThread = (nextThread + 1) % dispatched.size();
+    } else {
+      thread = Math.floorMod(tuple.select(keyFields).hashCode(), dispatched.size());
+    }
+    dispatched.get(thread).add(tuple);
+    size++;
+  }
+
+  /**
+   * The # of tuples dispatched since the last run
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Execute the tuples dispatched, and wait for all of them to be executed. An exception thrown
+   * by the bolt is thrown again here, once the other threads are done. If the thread is
+   * interrupted, e.g. as the instance shuts down, the tuples not executed yet are dropped, and
+   * it returns with the thread still interrupted, leaving the shutdown to its looper.
+   */
+  void run() {
+    if (size == 0) {
+      return;
+    }
+    List<Callable<Void>> tasks = new ArrayList<>(dispatched.size());
+    for (List<Tuple> tuples : dispatched) {
+      if (!tuples.isEmpty()) {
+        tasks.add(() -> {
+          for (Tuple tuple : tuples) {
+            executor.accept(tuple);
+          }
+          return null;
+        });
+      }
+    }
+
+    try {
+      for (Future<Void> future : executorService.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException("Failed to execute tuples", e.getCause());
+    } finally {
+      for (List<Tuple> tuples : dispatched) {
+        tuples.clear();
+      }
+      size = 0;
+    }
+  }
+
+  void shutdown() {
+    executorService.shutdownNow();
+  }
+}
@@ -27,9 +27,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
 import org.apache.heron.api.Config;
+import org.apache.heron.api.bolt.AsyncBoltExecutor;
+import org.apache.heron.api.bolt.IBatchedBolt;
 import org.apache.heron.api.bolt.IBolt;
 import org.apache.heron.api.bolt.OutputCollector;
 import org.apache.heron.api.generated.TopologyAPI;
@@ -38,6 +41,8 @@ import org.apache.heron.api.serializer.IPluggableSerializer;
 import org.apache.heron.api.state.State;
 import org.apache.heron.api.topology.IStatefulComponent;
 import org.apache.heron.api.topology.IUpdatable;
+import org.apache.heron.api.tuple.Fields;
+import org.apache.heron.api.tuple.Tuple;
 import org.apache.heron.api.utils.Utils;
 import org.apache.heron.common.basics.Communicator;
 import org.apache.heron.common.basics.FileUtils;
@@ -50,6 +55,7 @@ import org.apache.heron.common.utils.metrics.FullBoltMetrics;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
 import org.apache.heron.common.utils.misc.SerializeDeSerializeHelper;
 import org.apache.heron.common.utils.topology.TopologyContextImpl;
+import org.apache.heron.common.utils.tuple.LazyTupleImpl;
 import org.apache.heron.common.utils.tuple.TickTuple;
 import org.apache.heron.common.utils.tuple.TupleImpl;
 import org.apache.heron.instance.IInstance;
@@ -81,6 +87,22 @@ public class BoltInstance implements IInstance {
 
   private final SystemConfig systemConfig;
 
+  // Only 1 in every latencySampleInterval tuples is timed, see isNextTupleTimed()
+  private final int latencySampleInterval;
+  private int tuplesUntilSample;
+
+  // Set if the bolt executes a batch of tuples at a time, see executeBatch()
+  private final IBatchedBolt batchedBolt;
+  // The max # of tuples in a batch, or 0 to pass all the tuples of a HeronTupleSet at once
+  private final int batchSize;
+  private List<Tuple> batch;
+
+  // Set if the bolt executes its tuples asynchronously
+  private final AsyncBoltExecutor asyncBolt;
+
+  // Set if the tuples are executed on several threads
+  private final BoltExecutorPool executorPool;
+
   /**
    * Construct a BoltInstance basing on given arguments
    */
@@ -93,10 +115,12 @@ public class BoltInstance implements IInstance {
     this.streamInQueue = streamInQueue;
     this.boltMetrics = new FullBoltMetrics();
     this.boltMetrics.initMultiCountMetrics(helper);
-    this.serializer =
-        SerializeDeSerializeHelper.getSerializer(helper.getTopologyContext().getTopologyConfig());
+    this.serializer = SerializeDeSerializeHelper.getTupleSerializer(
+        helper.getTopologyContext().getTopologyConfig());
     this.systemConfig = (SystemConfig) SingletonRegistry.INSTANCE.getSingleton(
         SystemConfig.HERON_SYSTEM_CONFIG);
+    this.latencySampleInterval = systemConfig.getInstanceTupleLatencySampleInterval();
+    this.tuplesUntilSample = 1;
 
     this.config = helper.getTopologyContext().getTopologyConfig();
     this.isTopologyStateful = String.valueOf(Config.TopologyReliabilityMode.EFFECTIVELY_ONCE)
@@ -133,6 +157,26 @@ public class BoltInstance implements IInstance {
       throw new RuntimeException("Neither java_object nor java_class_name set for bolt");
     }
     collector = new BoltOutputCollectorImpl(serializer, helper, streamOutQueue, boltMetrics);
+    collector.setFlushLooper(looper);
+
+    this.batchedBolt = bolt instanceof IBatchedBolt ? (IBatchedBolt) bolt : null;
+    Object boltBatchSize = config.get(Config.TOPOLOGY_BOLT_BATCH_SIZE);
+    this.batchSize = boltBatchSize == null ? 0 : TypeUtils.getInteger(boltBatchSize);
+    this.batch = new ArrayList<>();
+    if (batchedBolt != null) {
+      LOG.info("Executing batches of tuples with batch size: " + batchSize);
+    }
+
+    this.asyncBolt = bolt instanceof AsyncBoltExecutor ? (AsyncBoltExecutor) bolt : null;
+    if (asyncBolt != null) {
+      // Process the tuples completed on the threads of the bolt on this thread
+      asyncBolt.setWakeUp(looper::wakeUp);
+    }
+
+    this.executorPool = newExecutorPool();
+    if (executorPool != null) {
+      collector.setConcurrent(true);
+    }
   }
 
   @Override
@@ -224,6 +268,9 @@ public class BoltInstance implements IInstance {
     // Clean the resources we own
     streamInQueue.clear();
     collector.clear();
+    if (executorPool != null) {
+      executorPool.shutdown();
+    }
   }
 
   @Override
@@ -237,9 +284,17 @@ public class BoltInstance implements IInstance {
     Runnable boltTasks = new Runnable() {
       @Override
       public void run() {
+        if (asyncBolt != null) {
+          // Emit the results of, and ack, the tuples completed asynchronously
+          asyncBolt.processCompletions();
+        }
+
         // Back-pressure -- only when we could send out tuples will we read & execute tuples
         if (collector.isOutQueuesAvailable()) {
-          readTuplesAndExecute(streamInQueue);
+          // An async bolt with as many tuples in flight as allowed does not read more
+          if (!isAsyncBoltSaturated()) {
+            readTuplesAndExecute(streamInQueue);
+          }
 
           // Though we may execute MAX_READ tuples, finally we will packet it as
           // one outgoingPacket and push to out queues
@@ -250,7 +305,8 @@ public class BoltInstance implements IInstance {
         }
 
         // If there are more to read, we will wake up itself next time when it doWait()
-        if (collector.isOutQueuesAvailable() && !streamInQueue.isEmpty()) {
+        if (collector.isOutQueuesAvailable() && !isAsyncBoltSaturated()
+            && !streamInQueue.isEmpty()) {
           looper.wakeUp();
         }
       }
@@ -272,6 +328,8 @@ public class BoltInstance implements IInstance {
       Message msg = inQueue.poll();
 
       if (msg instanceof CheckpointManager.InitiateStatefulCheckpoint) {
+        // The state is saved once the tuples read before are executed
+        runExecutorPool();
         String checkpointId =
             ((CheckpointManager.InitiateStatefulCheckpoint) msg).getCheckpointId();
         persistState(checkpointId);
@@ -291,42 +349,219 @@ public class BoltInstance implements IInstance {
         int sourceTaskId = tuples.getSrcTaskId();
 
         for (HeronTuples.HeronDataTuple dataTuple : tuples.getData().getTuplesList()) {
-          long startTime = System.nanoTime();
+          boolean timed = batchedBolt == null && executorPool == null && isNextTupleTimed();
+          long startTime = timed ? System.nanoTime() : 0;
           // Create the value list and fill the value
           List<Object> values = new ArrayList<>(nValues);
           for (int i = 0; i < nValues; i++) {
-            values.add(serializer.deserialize(dataTuple.getValues(i).toByteArray()));
+            values.add(
+                SerializeDeSerializeHelper.deserialize(serializer, dataTuple.getValues(i)));
           }
 
           // Decode the tuple
+          long deserializedTime = System.nanoTime();
           TupleImpl t = new TupleImpl(topologyContext, stream, dataTuple.getKey(),
-              dataTuple.getRootsList(), values, System.nanoTime(), false, sourceTaskId);
+              dataTuple.getRootsList(), values, deserializedTime, false, sourceTaskId);
+
+          if (batchedBolt != null) {
+            addToBatch(t);
+          } else if (executorPool != null) {
+            executorPool.dispatch(t);
+          } else {
+            if (timed) {
+              boltMetrics.deserializeDataTuple(stream.getId(), stream.getComponentName(),
+                  deserializedTime - startTime);
+            }
+            executeTuple(t, timed, deserializedTime);
+          }
+        }
+        executeBatch();
+      } else if (msg instanceof HeronTuples.HeronTupleSet2) {
+        // The tuples are passed by the gateway thread as received from the stream manager,
+        // and are only decoded once the bolt reads them
+        HeronTuples.HeronTupleSet2 tuples = (HeronTuples.HeronTupleSet2) msg;
+        if (tuples.hasControl()) {
+          throw new RuntimeException("Bolt cannot get acks/fails from other components");
+        }
 
-          long deserializedTime = System.nanoTime();
+        TopologyAPI.StreamId stream = tuples.getData().getStream();
+        int sourceTaskId = tuples.getSrcTaskId();
 
-          // Delegate to the use defined bolt
-          bolt.execute(t);
+        for (ByteString rawTuple : tuples.getData().getTuplesList()) {
+          boolean timed = batchedBolt == null && executorPool == null && isNextTupleTimed();
+          long startTime = System.nanoTime();
+          TupleImpl t = new LazyTupleImpl(topologyContext, stream, rawTuple, serializer,
+              startTime, sourceTaskId);
+
+          if (batchedBolt != null) {
+            addToBatch(t);
+          } else if (executorPool != null) {
+            // The serializer is not thread-safe, so the values are decoded here, not on the pool
+            t.getValues();
+            executorPool.dispatch(t);
+          } else {
+            // The values are decoded as the bolt reads them, which is part of the execute latency
+            executeTuple(t, timed, startTime);
+          }
+        }
+        executeBatch();
+      } else {
+        continue;
+      }
 
-          // record the latency of execution
-          long executeLatency = Duration.ofNanos(System.nanoTime()).
-              minusNanos(deserializedTime).toNanos();
+      if (isAsyncBoltSaturated()) {
+        break;
+      }
 
-          // Invoke user-defined execute task hook
-          topologyContext.invokeHookBoltExecute(t, Duration.ofNanos(executeLatency));
+      // To avoid spending too much time
+      long currentTime = System.nanoTime();
+      if (currentTime - startOfCycle - instanceExecuteBatchTime.toNanos() > 0) {
+        break;
+      }
+    }
+    runExecutorPool();
+  }
 
-          // Update metrics
-          boltMetrics.deserializeDataTuple(stream.getId(), stream.getComponentName(),
-              deserializedTime - startTime);
-          boltMetrics.executeTuple(stream.getId(), stream.getComponentName(), executeLatency);
-        }
+  /**
+   * Create the pool executing the tuples if the bolt is configured with more than one thread
+   */
+  private BoltExecutorPool newExecutorPool() {
+    Object threadsConfig = config.get(Config.TOPOLOGY_BOLT_EXECUTOR_THREADS);
+    int threads = threadsConfig == null ? 1 : TypeUtils.getInteger(threadsConfig);
+    if (threads <= 1) {
+      return null;
+    }
+    if (batchedBolt != null || asyncBolt != null) {
+      LOG.warning("Batched and async bolts execute their tuples on one thread, ignoring "
+          + Config.TOPOLOGY_BOLT_EXECUTOR_THREADS);
+      return null;
+    }
 
-        // To avoid spending too much time
-        long currentTime = System.nanoTime();
-        if (currentTime - startOfCycle - instanceExecuteBatchTime.toNanos() > 0) {
-          break;
-        }
+    Fields keyFields = null;
+    Object keyFieldsConfig = config.get(Config.TOPOLOGY_BOLT_EXECUTOR_KEY_FIELDS);
+    if (keyFieldsConfig != null && !keyFieldsConfig.toString().trim().isEmpty()) {
+      keyFields = new Fields(keyFieldsConfig.toString().trim().split("\\s*,\\s*"));
+    }
+    LOG.info(String.format("Executing tuples on %d threads, dispatched by: %s", threads,
+        keyFields == null ? "round robin" : keyFields.toList()));
+    return new BoltExecutorPool(threads, keyFields, this::executeTupleOnPool,
+        helper.getMyComponent());
+  }
+
+  private void runExecutorPool() {
+    if (executorPool != null) {
+      executorPool.run();
+    }
+  }
+
+  /**
+   * Execute a tuple on a thread of the executor pool. The threads of the pool share the metrics
+   * and the hooks of the instance, so they are updated holding the lock of the collector.
+   */
+  private void executeTupleOnPool(Tuple t) {
+    TopologyContextImpl topologyContext = helper.getTopologyContext();
+    TopologyAPI.StreamId stream = ((TupleImpl) t).getSourceGlobalStreamId();
+
+    long startTime = System.nanoTime();
+    bolt.execute(t);
+    long executeLatency = System.nanoTime() - startTime;
+
+    collector.lock.lock();
+    try {
+      // Invoke user-defined execute task hook
+      if (!topologyContext.getHooks().isEmpty()) {
+        topologyContext.invokeHookBoltExecute(t, Duration.ofNanos(executeLatency));
+      }
+      boltMetrics.executeTuple(stream.getId(), stream.getComponentName(), executeLatency);
+    } finally {
+      collector.lock.unlock();
+    }
+  }
+
+  private void executeTuple(TupleImpl t, boolean timed, long startTime) {
+    TopologyContextImpl topologyContext = helper.getTopologyContext();
+    TopologyAPI.StreamId stream = t.getSourceGlobalStreamId();
+
+    // Delegate to the use defined bolt
+    bolt.execute(t);
+
+    if (!timed) {
+      boltMetrics.countExecuteTuple(stream.getId(), stream.getComponentName());
+      return;
+    }
+
+    // record the latency of execution
+    long executeLatency = System.nanoTime() - startTime;
+
+    // Invoke user-defined execute task hook
+    if (!topologyContext.getHooks().isEmpty()) {
+      topologyContext.invokeHookBoltExecute(t, Duration.ofNanos(executeLatency));
+    }
+
+    // Update metrics
+    boltMetrics.executeTuple(stream.getId(), stream.getComponentName(), executeLatency);
+  }
+
+  private boolean isAsyncBoltSaturated() {
+    return asyncBolt != null && asyncBolt.isSaturated();
+  }
+
+  private void addToBatch(Tuple t) {
+    batch.add(t);
+    if (batchSize > 0 && batch.size() >= batchSize) {
+      executeBatch();
+    }
+  }
+
+  /**
+   * Pass the tuples batched so far to the IBatchedBolt at once. A batch only holds tuples of
+   * the same HeronTupleSet, so they all come from the same stream. The batch is timed as a
+   * whole, and every tuple is taken to have taken an equal share of the time. The execute hooks
+   * are called for every tuple with that share, since ITaskHook has no callback for a batch.
+   */
+  private void executeBatch() {
+    if (batch.isEmpty()) {
+      return;
+    }
+    // The bolt may keep the list, e.g. to ack the tuples later, so a new one is used next
+    List<Tuple> inputs = batch;
+    batch = new ArrayList<>(inputs.size());
+
+    TopologyContextImpl topologyContext = helper.getTopologyContext();
+    TopologyAPI.StreamId stream = ((TupleImpl) inputs.get(0)).getSourceGlobalStreamId();
+    int size = inputs.size();
+    // The hooks get the tuples as passed, even if the bolt changes the list
+    List<Tuple> hooked =
+        topologyContext.getHooks().isEmpty() ? null : new ArrayList<>(inputs);
+
+    long startTime = System.nanoTime();
+    batchedBolt.executeBatch(inputs);
+    long executeLatency = System.nanoTime() - startTime;
+
+    // Invoke user-defined execute task hook, per tuple since hooks have no batch callback
+    if (hooked != null) {
+      Duration tupleLatency = Duration.ofNanos(executeLatency / size);
+      for (Tuple t : hooked) {
+        topologyContext.invokeHookBoltExecute(t, tupleLatency);
       }
     }
+
+    boltMetrics.executeBatch(stream.getId(), stream.getComponentName(), size, executeLatency);
+  }
+
+  /**
+   * Whether to time the next tuple: every tuple is timed if there are task hooks, since they
+   * get the latency of every tuple, otherwise only 1 in every latencySampleInterval tuples
+   */
+  private boolean isNextTupleTimed() {
+    if (!helper.getTopologyContext().getHooks().isEmpty()) {
+      return true;
+    }
+    if (--tuplesUntilSample > 0) {
+      return false;
+    }
+    tuplesUntilSample = latencySampleInterval;
+    return true;
   }
 
   @Override
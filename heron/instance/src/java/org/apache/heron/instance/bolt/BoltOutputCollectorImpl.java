@@ -63,6 +63,10 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
   // Reference to update the bolt metrics
   private final BoltMetrics boltMetrics;
 
+  // Whether the bolt executes tuples on several threads, so the tuples are emitted, acked and
+  // failed holding the lock
+  private boolean concurrent;
+
   protected BoltOutputCollectorImpl(IPluggableSerializer serializer,
                                     PhysicalPlanHelper helper,
                                     Communicator<Message> streamOutQueue,
@@ -75,15 +79,36 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
     }
   }
 
+  void setConcurrent(boolean concurrent) {
+    this.concurrent = concurrent;
+  }
+
   @Override
   public List<Integer> emit(String streamId, Collection<Tuple> anchors, List<Object> tuple) {
-    return admitBoltTuple(streamId, anchors, tuple, null);
+    if (!concurrent) {
+      return admitBoltTuple(streamId, anchors, tuple, null);
+    }
+    lock.lock();
+    try {
+      return admitBoltTuple(streamId, anchors, tuple, null);
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
   public void emitDirect(int taskId, String streamId,
                          Collection<Tuple> anchors, List<Object> tuple) {
-    admitBoltTuple(streamId, anchors, tuple, taskId);
+    if (!concurrent) {
+      admitBoltTuple(streamId, anchors, tuple, taskId);
+      return;
+    }
+    lock.lock();
+    try {
+      admitBoltTuple(streamId, anchors, tuple, taskId);
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
@@ -93,12 +118,57 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
 
   @Override
   public void ack(Tuple input) {
-    admitAckTuple(input);
+    if (!concurrent) {
+      admitAckTuple(input, System.nanoTime());
+      return;
+    }
+    lock.lock();
+    try {
+      admitAckTuple(input, System.nanoTime());
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
   public void fail(Tuple input) {
-    admitFailTuple(input);
+    if (!concurrent) {
+      admitFailTuple(input, System.nanoTime());
+      return;
+    }
+    lock.lock();
+    try {
+      admitFailTuple(input, System.nanoTime());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void ackBatch(Collection<Tuple> inputs) {
+    // Take the lock and read the time once for the whole batch
+    lock.lock();
+    try {
+      long currentTime = System.nanoTime();
+      for (Tuple input : inputs) {
+        admitAckTuple(input, currentTime);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void failBatch(Collection<Tuple> inputs) {
+    lock.lock();
+    try {
+      long currentTime = System.nanoTime();
+      for (Tuple input : inputs) {
+        admitFailTuple(input, currentTime);
+      }
+    } finally {
+      lock.unlock();
+    }
   }
 
   /////////////////////////////////////////////////////////
@@ -137,10 +207,15 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
     return null;
   }
 
-  private void admitAckTuple(Tuple tuple) {
+  private void admitAckTuple(Tuple tuple, long currentTime) {
     Duration latency = Duration.ZERO;
     if (ackEnabled) {
-      if (tuple instanceof TupleImpl) {
+      if (tuple instanceof TupleImpl && outputter.isCombiningAcks()) {
+        TupleImpl tuplImpl = (TupleImpl) tuple;
+        outputter.addCombinedAckTuple(tuplImpl.getRoots(), tuplImpl.getTupleKey());
+
+        latency = Duration.ofNanos(currentTime - tuplImpl.getCreationTime());
+      } else if (tuple instanceof TupleImpl) {
         TupleImpl tuplImpl = (TupleImpl) tuple;
 
         HeronTuples.AckTuple.Builder bldr = HeronTuples.AckTuple.newBuilder();
@@ -154,7 +229,7 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
         }
         outputter.addAckTuple(bldr, tupleSizeInBytes);
 
-        latency = Duration.ofNanos(System.nanoTime()).minusNanos(tuplImpl.getCreationTime());
+        latency = Duration.ofNanos(currentTime - tuplImpl.getCreationTime());
       }
     }
 
@@ -165,7 +240,7 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
         tuple.getSourceStreamId(), tuple.getSourceComponent(), latency.toNanos());
   }
 
-  private void admitFailTuple(Tuple tuple) {
+  private void admitFailTuple(Tuple tuple, long currentTime) {
     Duration latency = Duration.ZERO;
     if (ackEnabled) {
       if (tuple instanceof TupleImpl) {
@@ -182,7 +257,7 @@ public class BoltOutputCollectorImpl extends AbstractOutputCollector implements
         }
         outputter.addFailTuple(bldr, tupleSizeInBytes);
 
-        latency = Duration.ofNanos(System.nanoTime()).minusNanos(tuplImpl.getCreationTime());
+        latency = Duration.ofNanos(currentTime - tuplImpl.getCreationTime());
       }
     }
 
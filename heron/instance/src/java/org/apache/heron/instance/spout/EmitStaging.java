@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance.spout;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.heron.common.basics.SpscArrayQueue;
+import org.apache.heron.common.basics.WakeableLooper;
+
+/**
+ * The emits of a spout from threads other than the slave thread, e.g. the threads of a client
+ * fetching the messages to emit.
+ * <p>
+ * Every thread stages its emits in a buffer of its own, with a single producer and a single
+ * consumer, and the slave thread polls them one thread after another to emit them for real,
+ * as long as max spout pending and back-pressure allow it. So nothing of the collector is shared
+ * between threads, and the threads staging emits never contend with each other.
+ * <p>
+ * A buffer holds up to capacity emits. A thread staging into a full buffer waits until the slave
+ * thread takes from it, which pushes back on the thread the same way back-pressure pushes back
+ * on nextTuple().
+ */
+final class EmitStaging {
+  // The longest a thread waits for room before checking again, in case it is not unparked
+  private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final int capacity;
+  private final WakeableLooper looper;
+  private final List<Buffer> buffers;
+  private final ThreadLocal<Buffer> localBuffer;
+  private volatile boolean closed;
+
+  // The buffer polled next by the slave thread
+  private int nextBuffer;
+
+  EmitStaging(int capacity, WakeableLooper looper) {
+    this.capacity = capacity;
+    this.looper = looper;
+    this.buffers = new CopyOnWriteArrayList<>();
+    this.localBuffer = new ThreadLocal<Buffer>() {
+      @Override
+      protected Buffer initialValue() {
+        Buffer buffer = new Buffer(Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+      }
+    };
+    this.closed = false;
+    this.nextBuffer = 0;
+  }
+
+  /**
+   * Called by any thread but the slave thread. Waits while the buffer of the thread is full.
+   * The emit is dropped once the staging is closed.
+   */
+  void stage(String streamId, List<Object> tuple, Object messageId, Integer emitDirectTaskId) {
+    Buffer buffer = localBuffer.get();
+    if (buffer.emits.size() >= capacity) {
+      buffer.waitForRoom();
+    }
+    if (closed) {
+      return;
+    }
+    buffer.emits.offer(new StagedEmit(streamId, tuple, messageId, emitDirectTaskId));
+    looper.wakeUpIfNeeded();
+  }
+
+  /**
+   * Called by the slave thread only. Takes the oldest emit of the next thread with any,
+   * or returns null if nothing is staged.
+   */
+  StagedEmit poll() {
+    int n = buffers.size();
+    for (int i = 0; i < n; i++) {
+      int index = (nextBuffer + i) % n;
+      Buffer buffer = buffers.get(index);
+      StagedEmit emit = buffer.emits.poll();
+      if (emit != null) {
+        nextBuffer = (index + 1) % n;
+        if (buffer.waiting) {
+          LockSupport.unpark(buffer.owner);
+        }
+        return emit;
+      }
+      if (!buffer.owner.isAlive()) {
+        // The owner could have staged more after the poll above, before it exited. Nothing more
+        // could be staged into it now, so it is only dropped if it is still empty.
+        emit = buffer.emits.poll();
+        if (emit != null) {
+          nextBuffer = (index + 1) % n;
+          return emit;
+        }
+        buffers.remove(index);
+        return poll();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The number of emits staged, by all threads
+   */
+  int size() {
+    int size = 0;
+    for (Buffer buffer : buffers) {
+      size += buffer.emits.size();
+    }
+    return size;
+  }
+
+  /**
+   * The number of times any thread had to wait for room, since the staging was created
+   */
+  long getWaitCount() {
+    long count = 0;
+    for (Buffer buffer : buffers) {
+      count += buffer.waitCount;
+    }
+    return count;
+  }
+
+  /**
+   * Drop the emits staged, and the ones staged from now on, and release the waiting threads
+   */
+  void close() {
+    closed = true;
+    for (Buffer buffer : buffers) {
+      buffer.emits.clear();
+      LockSupport.unpark(buffer.owner);
+    }
+  }
+
+  private final class Buffer {
+    private final Thread owner;
+    private final SpscArrayQueue<StagedEmit> emits;
+    // Written by the owner only
+    private volatile boolean waiting;
+    private volatile long waitCount;
+
+    Buffer(Thread owner) {
+      this.owner = owner;
+      this.emits = new SpscArrayQueue<>(capacity);
+    }
+
+    void waitForRoom() {
+      waitCount++;
+      waiting = true;
+      while (!closed && emits.size() >= capacity) {
+        // The slave thread may be asleep, waiting for more work
+        looper.wakeUpIfNeeded();
+        LockSupport.parkNanos(this, MAX_WAIT_NANOS);
+      }
+      waiting = false;
+    }
+  }
+
+  static final class StagedEmit {
+    private final String streamId;
+    private final List<Object> tuple;
+    private final Object messageId;
+    private final Integer emitDirectTaskId;
+
+    StagedEmit(String streamId, List<Object> tuple, Object messageId, Integer emitDirectTaskId) {
+      this.streamId = streamId;
+      this.tuple = tuple;
+      this.messageId = messageId;
+      this.emitDirectTaskId = emitDirectTaskId;
+    }
+
+    String getStreamId() {
+      return streamId;
+    }
+
+    List<Object> getTuple() {
+      return tuple;
+    }
+
+    Object getMessageId() {
+      return messageId;
+    }
+
+    Integer getEmitDirectTaskId() {
+      return emitDirectTaskId;
+    }
+  }
+}
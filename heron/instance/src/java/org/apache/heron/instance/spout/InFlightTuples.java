@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.instance.spout;
+
+import java.util.Arrays;
+
+/**
+ * The tuples emitted by a spout and not yet acked, failed or timed out, by their root id.
+ * <p>
+ * It does not allocate per tuple: the tuples are kept in slots of parallel arrays, which are
+ * reused once their tuples are retired, and are found by root id through an open-addressing
+ * table of primitive longs. The slots in use are also linked in the order of emission, i.e.
+ * ordered by time, so retiring the expired tuples only looks at the expired ones and the next.
+ * <p>
+ * The methods retiring a tuple return its slot, whose values could be read until the next call
+ * to add().
+ */
+final class InFlightTuples {
+  private static final int NONE = -1;
+  private static final int INITIAL_CAPACITY = 16;
+
+  // The slots, linked in emission order in use, or through next in the free list
+  private long[] rootIds;
+  private String[] streamIds;
+  private Object[] messageIds;
+  private long[] insertionTimes;
+  private int[] next;
+  private int[] prev;
+  private int head;
+  private int tail;
+  private int freeHead;
+  private int size;
+
+  // The slot retired last, whose references are released on the next retirement
+  private int retired;
+
+  // Open-addressing table with linear probing, from root id to slot + 1, 0 being empty
+  private long[] tableKeys;
+  private int[] tableSlots;
+  private int tableMask;
+
+  InFlightTuples() {
+    rootIds = new long[INITIAL_CAPACITY];
+    streamIds = new String[INITIAL_CAPACITY];
+    messageIds = new Object[INITIAL_CAPACITY];
+    insertionTimes = new long[INITIAL_CAPACITY];
+    next = new int[INITIAL_CAPACITY];
+    prev = new int[INITIAL_CAPACITY];
+    linkFreeSlots(0);
+    head = NONE;
+    tail = NONE;
+    retired = NONE;
+
+    tableKeys = new long[INITIAL_CAPACITY * 2];
+    tableSlots = new int[INITIAL_CAPACITY * 2];
+    tableMask = tableKeys.length - 1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Add a tuple emitted now, replacing any tuple with the same root id
+   */
+  void add(long rootId, String streamId, Object messageId, long insertionTime) {
+    int existing = find(rootId);
+    if (existing != NONE) {
+      unlink(existing);
+      free(existing);
+    } else if (size == rootIds.length) {
+      grow();
+    }
+
+    int slot = freeHead;
+    freeHead = next[slot];
+    if (slot == retired) {
+      retired = NONE;
+    }
+    rootIds[slot] = rootId;
+    streamIds[slot] = streamId;
+    messageIds[slot] = messageId;
+    insertionTimes[slot] = insertionTime;
+
+    next[slot] = NONE;
+    prev[slot] = tail;
+    if (tail == NONE) {
+      head = slot;
+    } else {
+      next[tail] = slot;
+    }
+    tail = slot;
+    size++;
+
+    if (existing != NONE) {
+      tableSlots[indexOf(rootId)] = slot + 1;
+    } else {
+      insert(rootId, slot);
+    }
+  }
+
+  /**
+   * Retire the tuple with the root id, returns its slot, or -1 if it is not in flight
+   */
+  int retire(long rootId) {
+    int index = indexOf(rootId);
+    if (index == NONE) {
+      return NONE;
+    }
+    int slot = tableSlots[index] - 1;
+    delete(index);
+    unlink(slot);
+    free(slot);
+    return slot;
+  }
+
+  /**
+   * Retire the oldest tuple if it was emitted at or before the deadline, returns its slot,
+   * or -1 if there is no such tuple
+   */
+  int retireOldest(long deadline) {
+    if (head == NONE || insertionTimes[head] - deadline > 0) {
+      return NONE;
+    }
+    return retire(rootIds[head]);
+  }
+
+  String getStreamId(int slot) {
+    return streamIds[slot];
+  }
+
+  Object getMessageId(int slot) {
+    return messageIds[slot];
+  }
+
+  long getInsertionTime(int slot) {
+    return insertionTimes[slot];
+  }
+
+  private int find(long rootId) {
+    int index = indexOf(rootId);
+    return index == NONE ? NONE : tableSlots[index] - 1;
+  }
+
+  private void unlink(int slot) {
+    if (prev[slot] == NONE) {
+      head = next[slot];
+    } else {
+      next[prev[slot]] = next[slot];
+    }
+    if (next[slot] == NONE) {
+      tail = prev[slot];
+    } else {
+      prev[next[slot]] = prev[slot];
+    }
+    size--;
+  }
+
+  private void free(int slot) {
+    // The values of the slot are kept until the next retirement, so the caller could read them
+    if (retired != NONE) {
+      streamIds[retired] = null;
+      messageIds[retired] = null;
+    }
+    retired = slot;
+    next[slot] = freeHead;
+    freeHead = slot;
+  }
+
+  private void grow() {
+    int capacity = rootIds.length * 2;
+    rootIds = Arrays.copyOf(rootIds, capacity);
+    streamIds = Arrays.copyOf(streamIds, capacity);
+    messageIds = Arrays.copyOf(messageIds, capacity);
+    insertionTimes = Arrays.copyOf(insertionTimes, capacity);
+    next = Arrays.copyOf(next, capacity);
+    prev = Arrays.copyOf(prev, capacity);
+    linkFreeSlots(size);
+
+    // Keep the table at most half full
+    long[] oldKeys = tableKeys;
+    int[] oldSlots = tableSlots;
+    tableKeys = new long[capacity * 2];
+    tableSlots = new int[capacity * 2];
+    tableMask = tableKeys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldSlots[i] != 0) {
+        insert(oldKeys[i], oldSlots[i] - 1);
+      }
+    }
+  }
+
+  // Link the slots from the given one to the end as the free list, only called when all the
+  // slots before it are in use
+  private void linkFreeSlots(int from) {
+    for (int i = from; i < rootIds.length - 1; i++) {
+      next[i] = i + 1;
+    }
+    next[rootIds.length - 1] = NONE;
+    freeHead = from;
+  }
+
+  private int indexOf(long rootId) {
+    for (int i = hash(rootId); tableSlots[i] != 0; i = (i + 1) & tableMask) {
+      if (tableKeys[i] == rootId) {
+        return i;
+      }
+    }
+    return NONE;
+  }
+
+  private void insert(long rootId, int slot) {
+    int i = hash(rootId);
+    while (tableSlots[i] != 0) {
+      i = (i + 1) & tableMask;
+    }
+    tableKeys[i] = rootId;
+    tableSlots[i] = slot + 1;
+  }
+
+  // Delete by shifting back the following entries of the probe sequence, so no tombstone is left
+  private void delete(int index) {
+    int hole = index;
+    int i = (index + 1) & tableMask;
+    while (tableSlots[i] != 0) {
+      int home = hash(tableKeys[i]);
+      // Move the entry into the hole unless its home lies cyclically in (hole, i]
+      if (((i - home) & tableMask) >= ((i - hole) & tableMask)) {
+        tableKeys[hole] = tableKeys[i];
+        tableSlots[hole] = tableSlots[i];
+        hole = i;
+      }
+      i = (i + 1) & tableMask;
+    }
+    tableSlots[hole] = 0;
+  }
+
+  private int hash(long rootId) {
+    long h = rootId * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & tableMask;
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.instance.spout;
+
+import java.time.Duration;
+
+/**
+ * Admits the emits of a spout against two limits, both optional.
+ * <p>
+ * 1. Byte credits: the spout could emit while the bytes of the tuples sent out, but still in the
+ * out queue, are fewer than the credits. The credits come back as the gateway takes the tuples
+ * out of the queue, so the spout emits as fast as the tuples leave, rather than following the
+ * expected capacity of the queue, which is halved on every back-up.
+ * <p>
+ * 2. A rate limit, in tuples and/or bytes per second. The emits are paced: every emit pushes the
+ * time the next one is admitted at by its cost, and up to maxBurst of time left unused is made
+ * up for. While throttled, the instance is woken up by a timer, rather than sleeping.
+ * <p>
+ * It is used by the slave thread only.
+ */
+final class SpoutFlowController {
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  // 0 if the emits are not admitted against credits
+  private final long creditBytes;
+  // 0 if the tuples, or bytes, emitted are not limited
+  private final double nanosPerTuple;
+  private final double nanosPerByte;
+  private final long maxBurstNanos;
+
+  // The time the next emit is admitted at, once any emit was paced
+  private boolean paced;
+  private long nextAdmitTime;
+
+  // The time throttled so far, and since when the spout is throttled if it is
+  private long throttledNanos;
+  private boolean throttled;
+  private long throttledSince;
+
+  /**
+   * @param creditBytes the bytes the spout could have in the out queue, 0 for no limit
+   * @param maxTuplesPerSecond the tuples the spout could emit per second, 0 for no limit
+   * @param maxBytesPerSecond the bytes the spout could emit per second, 0 for no limit
+   * @param maxBurst the longest time left unused to make up for with a burst of emits
+   */
+  SpoutFlowController(long creditBytes, double maxTuplesPerSecond, double maxBytesPerSecond,
+                      Duration maxBurst) {
+    if (creditBytes < 0 || maxTuplesPerSecond < 0 || maxBytesPerSecond < 0) {
+      throw new IllegalArgumentException("The limits of the emits could not be negative");
+    }
+    this.creditBytes = creditBytes;
+    this.nanosPerTuple = maxTuplesPerSecond > 0 ? NANOS_PER_SECOND / maxTuplesPerSecond : 0;
+    this.nanosPerByte = maxBytesPerSecond > 0 ? NANOS_PER_SECOND / maxBytesPerSecond : 0;
+    this.maxBurstNanos = maxBurst.toNanos();
+  }
+
+  boolean isCreditBased() {
+    return creditBytes > 0;
+  }
+
+  boolean isRateLimited() {
+    return nanosPerTuple > 0 || nanosPerByte > 0;
+  }
+
+  /**
+   * Get the bytes the spout could still emit, given the bytes in the out queue
+   */
+  long getAvailableCredits(long queuedBytes) {
+    return Math.max(0, creditBytes - queuedBytes);
+  }
+
+  /**
+   * Whether the spout could emit, given the bytes in the out queue
+   */
+  boolean hasCredits(long queuedBytes) {
+    return !isCreditBased() || queuedBytes < creditBytes;
+  }
+
+  /**
+   * Get how long the spout has to wait before it could emit at the rate limit
+   *
+   * @param now the current System.nanoTime()
+   * @return the nanoseconds to wait, 0 if the spout could emit now
+   */
+  long getThrottleNanos(long now) {
+    long wait = paced ? nextAdmitTime - now : 0;
+    if (wait > 0) {
+      if (!throttled) {
+        throttled = true;
+        throttledSince = now;
+      }
+      return wait;
+    }
+    if (throttled) {
+      throttled = false;
+      throttledNanos += now - throttledSince;
+    }
+    return 0;
+  }
+
+  /**
+   * Charge the emits to the rate limit
+   *
+   * @param tuples the tuples emitted
+   * @param bytes the bytes emitted
+   * @param now the current System.nanoTime()
+   */
+  void onEmitted(long tuples, long bytes, long now) {
+    if (!isRateLimited() || (tuples == 0 && bytes == 0)) {
+      return;
+    }
+    long cost = (long) Math.ceil(Math.max(tuples * nanosPerTuple, bytes * nanosPerByte));
+    long earliest = now - maxBurstNanos;
+    if (!paced || nextAdmitTime - earliest < 0) {
+      paced = true;
+      nextAdmitTime = earliest;
+    }
+    nextAdmitTime += cost;
+  }
+
+  /**
+   * Get the time throttled since the last call, including the time throttled so far if the
+   * spout is still throttled
+   *
+   * @param now the current System.nanoTime()
+   */
+  long takeThrottledNanos(long now) {
+    long ret = throttledNanos;
+    throttledNanos = 0;
+    if (throttled) {
+      ret += now - throttledSince;
+      throttledSince = now;
+    }
+    return ret;
+  }
+}
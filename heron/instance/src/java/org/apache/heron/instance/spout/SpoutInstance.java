@@ -22,7 +22,6 @@ package org.apache.heron.instance.spout;
 import java.io.Serializable;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -66,6 +65,18 @@ public class SpoutInstance implements IInstance {
 
   private final boolean ackEnabled;
   private final boolean enableMessageTimeouts;
+  // Whether the spout could emit from its own threads
+  private final boolean concurrentEmit;
+  // The waits for room in the staging already reported
+  private long stagingWaitsReported;
+
+  // Admits the emits against byte credits, and the rate limit of the spout
+  private final SpoutFlowController flowController;
+  // The tuples and bytes emitted already charged to the rate limit
+  private long chargedTuples;
+  private long chargedBytes;
+  // Whether a timer is registered to wake up the looper once the spout is no longer throttled
+  private boolean throttleTimerRegistered;
 
   private final boolean isTopologyStateful;
   private final boolean spillState;
@@ -77,6 +88,10 @@ public class SpoutInstance implements IInstance {
 
   private final SystemConfig systemConfig;
 
+  // Only 1 in every latencySampleInterval calls of nextTuple() is timed
+  private final int latencySampleInterval;
+  private int callsUntilSample;
+
   // The reference to topology's config
   private final Map<String, Object> config;
 
@@ -97,8 +112,17 @@ public class SpoutInstance implements IInstance {
     this.config = helper.getTopologyContext().getTopologyConfig();
     this.systemConfig = (SystemConfig) SingletonRegistry.INSTANCE.getSingleton(
         SystemConfig.HERON_SYSTEM_CONFIG);
+    this.latencySampleInterval = systemConfig.getInstanceTupleLatencySampleInterval();
+    this.callsUntilSample = 1;
     this.enableMessageTimeouts =
         Boolean.parseBoolean((String) config.get(Config.TOPOLOGY_ENABLE_MESSAGE_TIMEOUTS));
+    this.concurrentEmit =
+        Boolean.parseBoolean((String) config.get(Config.TOPOLOGY_SPOUT_CONCURRENT_EMIT));
+    this.flowController = new SpoutFlowController(
+        systemConfig.getInstanceSpoutFlowControlCredit().asBytes(),
+        getRate(config.get(Config.TOPOLOGY_SPOUT_MAX_TUPLES_PER_SECOND)),
+        getRate(config.get(Config.TOPOLOGY_SPOUT_MAX_BYTES_PER_SECOND)),
+        systemConfig.getInstanceEmitBatchTime());
 
     this.isTopologyStateful = String.valueOf(Config.TopologyReliabilityMode.EFFECTIVELY_ONCE)
         .equals(config.get(Config.TOPOLOGY_RELIABILITY_MODE));
@@ -135,12 +159,20 @@ public class SpoutInstance implements IInstance {
       throw new RuntimeException("Neither java_object nor java_class_name set for spout");
     }
 
-    IPluggableSerializer serializer = SerializeDeSerializeHelper.getSerializer(config);
+    IPluggableSerializer serializer = SerializeDeSerializeHelper.getTupleSerializer(config);
     collector = new SpoutOutputCollectorImpl(serializer, helper, streamOutQueue, spoutMetrics);
+    collector.setFlushLooper(looper);
     this.ackEnabled = collector.isAckEnabled();
 
     LOG.info("Enable Ack: " + this.ackEnabled);
     LOG.info("EnableMessageTimeouts: " + this.enableMessageTimeouts);
+    LOG.info("ConcurrentEmit: " + this.concurrentEmit);
+    LOG.info("Flow control credit based: " + flowController.isCreditBased()
+        + ", rate limited: " + flowController.isRateLimited());
+  }
+
+  private static double getRate(Object value) {
+    return value == null ? 0 : TypeUtils.getDouble(value);
   }
 
   @Override
@@ -202,6 +234,11 @@ public class SpoutInstance implements IInstance {
       }
     }
 
+    // init() runs on the slave thread, and the spout could start its own threads in open()
+    if (concurrentEmit) {
+      collector.startStaging(systemConfig.getInstanceSpoutEmitStagingCapacity(), looper);
+    }
+
     spout.open(
         topologyContext.getTopologyConfig(), topologyContext, new SpoutOutputCollector(collector));
 
@@ -265,9 +302,16 @@ public class SpoutInstance implements IInstance {
           collector.sendOutTuples();
         }
 
-        if (!collector.isOutQueuesAvailable()) {
+        if (!isOutQueuesAvailable()) {
           spoutMetrics.updateOutQueueFullCount();
         }
+        if (flowController.isCreditBased()) {
+          spoutMetrics.updateFlowControlCredits(
+              flowController.getAvailableCredits(collector.getQueuedBytes()));
+        }
+        if (flowController.isRateLimited()) {
+          spoutMetrics.updateThrottleTime(flowController.takeThrottledNanos(System.nanoTime()));
+        }
 
         // Check if we have any message to process anyway
         readTuplesAndExecute(streamInQueue);
@@ -279,6 +323,13 @@ public class SpoutInstance implements IInstance {
           doImmediateAcks();
         }
 
+        if (collector.isStagingStarted()) {
+          spoutMetrics.updateStagedTuplesCount(collector.numStaged());
+          long stagingWaits = collector.getStagingWaitCount();
+          spoutMetrics.updateStagingFullCount(stagingWaits - stagingWaitsReported);
+          stagingWaitsReported = stagingWaits;
+        }
+
         // If we have more work to do
         if (isContinueWork()) {
           looper.wakeUp();
@@ -305,6 +356,8 @@ public class SpoutInstance implements IInstance {
    * tuples waiting smaller than msp
    * <p>
    * 3. If there are more to read, we will wake up itself next time when it doWait()
+   * <p>
+   * A spout over its rate limit is woken up by a timer instead.
    *
    * @return true Wake up itself directly in next looper.doWait()
    */
@@ -312,11 +365,12 @@ public class SpoutInstance implements IInstance {
     long maxSpoutPending = TypeUtils.getLong(config.get(Config.TOPOLOGY_MAX_SPOUT_PENDING));
     return helper.getTopologyState().equals(TopologyAPI.TopologyState.RUNNING)
         &&
-        ((!ackEnabled && collector.isOutQueuesAvailable())
+        ((!ackEnabled && isOutQueuesAvailable() && !isThrottled())
             ||
             (ackEnabled
-                && collector.isOutQueuesAvailable()
-                && collector.numInFlight() < maxSpoutPending)
+                && isOutQueuesAvailable()
+                && collector.numInFlight() < maxSpoutPending
+                && !isThrottled())
             ||
             (ackEnabled && !streamInQueue.isEmpty()));
   }
@@ -326,12 +380,61 @@ public class SpoutInstance implements IInstance {
    * It is allowed in:
    * 1. Outgoing Stream queue is available
    * 2. Topology State is RUNNING
+   * 3. The spout is not over its rate limit
    *
    * @return true to allow produceTuple() to be invoked
    */
   private boolean isProduceTuple() {
-    return collector.isOutQueuesAvailable()
-        && helper.getTopologyState().equals(TopologyAPI.TopologyState.RUNNING);
+    return isOutQueuesAvailable()
+        && helper.getTopologyState().equals(TopologyAPI.TopologyState.RUNNING)
+        && !isThrottled();
+  }
+
+  /**
+   * Check whether the spout could send out more tuples: against its byte credits if its emits
+   * are credit based, or against the expected capacity of the out queue otherwise
+   */
+  private boolean isOutQueuesAvailable() {
+    if (flowController.isCreditBased()) {
+      return flowController.hasCredits(collector.getQueuedBytes());
+    }
+    return collector.isOutQueuesAvailable();
+  }
+
+  /**
+   * Check whether the spout is over its rate limit, in which case a timer is registered to wake
+   * up the looper once it is no longer
+   */
+  private boolean isThrottled() {
+    if (!flowController.isRateLimited()) {
+      return false;
+    }
+    long wait = flowController.getThrottleNanos(System.nanoTime());
+    if (wait > 0 && !throttleTimerRegistered) {
+      throttleTimerRegistered = true;
+      // The timer only bounds the wait of the looper: the spout tasks run once it is woken up
+      looper.registerTimerEvent(Duration.ofNanos(wait), new Runnable() {
+        @Override
+        public void run() {
+          throttleTimerRegistered = false;
+        }
+      });
+    }
+    return wait > 0;
+  }
+
+  /**
+   * Charge the tuples emitted since the last call to the rate limit
+   *
+   * @return true if the spout is now over its rate limit
+   */
+  private boolean chargeRateLimit(long currentTime) {
+    long tuples = collector.getTotalTuplesEmitted();
+    long bytes = collector.getTotalBytesEmitted();
+    flowController.onEmitted(tuples - chargedTuples, bytes - chargedBytes, currentTime);
+    chargedTuples = tuples;
+    chargedBytes = bytes;
+    return flowController.getThrottleNanos(currentTime) > 0;
   }
 
   protected void produceTuple() {
@@ -345,19 +448,40 @@ public class SpoutInstance implements IInstance {
 
     long startOfCycle = System.nanoTime();
 
-    // We would reuse the System.nanoTime()
-    long currentTime = startOfCycle;
+    // Emit the tuples staged by the threads of the spout first, so they do not wait behind
+    // the ones of nextTuple()
+    if (collector.isStagingStarted()) {
+      long batchTimeNanos = instanceEmitBatchTime.toNanos();
+      long batchSizeBytes = instanceEmitBatchSize.asBytes();
+      while ((!ackEnabled || maxSpoutPending > collector.numInFlight())
+          && collector.emitStaged()) {
+        long now = System.nanoTime();
+        if (now - startOfCycle - batchTimeNanos > 0
+            || collector.getTotalBytesEmitted() - totalBytesEmitted >= batchSizeBytes
+            || (flowController.isRateLimited() && chargeRateLimit(now))) {
+          return;
+        }
+      }
+      totalTuplesEmitted = collector.getTotalTuplesEmitted();
+    }
 
     while (!ackEnabled || (maxSpoutPending > collector.numInFlight())) {
+      // Only 1 in every latencySampleInterval calls is timed, and the batch time is only checked
+      // on those calls; the tuples emitted are still checked against the batch size on every call
+      boolean timed = --callsUntilSample <= 0;
+      long startTime = timed ? System.nanoTime() : 0;
+
       // Delegate to the use defined spout
       spout.nextTuple();
 
-      // Swap
-      long startTime = currentTime;
-      currentTime = System.nanoTime();
-
-      long latency = currentTime - startTime;
-      spoutMetrics.nextTuple(latency);
+      long currentTime = 0;
+      if (timed) {
+        callsUntilSample = latencySampleInterval;
+        currentTime = System.nanoTime();
+        spoutMetrics.nextTuple(currentTime - startTime);
+      } else {
+        spoutMetrics.countNextTuple();
+      }
 
       long newTotalTuplesEmitted = collector.getTotalTuplesEmitted();
       long newTotalBytesEmitted = collector.getTotalBytesEmitted();
@@ -368,8 +492,14 @@ public class SpoutInstance implements IInstance {
 
       totalTuplesEmitted = newTotalTuplesEmitted;
 
+      // Pace the emits to the rate limit of the spout
+      if (flowController.isRateLimited()
+          && chargeRateLimit(timed ? currentTime : System.nanoTime())) {
+        break;
+      }
+
       // To avoid spending too much time
-      if (currentTime - startOfCycle - instanceEmitBatchTime.toNanos() > 0) {
+      if (timed && currentTime - startOfCycle - instanceEmitBatchTime.toNanos() > 0) {
         break;
       }
       if (!ByteAmount.fromBytes(newTotalBytesEmitted - totalBytesEmitted)
@@ -386,20 +516,22 @@ public class SpoutInstance implements IInstance {
             rt.getTaskid(), helper.getMyTaskId()));
       } else {
         long rootId = rt.getKey();
-        RootTupleInfo rootTupleInfo = collector.retireInFlight(rootId);
+        int slot = collector.retireInFlight(rootId);
 
         // This tuple has been removed due to time-out
-        if (rootTupleInfo == null) {
+        if (slot < 0) {
           return;
         }
-        Object messageId = rootTupleInfo.getMessageId();
+        // Read the tuple before calling the spout, which could emit and reuse the slot
+        InFlightTuples inFlightTuples = collector.getInFlightTuples();
+        Object messageId = inFlightTuples.getMessageId(slot);
+        String streamId = inFlightTuples.getStreamId(slot);
         if (messageId != null) {
-          Duration latency = Duration.ofNanos(System.nanoTime())
-              .minusNanos(rootTupleInfo.getInsertionTime());
+          long latency = System.nanoTime() - inFlightTuples.getInsertionTime(slot);
           if (isSuccess) {
-            invokeAck(messageId, rootTupleInfo.getStreamId(), latency);
+            invokeAck(messageId, streamId, latency);
           } else {
-            invokeFail(messageId, rootTupleInfo.getStreamId(), latency);
+            invokeFail(messageId, streamId, latency);
           }
         }
       }
@@ -410,10 +542,15 @@ public class SpoutInstance implements IInstance {
     Duration timeout = TypeUtils.getDuration(
         config.get(Config.TOPOLOGY_MESSAGE_TIMEOUT_SECS), ChronoUnit.SECONDS);
     int nBucket = systemConfig.getInstanceAcknowledgementNbuckets();
-    List<RootTupleInfo> expiredObjects = collector.retireExpired(timeout);
-    for (RootTupleInfo rootTupleInfo : expiredObjects) {
-      spoutMetrics.timeoutTuple(rootTupleInfo.getStreamId());
-      invokeFail(rootTupleInfo.getMessageId(), rootTupleInfo.getStreamId(), timeout);
+    InFlightTuples inFlightTuples = collector.getInFlightTuples();
+    long curTime = System.nanoTime();
+    int slot;
+    while ((slot = collector.retireExpired(curTime, timeout)) >= 0) {
+      // Read the tuple before calling the spout, which could emit and reuse the slot
+      Object messageId = inFlightTuples.getMessageId(slot);
+      String streamId = inFlightTuples.getStreamId(slot);
+      spoutMetrics.timeoutTuple(streamId);
+      invokeFail(messageId, streamId, timeout.toNanos());
     }
 
     Runnable lookForTimeoutsTask = new Runnable() {
@@ -471,29 +608,35 @@ public class SpoutInstance implements IInstance {
     int s = collector.getImmediateAcks().size();
     for (int i = 0; i < s; ++i) {
       RootTupleInfo tupleInfo = collector.getImmediateAcks().poll();
-      invokeAck(tupleInfo.getMessageId(), tupleInfo.getStreamId(), Duration.ZERO);
+      invokeAck(tupleInfo.getMessageId(), tupleInfo.getStreamId(), 0);
     }
   }
 
-  private void invokeAck(Object messageId, String streamId, Duration completeLatency) {
+  private void invokeAck(Object messageId, String streamId, long completeLatency) {
     // delegate to user-defined methods
     spout.ack(messageId);
 
     // Invoke user-defined task hooks
-    helper.getTopologyContext().invokeHookSpoutAck(messageId, completeLatency);
+    TopologyContextImpl topologyContext = helper.getTopologyContext();
+    if (!topologyContext.getHooks().isEmpty()) {
+      topologyContext.invokeHookSpoutAck(messageId, Duration.ofNanos(completeLatency));
+    }
 
     // Update metrics
-    spoutMetrics.ackedTuple(streamId, completeLatency.toNanos());
+    spoutMetrics.ackedTuple(streamId, completeLatency);
   }
 
-  private void invokeFail(Object messageId, String streamId, Duration failLatency) {
+  private void invokeFail(Object messageId, String streamId, long failLatency) {
     // delegate to user-defined methods
     spout.fail(messageId);
 
     // Invoke user-defined task hooks
-    helper.getTopologyContext().invokeHookSpoutFail(messageId, failLatency);
+    TopologyContextImpl topologyContext = helper.getTopologyContext();
+    if (!topologyContext.getHooks().isEmpty()) {
+      topologyContext.invokeHookSpoutFail(messageId, Duration.ofNanos(failLatency));
+    }
 
     // Update metrics
-    spoutMetrics.failedTuple(streamId, failLatency.toNanos());
+    spoutMetrics.failedTuple(streamId, failLatency);
   }
 }
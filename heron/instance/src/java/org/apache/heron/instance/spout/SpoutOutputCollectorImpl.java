@@ -21,9 +21,6 @@ package org.apache.heron.instance.spout;
 
 import java.time.Duration;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Queue;
 import java.util.logging.Level;
@@ -34,6 +31,7 @@ import com.google.protobuf.Message;
 import org.apache.heron.api.serializer.IPluggableSerializer;
 import org.apache.heron.api.spout.ISpoutOutputCollector;
 import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.WakeableLooper;
 import org.apache.heron.common.utils.metrics.ComponentMetrics;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
 import org.apache.heron.common.utils.misc.TupleKeyGenerator;
@@ -52,13 +50,15 @@ import org.apache.heron.proto.system.HeronTuples;
  * 2. The pending tuples to be acked
  * 3. Maintain some statistics, for instance, total tuples emitted.
  * <p>
+ * Once startStaging() is called, the tuples emitted from threads other than the slave thread
+ * are staged, and emitted later on the slave thread by emitStaged().
  */
 public class SpoutOutputCollectorImpl
     extends AbstractOutputCollector implements ISpoutOutputCollector {
   private static final Logger LOG = Logger.getLogger(SpoutOutputCollectorImpl.class.getName());
 
-  // Map from tuple key to composite object with insertion-order, i.e. ordered by time
-  private final LinkedHashMap<Long, RootTupleInfo> inFlightTuples;
+  // The tuples in flight by their root ids, ordered by time
+  private final InFlightTuples inFlightTuples;
 
   private final TupleKeyGenerator keyGenerator;
 
@@ -66,6 +66,10 @@ public class SpoutOutputCollectorImpl
   // we need to ack it immediately. This keeps the list of those
   private final Queue<RootTupleInfo> immediateAcks;
 
+  // The emits from other threads, null unless startStaging() is called
+  private EmitStaging staging;
+  private Thread slaveThread;
+
   protected SpoutOutputCollectorImpl(IPluggableSerializer serializer,
                                      PhysicalPlanHelper helper,
                                      Communicator<Message> streamOutQueue,
@@ -77,8 +81,7 @@ public class SpoutOutputCollectorImpl
 
     this.keyGenerator = new TupleKeyGenerator();
 
-    // with default capacity, load factor and insertion order
-    inFlightTuples = new LinkedHashMap<>();
+    inFlightTuples = new InFlightTuples();
 
     if (!ackEnabled) {
       immediateAcks = new ArrayDeque<>();
@@ -89,11 +92,19 @@ public class SpoutOutputCollectorImpl
 
   @Override
   public List<Integer> emit(String streamId, List<Object> tuple, Object messageId) {
+    if (isStaged()) {
+      staging.stage(streamId, tuple, messageId, null);
+      return null;
+    }
     return admitSpoutTuple(streamId, tuple, messageId, null);
   }
 
   @Override
   public void emitDirect(int taskId, String streamId, List<Object> tuple, Object messageId) {
+    if (isStaged()) {
+      staging.stage(streamId, tuple, messageId, taskId);
+      return;
+    }
     admitSpoutTuple(streamId, tuple, messageId, taskId);
   }
 
@@ -107,6 +118,49 @@ public class SpoutOutputCollectorImpl
     return ackEnabled;
   }
 
+  /**
+   * Stage the emits from other threads than the current one, which is the slave thread, with up
+   * to capacity emits per thread. It is called before the spout is opened, so the threads of the
+   * spout see the staging.
+   */
+  void startStaging(int capacity, WakeableLooper looper) {
+    slaveThread = Thread.currentThread();
+    staging = new EmitStaging(capacity, looper);
+  }
+
+  boolean isStagingStarted() {
+    return staging != null;
+  }
+
+  /**
+   * Emit the oldest tuple staged by the next thread, returns false if no tuple is staged
+   */
+  boolean emitStaged() {
+    EmitStaging.StagedEmit emit = staging.poll();
+    if (emit == null) {
+      return false;
+    }
+    admitSpoutTuple(emit.getStreamId(), emit.getTuple(), emit.getMessageId(),
+        emit.getEmitDirectTaskId());
+    return true;
+  }
+
+  int numStaged() {
+    return staging == null ? 0 : staging.size();
+  }
+
+  long getStagingWaitCount() {
+    return staging == null ? 0 : staging.getWaitCount();
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    if (staging != null) {
+      staging.close();
+    }
+  }
+
 
   /////////////////////////////////////////////////////////
   // Following public methods are used for querying or
@@ -120,35 +174,34 @@ public class SpoutOutputCollectorImpl
     return immediateAcks;
   }
 
-  RootTupleInfo retireInFlight(long rootId) {
-    return inFlightTuples.remove(rootId);
+  /**
+   * Retire the tuple with the root id, returns its slot in getInFlightTuples(), or -1 if it is
+   * not in flight, e.g. it has been removed due to time-out
+   */
+  int retireInFlight(long rootId) {
+    return inFlightTuples.retire(rootId);
   }
 
-  List<RootTupleInfo> retireExpired(Duration timeout) {
-    List<RootTupleInfo> retval = new ArrayList<>();
-    long curTime = System.nanoTime();
-
-    // The LinkedHashMap is ordered by insertion order, i.e. ordered by time
-    // So we want need to iterate from the start and remove all items until
-    // we meet the RootTupleInfo no need to expire
-    Iterator<RootTupleInfo> iterator = inFlightTuples.values().iterator();
-    while (iterator.hasNext()) {
-      RootTupleInfo rootTupleInfo = iterator.next();
-      if (rootTupleInfo.isExpired(curTime, timeout.toNanos())) {
-        retval.add(rootTupleInfo);
-        iterator.remove();
-      } else {
-        break;
-      }
-    }
+  /**
+   * Retire the oldest tuple if it has expired, returns its slot in getInFlightTuples(), or -1 if
+   * no tuple has expired. It is called until it returns -1, with the same curTime.
+   */
+  int retireExpired(long curTime, Duration timeout) {
+    return inFlightTuples.retireOldest(curTime - timeout.toNanos());
+  }
 
-    return retval;
+  InFlightTuples getInFlightTuples() {
+    return inFlightTuples;
   }
 
   /////////////////////////////////////////////////////////
   // Following private methods are internal implementations
   /////////////////////////////////////////////////////////
 
+  private boolean isStaged() {
+    return staging != null && Thread.currentThread() != slaveThread;
+  }
+
   private List<Integer> admitSpoutTuple(String streamId, List<Object> tuple,
                                         Object messageId, Integer emitDirectTaskId) {
     // No need to send tuples if it is already terminated
@@ -160,13 +213,12 @@ public class SpoutOutputCollectorImpl
     HeronTuples.HeronDataTuple.Builder bldr = initTupleBuilder(streamId, tuple, emitDirectTaskId);
 
     if (messageId != null) {
-      RootTupleInfo tupleInfo = new RootTupleInfo(streamId, messageId);
       if (ackEnabled) {
         // This message is rooted
-        HeronTuples.RootId.Builder rtbldr = establishRootId(tupleInfo);
+        HeronTuples.RootId.Builder rtbldr = establishRootId(streamId, messageId);
         bldr.addRoots(rtbldr);
       } else {
-        immediateAcks.offer(tupleInfo);
+        immediateAcks.offer(new RootTupleInfo(streamId, messageId));
       }
     }
 
@@ -176,13 +228,13 @@ public class SpoutOutputCollectorImpl
     return null;
   }
 
-  private HeronTuples.RootId.Builder establishRootId(RootTupleInfo tupleInfo) {
+  private HeronTuples.RootId.Builder establishRootId(String streamId, Object messageId) {
     // This message is rooted
     long rootId = keyGenerator.next();
     HeronTuples.RootId.Builder rtbldr = HeronTuples.RootId.newBuilder();
     rtbldr.setTaskid(getPhysicalPlanHelper().getMyTaskId());
     rtbldr.setKey(rootId);
-    inFlightTuples.put(rootId, tupleInfo);
+    inFlightTuples.add(rootId, streamId, messageId, System.nanoTime());
     return rtbldr;
   }
 }
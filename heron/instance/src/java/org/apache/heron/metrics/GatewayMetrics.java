@@ -50,6 +50,9 @@ public class GatewayMetrics {
   private final ReducedMetric<MeanReducerState, Number, Double> inStreamQueueSize;
   // The # of items in outStreamQueue
   private final ReducedMetric<MeanReducerState, Number, Double> outStreamQueueSize;
+  // The # of bytes of the items in inStreamQueue and outStreamQueue, if counted
+  private final ReducedMetric<MeanReducerState, Number, Double> inStreamQueueBytes;
+  private final ReducedMetric<MeanReducerState, Number, Double> outStreamQueueBytes;
 
   private final ReducedMetric<MeanReducerState, Number, Double> inStreamQueueExpectedCapacity;
 
@@ -59,6 +62,16 @@ public class GatewayMetrics {
   // receive more tuples from stream manager
   private final CountMetric inQueueFullCount;
 
+  // The # of write syscalls to stream manager, and the # of bytes they wrote, whose ratio is the
+  // # of bytes written by each syscall
+  private final CountMetric writeSyscallsCount;
+  private final CountMetric writeSyscallsBytes;
+
+  // The # of times the gateway looper is waken up by other threads, or by itself, to pick up work
+  private final CountMetric wakeUpsIssuedCount;
+  // The # of wake-ups not issued since the gateway looper had not yet picked up the previous one
+  private final CountMetric wakeUpsSuppressedCount;
+
   public GatewayMetrics() {
     receivedPacketsCount = new CountMetric();
     sentPacketsCount = new CountMetric();
@@ -72,10 +85,18 @@ public class GatewayMetrics {
 
     inStreamQueueSize = new ReducedMetric<>(new MeanReducer());
     outStreamQueueSize = new ReducedMetric<>(new MeanReducer());
+    inStreamQueueBytes = new ReducedMetric<>(new MeanReducer());
+    outStreamQueueBytes = new ReducedMetric<>(new MeanReducer());
     inStreamQueueExpectedCapacity = new ReducedMetric<>(new MeanReducer());
     outStreamQueueExpectedCapacity = new ReducedMetric<>(new MeanReducer());
 
     inQueueFullCount = new CountMetric();
+
+    writeSyscallsCount = new CountMetric();
+    writeSyscallsBytes = new CountMetric();
+
+    wakeUpsIssuedCount = new CountMetric();
+    wakeUpsSuppressedCount = new CountMetric();
   }
 
   /**
@@ -121,6 +142,12 @@ public class GatewayMetrics {
     metricsCollector.registerMetric("__gateway-out-stream-queue-size",
         outStreamQueueSize,
         interval);
+    metricsCollector.registerMetric("__gateway-in-stream-queue-bytes",
+        inStreamQueueBytes,
+        interval);
+    metricsCollector.registerMetric("__gateway-out-stream-queue-bytes",
+        outStreamQueueBytes,
+        interval);
     metricsCollector.registerMetric("__gateway-in-stream-queue-expected-capacity",
         inStreamQueueExpectedCapacity,
         interval);
@@ -131,6 +158,20 @@ public class GatewayMetrics {
     metricsCollector.registerMetric("__gateway-in-queue-full-count",
         inQueueFullCount,
         interval);
+
+    metricsCollector.registerMetric("__gateway-write-syscalls-count",
+        writeSyscallsCount,
+        interval);
+    metricsCollector.registerMetric("__gateway-write-syscalls-bytes",
+        writeSyscallsBytes,
+        interval);
+
+    metricsCollector.registerMetric("__gateway-wakeups-issued-count",
+        wakeUpsIssuedCount,
+        interval);
+    metricsCollector.registerMetric("__gateway-wakeups-suppressed-count",
+        wakeUpsSuppressedCount,
+        interval);
   }
 
   public void updateReceivedPacketsCount(long count) {
@@ -167,6 +208,14 @@ public class GatewayMetrics {
     outStreamQueueSize.update(size);
   }
 
+  public void setInStreamQueueBytes(long bytes) {
+    inStreamQueueBytes.update(bytes);
+  }
+
+  public void setOutStreamQueueBytes(long bytes) {
+    outStreamQueueBytes.update(bytes);
+  }
+
   public void setInStreamQueueExpectedCapacity(long capacity) {
     inStreamQueueExpectedCapacity.update(capacity);
   }
@@ -178,4 +227,14 @@ public class GatewayMetrics {
   public void updateInQueueFullCount() {
     inQueueFullCount.incr();
   }
+
+  public void updateWriteSyscalls(long count, long bytes) {
+    writeSyscallsCount.incrBy(count);
+    writeSyscallsBytes.incrBy(bytes);
+  }
+
+  public void updateWakeUps(long issued, long suppressed) {
+    wakeUpsIssuedCount.incrBy(issued);
+    wakeUpsSuppressedCount.incrBy(suppressed);
+  }
 }
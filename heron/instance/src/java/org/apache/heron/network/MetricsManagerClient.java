@@ -19,21 +19,30 @@
 
 package org.apache.heron.network;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.google.protobuf.Message;
 
+import org.apache.heron.common.basics.ByteAmount;
 import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.MappedRingBuffer;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.config.SystemConfig;
 import org.apache.heron.common.network.HeronClient;
 import org.apache.heron.common.network.HeronSocketOptions;
+import org.apache.heron.common.network.ProtoBufferCodec;
 import org.apache.heron.common.network.StatusCode;
+import org.apache.heron.common.network.UnixDomainSockets;
 import org.apache.heron.metrics.GatewayMetrics;
 import org.apache.heron.proto.system.Common;
 import org.apache.heron.proto.system.Metrics;
@@ -45,10 +54,18 @@ import org.apache.heron.proto.system.PhysicalPlans;
  * send the register request; so it will not send registerRequest directly when it is connected
  * 2. Handle relative response for register request
  * 3. It will no need call the onIncomingMessage(), since it will not accept any message
+ * <p>
+ * With heron.instance.metrics.ring.size.bytes set, the metrics are written into a memory-mapped
+ * ring buffer file instead, which the Metrics Manager polls, once it has accepted the ring in
+ * the response to the register request. A message the ring has no room for is sent on the socket.
  */
 public class MetricsManagerClient extends HeronClient {
   private static final Logger LOG = Logger.getLogger(MetricsManagerClient.class.getName());
 
+  // The metrics ring buffer file is created in the working directory
+  private static final String METRICS_RING_FILE_PREFIX = "metrics-";
+  private static final String METRICS_RING_FILE_SUFFIX = ".ring";
+
   private final PhysicalPlans.Instance instance;
 
   private final List<Communicator<Metrics.MetricPublisherPublishMessage>> outMetricsQueues;
@@ -59,12 +76,27 @@ public class MetricsManagerClient extends HeronClient {
 
   private String hostname;
 
+  // The ring buffer file to write the metrics into, or null if disabled
+  private final File metricsRingFile;
+  private final MappedRingBuffer metricsRing;
+  // Whether the Metrics Manager reads the metrics ring, as told on register
+  private boolean metricsRingAccepted;
+
   public MetricsManagerClient(NIOLooper s, String metricsHost, int metricsPort,
                               PhysicalPlans.Instance instance,
                               List<Communicator<Metrics.MetricPublisherPublishMessage>> outs,
                               HeronSocketOptions options,
                               GatewayMetrics gatewayMetrics) {
-    super(s, metricsHost, metricsPort, options);
+    this(s, new InetSocketAddress(metricsHost, metricsPort), instance, outs, options,
+        gatewayMetrics);
+  }
+
+  public MetricsManagerClient(NIOLooper s, SocketAddress metricsEndpoint,
+                              PhysicalPlans.Instance instance,
+                              List<Communicator<Metrics.MetricPublisherPublishMessage>> outs,
+                              HeronSocketOptions options,
+                              GatewayMetrics gatewayMetrics) {
+    super(s, metricsEndpoint, options);
 
     this.instance = instance;
     this.outMetricsQueues = outs;
@@ -74,6 +106,12 @@ public class MetricsManagerClient extends HeronClient {
 
     this.gatewayMetrics = gatewayMetrics;
 
+    this.metricsRingFile = new File(
+        METRICS_RING_FILE_PREFIX + instance.getInstanceId() + METRICS_RING_FILE_SUFFIX)
+        .getAbsoluteFile();
+    this.metricsRing = newMetricsRing(metricsRingFile, systemConfig.getInstanceMetricsRingSize());
+    this.metricsRingAccepted = false;
+
     addMetricsManagerClientTasksOnWakeUp();
 
     try {
@@ -83,6 +121,20 @@ public class MetricsManagerClient extends HeronClient {
     }
   }
 
+  // Create the metrics ring buffer, or return null if it is disabled or could not be created
+  private static MappedRingBuffer newMetricsRing(File file, ByteAmount size) {
+    if (size.asBytes() <= 0) {
+      return null;
+    }
+    try {
+      return MappedRingBuffer.create(file, (int) Math.min(size.asBytes(), 1 << 30));
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to create the metrics ring buffer " + file
+          + ", metrics will be sent on the socket", e);
+      return null;
+    }
+  }
+
   private void addMetricsManagerClientTasksOnWakeUp() {
     Runnable task = new Runnable() {
       @Override
@@ -104,10 +156,28 @@ public class MetricsManagerClient extends HeronClient {
           gatewayMetrics.updateSentMetricsSize(m.getSerializedSize());
           gatewayMetrics.updateSentMetrics(m.getMetricsCount(), m.getExceptionsCount());
 
-          sendMessage(m);
+          sendMetricsMessage(m);
+        }
+      }
+    }
+  }
+
+  // Write the message into the metrics ring if the Metrics Manager reads it and it has room,
+  // or send it on the socket otherwise
+  private void sendMetricsMessage(Metrics.MetricPublisherPublishMessage m) {
+    if (metricsRingAccepted) {
+      ByteBuffer buffer = metricsRing.claim(m.getSerializedSize());
+      if (buffer != null) {
+        try {
+          ProtoBufferCodec.writeTo(m, buffer);
+        } catch (IOException e) {
+          throw new RuntimeException("Failed to serialize the metrics message", e);
         }
+        metricsRing.commit();
+        return;
       }
     }
+    sendMessage(m);
   }
 
   // Send out all the data
@@ -122,7 +192,7 @@ public class MetricsManagerClient extends HeronClient {
       int size = c.size();
       for (int i = 0; i < size; i++) {
         Metrics.MetricPublisherPublishMessage m = c.poll();
-        sendMessage(m);
+        sendMetricsMessage(m);
       }
     }
   }
@@ -139,6 +209,8 @@ public class MetricsManagerClient extends HeronClient {
   public void onConnect(StatusCode status) {
     // We will not send registerRequest when we are onConnect
     // We will send when we receive the PhysicalPlan sent by slave
+    // The Metrics Manager would tell again whether it reads the metrics ring on register
+    metricsRingAccepted = false;
     if (status != StatusCode.OK) {
       LOG.log(Level.WARNING,
           "Cannot connect to the metrics port with status: {0}, Will Retry..", status);
@@ -158,22 +230,49 @@ public class MetricsManagerClient extends HeronClient {
 
   // Build register request and send to metrics mgr
   private void sendRegisterRequest() {
-    Metrics.MetricPublisher publisher = Metrics.MetricPublisher.newBuilder().
+    Metrics.MetricPublisher publisher = newPublisher(hostname, instance);
+    Metrics.MetricPublisherRegisterRequest.Builder request =
+        Metrics.MetricPublisherRegisterRequest.newBuilder().
+            setPublisher(publisher);
+    if (metricsRing != null) {
+      request.setMetricsRingPath(metricsRingFile.getPath());
+    }
+
+    // The timeout would be the reconnect-interval-seconds
+    sendRequest(request.build(), null,
+        Metrics.MetricPublisherRegisterResponse.newBuilder(),
+        systemConfig.getInstanceReconnectMetricsmgrInterval());
+  }
+
+  /**
+   * Get the endpoint of the Metrics Manager listening on the port: its Unix domain socket if one
+   * is configured and supported by the JVM, or else the port on the host
+   */
+  public static SocketAddress getEndpoint(SystemConfig systemConfig, String host, int port) {
+    String socketDirectory = systemConfig.getMetricsMgrNetworkUnixSocketDirectory();
+    if (socketDirectory == null || socketDirectory.isEmpty()) {
+      return new InetSocketAddress(host, port);
+    }
+    if (!UnixDomainSockets.isSupported()) {
+      LOG.warning("Unix domain sockets are not supported by this JVM, using TCP");
+      return new InetSocketAddress(host, port);
+    }
+    return UnixDomainSockets.newAddress(UnixDomainSockets.getSocketPath(
+        socketDirectory, UnixDomainSockets.METRICS_MANAGER_PROCESS_NAME, port));
+  }
+
+  /**
+   * Build the MetricPublisher of the instance, as known by the Metrics Manager
+   */
+  public static Metrics.MetricPublisher newPublisher(String hostname,
+                                                     PhysicalPlans.Instance instance) {
+    return Metrics.MetricPublisher.newBuilder().
         setHostname(hostname).
         setPort(instance.getInfo().getTaskId()).
         setComponentName(instance.getInfo().getComponentName()).
         setInstanceId(instance.getInstanceId()).
         setInstanceIndex(instance.getInfo().getComponentIndex()).
         build();
-    Metrics.MetricPublisherRegisterRequest request =
-        Metrics.MetricPublisherRegisterRequest.newBuilder().
-            setPublisher(publisher).
-            build();
-
-    // The timeout would be the reconnect-interval-seconds
-    sendRequest(request, null,
-        Metrics.MetricPublisherRegisterResponse.newBuilder(),
-        systemConfig.getInstanceReconnectMetricsmgrInterval());
   }
 
   @Override
@@ -205,5 +304,10 @@ public class MetricsManagerClient extends HeronClient {
     }
 
     LOG.info("We registered ourselves to the Metrics Manager");
+
+    metricsRingAccepted = metricsRing != null && response.getMetricsRingAccepted();
+    if (metricsRingAccepted) {
+      LOG.info("Metrics Manager reads the metrics ring buffer " + metricsRingFile);
+    }
   }
 }
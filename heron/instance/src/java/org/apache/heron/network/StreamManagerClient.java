@@ -19,6 +19,9 @@
 
 package org.apache.heron.network;
 
+import java.nio.channels.SelectableChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -75,6 +78,13 @@ public class StreamManagerClient extends HeronClient {
 
   private long lastNotConnectedLogTime = 0;
 
+  // Reused to drain outStreamQueue in one go, so the Slave is waken up once per drain
+  private final List<Message> drainedMessages = new ArrayList<>();
+
+  // The messages for inStreamQueue read from the socket in one go, which are handed over at once
+  // so the Slave is waken up once per read
+  private final List<Message> readMessages = new ArrayList<>();
+
   public StreamManagerClient(NIOLooper s, String streamManagerHost, int streamManagerPort,
                              String topologyName, String topologyId,
                              PhysicalPlans.Instance instance,
@@ -187,6 +197,19 @@ public class StreamManagerClient extends HeronClient {
   }
 
 
+  @Override
+  public void handleRead(SelectableChannel channel) {
+    super.handleRead(channel);
+    handOverReadMessages();
+  }
+
+  private void handOverReadMessages() {
+    if (!readMessages.isEmpty()) {
+      inStreamQueue.offerAll(readMessages);
+      readMessages.clear();
+    }
+  }
+
   @Override
   public void onIncomingMessage(Message message) {
     gatewayMetrics.updateReceivedPacketsCount(1);
@@ -196,14 +219,18 @@ public class StreamManagerClient extends HeronClient {
       StreamManager.NewInstanceAssignmentMessage m =
           (StreamManager.NewInstanceAssignmentMessage) message;
       LOG.info("Handling assignment message from direct NewInstanceAssignmentMessage");
+      handOverReadMessages();
       handleAssignmentMessage(m.getPplan());
     } else if (message instanceof HeronTuples.HeronTupleSet2) {
       handleNewTuples2((HeronTuples.HeronTupleSet2) message);
     } else if (message instanceof CheckpointManager.InitiateStatefulCheckpoint)  {
       handleCheckpointRequest((CheckpointManager.InitiateStatefulCheckpoint) message);
     } else if (message instanceof CheckpointManager.RestoreInstanceStateRequest) {
+      // The messages read before it are handed over first, since it goes to another queue
+      handOverReadMessages();
       handleRestoreInstanceStateRequest((CheckpointManager.RestoreInstanceStateRequest) message);
     } else if (message instanceof CheckpointManager.StartInstanceStatefulProcessing) {
+      handOverReadMessages();
       handleStartStatefulRequest((CheckpointManager.StartInstanceStatefulProcessing) message);
     } else {
       throw new RuntimeException("Unknown kind of message received from Stream Manager");
@@ -236,13 +263,13 @@ public class StreamManagerClient extends HeronClient {
       if (getOutstandingPackets() <= 0) {
         // In order to avoid packets back up in Client side,
         // We would poll message from queue and send them only when there are no outstanding packets
-        while (!outStreamQueue.isEmpty()) {
-          Message tupleSet = outStreamQueue.poll();
-
+        outStreamQueue.drainTo(drainedMessages);
+        for (Message tupleSet : drainedMessages) {
           gatewayMetrics.updateSentPacketsCount(1);
           gatewayMetrics.updateSentPacketsSize(tupleSet.getSerializedSize());
           sendMessage(tupleSet);
         }
+        drainedMessages.clear();
       }
 
       if (!outStreamQueue.isEmpty()) {
@@ -300,7 +327,7 @@ public class StreamManagerClient extends HeronClient {
   private void handleCheckpointRequest(
       CheckpointManager.InitiateStatefulCheckpoint request) {
     LOG.info("Handling instance checkpoint request: " + request);
-    inStreamQueue.offer(request);
+    readMessages.add(request);
   }
 
   private void handleRegisterResponse(StreamManager.RegisterInstanceResponse response) {
@@ -316,6 +343,12 @@ public class StreamManagerClient extends HeronClient {
   }
 
   private void handleNewTuples2(HeronTuples.HeronTupleSet2 set) {
+    if (set.hasData() && systemConfig.isInstanceTupleLazyDecode()) {
+      // Hand over the raw tuples untouched, the bolt decodes them on its own thread
+      readMessages.add(set);
+      return;
+    }
+
     HeronTuples.HeronTupleSet.Builder toFeed = HeronTuples.HeronTupleSet.newBuilder();
     // Set the source task id
     toFeed.setSrcTaskId(set.getSrcTaskId());
@@ -337,7 +370,7 @@ public class StreamManagerClient extends HeronClient {
     }
 
     HeronTuples.HeronTupleSet s = toFeed.build();
-    inStreamQueue.offer(s);
+    readMessages.add(s);
   }
 
   private void handleAssignmentMessage(PhysicalPlans.PhysicalPlan pplan) {
@@ -377,6 +410,7 @@ public class StreamManagerClient extends HeronClient {
 
   // Return true if we could offer item to the inStreamQueue
   private boolean isInQueuesAvailable() {
-    return inStreamQueue.size() < inStreamQueue.getExpectedAvailableCapacity();
+    return inStreamQueue.size() < inStreamQueue.getExpectedAvailableCapacity()
+        && inStreamQueue.hasRemainingBytes();
   }
 }
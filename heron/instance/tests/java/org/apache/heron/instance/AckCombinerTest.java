@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * AckCombiner Tester.
+ */
+public class AckCombinerTest {
+
+  /**
+   * Method: add(int taskId, long rootKey, long ackedKey)
+   */
+  @Test
+  public void testCombineAcksPerRoot() {
+    AckCombiner combiner = new AckCombiner();
+    combiner.add(1, 100L, 0x0F);
+    combiner.add(2, 100L, 0x01);
+    combiner.add(1, 100L, 0xF0);
+    combiner.add(1, 200L, 0x11);
+
+    // The roots are read in the order they were first added
+    Assert.assertEquals(3, combiner.size());
+    Assert.assertEquals(1, combiner.getTaskId(0));
+    Assert.assertEquals(100L, combiner.getRootKey(0));
+    Assert.assertEquals(0xFF, combiner.getAckedKey(0));
+    Assert.assertEquals(2, combiner.getTaskId(1));
+    Assert.assertEquals(0x01, combiner.getAckedKey(1));
+    Assert.assertEquals(200L, combiner.getRootKey(2));
+    Assert.assertEquals(0x11, combiner.getAckedKey(2));
+
+    combiner.clear();
+    Assert.assertTrue(combiner.isEmpty());
+    combiner.add(1, 100L, 0x01);
+    Assert.assertEquals(1, combiner.size());
+    Assert.assertEquals(0x01, combiner.getAckedKey(0));
+  }
+
+  /**
+   * Method: add(int taskId, long rootKey, long ackedKey), once the table grows
+   */
+  @Test
+  public void testManyRoots() {
+    Random random = new Random(42);
+    AckCombiner combiner = new AckCombiner();
+    Map<Long, Long> expected = new HashMap<>();
+    for (int i = 0; i < 10000; i++) {
+      long rootKey = random.nextInt(1000);
+      long ackedKey = random.nextLong();
+      combiner.add(7, rootKey, ackedKey);
+      expected.merge(rootKey, ackedKey, (a, b) -> a ^ b);
+    }
+
+    Assert.assertEquals(expected.size(), combiner.size());
+    for (int i = 0; i < combiner.size(); i++) {
+      Assert.assertEquals(7, combiner.getTaskId(i));
+      Assert.assertEquals(expected.get(combiner.getRootKey(i)).longValue(),
+          combiner.getAckedKey(i));
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.time.Duration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * LingerFlushPolicy and AdaptiveFlushPolicy Tester.
+ */
+public class FlushPolicyTest {
+  private static final long MILLIS = Duration.ofMillis(1).toNanos();
+
+  /**
+   * Method: LingerFlushPolicy.shouldFlush(long pendingBytes, long lingeredNanos)
+   */
+  @Test
+  public void testLingerFlushPolicy() {
+    FlushPolicy policy = new LingerFlushPolicy(Duration.ofMillis(2), 1024);
+    Assert.assertFalse(policy.shouldFlush(100, MILLIS));
+    Assert.assertTrue(policy.shouldFlush(1024, 0));
+    Assert.assertTrue(policy.shouldFlush(100, 2 * MILLIS));
+    Assert.assertEquals(2 * MILLIS, policy.getLingerNanos());
+
+    // Without linger time, the tuples are always sent out at once
+    FlushPolicy eager = new LingerFlushPolicy(Duration.ZERO, Long.MAX_VALUE);
+    Assert.assertTrue(eager.shouldFlush(0, 0));
+  }
+
+  /**
+   * Method: AdaptiveFlushPolicy.onFlush(long bytes, long currentTime, boolean backPressured)
+   */
+  @Test
+  public void testAdaptiveFlushPolicy() {
+    AdaptiveFlushPolicy policy = new AdaptiveFlushPolicy(Duration.ofMillis(4), 1000, 8000);
+    long time = System.nanoTime();
+
+    // Dense: 1000 bytes per ms fill the target in about 1 ms, so the tuples linger that long
+    for (int i = 0; i < 100; i++) {
+      time += MILLIS;
+      policy.onFlush(1000, time, false);
+    }
+    Assert.assertEquals(1000, policy.getTargetBytes());
+    Assert.assertEquals(MILLIS, policy.getLingerNanos(), MILLIS / 10);
+    Assert.assertFalse(policy.shouldFlush(500, MILLIS / 2));
+
+    // Back-pressure: larger sets, lingering for the maximum time
+    time += MILLIS;
+    policy.onFlush(1000, time, true);
+    Assert.assertEquals(2000, policy.getTargetBytes());
+    Assert.assertEquals(4 * MILLIS, policy.getLingerNanos());
+    for (int i = 0; i < 10; i++) {
+      time += MILLIS;
+      policy.onFlush(1000, time, true);
+    }
+    Assert.assertEquals(8000, policy.getTargetBytes());
+
+    // Sparse: the sets would not fill within the maximum linger time, so no lingering at all
+    for (int i = 0; i < 100; i++) {
+      time += 100 * MILLIS;
+      policy.onFlush(10, time, false);
+    }
+    Assert.assertEquals(1000, policy.getTargetBytes());
+    Assert.assertEquals(0, policy.getLingerNanos());
+    Assert.assertTrue(policy.shouldFlush(10, 0));
+  }
+}
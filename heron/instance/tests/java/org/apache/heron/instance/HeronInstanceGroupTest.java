@@ -0,0 +1,314 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance;
+
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.Message;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.heron.common.basics.NIOLooper;
+import org.apache.heron.common.basics.SysUtils;
+import org.apache.heron.common.network.HeronServer;
+import org.apache.heron.common.network.REQID;
+import org.apache.heron.common.testhelpers.HeronServerTester;
+import org.apache.heron.proto.stmgr.StreamManager;
+import org.apache.heron.proto.system.Common;
+import org.apache.heron.proto.system.HeronTuples;
+import org.apache.heron.proto.system.Metrics;
+import org.apache.heron.resource.Constants;
+import org.apache.heron.resource.UnitTestHelper;
+
+/**
+ * HeronInstanceGroup Tester.
+ */
+public class HeronInstanceGroupTest {
+  private static final List<String> SHARED_ARGS =
+      Arrays.asList("-topology_name", "topology", "-stmgr_port", "6000");
+
+  private static final String GROUP_ID = "group-id";
+  private static final String SPOUT_ID = "spout-id";
+  private static final String BOLT_ID = "bolt-id";
+
+  // The number of tuples emitted by TestSpout, which are all executed by TestBolt
+  private static final int EMIT_COUNT = 10;
+
+  private static final String EMIT_COUNT_METRIC = "__emit-count/default";
+  private static final String EXECUTE_COUNT = "__execute-count/test-spout/default";
+
+  private static final long TEST_TIMEOUT_MS = 30000;
+
+  private NIOLooper looper;
+  private ExecutorService threadPool;
+  private Path tempDir;
+  private HeronInstanceGroup group;
+  private Thread.UncaughtExceptionHandler defaultExceptionHandler;
+
+  @Before
+  public void before() throws Exception {
+    defaultExceptionHandler = Thread.getDefaultUncaughtExceptionHandler();
+    UnitTestHelper.addSystemConfigToSingleton();
+    looper = new NIOLooper();
+    threadPool = Executors.newSingleThreadExecutor();
+    tempDir = Files.createTempDirectory("instance-group");
+  }
+
+  @After
+  public void after() throws Exception {
+    if (group != null) {
+      group.shutdown();
+    }
+    Thread.setDefaultUncaughtExceptionHandler(defaultExceptionHandler);
+    UnitTestHelper.clearSingletonRegistry();
+    looper.exitLoop();
+    threadPool.shutdownNow();
+  }
+
+  /**
+   * Method: getInstanceArgs(String instances, List&lt;String&gt; sharedArgs)
+   */
+  @Test
+  public void testGetInstanceArgs() {
+    List<String[]> instanceArgs = HeronInstanceGroup.getInstanceArgs(
+        "container_1_word_1:word:1:0, container_1_exclaim_2:exclaim:2:0", SHARED_ARGS);
+
+    Assert.assertEquals(2, instanceArgs.size());
+    Assert.assertArrayEquals(new String[] {
+        "-topology_name", "topology", "-stmgr_port", "6000",
+        "-instance_id", "container_1_word_1", "-component_name", "word",
+        "-task_id", "1", "-component_index", "0"}, instanceArgs.get(0));
+    Assert.assertArrayEquals(new String[] {
+        "-topology_name", "topology", "-stmgr_port", "6000",
+        "-instance_id", "container_1_exclaim_2", "-component_name", "exclaim",
+        "-task_id", "2", "-component_index", "0"}, instanceArgs.get(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidInstance() {
+    HeronInstanceGroup.getInstanceArgs("container_1_word_1:word", SHARED_ARGS);
+  }
+
+  /**
+   * Method: start()
+   * <p>
+   * Run a spout and a bolt in a group: the stream manager forwards the tuples of the spout to the
+   * bolt, and every instance must send only its own tuples and report only its own metrics.
+   */
+  @Test
+  public void testStartInstances() throws Exception {
+    int streamPort = SysUtils.getFreePort();
+    int metricsPort = SysUtils.getFreePort();
+    TestStreamManager streamManager = new TestStreamManager(looper, streamPort);
+    TestMetricsManager metricsManager = new TestMetricsManager(looper, metricsPort);
+    Assert.assertTrue(streamManager.start());
+    Assert.assertTrue(metricsManager.start());
+    threadPool.execute(looper::loop);
+
+    String systemConfigFile = Paths.get(System.getenv(Constants.BUILD_TEST_SRCDIR),
+        Constants.BUILD_TEST_HERON_INTERNALS_CONFIG_PATH).toString();
+    Path overrideConfigFile = tempDir.resolve("override.yaml");
+    Files.write(overrideConfigFile, Arrays.asList(
+        "heron.logging.directory: \"" + tempDir + "\"",
+        "heron.metrics.export.interval.sec: 1",
+        "heron.instance.tuning.interval.ms: 100"), StandardCharsets.UTF_8);
+    List<String> sharedArgs = Arrays.asList(
+        "-topology_name", "topology-name",
+        "-topology_id", "topology-id",
+        "-stmgr_id", "stream-manager-id",
+        "-stmgr_port", Integer.toString(streamPort),
+        "-metricsmgr_port", Integer.toString(metricsPort),
+        "-system_config_file", systemConfigFile,
+        "-override_config_file", overrideConfigFile.toString());
+    List<String[]> instanceArgs = HeronInstanceGroup.getInstanceArgs(
+        SPOUT_ID + ":test-spout:0:0," + BOLT_ID + ":test-bolt:1:0", sharedArgs);
+
+    group = new HeronInstanceGroup(GROUP_ID, "stream-manager-id", metricsPort, instanceArgs);
+    group.start();
+
+    long deadline = System.currentTimeMillis() + TEST_TIMEOUT_MS;
+    while (System.currentTimeMillis() < deadline
+        && (metricsManager.sum(BOLT_ID, EXECUTE_COUNT) < EMIT_COUNT
+            || metricsManager.sum(SPOUT_ID, EMIT_COUNT_METRIC) < EMIT_COUNT
+            || metricsManager.sum(GROUP_ID, "__jvm-uptime-secs") == 0)) {
+      TimeUnit.MILLISECONDS.sleep(100);
+    }
+
+    // Only the spout sends tuples, since nothing subscribes to the stream of the bolt
+    Map<String, Integer> expectedTuples = new HashMap<>();
+    expectedTuples.put(SPOUT_ID + "/test-spout", EMIT_COUNT);
+    Assert.assertEquals(expectedTuples, streamManager.getDataTuples());
+
+    // Every instance reports only its own metrics, and the JVM metrics are reported by the group
+    Assert.assertEquals(EMIT_COUNT, metricsManager.sum(SPOUT_ID, EMIT_COUNT_METRIC));
+    Assert.assertEquals(0, metricsManager.sum(SPOUT_ID, EXECUTE_COUNT));
+    Assert.assertEquals(0, metricsManager.sum(BOLT_ID, EMIT_COUNT_METRIC));
+    Assert.assertEquals(EMIT_COUNT, metricsManager.sum(BOLT_ID, EXECUTE_COUNT));
+    Assert.assertTrue(metricsManager.sum(GROUP_ID, "__jvm-uptime-secs") > 0);
+    Assert.assertEquals(0, metricsManager.sum(SPOUT_ID, "__jvm-"));
+    Assert.assertEquals(0, metricsManager.sum(BOLT_ID, "__jvm-"));
+  }
+
+  /**
+   * A stream manager registering the instances of UnitTestHelper's physical plan, which forwards
+   * the tuples of the spout to the bolt and counts the data tuples sent by every instance
+   */
+  private static final class TestStreamManager extends HeronServer {
+    private final Map<SocketChannel, String> instanceIds = new HashMap<>();
+    private final Map<String, Integer> dataTuples = new ConcurrentHashMap<>();
+
+    private SocketChannel boltChannel;
+    private final List<Message> pendingForBolt = new ArrayList<>();
+
+    TestStreamManager(NIOLooper looper, int port) {
+      super(looper, HeronServerTester.SERVER_HOST, port, HeronServerTester.TEST_SOCKET_OPTIONS);
+      registerOnRequest(StreamManager.RegisterInstanceRequest.newBuilder());
+      registerOnMessage(HeronTuples.HeronTupleSet.newBuilder());
+    }
+
+    Map<String, Integer> getDataTuples() {
+      return new HashMap<>(dataTuples);
+    }
+
+    @Override
+    public void onConnect(SocketChannel channel) {
+    }
+
+    @Override
+    public void onRequest(REQID rid, SocketChannel channel, Message request) {
+      String instanceId =
+          ((StreamManager.RegisterInstanceRequest) request).getInstance().getInstanceId();
+      instanceIds.put(channel, instanceId);
+      sendResponse(rid, channel, UnitTestHelper.getRegisterInstanceResponse());
+
+      if (BOLT_ID.equals(instanceId)) {
+        boltChannel = channel;
+        for (Message message : pendingForBolt) {
+          sendMessage(boltChannel, message);
+        }
+        pendingForBolt.clear();
+      }
+    }
+
+    @Override
+    public void onMessage(SocketChannel channel, Message message) {
+      HeronTuples.HeronTupleSet tupleSet = (HeronTuples.HeronTupleSet) message;
+      if (!tupleSet.hasData()) {
+        return;
+      }
+      HeronTuples.HeronDataTupleSet data = tupleSet.getData();
+      String instanceId = instanceIds.get(channel);
+      dataTuples.merge(instanceId + "/" + data.getStream().getComponentName(),
+          data.getTuplesCount(), Integer::sum);
+
+      if (SPOUT_ID.equals(instanceId)) {
+        HeronTuples.HeronDataTupleSet2.Builder forwarded =
+            HeronTuples.HeronDataTupleSet2.newBuilder().setStream(data.getStream());
+        for (HeronTuples.HeronDataTuple tuple : data.getTuplesList()) {
+          forwarded.addTuples(tuple.toByteString());
+        }
+        Message tupleSet2 = HeronTuples.HeronTupleSet2.newBuilder()
+            .setSrcTaskId(0).setData(forwarded).build();
+        if (boltChannel == null) {
+          pendingForBolt.add(tupleSet2);
+        } else {
+          sendMessage(boltChannel, tupleSet2);
+        }
+      }
+    }
+
+    @Override
+    public void onClose(SocketChannel channel) {
+    }
+  }
+
+  /**
+   * A metrics manager summing the metrics reported by every publisher
+   */
+  private static final class TestMetricsManager extends HeronServer {
+    private final Map<SocketChannel, String> publishers = new HashMap<>();
+    private final Map<String, Long> metrics = new ConcurrentHashMap<>();
+
+    TestMetricsManager(NIOLooper looper, int port) {
+      super(looper, HeronServerTester.SERVER_HOST, port, HeronServerTester.TEST_SOCKET_OPTIONS);
+      registerOnRequest(Metrics.MetricPublisherRegisterRequest.newBuilder());
+      registerOnMessage(Metrics.MetricPublisherPublishMessage.newBuilder());
+    }
+
+    // The sum of the values reported by the publisher for the metrics whose names start with prefix
+    long sum(String instanceId, String prefix) {
+      long sum = 0;
+      for (Map.Entry<String, Long> metric : metrics.entrySet()) {
+        if (metric.getKey().startsWith(instanceId + "/" + prefix)) {
+          sum += metric.getValue();
+        }
+      }
+      return sum;
+    }
+
+    @Override
+    public void onConnect(SocketChannel channel) {
+    }
+
+    @Override
+    public void onRequest(REQID rid, SocketChannel channel, Message request) {
+      publishers.put(channel, ((Metrics.MetricPublisherRegisterRequest) request)
+          .getPublisher().getInstanceId());
+      sendResponse(rid, channel, Metrics.MetricPublisherRegisterResponse.newBuilder()
+          .setStatus(Common.Status.newBuilder().setStatus(Common.StatusCode.OK)).build());
+    }
+
+    @Override
+    public void onMessage(SocketChannel channel, Message message) {
+      Metrics.MetricPublisherPublishMessage publishMessage =
+          (Metrics.MetricPublisherPublishMessage) message;
+      String instanceId = publishMessage.hasPublisher()
+          ? publishMessage.getPublisher().getInstanceId() : publishers.get(channel);
+      for (Metrics.MetricDatum datum : publishMessage.getMetricsList()) {
+        long value;
+        try {
+          value = (long) Double.parseDouble(datum.getValue());
+        } catch (NumberFormatException e) {
+          continue;
+        }
+        metrics.merge(instanceId + "/" + datum.getName(), value, Long::sum);
+      }
+    }
+
+    @Override
+    public void onClose(SocketChannel channel) {
+    }
+  }
+}
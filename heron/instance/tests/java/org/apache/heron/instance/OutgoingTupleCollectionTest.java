@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.instance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.SlaveLooper;
+import org.apache.heron.common.utils.metrics.FullSpoutMetrics;
+import org.apache.heron.common.utils.metrics.MetricsCollector;
+import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
+import org.apache.heron.proto.system.HeronTuples;
+import org.apache.heron.resource.UnitTestHelper;
+
+/**
+ * OutgoingTupleCollection Tester.
+ */
+public class OutgoingTupleCollectionTest {
+  private static final String STREAM_ID = "default";
+  private static final int TUPLE_SIZE = 100;
+
+  private Communicator<Message> outQueue;
+  private OutgoingTupleCollection collection;
+
+  @Before
+  public void before() {
+    UnitTestHelper.addSystemConfigToSingleton();
+
+    PhysicalPlanHelper helper =
+        new PhysicalPlanHelper(UnitTestHelper.getPhysicalPlan(false, -1), "spout-id");
+    helper.setTopologyContext(new MetricsCollector(new SlaveLooper(), new Communicator<>()));
+    FullSpoutMetrics metrics = new FullSpoutMetrics();
+    metrics.initMultiCountMetrics(helper);
+
+    outQueue = new Communicator<>();
+    outQueue.init(100, 100, 0.5);
+    outQueue.countBytes(Message::getSerializedSize);
+    collection = new OutgoingTupleCollection(helper, outQueue, new ReentrantLock(), metrics);
+  }
+
+  @After
+  public void after() throws NoSuchFieldException, IllegalAccessException {
+    UnitTestHelper.clearSingletonRegistry();
+  }
+
+  /**
+   * Method: getQueuedBytes(), isOutQueuesAvailable()
+   */
+  @Test
+  public void testByteCapacity() {
+    long setBytes = sendOutTupleSet();
+    Assert.assertEquals(setBytes, collection.getQueuedBytes());
+    Assert.assertTrue(collection.isOutQueuesAvailable());
+
+    // The queue is full once its bytes reach the capacity, though it holds few items
+    outQueue.setByteCapacity(setBytes * 2);
+    sendOutTupleSet();
+    Assert.assertEquals(2, outQueue.size());
+    Assert.assertEquals(setBytes * 2, collection.getQueuedBytes());
+    Assert.assertFalse(collection.isOutQueuesAvailable());
+
+    // And available again once the consumer takes items out
+    outQueue.poll();
+    Assert.assertEquals(setBytes, collection.getQueuedBytes());
+    Assert.assertTrue(collection.isOutQueuesAvailable());
+
+    collection.clear();
+    Assert.assertEquals(0, collection.getQueuedBytes());
+  }
+
+  /**
+   * Method: sendOutTuples()
+   */
+  @Test
+  public void testFlushPolicyPendingBytes() {
+    List<Long> pendingBytes = new ArrayList<>();
+    collection.setFlushPolicy(new FlushPolicy() {
+      @Override
+      public boolean shouldFlush(long bytes, long lingeredNanos) {
+        pendingBytes.add(bytes);
+        return true;
+      }
+
+      @Override
+      public long getLingerNanos() {
+        return 0;
+      }
+
+      @Override
+      public long getTargetBytes() {
+        return Long.MAX_VALUE;
+      }
+
+      @Override
+      public void onFlush(long bytes, long currentTime, boolean backPressured) {
+      }
+    });
+    collection.setFlushLooper(new SlaveLooper());
+
+    sendOutTupleSet();
+
+    // Only an ack is pending: the data tuples sent out before do not count
+    HeronTuples.AckTuple.Builder ack = HeronTuples.AckTuple.newBuilder().setAckedtuple(1);
+    ack.addRootsBuilder().setTaskid(0).setKey(1);
+    collection.addAckTuple(ack, ack.build().getSerializedSize());
+    collection.sendOutTuples();
+
+    Assert.assertEquals(2, outQueue.size());
+    Assert.assertEquals(2, pendingBytes.size());
+    Assert.assertEquals(TUPLE_SIZE, (long) pendingBytes.get(0));
+    Assert.assertEquals(0, (long) pendingBytes.get(1));
+  }
+
+  // Send out a set of one tuple, and return the bytes it takes in the out queue
+  private long sendOutTupleSet() {
+    long queuedBytes = collection.getQueuedBytes();
+    HeronTuples.HeronDataTuple.Builder tuple = HeronTuples.HeronDataTuple.newBuilder()
+        .setKey(0)
+        .addValues(ByteString.copyFrom(new byte[TUPLE_SIZE]));
+    collection.addDataTuple(STREAM_ID, tuple, TUPLE_SIZE);
+    collection.sendOutTuples();
+    return collection.getQueuedBytes() - queuedBytes;
+  }
+}
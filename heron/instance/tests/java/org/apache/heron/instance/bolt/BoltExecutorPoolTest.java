@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance.bolt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.heron.api.tuple.Fields;
+import org.apache.heron.api.tuple.Tuple;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * BoltExecutorPool Tester.
+ */
+public class BoltExecutorPoolTest {
+  private static final int THREADS = 4;
+
+  private BoltExecutorPool pool;
+
+  @After
+  public void after() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Method: dispatch(Tuple tuple), by key fields
+   */
+  @Test
+  public void testKeyAffinity() {
+    Fields keyFields = new Fields("word");
+    Map<Tuple, Integer> keys = new HashMap<>();
+    List<Tuple> tuples = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Tuple tuple = mock(Tuple.class);
+      when(tuple.select(keyFields)).thenReturn(Collections.singletonList("word" + i % 10));
+      keys.put(tuple, i % 10);
+      tuples.add(tuple);
+    }
+
+    // The thread and the tuples executed by it, in order, of every key
+    Map<Integer, String> threadOfKey = new ConcurrentHashMap<>();
+    Map<Integer, List<Tuple>> executedOfKey = new ConcurrentHashMap<>();
+    pool = new BoltExecutorPool(THREADS, keyFields, tuple -> {
+      int key = keys.get(tuple);
+      String thread = Thread.currentThread().getName();
+      Assert.assertEquals(thread, threadOfKey.computeIfAbsent(key, k -> thread));
+      executedOfKey.computeIfAbsent(key, k -> new ArrayList<>()).add(tuple);
+    }, "test");
+
+    for (Tuple tuple : tuples) {
+      pool.dispatch(tuple);
+    }
+    Assert.assertEquals(100, pool.size());
+    pool.run();
+    Assert.assertEquals(0, pool.size());
+
+    for (int key = 0; key < 10; key++) {
+      List<Tuple> expected = new ArrayList<>();
+      for (int i = key; i < 100; i += 10) {
+        expected.add(tuples.get(i));
+      }
+      Assert.assertEquals(expected, executedOfKey.get(key));
+    }
+  }
+
+  /**
+   * Method: dispatch(Tuple tuple), round robin
+   */
+  @Test
+  public void testRoundRobin() {
+    Map<String, Integer> executedOfThread = new ConcurrentHashMap<>();
+    pool = new BoltExecutorPool(THREADS, null,
+        tuple -> executedOfThread.merge(Thread.currentThread().getName(), 1, Integer::sum),
+        "test");
+
+    for (int i = 0; i < 4 * THREADS; i++) {
+      pool.dispatch(mock(Tuple.class));
+    }
+    pool.run();
+
+    Assert.assertEquals(THREADS, executedOfThread.size());
+    for (int executed : executedOfThread.values()) {
+      Assert.assertEquals(4, executed);
+    }
+  }
+
+  /**
+   * Method: run(), once the bolt throws
+   */
+  @Test
+  public void testRunThrows() {
+    pool = new BoltExecutorPool(THREADS, null, tuple -> {
+      throw new IllegalStateException("failed");
+    }, "test");
+    pool.dispatch(mock(Tuple.class));
+    try {
+      pool.run();
+      Assert.fail("Expected the exception of the bolt");
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("failed", e.getMessage());
+    }
+    Assert.assertEquals(0, pool.size());
+  }
+
+  /**
+   * Method: run(), once the thread is interrupted
+   */
+  @Test
+  public void testRunInterrupted() {
+    pool = new BoltExecutorPool(THREADS, null, tuple -> { }, "test");
+    pool.dispatch(mock(Tuple.class));
+    Thread.currentThread().interrupt();
+    try {
+      pool.run();
+      Assert.assertTrue(Thread.currentThread().isInterrupted());
+      Assert.assertEquals(0, pool.size());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+}
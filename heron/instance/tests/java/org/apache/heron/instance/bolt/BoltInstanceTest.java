@@ -19,7 +19,15 @@
 
 package org.apache.heron.instance.bolt;
 
-
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -30,17 +38,27 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.apache.heron.api.Config;
+import org.apache.heron.api.bolt.IRichBolt;
 import org.apache.heron.api.generated.TopologyAPI;
+import org.apache.heron.api.hooks.BaseTaskHook;
+import org.apache.heron.api.hooks.info.BoltAckInfo;
+import org.apache.heron.api.hooks.info.BoltExecuteInfo;
+import org.apache.heron.api.hooks.info.BoltFailInfo;
 import org.apache.heron.api.serializer.IPluggableSerializer;
 import org.apache.heron.api.serializer.JavaSerializer;
+import org.apache.heron.api.utils.Utils;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.testhelpers.HeronServerTester;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
+import org.apache.heron.common.utils.tuple.TupleImpl;
 import org.apache.heron.instance.InstanceControlMsg;
 import org.apache.heron.instance.SlaveTester;
 import org.apache.heron.proto.system.HeronTuples;
+import org.apache.heron.proto.system.Metrics;
 import org.apache.heron.proto.system.PhysicalPlans;
 import org.apache.heron.resource.Constants;
+import org.apache.heron.resource.TestBatchedBolt;
 import org.apache.heron.resource.UnitTestHelper;
 
 /**
@@ -51,10 +69,15 @@ import org.apache.heron.resource.UnitTestHelper;
  * 4. The TestBolt should consume the Tuples, and behave as described in its comments.
  * 5. Check the values in singleton registry: execute-count, ack-count, fail-count, received-string-list.
  * 6. We will also check some common values, for instance, the stream name.
+ * 7. With several executor threads, we check the tuples are still decoded on the slave thread.
+ * 8. With a batched bolt, we check the batches, and the hooks, metrics and acks of every tuple.
  */
 public class BoltInstanceTest {
   private static final String BOLT_INSTANCE_ID = "bolt-id";
   private static final int SRC_TASK_ID = 1;
+  private static final int EXPECTED_TUPLES = 10;
+  private static final String EXECUTE_COUNT = "__execute-count/test-spout/default";
+  private static final long TEST_TIMEOUT_MS = 30000;
   private static IPluggableSerializer serializer = new JavaSerializer();
 
   // Singleton to be changed globally for testing
@@ -90,56 +113,304 @@ public class BoltInstanceTest {
    */
   @Test
   public void testReadTupleAndExecute() {
-    PhysicalPlans.PhysicalPlan physicalPlan = UnitTestHelper.getPhysicalPlan(false, -1);
+    CountDownLatch executeLatch = startBolt();
+
+    // Send tuples to bolt instance
+    HeronTuples.HeronTupleSet.Builder heronTupleSet = HeronTuples.HeronTupleSet.newBuilder();
+    heronTupleSet.setSrcTaskId(SRC_TASK_ID);
+    HeronTuples.HeronDataTupleSet.Builder dataTupleSet = HeronTuples.HeronDataTupleSet.newBuilder();
+    dataTupleSet.setStream(getStreamId());
+
+    // We will add 10 tuples to the set
+    for (int i = 0; i < EXPECTED_TUPLES; i++) {
+      dataTupleSet.addTuples(getDataTuple(i));
+    }
+
+    heronTupleSet.setData(dataTupleSet);
+    slaveTester.getInStreamQueue().offer(heronTupleSet.build());
+
+    checkExecution(executeLatch);
+  }
+
+  /**
+   * Test the reading of tuples passed as raw bytes, which are decoded lazily by the bolt
+   */
+  @Test
+  public void testReadLazyTupleAndExecute() {
+    CountDownLatch executeLatch = startBolt();
+
+    // Send raw tuples to bolt instance
+    HeronTuples.HeronTupleSet2.Builder heronTupleSet = HeronTuples.HeronTupleSet2.newBuilder();
+    heronTupleSet.setSrcTaskId(SRC_TASK_ID);
+    HeronTuples.HeronDataTupleSet2.Builder dataTupleSet =
+        HeronTuples.HeronDataTupleSet2.newBuilder();
+    dataTupleSet.setStream(getStreamId());
+
+    // We will add 10 tuples to the set
+    for (int i = 0; i < EXPECTED_TUPLES; i++) {
+      dataTupleSet.addTuples(getDataTuple(i).build().toByteString());
+    }
+
+    heronTupleSet.setData(dataTupleSet);
+    slaveTester.getInStreamQueue().offer(heronTupleSet.build());
+
+    checkExecution(executeLatch);
+  }
+
+  /**
+   * Test the tuples passed as raw bytes are decoded before they are dispatched to the threads
+   * executing them, since the serializer is not thread-safe
+   */
+  @Test
+  public void testDecodeLazyTupleBeforeDispatch() {
+    Map<String, Object> config = new HashMap<>();
+    config.put(Config.TOPOLOGY_BOLT_EXECUTOR_THREADS, "2");
+    config.put(Config.TOPOLOGY_SERIALIZER_CLASSNAME, ThreadRecordingSerializer.class.getName());
+    // The bolt is run by several threads, so it is only checked all the tuples are executed
+    CountDownLatch executeLatch = startBolt(config);
+    ThreadRecordingSerializer.THREADS.clear();
+
+    HeronTuples.HeronTupleSet2.Builder heronTupleSet = HeronTuples.HeronTupleSet2.newBuilder();
+    heronTupleSet.setSrcTaskId(SRC_TASK_ID);
+    HeronTuples.HeronDataTupleSet2.Builder dataTupleSet =
+        HeronTuples.HeronDataTupleSet2.newBuilder();
+    dataTupleSet.setStream(getStreamId());
+    for (int i = 0; i < EXPECTED_TUPLES; i++) {
+      dataTupleSet.addTuples(getDataTuple(i).build().toByteString());
+    }
+    heronTupleSet.setData(dataTupleSet);
+    slaveTester.getInStreamQueue().offer(heronTupleSet.build());
+
+    HeronServerTester.await(executeLatch);
+    Assert.assertEquals(EXPECTED_TUPLES, tupleExecutedCount.intValue());
+    Assert.assertEquals(1, ThreadRecordingSerializer.THREADS.size());
+    for (String thread : ThreadRecordingSerializer.THREADS) {
+      Assert.assertFalse(thread, thread.contains("-executor-"));
+    }
+  }
+
+  /**
+   * Test a batched bolt executes the tuples a batch at a time, with the hooks and the metrics
+   * updated once per tuple, and the tuples of a batch acked and failed as the bolt decides
+   */
+  @Test
+  public void testReadTupleAndExecuteBatch() {
+    Map<String, Object> config = new HashMap<>();
+    config.put(Config.TOPOLOGY_BOLT_BATCH_SIZE, "4");
+    config.put(Config.TOPOLOGY_AUTO_TASK_HOOKS,
+        new ArrayList<>(Collections.singletonList(CountingTaskHook.class.getName())));
+    CountingTaskHook.reset();
+    CountDownLatch executeLatch = startBolt(config, true, new TestBatchedBolt());
+    SingletonRegistry.INSTANCE.registerSingleton(Constants.RECEIVED_STRING_LIST, receivedStrings);
+    List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+    SingletonRegistry.INSTANCE.registerSingleton(Constants.BATCH_SIZE_LIST, batchSizes);
+
+    HeronTuples.HeronTupleSet.Builder heronTupleSet = HeronTuples.HeronTupleSet.newBuilder();
+    heronTupleSet.setSrcTaskId(SRC_TASK_ID);
+    HeronTuples.HeronDataTupleSet.Builder dataTupleSet = HeronTuples.HeronDataTupleSet.newBuilder();
+    dataTupleSet.setStream(getStreamId());
+    for (int i = 0; i < EXPECTED_TUPLES; i++) {
+      dataTupleSet.addTuples(getDataTuple(i));
+    }
+    heronTupleSet.setData(dataTupleSet);
+    slaveTester.getInStreamQueue().offer(heronTupleSet.build());
+
+    checkExecution(executeLatch);
+    Assert.assertEquals(Arrays.asList(4, 4, 2), batchSizes);
 
-    PhysicalPlanHelper physicalPlanHelper = new PhysicalPlanHelper(physicalPlan, BOLT_INSTANCE_ID);
+    // The acks and fails are sent out after the batches, so their hooks have all run by then
+    Map<Long, Integer> acked = new HashMap<>();
+    Map<Long, Integer> failed = new HashMap<>();
+    long deadline = System.currentTimeMillis() + TEST_TIMEOUT_MS;
+    while (acked.size() + failed.size() < EXPECTED_TUPLES
+        && System.currentTimeMillis() < deadline) {
+      HeronTuples.HeronTupleSet tupleSet =
+          (HeronTuples.HeronTupleSet) slaveTester.getOutStreamQueue().poll();
+      if (tupleSet == null) {
+        sleep();
+        continue;
+      }
+      for (HeronTuples.AckTuple ack : tupleSet.getControl().getAcksList()) {
+        acked.merge(ack.getRoots(0).getKey(), 1, Integer::sum);
+      }
+      for (HeronTuples.AckTuple fail : tupleSet.getControl().getFailsList()) {
+        failed.merge(fail.getRoots(0).getKey(), 1, Integer::sum);
+      }
+    }
+
+    Map<Long, Integer> expectedAcked = new HashMap<>();
+    Map<Long, Integer> expectedFailed = new HashMap<>();
+    Map<Long, Integer> expectedExecuted = new HashMap<>();
+    for (int i = 0; i < EXPECTED_TUPLES; i++) {
+      long key = getDataTuple(i).getKey();
+      ((i & 1) == 0 ? expectedAcked : expectedFailed).put(key, 1);
+      expectedExecuted.put(key, 1);
+    }
+    Assert.assertEquals(expectedAcked, acked);
+    Assert.assertEquals(expectedFailed, failed);
+    Assert.assertEquals(expectedExecuted, CountingTaskHook.EXECUTED);
+    Assert.assertEquals(expectedAcked, CountingTaskHook.ACKED);
+    Assert.assertEquals(expectedFailed, CountingTaskHook.FAILED);
+    Assert.assertEquals(0, CountingTaskHook.UNTIMED.get());
+
+    // The metrics are exported every second
+    long executeCount = 0;
+    deadline = System.currentTimeMillis() + TEST_TIMEOUT_MS;
+    while (executeCount < EXPECTED_TUPLES && System.currentTimeMillis() < deadline) {
+      Metrics.MetricPublisherPublishMessage message = slaveTester.getSlaveMetricsOut().poll();
+      if (message == null) {
+        sleep();
+        continue;
+      }
+      for (Metrics.MetricDatum datum : message.getMetricsList()) {
+        if (EXECUTE_COUNT.equals(datum.getName())) {
+          executeCount += Long.parseLong(datum.getValue());
+        }
+      }
+    }
+    Assert.assertEquals(EXPECTED_TUPLES, executeCount);
+  }
+
+  private CountDownLatch startBolt() {
+    CountDownLatch executeLatch = startBolt(Collections.<String, Object>emptyMap());
+    SingletonRegistry.INSTANCE.registerSingleton(Constants.RECEIVED_STRING_LIST, receivedStrings);
+    return executeLatch;
+  }
+
+  private CountDownLatch startBolt(Map<String, Object> config) {
+    return startBolt(config, false, null);
+  }
+
+  /**
+   * Start the bolt with the topology config added, and the acking system enabled if asked.
+   * The bolt is the TestBolt of the physical plan if null.
+   */
+  private CountDownLatch startBolt(Map<String, Object> config, boolean ackEnabled,
+                                   IRichBolt bolt) {
+    PhysicalPlans.PhysicalPlan.Builder physicalPlan =
+        UnitTestHelper.getPhysicalPlan(ackEnabled, -1).toBuilder();
+    for (Map.Entry<String, Object> entry : config.entrySet()) {
+      TopologyAPI.Config.KeyValue.Builder keyValue =
+          TopologyAPI.Config.KeyValue.newBuilder().setKey(entry.getKey());
+      if (entry.getValue() instanceof String) {
+        keyValue.setValue((String) entry.getValue())
+            .setType(TopologyAPI.ConfigValueType.STRING_VALUE);
+      } else {
+        keyValue.setSerializedValue(ByteString.copyFrom(Utils.serialize(entry.getValue())))
+            .setType(TopologyAPI.ConfigValueType.JAVA_SERIALIZED_VALUE);
+      }
+      physicalPlan.getTopologyBuilder().getTopologyConfigBuilder().addKvs(keyValue);
+    }
+    if (bolt != null) {
+      physicalPlan.getTopologyBuilder().getBoltsBuilder(0).getCompBuilder()
+          .setSerializedObject(ByteString.copyFrom(Utils.serialize(bolt)));
+    }
+
+    PhysicalPlanHelper physicalPlanHelper =
+        new PhysicalPlanHelper(physicalPlan.build(), BOLT_INSTANCE_ID);
     InstanceControlMsg instanceControlMsg = InstanceControlMsg.newBuilder().
         setNewPhysicalPlanHelper(physicalPlanHelper).
         build();
 
     slaveTester.getInControlQueue().offer(instanceControlMsg);
 
-    final int expectedTuples = 10;
-    CountDownLatch executeLatch = new CountDownLatch(expectedTuples);
+    CountDownLatch executeLatch = new CountDownLatch(EXPECTED_TUPLES);
     SingletonRegistry.INSTANCE.registerSingleton(Constants.ACK_COUNT, ackCount);
     SingletonRegistry.INSTANCE.registerSingleton(Constants.FAIL_COUNT, failCount);
     SingletonRegistry.INSTANCE.registerSingleton(Constants.EXECUTE_COUNT, tupleExecutedCount);
     SingletonRegistry.INSTANCE.registerSingleton(Constants.EXECUTE_LATCH, executeLatch);
-    SingletonRegistry.INSTANCE.registerSingleton(Constants.RECEIVED_STRING_LIST, receivedStrings);
+    return executeLatch;
+  }
 
-    // Send tuples to bolt instance
-    HeronTuples.HeronTupleSet.Builder heronTupleSet = HeronTuples.HeronTupleSet.newBuilder();
-    heronTupleSet.setSrcTaskId(SRC_TASK_ID);
-    HeronTuples.HeronDataTupleSet.Builder dataTupleSet = HeronTuples.HeronDataTupleSet.newBuilder();
+  private static TopologyAPI.StreamId.Builder getStreamId() {
     TopologyAPI.StreamId.Builder streamId = TopologyAPI.StreamId.newBuilder();
     streamId.setComponentName("test-spout");
     streamId.setId("default");
-    dataTupleSet.setStream(streamId);
-
-    // We will add 10 tuples to the set
-    for (int i = 0; i < expectedTuples; i++) {
-      HeronTuples.HeronDataTuple.Builder dataTuple = HeronTuples.HeronDataTuple.newBuilder();
-      dataTuple.setKey(19901017 + i);
-
-      HeronTuples.RootId.Builder rootId = HeronTuples.RootId.newBuilder();
-      rootId.setKey(19901017 + i);
-      rootId.setTaskid(0);
-      dataTuple.addRoots(rootId);
+    return streamId;
+  }
 
-      String tupleValue = (i & 1) == 0 ? "A" : "B";
-      dataTuple.addValues(ByteString.copyFrom(serializer.serialize(tupleValue)));
+  private static HeronTuples.HeronDataTuple.Builder getDataTuple(int i) {
+    HeronTuples.HeronDataTuple.Builder dataTuple = HeronTuples.HeronDataTuple.newBuilder();
+    dataTuple.setKey(19901017 + i);
 
-      dataTupleSet.addTuples(dataTuple);
-    }
+    HeronTuples.RootId.Builder rootId = HeronTuples.RootId.newBuilder();
+    rootId.setKey(19901017 + i);
+    rootId.setTaskid(0);
+    dataTuple.addRoots(rootId);
 
-    heronTupleSet.setData(dataTupleSet);
-    slaveTester.getInStreamQueue().offer(heronTupleSet.build());
+    String tupleValue = (i & 1) == 0 ? "A" : "B";
+    dataTuple.addValues(ByteString.copyFrom(serializer.serialize(tupleValue)));
+    return dataTuple;
+  }
 
+  private void checkExecution(CountDownLatch executeLatch) {
     // Wait the bolt's finishing
     HeronServerTester.await(executeLatch);
-    Assert.assertEquals(expectedTuples, tupleExecutedCount.intValue());
-    Assert.assertEquals(expectedTuples / 2, ackCount.intValue());
-    Assert.assertEquals(expectedTuples / 2, failCount.intValue());
+    Assert.assertEquals(EXPECTED_TUPLES, tupleExecutedCount.intValue());
+    Assert.assertEquals(EXPECTED_TUPLES / 2, ackCount.intValue());
+    Assert.assertEquals(EXPECTED_TUPLES / 2, failCount.intValue());
     Assert.assertEquals("ABABABABAB", receivedStrings.toString());
   }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(10);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A task hook counting the bolt executes, acks and fails of every tuple, by tuple key
+   */
+  public static class CountingTaskHook extends BaseTaskHook {
+    static final Map<Long, Integer> EXECUTED = new ConcurrentHashMap<>();
+    static final Map<Long, Integer> ACKED = new ConcurrentHashMap<>();
+    static final Map<Long, Integer> FAILED = new ConcurrentHashMap<>();
+    static final AtomicInteger UNTIMED = new AtomicInteger();
+
+    static void reset() {
+      EXECUTED.clear();
+      ACKED.clear();
+      FAILED.clear();
+      UNTIMED.set(0);
+    }
+
+    @Override
+    public void boltExecute(BoltExecuteInfo info) {
+      EXECUTED.merge(((TupleImpl) info.getTuple()).getTupleKey(), 1, Integer::sum);
+      if (info.getExecuteLatency() == null) {
+        UNTIMED.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void boltAck(BoltAckInfo info) {
+      ACKED.merge(((TupleImpl) info.getTuple()).getTupleKey(), 1, Integer::sum);
+    }
+
+    @Override
+    public void boltFail(BoltFailInfo info) {
+      FAILED.merge(((TupleImpl) info.getTuple()).getTupleKey(), 1, Integer::sum);
+    }
+  }
+
+  /**
+   * A JavaSerializer recording the threads deserializing values
+   */
+  public static class ThreadRecordingSerializer extends JavaSerializer {
+    static final Set<String> THREADS = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Object deserialize(byte[] input) {
+      THREADS.add(Thread.currentThread().getName());
+      return super.deserialize(input);
+    }
+
+    @Override
+    public Object deserialize(ByteBuffer input) {
+      THREADS.add(Thread.currentThread().getName());
+      return super.deserialize(input);
+    }
+  }
 }
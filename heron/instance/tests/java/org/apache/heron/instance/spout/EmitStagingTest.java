@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.heron.instance.spout;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.heron.common.basics.SlaveLooper;
+
+/**
+ * EmitStaging Tester.
+ */
+public class EmitStagingTest {
+  private SlaveLooper looper;
+
+  @Before
+  public void before() {
+    looper = new SlaveLooper();
+  }
+
+  /**
+   * Method: stage(...), poll()
+   */
+  @Test
+  public void testStageFromThreads() throws InterruptedException {
+    EmitStaging staging = new EmitStaging(16, looper);
+    Thread[] threads = new Thread[3];
+    for (int t = 0; t < threads.length; t++) {
+      final String streamId = "stream" + t;
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10; i++) {
+            staging.stage(streamId, Arrays.<Object>asList(i), i, null);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertEquals(30, staging.size());
+
+    // The emits of every thread come in order, and the threads take turns
+    int[] next = new int[threads.length];
+    Set<String> firstRound = new HashSet<>();
+    for (int i = 0; i < 30; i++) {
+      EmitStaging.StagedEmit emit = staging.poll();
+      Assert.assertNotNull(emit);
+      if (i < threads.length) {
+        firstRound.add(emit.getStreamId());
+      }
+      int t = emit.getStreamId().charAt("stream".length()) - '0';
+      Assert.assertEquals(next[t], emit.getMessageId());
+      Assert.assertEquals(Arrays.<Object>asList(next[t]), emit.getTuple());
+      next[t]++;
+    }
+    Assert.assertEquals(threads.length, firstRound.size());
+    Assert.assertNull(staging.poll());
+    Assert.assertEquals(0, staging.size());
+    Assert.assertEquals(0, staging.getWaitCount());
+  }
+
+  /**
+   * Method: poll() while the threads staging emits exit
+   */
+  @Test
+  public void testOwnerExits() throws InterruptedException {
+    final int threads = 100;
+    final int emitsPerThread = 5;
+    EmitStaging staging = new EmitStaging(emitsPerThread, looper);
+    Thread producers = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int t = 0; t < threads; t++) {
+          Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+              for (int i = 0; i < emitsPerThread; i++) {
+                staging.stage("default", Arrays.<Object>asList(i), null, null);
+              }
+            }
+          });
+          producer.start();
+        }
+      }
+    });
+    producers.start();
+
+    // No emit is lost while the buffers of the threads which exited are dropped
+    int polled = 0;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (polled < threads * emitsPerThread && System.nanoTime() < deadline) {
+      if (staging.poll() != null) {
+        polled++;
+      }
+    }
+    producers.join();
+    Assert.assertEquals(threads * emitsPerThread, polled);
+  }
+
+  /**
+   * Method: stage(...) into a full buffer
+   */
+  @Test
+  public void testWaitForRoom() throws InterruptedException {
+    EmitStaging staging = new EmitStaging(4, looper);
+    CountDownLatch done = new CountDownLatch(1);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 5; i++) {
+          staging.stage("default", Arrays.<Object>asList(i), null, 1);
+        }
+        done.countDown();
+      }
+    });
+    producer.start();
+
+    Assert.assertFalse(done.await(50, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(4, staging.size());
+    Assert.assertEquals(1, staging.getWaitCount());
+
+    EmitStaging.StagedEmit emit = staging.poll();
+    Assert.assertEquals(Integer.valueOf(1), emit.getEmitDirectTaskId());
+    Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(4, staging.size());
+  }
+
+  /**
+   * Method: close()
+   */
+  @Test
+  public void testClose() throws InterruptedException {
+    EmitStaging staging = new EmitStaging(1, looper);
+    CountDownLatch done = new CountDownLatch(1);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        staging.stage("default", Arrays.<Object>asList(0), null, null);
+        staging.stage("default", Arrays.<Object>asList(1), null, null);
+        done.countDown();
+      }
+    });
+    producer.start();
+    Assert.assertFalse(done.await(50, TimeUnit.MILLISECONDS));
+
+    staging.close();
+    Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    Assert.assertNull(staging.poll());
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.instance.spout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * InFlightTuples Tester.
+ */
+public class InFlightTuplesTest {
+
+  /**
+   * Method: add(...), retire(long rootId)
+   */
+  @Test
+  public void testAddAndRetire() {
+    InFlightTuples inFlight = new InFlightTuples();
+    Random random = new Random(1);
+    Map<Long, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      long rootId = random.nextLong();
+      inFlight.add(rootId, "stream" + (i % 3), i, i);
+      expected.put(rootId, i);
+    }
+    Assert.assertEquals(1000, inFlight.size());
+    Assert.assertEquals(-1, inFlight.retire(42));
+
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      int slot = inFlight.retire(entry.getKey());
+      Assert.assertTrue(slot >= 0);
+      Assert.assertEquals(entry.getValue(), inFlight.getMessageId(slot));
+      Assert.assertEquals("stream" + (entry.getValue() % 3), inFlight.getStreamId(slot));
+      Assert.assertEquals((long) entry.getValue(), inFlight.getInsertionTime(slot));
+      Assert.assertEquals(-1, inFlight.retire(entry.getKey()));
+    }
+    Assert.assertEquals(0, inFlight.size());
+  }
+
+  /**
+   * Method: retireOldest(long deadline)
+   */
+  @Test
+  public void testRetireOldest() {
+    InFlightTuples inFlight = new InFlightTuples();
+    for (int i = 0; i < 10; i++) {
+      inFlight.add(i, "default", "m" + i, i * 10);
+    }
+    // Retiring in the middle keeps the others in order of time
+    inFlight.retire(1);
+    inFlight.retire(2);
+
+    int slot = inFlight.retireOldest(35);
+    Assert.assertEquals("m0", inFlight.getMessageId(slot));
+    slot = inFlight.retireOldest(35);
+    Assert.assertEquals("m3", inFlight.getMessageId(slot));
+    Assert.assertEquals(-1, inFlight.retireOldest(35));
+    Assert.assertEquals(6, inFlight.size());
+
+    // A tuple emitted again with the same root id replaces the old one
+    inFlight.add(9, "default", "m9-again", 100);
+    Assert.assertEquals(6, inFlight.size());
+    for (int i = 4; i < 9; i++) {
+      Assert.assertEquals("m" + i, inFlight.getMessageId(inFlight.retireOldest(100)));
+    }
+    Assert.assertEquals("m9-again", inFlight.getMessageId(inFlight.retireOldest(100)));
+    Assert.assertEquals(0, inFlight.size());
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.instance.spout;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * SpoutFlowController Tester.
+ */
+public class SpoutFlowControllerTest {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Method: hasCredits(long), getAvailableCredits(long)
+   */
+  @Test
+  public void testCredits() {
+    SpoutFlowController controller = new SpoutFlowController(1000, 0, 0, Duration.ZERO);
+    Assert.assertTrue(controller.isCreditBased());
+    Assert.assertFalse(controller.isRateLimited());
+
+    Assert.assertTrue(controller.hasCredits(0));
+    Assert.assertEquals(1000, controller.getAvailableCredits(0));
+    Assert.assertTrue(controller.hasCredits(999));
+    Assert.assertEquals(1, controller.getAvailableCredits(999));
+    Assert.assertFalse(controller.hasCredits(1000));
+    Assert.assertEquals(0, controller.getAvailableCredits(1500));
+
+    // Without credits, the spout is never stopped by them
+    SpoutFlowController unlimited = new SpoutFlowController(0, 0, 0, Duration.ZERO);
+    Assert.assertFalse(unlimited.isCreditBased());
+    Assert.assertTrue(unlimited.hasCredits(Long.MAX_VALUE));
+    Assert.assertEquals(0, unlimited.getThrottleNanos(0));
+  }
+
+  /**
+   * Method: onEmitted(long, long, long), getThrottleNanos(long)
+   */
+  @Test
+  public void testTuplesPerSecond() {
+    // 1 tuple every millisecond
+    SpoutFlowController controller = new SpoutFlowController(0, 1000, 0, Duration.ZERO);
+    long now = 1234567;
+    Assert.assertEquals(0, controller.getThrottleNanos(now));
+
+    controller.onEmitted(10, 100, now);
+    Assert.assertEquals(10 * MILLIS, controller.getThrottleNanos(now));
+    Assert.assertEquals(4 * MILLIS, controller.getThrottleNanos(now + 6 * MILLIS));
+    Assert.assertEquals(0, controller.getThrottleNanos(now + 10 * MILLIS));
+
+    // The emits are paced from the time the last ones were admitted at
+    controller.onEmitted(1, 0, now + 10 * MILLIS);
+    Assert.assertEquals(MILLIS, controller.getThrottleNanos(now + 10 * MILLIS));
+  }
+
+  /**
+   * Method: onEmitted(long, long, long), getThrottleNanos(long)
+   */
+  @Test
+  public void testBytesPerSecond() {
+    // 1 MB per second, with a limit on the tuples never reached
+    SpoutFlowController controller =
+        new SpoutFlowController(0, 1000000, 1000000, Duration.ZERO);
+    long now = -5 * MILLIS;
+    controller.onEmitted(2, 2000, now);
+    Assert.assertEquals(2 * MILLIS, controller.getThrottleNanos(now));
+  }
+
+  /**
+   * Method: onEmitted(long, long, long)
+   */
+  @Test
+  public void testBurst() {
+    SpoutFlowController controller = new SpoutFlowController(0, 1000, 0, Duration.ofMillis(5));
+    long now = 0;
+    controller.onEmitted(1, 0, now);
+    Assert.assertEquals(0, controller.getThrottleNanos(now));
+
+    // After a long idle time, up to 5 ms of it is made up for
+    now += 1000 * MILLIS;
+    controller.onEmitted(5, 0, now);
+    Assert.assertEquals(0, controller.getThrottleNanos(now));
+    controller.onEmitted(1, 0, now);
+    Assert.assertEquals(MILLIS, controller.getThrottleNanos(now));
+  }
+
+  /**
+   * Method: takeThrottledNanos(long)
+   */
+  @Test
+  public void testThrottledNanos() {
+    SpoutFlowController controller = new SpoutFlowController(0, 1000, 0, Duration.ZERO);
+    controller.onEmitted(10, 0, 0);
+    Assert.assertTrue(controller.getThrottleNanos(2 * MILLIS) > 0);
+    Assert.assertEquals(3 * MILLIS, controller.takeThrottledNanos(5 * MILLIS));
+
+    // Throttled until 10 ms, and counted up to when it is seen to be no longer
+    Assert.assertEquals(0, controller.getThrottleNanos(12 * MILLIS));
+    Assert.assertEquals(7 * MILLIS, controller.takeThrottledNanos(20 * MILLIS));
+    Assert.assertEquals(0, controller.takeThrottledNanos(30 * MILLIS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLimit() {
+    new SpoutFlowController(0, -1, 0, Duration.ZERO);
+  }
+}
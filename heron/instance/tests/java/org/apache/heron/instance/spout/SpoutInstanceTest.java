@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.protobuf.ByteString;
@@ -34,9 +35,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.apache.heron.api.Config;
+import org.apache.heron.api.generated.TopologyAPI;
 import org.apache.heron.api.serializer.IPluggableSerializer;
 import org.apache.heron.api.serializer.JavaSerializer;
 import org.apache.heron.common.basics.SingletonRegistry;
+import org.apache.heron.common.config.SystemConfig;
 import org.apache.heron.common.testhelpers.HeronServerTester;
 import org.apache.heron.common.utils.misc.PhysicalPlanHelper;
 import org.apache.heron.instance.InstanceControlMsg;
@@ -67,6 +71,9 @@ import org.apache.heron.resource.UnitTestHelper;
  * We enable acking system without timeout, and let the spout emit tuples; then we collect the corresponding tuples'
  * info, for instance: key, root and so on. Then we construct 5 acks and 5 fails and send back.
  * We will check whether the singleton Constants.ACK_COUNT and "fail count" match the expected value.
+ * 6. rateLimit()
+ * We limit the tuples the spout emits per second, and check the tuples are not all received before
+ * the time the limit allows them in.
  */
 public class SpoutInstanceTest {
   private static final String SPOUT_INSTANCE_ID = "spout-id";
@@ -288,6 +295,48 @@ public class SpoutInstanceTest {
     slaveTester.getTestLooper().loop();
   }
 
+  /**
+   * Test the emits are paced to the rate limit of the spout
+   */
+  @Test
+  public void testRateLimit() {
+    final int tuplesExpected = 10;
+    final int maxTuplesPerSecond = 20;
+    // The first tuple is emitted at once, and then one every 1 / maxTuplesPerSecond seconds,
+    // but for a burst of no more than the emit batch time
+    final long minElapsedMs = TimeUnit.SECONDS.toMillis(tuplesExpected - 1) / maxTuplesPerSecond
+        - ((SystemConfig) SingletonRegistry.INSTANCE.getSingleton(
+            SystemConfig.HERON_SYSTEM_CONFIG)).getInstanceEmitBatchTime().toMillis();
+
+    PhysicalPlans.PhysicalPlan.Builder physicalPlan =
+        UnitTestHelper.getPhysicalPlan(false, -1).toBuilder();
+    physicalPlan.getTopologyBuilder().getTopologyConfigBuilder().addKvs(
+        TopologyAPI.Config.KeyValue.newBuilder()
+            .setKey(Config.TOPOLOGY_SPOUT_MAX_TUPLES_PER_SECOND)
+            .setValue(Integer.toString(maxTuplesPerSecond))
+            .setType(TopologyAPI.ConfigValueType.STRING_VALUE));
+    final long startTime = System.nanoTime();
+    slaveTester.getInControlQueue().offer(InstanceControlMsg.newBuilder()
+        .setNewPhysicalPlanHelper(new PhysicalPlanHelper(physicalPlan.build(), SPOUT_INSTANCE_ID))
+        .build());
+
+    Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        drainOutStream();
+        if (tupleReceived == tuplesExpected) {
+          long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+          Assert.assertTrue("Received all tuples in " + elapsedMs + " ms",
+              elapsedMs >= minElapsedMs);
+          slaveTester.getTestLooper().exitLoop();
+        }
+      }
+    };
+
+    slaveTester.getTestLooper().addTasksOnWakeup(task);
+    slaveTester.getTestLooper().loop();
+  }
+
   private void constructAndSendAcks() {
     // We will construct the ack&fail tuples
     // We will construct 5 acks and 5 fails
@@ -46,6 +46,7 @@ public final class Constants {
   public static final String DEACTIVATE_COUNT_LATCH = "deactivate-count-latch";
 
   public static final String RECEIVED_STRING_LIST = "received-string-list";
+  public static final String BATCH_SIZE_LIST = "batch-size-list";
 
   public static final String HERON_SYSTEM_CONFIG = "org.apache.heron.common.config.SystemConfig";
 
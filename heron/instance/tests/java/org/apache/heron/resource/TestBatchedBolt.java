@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.heron.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Ignore;
+
+import org.apache.heron.api.bolt.BaseRichBolt;
+import org.apache.heron.api.bolt.IBatchedBolt;
+import org.apache.heron.api.bolt.OutputCollector;
+import org.apache.heron.api.topology.OutputFieldsDeclarer;
+import org.apache.heron.api.topology.TopologyContext;
+import org.apache.heron.api.tuple.Fields;
+import org.apache.heron.api.tuple.Tuple;
+import org.apache.heron.common.basics.SingletonRegistry;
+
+/**
+ * A batched Bolt used for unit test, it behaves like TestBolt with every tuple of a batch, and:
+ * 1. It will append the size of every batch to the singleton Constants.BATCH_SIZE_LIST
+ * 2. It will ack the tuples TestBolt would ack with one ackBatch(), and fail the others with one
+ * failBatch()
+ */
+@Ignore
+public class TestBatchedBolt extends BaseRichBolt implements IBatchedBolt {
+  private static final long serialVersionUID = -1397265340232683522L;
+  private OutputCollector outputCollector;
+  private int tupleExecuted = 0;
+
+  @Override
+  public void prepare(
+      Map<String, Object> map,
+      TopologyContext topologyContext,
+      OutputCollector collector) {
+    this.outputCollector = collector;
+  }
+
+  @Override
+  public void execute(Tuple tuple) {
+    executeBatch(Collections.singletonList(tuple));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void executeBatch(List<Tuple> inputs) {
+    AtomicInteger ackCount =
+        (AtomicInteger) SingletonRegistry.INSTANCE.getSingleton(Constants.ACK_COUNT);
+    AtomicInteger failCount =
+        (AtomicInteger) SingletonRegistry.INSTANCE.getSingleton(Constants.FAIL_COUNT);
+    AtomicInteger tupleExecutedCount =
+        (AtomicInteger) SingletonRegistry.INSTANCE.getSingleton(Constants.EXECUTE_COUNT);
+    CountDownLatch tupleExecutedLatch =
+        (CountDownLatch) SingletonRegistry.INSTANCE.getSingleton(Constants.EXECUTE_LATCH);
+    StringBuilder receivedStrings =
+        (StringBuilder) SingletonRegistry.INSTANCE.getSingleton(Constants.RECEIVED_STRING_LIST);
+    List<Integer> batchSizes =
+        (List<Integer>) SingletonRegistry.INSTANCE.getSingleton(Constants.BATCH_SIZE_LIST);
+
+    if (batchSizes != null) {
+      batchSizes.add(inputs.size());
+    }
+
+    List<Tuple> toAck = new ArrayList<>();
+    List<Tuple> toFail = new ArrayList<>();
+    for (Tuple tuple : inputs) {
+      if (receivedStrings != null) {
+        receivedStrings.append(tuple.getString(0));
+      }
+      if (tupleExecutedCount != null) {
+        tupleExecutedCount.getAndIncrement();
+      }
+      if ((tupleExecuted & 1) == 0) {
+        toAck.add(tuple);
+      } else {
+        toFail.add(tuple);
+      }
+      tupleExecuted++;
+    }
+
+    outputCollector.ackBatch(toAck);
+    if (ackCount != null) {
+      ackCount.getAndAdd(toAck.size());
+    }
+    outputCollector.failBatch(toFail);
+    if (failCount != null) {
+      failCount.getAndAdd(toFail.size());
+    }
+
+    if (tupleExecutedLatch != null) {
+      for (int i = 0; i < inputs.size(); i++) {
+        tupleExecutedLatch.countDown();
+      }
+    }
+  }
+
+  @Override
+  public void declareOutputFields(OutputFieldsDeclarer outputFieldsDeclarer) {
+    outputFieldsDeclarer.declare(new Fields("word"));
+  }
+}
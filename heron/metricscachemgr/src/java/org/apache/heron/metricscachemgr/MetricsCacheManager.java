@@ -32,6 +32,7 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.heron.common.basics.ByteAmount;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SysUtils;
 import org.apache.heron.common.config.SystemConfig;
@@ -117,7 +118,9 @@ public class MetricsCacheManager {
             systemConfig.getMetricsMgrNetworkReadBatchTime(),
             systemConfig.getMetricsMgrNetworkOptionsSocketSendBufferSize(),
             systemConfig.getMetricsMgrNetworkOptionsSocketReceivedBufferSize(),
-            systemConfig.getMetricsMgrNetworkOptionsMaximumPacketSize());
+            systemConfig.getMetricsMgrNetworkOptionsMaximumPacketSize(),
+            ByteAmount.ZERO,
+            systemConfig.getMetricsMgrNetworkOptionsReadArenaSize());
 
     // Construct the server to accepts messages from sinks
     metricsCacheManagerServer = new MetricsCacheManagerServer(metricsCacheManagerServerLoop,
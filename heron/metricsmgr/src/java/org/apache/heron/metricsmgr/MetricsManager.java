@@ -39,6 +39,7 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.heron.api.metric.MultiCountMetric;
+import org.apache.heron.common.basics.ByteAmount;
 import org.apache.heron.common.basics.Communicator;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SingletonRegistry;
@@ -47,6 +48,7 @@ import org.apache.heron.common.basics.SysUtils;
 import org.apache.heron.common.basics.TypeUtils;
 import org.apache.heron.common.config.SystemConfig;
 import org.apache.heron.common.network.HeronSocketOptions;
+import org.apache.heron.common.network.UnixDomainSockets;
 import org.apache.heron.common.utils.logging.ErrorReportLoggingHandler;
 import org.apache.heron.common.utils.logging.LoggingHelper;
 import org.apache.heron.common.utils.metrics.JVMMetrics;
@@ -164,7 +166,9 @@ public class MetricsManager {
             systemConfig.getMetricsMgrNetworkReadBatchTime(),
             systemConfig.getMetricsMgrNetworkOptionsSocketSendBufferSize(),
             systemConfig.getMetricsMgrNetworkOptionsSocketReceivedBufferSize(),
-            systemConfig.getMetricsMgrNetworkOptionsMaximumPacketSize());
+            systemConfig.getMetricsMgrNetworkOptionsMaximumPacketSize(),
+            ByteAmount.ZERO,
+            systemConfig.getMetricsMgrNetworkOptionsReadArenaSize());
 
     // Set the MultiCountMetric for MetricsManagerServer
     MultiCountMetric serverCounters = new MultiCountMetric();
@@ -175,6 +179,21 @@ public class MetricsManager {
     metricsManagerServer = new MetricsManagerServer(metricsManagerServerLoop, serverHost,
         serverPort, serverSocketOptions, serverCounters);
 
+    // The instances of the container could connect through a Unix domain socket instead
+    String socketDirectory = systemConfig.getMetricsMgrNetworkUnixSocketDirectory();
+    if (socketDirectory != null && !socketDirectory.isEmpty()) {
+      if (UnixDomainSockets.isSupported()) {
+        metricsManagerServer.addEndpoint(UnixDomainSockets.newAddress(
+            UnixDomainSockets.getSocketPath(socketDirectory,
+                UnixDomainSockets.METRICS_MANAGER_PROCESS_NAME, serverPort)));
+      } else {
+        LOG.warning("Unix domain sockets are not supported by this JVM, listening on TCP only");
+      }
+    }
+
+    // The instances could write their metrics into memory-mapped ring buffers instead
+    metricsManagerServer.enableMetricsRings(systemConfig.getMetricsMgrMetricsRingPollInterval());
+
     executors = Executors.newFixedThreadPool(config.getNumberOfSinks());
     sinkExecutors = new ConcurrentHashMap<>(config.getNumberOfSinks());
     sinksRetryAttempts = new ConcurrentHashMap<>(config.getNumberOfSinks());
@@ -19,8 +19,11 @@
 
 package org.apache.heron.metricsmgr;
 
-import java.net.SocketAddress;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -29,15 +32,19 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 
 import org.apache.heron.api.metric.MultiCountMetric;
 import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.MappedRingBuffer;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SingletonRegistry;
 import org.apache.heron.common.network.HeronServer;
 import org.apache.heron.common.network.HeronSocketOptions;
+import org.apache.heron.common.network.ProtoBufferCodec;
 import org.apache.heron.common.network.REQID;
+import org.apache.heron.common.network.SocketChannelHelper;
 import org.apache.heron.proto.system.Common;
 import org.apache.heron.proto.system.Metrics;
 import org.apache.heron.proto.tmaster.TopologyMaster;
@@ -61,14 +68,23 @@ public class MetricsManagerServer extends HeronServer {
   private static final String SERVER_EXCEPTIONS_RECEIVED = "exceptions-received";
   private static final String SERVER_NEW_TMASTER_LOCATION = "new-tmaster-location";
   private static final String SERVER_TMASTER_LOCATION_RECEIVED = "tmaster-location-received";
+  private static final String SERVER_NEW_METRICS_RING = "new-metrics-ring";
+  private static final String SERVER_METRICS_RING_MESSAGES_RECEIVED =
+      "metrics-ring-messages-received";
 
   private final List<Communicator<MetricsRecord>> metricsSinkCommunicators;
 
-  // A map from MetricPublisher's immutable SocketAddress to the MetricPublisher
-  // We would fetch SocketAddress by using SocketChannel.socket().getRemoteSocketAddress,
-  // which will continue to return the connected address after the socket is closed.
-  // So given that the SocketChannel is connected at first, it would not be null in future.
-  private final Map<SocketAddress, Metrics.MetricPublisher> publisherMap;
+  // A map from MetricPublisher's SocketChannel to the MetricPublisher
+  // The channel rather than its remote address is the key, since all the clients connected
+  // through a Unix domain socket have the same, unnamed, remote address.
+  private final Map<SocketChannel, Metrics.MetricPublisher> publisherMap;
+
+  // A map from MetricPublisher's SocketChannel to the ring buffer it writes its metrics into
+  private final Map<SocketChannel, MappedRingBuffer> metricsRingMap;
+
+  // The interval to poll the metrics rings, or null if metrics rings are not accepted
+  private Duration metricsRingPollInterval;
+  private boolean metricsRingPollScheduled;
 
   // Internal MultiCountMetric Counters
   private final MultiCountMetric serverMetricsCounters;
@@ -98,7 +114,8 @@ public class MetricsManagerServer extends HeronServer {
     // it would barely hurt any performance
     this.metricsSinkCommunicators = new CopyOnWriteArrayList<Communicator<MetricsRecord>>();
 
-    this.publisherMap = new HashMap<SocketAddress, Metrics.MetricPublisher>();
+    this.publisherMap = new HashMap<SocketChannel, Metrics.MetricPublisher>();
+    this.metricsRingMap = new HashMap<SocketChannel, MappedRingBuffer>();
 
     // Initialize the register
     registerInitialization();
@@ -129,10 +146,20 @@ public class MetricsManagerServer extends HeronServer {
     return this.metricsSinkCommunicators.remove(communicator);
   }
 
+  /**
+   * Accept the metrics ring buffers offered by the publishers on register, and read the
+   * metrics written into them every pollInterval. Must be called before the server starts.
+   *
+   * @param pollInterval the interval to poll the metrics rings
+   */
+  public void enableMetricsRings(Duration pollInterval) {
+    this.metricsRingPollInterval = pollInterval;
+  }
+
   @Override
   public void onConnect(SocketChannel channel) {
     LOG.info("Metrics Manager got a new connection from host:port "
-        + channel.socket().getRemoteSocketAddress());
+        + SocketChannelHelper.getRemoteAddress(channel));
     // Nothing here. Everything happens in the register
   }
 
@@ -148,23 +175,30 @@ public class MetricsManagerServer extends HeronServer {
   @Override
   public void onMessage(SocketChannel channel, Message message) {
     // Fetch the request to append necessary info
-    Metrics.MetricPublisher request = publisherMap.get(channel.socket().getRemoteSocketAddress());
+    Metrics.MetricPublisher request = publisherMap.get(channel);
     if (request == null) {
       LOG.severe("Publish message from an unknown socket: " + channel.toString());
       return;
     }
 
     if (message instanceof Metrics.MetricPublisherPublishMessage) {
-      handlePublisherPublishMessage(request, (Metrics.MetricPublisherPublishMessage) message);
+      Metrics.MetricPublisherPublishMessage publishMessage =
+          (Metrics.MetricPublisherPublishMessage) message;
+      // A connection shared by several instances names the publisher in every message
+      if (publishMessage.hasPublisher()) {
+        request = publishMessage.getPublisher();
+      }
+      handlePublisherPublishMessage(request, publishMessage);
     } else if (message instanceof Metrics.MetricsCacheLocationRefreshMessage) {
       // LOG down where the MetricsCache Location comes from
       LOG.info("MetricsCache Location is refresh from: "
-          + channel.socket().getRemoteSocketAddress());
+          + SocketChannelHelper.getRemoteAddress(channel));
       handleMetricsCacheLocationRefreshMessage(
           request, (Metrics.MetricsCacheLocationRefreshMessage) message);
     } else if (message instanceof Metrics.TMasterLocationRefreshMessage) {
       // LOG down where the TMaster Location comes from
-      LOG.info("TMaster Location is refresh from: " + channel.socket().getRemoteSocketAddress());
+      LOG.info("TMaster Location is refresh from: "
+          + SocketChannelHelper.getRemoteAddress(channel));
       handleTMasterLocationRefreshMessage(request, (Metrics.TMasterLocationRefreshMessage) message);
     } else {
       LOG.severe("Unknown kind of message received from Metrics Manager");
@@ -174,11 +208,18 @@ public class MetricsManagerServer extends HeronServer {
   @Override
   public void onClose(SocketChannel channel) {
     LOG.log(Level.SEVERE, "Got a connection close from remote socket address: {0}",
-        new Object[] {channel.socket().getRemoteSocketAddress()});
+        new Object[] {SocketChannelHelper.getRemoteAddress(channel)});
+
+    // Read what is left in the metrics ring of the publisher before un-registering it
+    MappedRingBuffer metricsRing = metricsRingMap.get(channel);
+    if (metricsRing != null) {
+      drainMetricsRing(channel, metricsRing);
+      metricsRingMap.remove(channel);
+    }
 
     // Unregister the Publisher
     Metrics.MetricPublisher request =
-        publisherMap.remove(channel.socket().getRemoteSocketAddress());
+        publisherMap.remove(channel);
     if (request == null) {
       LOG.severe("Unknown connection closed");
     } else {
@@ -208,25 +249,31 @@ public class MetricsManagerServer extends HeronServer {
         + " component_name: {1}, port: {2}, instance_id: {3}, instance_index: {4} from {5}",
         new Object[] {publisher.getHostname(), publisher.getComponentName(), publisher.getPort(),
             publisher.getInstanceId(), publisher.getInstanceIndex(),
-            channel.socket().getRemoteSocketAddress()});
+            SocketChannelHelper.getRemoteAddress(channel)});
 
     // Check whether publisher has already been registered
     Common.StatusCode responseStatusCode = Common.StatusCode.NOTOK;
 
-    if (publisherMap.containsKey(channel.socket().getRemoteSocketAddress())) {
+    if (publisherMap.containsKey(channel)) {
       LOG.log(Level.SEVERE, "Metrics publisher already exists for hostname: {0},"
           + " component_name: {1}, port: {2}, instance_id: {3}, instance_index: {4}",
           new Object[] {publisher.getHostname(), publisher.getComponentName(), publisher.getPort(),
               publisher.getInstanceId(), publisher.getInstanceIndex()});
     } else {
-      publisherMap.put(channel.socket().getRemoteSocketAddress(), publisher);
+      publisherMap.put(channel, publisher);
       // Add it to the map
       responseStatusCode = Common.StatusCode.OK;
     }
 
+    boolean metricsRingAccepted = responseStatusCode == Common.StatusCode.OK
+        && request.hasMetricsRingPath() && openMetricsRing(channel, request.getMetricsRingPath());
+
     Common.Status responseStatus = Common.Status.newBuilder().setStatus(responseStatusCode).build();
     Metrics.MetricPublisherRegisterResponse response =
-        Metrics.MetricPublisherRegisterResponse.newBuilder().setStatus(responseStatus).build();
+        Metrics.MetricPublisherRegisterResponse.newBuilder()
+            .setStatus(responseStatus)
+            .setMetricsRingAccepted(metricsRingAccepted)
+            .build();
 
     // Send the response
     sendResponse(rid, channel, response);
@@ -235,6 +282,54 @@ public class MetricsManagerServer extends HeronServer {
     serverMetricsCounters.scope(SERVER_NEW_REGISTER).incr();
   }
 
+  // Open the metrics ring buffer of the publisher, returning whether it would be read
+  private boolean openMetricsRing(SocketChannel channel, String path) {
+    if (metricsRingPollInterval == null) {
+      return false;
+    }
+    MappedRingBuffer metricsRing;
+    try {
+      metricsRing = MappedRingBuffer.open(new File(path));
+    } catch (IOException e) {
+      LOG.log(Level.WARNING, "Failed to open the metrics ring buffer " + path
+          + ", metrics would be received on the socket", e);
+      return false;
+    }
+    metricsRingMap.put(channel, metricsRing);
+    serverMetricsCounters.scope(SERVER_NEW_METRICS_RING).incr();
+
+    if (!metricsRingPollScheduled) {
+      metricsRingPollScheduled = true;
+      registerTimerEvent(metricsRingPollInterval, new Runnable() {
+        @Override
+        public void run() {
+          for (Map.Entry<SocketChannel, MappedRingBuffer> entry : metricsRingMap.entrySet()) {
+            drainMetricsRing(entry.getKey(), entry.getValue());
+          }
+          registerTimerEvent(metricsRingPollInterval, this);
+        }
+      });
+    }
+    return true;
+  }
+
+  // Handle the messages written into the metrics ring, decoding them in place
+  private void drainMetricsRing(SocketChannel channel, MappedRingBuffer metricsRing) {
+    final Metrics.MetricPublisher publisher = publisherMap.get(channel);
+    int drained = metricsRing.drain((ByteBuffer buffer) -> {
+      try {
+        Metrics.MetricPublisherPublishMessage message =
+            ProtoBufferCodec.parseFrom(Metrics.MetricPublisherPublishMessage.parser(), buffer);
+        handlePublisherPublishMessage(
+            message.hasPublisher() ? message.getPublisher() : publisher, message);
+      } catch (InvalidProtocolBufferException e) {
+        LOG.log(Level.SEVERE, "Invalid message in the metrics ring of "
+            + SocketChannelHelper.getRemoteAddress(channel), e);
+      }
+    });
+    serverMetricsCounters.scope(SERVER_METRICS_RING_MESSAGES_RECEIVED).incrBy(drained);
+  }
+
   private void handlePublisherPublishMessage(Metrics.MetricPublisher request,
                                              Metrics.MetricPublisherPublishMessage message) {
     if (message.getMetricsCount() <= 0 && message.getExceptionsCount() <= 0) {
@@ -19,7 +19,11 @@
 
 package org.apache.heron.metricsmgr;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 
 import com.google.protobuf.Message;
@@ -31,9 +35,11 @@ import org.junit.Test;
 
 import org.apache.heron.api.metric.MultiCountMetric;
 import org.apache.heron.common.basics.Communicator;
+import org.apache.heron.common.basics.MappedRingBuffer;
 import org.apache.heron.common.basics.NIOLooper;
 import org.apache.heron.common.basics.SysUtils;
 import org.apache.heron.common.network.HeronClient;
+import org.apache.heron.common.network.ProtoBufferCodec;
 import org.apache.heron.common.network.StatusCode;
 import org.apache.heron.common.testhelpers.CommunicatorTestHelper;
 import org.apache.heron.common.testhelpers.HeronServerTester;
@@ -61,6 +67,12 @@ public class MetricsManagerServerTest {
 
   private MetricsManagerServer metricsManagerServer;
   private HeronServerTester serverTester;
+  // The publisher set in the messages sent, if any
+  private Metrics.MetricPublisher messagePublisher;
+  // The metrics ring offered on register, if any, and whether the server accepted it
+  private File metricsRingFile;
+  private MappedRingBuffer metricsRing;
+  private volatile boolean metricsRingAccepted;
 
   @Before
   public void before() throws IOException {
@@ -76,6 +88,9 @@ public class MetricsManagerServerTest {
   @After
   public void after() {
     serverTester.stop();
+    if (metricsRingFile != null) {
+      metricsRingFile.delete();
+    }
   }
 
   /**
@@ -103,6 +118,38 @@ public class MetricsManagerServerTest {
    */
   @Test
   public void testMetricsManagerServer() throws InterruptedException {
+    assertRecordsReceived("hostname:0/component/instance-id");
+  }
+
+  /**
+   * The publisher in a message takes precedence over the one registered on the connection
+   */
+  @Test
+  public void testPublisherInMessage() throws InterruptedException {
+    messagePublisher = Metrics.MetricPublisher.newBuilder().
+        setHostname("hostname").
+        setPort(2).
+        setComponentName("other-component").
+        setInstanceId("other-instance-id").
+        setInstanceIndex(0).
+        build();
+    assertRecordsReceived("hostname:2/other-component/other-instance-id");
+  }
+
+  /**
+   * Method: enableMetricsRings(Duration pollInterval)
+   */
+  @Test
+  public void testMetricsRing() throws IOException, InterruptedException {
+    metricsRingFile = Files.createTempFile("metrics", ".ring").toFile();
+    metricsRing = MappedRingBuffer.create(metricsRingFile, 64 * 1024);
+    metricsManagerServer.enableMetricsRings(Duration.ofMillis(10));
+
+    assertRecordsReceived("hostname:0/component/instance-id");
+    Assert.assertTrue(metricsRingAccepted);
+  }
+
+  private void assertRecordsReceived(String source) throws InterruptedException {
     CountDownLatch offersLatch = new CountDownLatch(MESSAGE_SIZE);
     Communicator<MetricsRecord> sinkCommunicator =
         CommunicatorTestHelper.spyCommunicator(new Communicator<MetricsRecord>(), offersLatch);
@@ -119,7 +166,7 @@ public class MetricsManagerServerTest {
 
       MetricsRecord record = sinkCommunicator.poll();
 
-      Assert.assertEquals("hostname:0/component/instance-id", record.getSource());
+      Assert.assertEquals(source, record.getSource());
       Assert.assertEquals("default", record.getContext());
 
       for (MetricsInfo info : record.getMetrics()) {
@@ -155,7 +202,12 @@ public class MetricsManagerServerTest {
           setInstanceId("instance-id").
           setInstanceIndex(1).
           build();
-      return Metrics.MetricPublisherRegisterRequest.newBuilder().setPublisher(publisher).build();
+      Metrics.MetricPublisherRegisterRequest.Builder builder =
+          Metrics.MetricPublisherRegisterRequest.newBuilder().setPublisher(publisher);
+      if (metricsRingFile != null) {
+        builder.setMetricsRingPath(metricsRingFile.getAbsolutePath());
+      }
+      return builder.build();
     }
 
     @Override
@@ -175,6 +227,8 @@ public class MetricsManagerServerTest {
     @Override
     public void handleResponse(HeronClient client, StatusCode status,
                                Object ctx, Message response) {
+      metricsRingAccepted =
+          ((Metrics.MetricPublisherRegisterResponse) response).getMetricsRingAccepted();
       for (int i = 0; i < maxMessages; i++) {
         sendMessage(client);
       }
@@ -200,7 +254,26 @@ public class MetricsManagerServerTest {
                 .setCount(EXCEPTION_COUNT)
                 .setLogging(LOGGING).build());
       }
-      client.sendMessage(builder.build());
+      if (messagePublisher != null) {
+        builder.setPublisher(messagePublisher);
+      }
+      Metrics.MetricPublisherPublishMessage message = builder.build();
+      if (metricsRingAccepted) {
+        writeToMetricsRing(message);
+      } else {
+        client.sendMessage(message);
+      }
+    }
+
+    private void writeToMetricsRing(Metrics.MetricPublisherPublishMessage message) {
+      ByteBuffer buffer = metricsRing.claim(message.getSerializedSize());
+      Assert.assertNotNull(buffer);
+      try {
+        ProtoBufferCodec.writeTo(message, buffer);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      metricsRing.commit();
     }
   }
 }